@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.accumulator;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes an accumulator in a binary form of fixed size. An
+ * aggregate operation with a codec lets the processors keep the
+ * accumulators off-heap, see {@link
+ * com.hazelcast.jet.aggregate.AggregateOperation#withFixedSizeCodec}.
+ * <p>
+ * The codec must write all the state of the accumulator and {@link #read}
+ * must overwrite all of it, because the processor reuses one accumulator
+ * object for all keys. The binary form is only kept in the memory of a
+ * single member, it's never sent to other members or written to
+ * snapshots.
+ *
+ * @param <A> type of the accumulator
+ */
+public interface FixedSizeAccumulatorCodec<A> extends Serializable {
+
+    /**
+     * Returns the number of bytes of the binary form.
+     */
+    int size();
+
+    /**
+     * Writes the accumulator to the buffer at the given offset.
+     */
+    void write(@Nonnull A acc, @Nonnull ByteBuffer buffer, int offset);
+
+    /**
+     * Reads the accumulator from the buffer at the given offset, overwriting
+     * the state of {@code acc}.
+     */
+    void read(@Nonnull ByteBuffer buffer, int offset, @Nonnull A acc);
+
+    /**
+     * Returns the codec for {@link LongAccumulator}.
+     */
+    @Nonnull
+    static FixedSizeAccumulatorCodec<LongAccumulator> longAccumulator() {
+        return FixedSizeAccumulatorCodecs.LONG;
+    }
+
+    /**
+     * Returns the codec for {@link DoubleAccumulator}.
+     */
+    @Nonnull
+    static FixedSizeAccumulatorCodec<DoubleAccumulator> doubleAccumulator() {
+        return FixedSizeAccumulatorCodecs.DOUBLE;
+    }
+
+    /**
+     * Returns the codec for {@link LongLongAccumulator}.
+     */
+    @Nonnull
+    static FixedSizeAccumulatorCodec<LongLongAccumulator> longLongAccumulator() {
+        return FixedSizeAccumulatorCodecs.LONG_LONG;
+    }
+
+    /**
+     * Returns the codec for {@link LongDoubleAccumulator}.
+     */
+    @Nonnull
+    static FixedSizeAccumulatorCodec<LongDoubleAccumulator> longDoubleAccumulator() {
+        return FixedSizeAccumulatorCodecs.LONG_DOUBLE;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.accumulator;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+
+/**
+ * The codecs returned by the static methods of {@link
+ * FixedSizeAccumulatorCodec}.
+ */
+final class FixedSizeAccumulatorCodecs {
+
+    static final FixedSizeAccumulatorCodec<LongAccumulator> LONG = new LongCodec();
+    static final FixedSizeAccumulatorCodec<DoubleAccumulator> DOUBLE = new DoubleCodec();
+    static final FixedSizeAccumulatorCodec<LongLongAccumulator> LONG_LONG = new LongLongCodec();
+    static final FixedSizeAccumulatorCodec<LongDoubleAccumulator> LONG_DOUBLE = new LongDoubleCodec();
+
+    private FixedSizeAccumulatorCodecs() {
+    }
+
+    private static final class LongCodec implements FixedSizeAccumulatorCodec<LongAccumulator> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int size() {
+            return LONG_SIZE_IN_BYTES;
+        }
+
+        @Override
+        public void write(@Nonnull LongAccumulator acc, @Nonnull ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, acc.get());
+        }
+
+        @Override
+        public void read(@Nonnull ByteBuffer buffer, int offset, @Nonnull LongAccumulator acc) {
+            acc.set(buffer.getLong(offset));
+        }
+
+        private Object readResolve() {
+            return LONG;
+        }
+    }
+
+    private static final class DoubleCodec implements FixedSizeAccumulatorCodec<DoubleAccumulator> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int size() {
+            return LONG_SIZE_IN_BYTES;
+        }
+
+        @Override
+        public void write(@Nonnull DoubleAccumulator acc, @Nonnull ByteBuffer buffer, int offset) {
+            buffer.putDouble(offset, acc.export());
+        }
+
+        @Override
+        public void read(@Nonnull ByteBuffer buffer, int offset, @Nonnull DoubleAccumulator acc) {
+            acc.set(buffer.getDouble(offset));
+        }
+
+        private Object readResolve() {
+            return DOUBLE;
+        }
+    }
+
+    private static final class LongLongCodec implements FixedSizeAccumulatorCodec<LongLongAccumulator> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int size() {
+            return 2 * LONG_SIZE_IN_BYTES;
+        }
+
+        @Override
+        public void write(@Nonnull LongLongAccumulator acc, @Nonnull ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, acc.get1());
+            buffer.putLong(offset + LONG_SIZE_IN_BYTES, acc.get2());
+        }
+
+        @Override
+        public void read(@Nonnull ByteBuffer buffer, int offset, @Nonnull LongLongAccumulator acc) {
+            acc.set1(buffer.getLong(offset));
+            acc.set2(buffer.getLong(offset + LONG_SIZE_IN_BYTES));
+        }
+
+        private Object readResolve() {
+            return LONG_LONG;
+        }
+    }
+
+    private static final class LongDoubleCodec implements FixedSizeAccumulatorCodec<LongDoubleAccumulator> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int size() {
+            return 2 * LONG_SIZE_IN_BYTES;
+        }
+
+        @Override
+        public void write(@Nonnull LongDoubleAccumulator acc, @Nonnull ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, acc.getLong());
+            buffer.putDouble(offset + LONG_SIZE_IN_BYTES, acc.getDouble());
+        }
+
+        @Override
+        public void read(@Nonnull ByteBuffer buffer, int offset, @Nonnull LongDoubleAccumulator acc) {
+            acc.setLong(buffer.getLong(offset));
+            acc.setDouble(buffer.getDouble(offset + LONG_SIZE_IN_BYTES));
+        }
+
+        private Object readResolve() {
+            return LONG_DOUBLE;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.aggregate;
 
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
 import com.hazelcast.jet.datamodel.Tag;
 import com.hazelcast.jet.function.DistributedBiConsumer;
 import com.hazelcast.jet.function.DistributedFunction;
@@ -245,6 +246,53 @@ public interface AggregateOperation<A, R> extends Serializable {
     @Nonnull
     AggregateOperation<A, A> withIdentityFinish();
 
+    /**
+     * Returns the codec of the fixed-size binary form of the accumulator, or
+     * {@code null} if the operation doesn't have one. If it's present, the
+     * processors that keep an accumulator per grouping key may store the
+     * accumulators off-heap, in a hash table keyed by the serialized key,
+     * instead of keeping them as objects in a {@code HashMap}. See {@link
+     * #withFixedSizeCodec}.
+     * <p>
+     * The default implementation returns {@code null}.
+     */
+    @Nullable
+    default FixedSizeAccumulatorCodec<A> fixedSizeCodec() {
+        return null;
+    }
+
+    /**
+     * Returns a copy of this aggregate operation with the given {@linkplain
+     * #fixedSizeCodec() fixed-size codec}. Use it to opt into off-heap
+     * storage of the accumulators in the processors that support it. For
+     * example:
+     * <pre>{@code
+     * AggregateOperation1<Object, LongAccumulator, Long> counting =
+     *         AggregateOperations.counting()
+     *                            .withFixedSizeCodec(FixedSizeAccumulatorCodec.longAccumulator());
+     * }</pre>
+     * With off-heap storage:
+     * <ul><li>
+     *     two grouping keys are equal if their serialized forms are equal,
+     *     which is the same rule {@code IMap} uses
+     * </li><li>
+     *     the processor reuses a single accumulator object for all the keys:
+     *     it reads the accumulator from the table, calls {@code accumulateFn}
+     *     and writes it back. The functions of the operation must not keep a
+     *     reference to the accumulator and {@code exportFn} must not return
+     *     it
+     * </li></ul>
+     * The default implementation ignores the codec and returns {@code this},
+     * so the accumulators of an operation that doesn't support a codec stay
+     * on the heap.
+     *
+     * @param codec the codec or {@code null} to disable off-heap storage
+     */
+    @Nonnull
+    default AggregateOperation<A, R> withFixedSizeCodec(@Nullable FixedSizeAccumulatorCodec<A> codec) {
+        return this;
+    }
+
     /**
      * Returns a copy of this aggregate operation, but with the {@code
      * accumulate} primitive replaced with one that expects to find accumulator
@@ -268,7 +316,7 @@ public interface AggregateOperation<A, R> extends Serializable {
                 combineFn,
                 deductFn(),
                 exportFn(),
-                finishFn());
+                finishFn(), fixedSizeCodec());
     }
 
     /**
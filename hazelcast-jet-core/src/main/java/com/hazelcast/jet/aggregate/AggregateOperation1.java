@@ -16,10 +16,12 @@
 
 package com.hazelcast.jet.aggregate;
 
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
 import com.hazelcast.jet.function.DistributedBiConsumer;
 import com.hazelcast.jet.function.DistributedFunction;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.stream.Collector;
 
 /**
@@ -56,6 +58,12 @@ public interface AggregateOperation1<T, A, R> extends AggregateOperation<A, R> {
     @Nonnull @Override
     AggregateOperation1<T, A, A> withIdentityFinish();
 
+    // Narrows the return type
+    @Nonnull @Override
+    default AggregateOperation1<T, A, R> withFixedSizeCodec(@Nullable FixedSizeAccumulatorCodec<A> codec) {
+        return this;
+    }
+
     // Narrows the return type
     @Nonnull @Override
     <R_NEW> AggregateOperation1<T, A, R_NEW> andThen(DistributedFunction<? super R, ? extends R_NEW> thenFn);
@@ -16,10 +16,12 @@
 
 package com.hazelcast.jet.aggregate;
 
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
 import com.hazelcast.jet.function.DistributedBiConsumer;
 import com.hazelcast.jet.function.DistributedFunction;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Specialization of {@code AggregateOperation} (refer to its {@linkplain
@@ -82,6 +84,12 @@ public interface AggregateOperation2<T0, T1, A, R> extends AggregateOperation<A,
     @Nonnull @Override
     AggregateOperation2<T0, T1, A, A> withIdentityFinish();
 
+    // Narrows the return type
+    @Nonnull @Override
+    default AggregateOperation2<T0, T1, A, R> withFixedSizeCodec(@Nullable FixedSizeAccumulatorCodec<A> codec) {
+        return this;
+    }
+
     // Narrows the return type
     @Nonnull @Override
     <R_NEW> AggregateOperation2<T0, T1, A, R_NEW> andThen(DistributedFunction<? super R, ? extends R_NEW> thenFn);
@@ -16,10 +16,12 @@
 
 package com.hazelcast.jet.aggregate;
 
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
 import com.hazelcast.jet.function.DistributedBiConsumer;
 import com.hazelcast.jet.function.DistributedFunction;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Specialization of {@code AggregateOperation} (refer to its {@linkplain
@@ -100,6 +102,12 @@ public interface AggregateOperation3<T0, T1, T2, A, R> extends AggregateOperatio
     @Nonnull @Override
     AggregateOperation3<T0, T1, T2, A, A> withIdentityFinish();
 
+    // Narrows the return type
+    @Nonnull @Override
+    default AggregateOperation3<T0, T1, T2, A, R> withFixedSizeCodec(@Nullable FixedSizeAccumulatorCodec<A> codec) {
+        return this;
+    }
+
     // Narrows the return type
     @Nonnull @Override
     <R_NEW> AggregateOperation3<T0, T1, T2, A, R_NEW> andThen(DistributedFunction<? super R, ? extends R_NEW> thenFn);
@@ -209,7 +209,7 @@ public final class AggregateOperationBuilder<A> {
             }
             checkSerializable(finishFn, "finishFn");
             return new AggregateOperation1Impl<>(
-                    createFn, accumulateFn0, combineFn, deductFn, exportFn, finishFn);
+                    createFn, accumulateFn0, combineFn, deductFn, exportFn, finishFn, null);
         }
 
         /**
@@ -230,7 +230,7 @@ public final class AggregateOperationBuilder<A> {
             }
             checkSerializable(exportFinishFn, "exportFinishFn");
             return new AggregateOperation1Impl<>(
-                    createFn, accumulateFn0, combineFn, deductFn, exportFinishFn, exportFinishFn);
+                    createFn, accumulateFn0, combineFn, deductFn, exportFinishFn, exportFinishFn, null);
         }
     }
 
@@ -331,7 +331,7 @@ public final class AggregateOperationBuilder<A> {
                         " finish primitive");
             }
             return new AggregateOperation2Impl<>(
-                    createFn, accumulateFn0, accumulateFn1, combineFn, deductFn, exportFn, finishFn);
+                    createFn, accumulateFn0, accumulateFn1, combineFn, deductFn, exportFn, finishFn, null);
         }
 
         /**
@@ -347,7 +347,7 @@ public final class AggregateOperationBuilder<A> {
                 @Nonnull DistributedFunction<? super A, ? extends R_NEW> exportFinishFn
         ) {
             return new AggregateOperation2Impl<>(createFn, accumulateFn0, accumulateFn1,
-                    combineFn, deductFn, exportFinishFn, exportFinishFn);
+                    combineFn, deductFn, exportFinishFn, exportFinishFn, null);
         }
     }
 
@@ -435,7 +435,7 @@ public final class AggregateOperationBuilder<A> {
             checkSerializable(finishFn, "finishFn");
             return new AggregateOperation3Impl<>(createFn,
                     accumulateFn0, accumulateFn1, accumulateFn2,
-                    combineFn, deductFn, exportFn, finishFn);
+                    combineFn, deductFn, exportFn, finishFn, null);
         }
 
         /**
@@ -452,7 +452,7 @@ public final class AggregateOperationBuilder<A> {
         ) {
             checkSerializable(exportFinishFn, "exportFinishFn");
             return new AggregateOperation3Impl<>(createFn, accumulateFn0, accumulateFn1, accumulateFn2,
-                    combineFn, deductFn, exportFinishFn, exportFinishFn);
+                    combineFn, deductFn, exportFinishFn, exportFinishFn, null);
         }
     }
 
@@ -560,7 +560,7 @@ public final class AggregateOperationBuilder<A> {
             }
             checkSerializable(finishFn, "finishFn");
             return new AggregateOperationImpl<>(
-                    createFn, packAccumulateFns(), combineFn, deductFn, exportFn, finishFn);
+                    createFn, packAccumulateFns(), combineFn, deductFn, exportFn, finishFn, null);
         }
 
         /**
@@ -581,7 +581,7 @@ public final class AggregateOperationBuilder<A> {
             }
             checkSerializable(exportFinishFn, "exportFinishFn");
             return new AggregateOperationImpl<>(
-                    createFn, packAccumulateFns(), combineFn, deductFn, exportFinishFn, exportFinishFn);
+                    createFn, packAccumulateFns(), combineFn, deductFn, exportFinishFn, exportFinishFn, null);
         }
 
         private DistributedBiConsumer<? super A, ?>[] packAccumulateFns() {
@@ -33,6 +33,7 @@ import com.hazelcast.jet.function.DistributedSupplier;
 import com.hazelcast.jet.function.DistributedToDoubleFunction;
 import com.hazelcast.jet.function.DistributedToLongFunction;
 import com.hazelcast.jet.function.DistributedTriFunction;
+import com.hazelcast.jet.impl.aggregate.PrimitiveAccumulateFn;
 import com.hazelcast.jet.pipeline.StageWithWindow;
 
 import javax.annotation.Nonnull;
@@ -71,7 +72,7 @@ public final class AggregateOperations {
     public static <T> AggregateOperation1<T, LongAccumulator, Long> counting() {
         return AggregateOperation
                 .withCreate(LongAccumulator::new)
-                .andAccumulate((LongAccumulator a, T item) -> a.add(1))
+                .andAccumulate(PrimitiveAccumulateFn.<T>counting())
                 .andCombine(LongAccumulator::add)
                 .andDeduct(LongAccumulator::subtractAllowingOverflow)
                 .andExportFinish(LongAccumulator::get);
@@ -90,7 +91,7 @@ public final class AggregateOperations {
         checkSerializable(getLongValueFn, "getLongValueFn");
         return AggregateOperation
                 .withCreate(LongAccumulator::new)
-                .andAccumulate((LongAccumulator a, T item) -> a.add(getLongValueFn.applyAsLong(item)))
+                .andAccumulate(PrimitiveAccumulateFn.<T>summingLong(getLongValueFn))
                 .andCombine(LongAccumulator::add)
                 .andDeduct(LongAccumulator::subtract)
                 .andExportFinish(LongAccumulator::get);
@@ -109,7 +110,7 @@ public final class AggregateOperations {
         checkSerializable(getDoubleValueFn, "getDoubleValueFn");
         return AggregateOperation
                 .withCreate(DoubleAccumulator::new)
-                .andAccumulate((DoubleAccumulator a, T item) -> a.accumulate(getDoubleValueFn.applyAsDouble(item)))
+                .andAccumulate(PrimitiveAccumulateFn.<T>summingDouble(getDoubleValueFn))
                 .andCombine(DoubleAccumulator::combine)
                 .andDeduct(DoubleAccumulator::deduct)
                 .andExportFinish(DoubleAccumulator::export);
@@ -239,14 +240,7 @@ public final class AggregateOperations {
         // accumulator.value2 is sum
         return AggregateOperation
                 .withCreate(LongLongAccumulator::new)
-                .andAccumulate((LongLongAccumulator a, T i) -> {
-                    // a bit faster check than in addExact, specialized for increment
-                    if (a.get1() == Long.MAX_VALUE) {
-                        throw new ArithmeticException("Counter overflow");
-                    }
-                    a.set1(a.get1() + 1);
-                    a.set2(Math.addExact(a.get2(), getLongValueFn.applyAsLong(i)));
-                })
+                .andAccumulate(PrimitiveAccumulateFn.<T>averagingLong(getLongValueFn))
                 .andCombine((a1, a2) -> {
                     a1.set1(Math.addExact(a1.get1(), a2.get1()));
                     a1.set2(Math.addExact(a1.get2(), a2.get2()));
@@ -274,14 +268,7 @@ public final class AggregateOperations {
         // accumulator.value2 is sum
         return AggregateOperation
                 .withCreate(LongDoubleAccumulator::new)
-                .andAccumulate((LongDoubleAccumulator a, T item) -> {
-                    // a bit faster check than in addExact, specialized for increment
-                    if (a.getLong() == Long.MAX_VALUE) {
-                        throw new ArithmeticException("Counter overflow");
-                    }
-                    a.setLong(a.getLong() + 1);
-                    a.setDouble(a.getDouble() + getDoubleValueFn.applyAsDouble(item));
-                })
+                .andAccumulate(PrimitiveAccumulateFn.<T>averagingDouble(getDoubleValueFn))
                 .andCombine((a1, a2) -> {
                     a1.setLong(Math.addExact(a1.getLong(), a2.getLong()));
                     a1.setDouble(a1.getDouble() + a2.getDouble());
@@ -47,6 +47,9 @@ public class EdgeConfig implements Serializable {
     private int queueSize = DEFAULT_QUEUE_SIZE;
     private int receiveWindowMultiplier = DEFAULT_RECEIVE_WINDOW_MULTIPLIER;
     private int packetSizeLimit = DEFAULT_PACKET_SIZE_LIMIT;
+    private boolean packetCompressionEnabled;
+    private boolean columnarEncodingEnabled;
+    private boolean adaptiveFlowControlEnabled;
 
     /**
      * Sets the capacity of processor-to-processor concurrent queues. The value
@@ -146,4 +149,98 @@ public class EdgeConfig implements Serializable {
     public int getPacketSizeLimit() {
         return packetSizeLimit;
     }
+
+    /**
+     * Sets whether the network packets of a distributed edge should be
+     * compressed. Compression costs CPU time at both the sending and the
+     * receiving member, but reduces the network traffic, which pays off
+     * when the network is the bottleneck.
+     * <p>
+     * The compression is adaptive: if the packets of the edge don't compress
+     * well, for example because they contain already compressed or random
+     * data, the sender stops trying to compress them for an increasing
+     * number of packets.
+     * <p>
+     * Compression is disabled by default. This setting has no effect on a
+     * non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setPacketCompressionEnabled(boolean packetCompressionEnabled) {
+        this.packetCompressionEnabled = packetCompressionEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setPacketCompressionEnabled(boolean) network
+     * packets are compressed}.
+     */
+    public boolean isPacketCompressionEnabled() {
+        return packetCompressionEnabled;
+    }
+
+    /**
+     * Sets whether a distributed edge should use the columnar encoding for
+     * packets of homogeneous items. It applies to items created by {@link
+     * com.hazelcast.jet.Util#entry} and {@link
+     * com.hazelcast.jet.datamodel.Tuple2} items. When consecutive items have
+     * keys of the same type and values of the same type, the sender writes
+     * the item type once per packet, followed by all keys and all values.
+     * Keys and values of type {@code String}, {@code Long} and {@code
+     * Integer} are written without a type header. This reduces the packet
+     * size and the serialization cost of shuffle-heavy jobs, such as
+     * aggregations with a two-stage setup.
+     * <p>
+     * The received items are always of the same class as the sent ones.
+     * Items of other types are sent the usual way, in the same or in the
+     * following packets.
+     * <p>
+     * Columnar encoding is disabled by default. This setting has no effect on
+     * a non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setColumnarEncodingEnabled(boolean columnarEncodingEnabled) {
+        this.columnarEncodingEnabled = columnarEncodingEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setColumnarEncodingEnabled(boolean) columnar
+     * encoding} of network packets is enabled.
+     */
+    public boolean isColumnarEncodingEnabled() {
+        return columnarEncodingEnabled;
+    }
+
+    /**
+     * Sets whether the receive window of a distributed edge should be sized
+     * from the estimated bandwidth-delay product of the link between the
+     * sending and the receiving member, instead of the {@link
+     * #setReceiveWindowMultiplier(int) receive window multiplier}.
+     * <p>
+     * The receiver estimates the bandwidth as the maximum rate at which it
+     * processed the data in recent flow-control periods and the delay as the
+     * minimum measured round-trip time. When the receiver can't keep up, the
+     * window shrinks to one bandwidth-delay product, which limits the amount
+     * of data buffered at the receiver. When the receiver is waiting for
+     * data, the window grows to let the sender use the full link capacity.
+     * <p>
+     * Adaptive flow control is disabled by default. This setting has no
+     * effect on a non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setAdaptiveFlowControlEnabled(boolean adaptiveFlowControlEnabled) {
+        this.adaptiveFlowControlEnabled = adaptiveFlowControlEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setAdaptiveFlowControlEnabled(boolean)
+     * adaptive flow control} is enabled.
+     */
+    public boolean isAdaptiveFlowControlEnabled() {
+        return adaptiveFlowControlEnabled;
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.config;
+
+/**
+ * Defines what a Jet worker thread does when none of its tasklets made
+ * progress. The choice trades latency against CPU usage: a thread that
+ * spins reacts to new data immediately, but occupies a core even if there
+ * is no data to process.
+ * <p>
+ * A cooperative thread executes tasklets of many jobs. If they configure
+ * different strategies, the thread uses the one that idles the least, that
+ * is the one declared first in this enum.
+ */
+public enum IdleStrategyType {
+
+    /**
+     * The thread never gives up the CPU, it retries its tasklets
+     * immediately. This gives the lowest latency at the cost of one fully
+     * used core per thread, even if the job has no data to process.
+     */
+    BUSY_SPIN,
+
+    /**
+     * The thread calls {@link Thread#yield()} before it retries its
+     * tasklets. Other threads can use the core, but the thread still
+     * consumes CPU when idle.
+     */
+    YIELD,
+
+    /**
+     * The thread tunes itself from the ratio of iterations in which the
+     * tasklets made progress. Under high load it spins to keep latency low,
+     * under low load it parks for increasingly longer periods to save CPU.
+     */
+    ADAPTIVE,
+
+    /**
+     * The thread parks for exponentially increasing periods, up to 1 ms for
+     * cooperative and up to 5 ms for blocking threads. This is the default.
+     */
+    BACKOFF
+}
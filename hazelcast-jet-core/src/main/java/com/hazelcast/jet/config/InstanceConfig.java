@@ -20,9 +20,13 @@ import com.hazelcast.config.MapConfig;
 import com.hazelcast.jet.Job;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.hazelcast.util.Preconditions.checkBackupCount;
 import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkNotNull;
 import static com.hazelcast.util.Preconditions.checkPositive;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -48,6 +52,17 @@ public class InstanceConfig {
     private int backupCount = DEFAULT_BACKUP_COUNT;
     private long scaleUpDelayMillis = SCALE_UP_DELAY_MILLIS_DEFAULT;
     private boolean losslessRestartEnabled;
+    private boolean workStealingEnabled;
+    private boolean taskletLoadBalancingEnabled;
+    private IdleStrategyType idleStrategy = IdleStrategyType.BACKOFF;
+    private boolean virtualThreadsEnabled;
+    private String cooperativeThreadCpus;
+    private boolean packetMultiplexingEnabled;
+    private long groupingSpillThreshold;
+    private String spillDirectory;
+    private long joinSpillThreshold;
+    private long sortSpillThreshold;
+    private String snapshotDirectory;
 
     /**
      * Sets the number of threads each cluster member will use to execute Jet
@@ -174,4 +189,376 @@ public class InstanceConfig {
         this.losslessRestartEnabled = enabled;
         return this;
     }
+
+    /**
+     * Returns if work stealing between cooperative threads is enabled, see
+     * {@link #setWorkStealingEnabled(boolean)}.
+     */
+    public boolean isWorkStealingEnabled() {
+        return workStealingEnabled;
+    }
+
+    /**
+     * Sets whether idle cooperative threads are allowed to take over
+     * tasklets from busy ones. By default each tasklet stays on the
+     * cooperative thread it was assigned to when the job started; if the
+     * load of the tasklets is skewed, some threads may be saturated while
+     * others are idle. With work stealing enabled, an idle thread asks a
+     * busy thread to hand over one of its tasklets. To preserve cache
+     * locality, each tasklet can migrate at most once in a short period.
+     * <p>
+     * Feature is disabled by default.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setWorkStealingEnabled(boolean enabled) {
+        this.workStealingEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns if load-based placement of tasklets is enabled, see {@link
+     * #setTaskletLoadBalancingEnabled(boolean)}.
+     */
+    public boolean isTaskletLoadBalancingEnabled() {
+        return taskletLoadBalancingEnabled;
+    }
+
+    /**
+     * Sets whether the cooperative tasklets are placed according to their
+     * measured CPU time. By default the tasklets are assigned to the
+     * cooperative threads round-robin, regardless of how expensive each of
+     * them is. If enabled, Jet measures the time each tasklet spends
+     * processing and periodically moves tasklets from overloaded threads to
+     * the least loaded thread, so that all threads carry about the same
+     * load. New tasklets are assigned to the least loaded threads.
+     * <p>
+     * Feature is disabled by default.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setTaskletLoadBalancingEnabled(boolean enabled) {
+        this.taskletLoadBalancingEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns the default idle strategy of the worker threads, see {@link
+     * #setIdleStrategy(IdleStrategyType)}.
+     */
+    @Nonnull
+    public IdleStrategyType getIdleStrategy() {
+        return idleStrategy;
+    }
+
+    /**
+     * Sets what the worker threads do when none of their tasklets made
+     * progress. Jobs can override it using {@link
+     * JobConfig#setIdleStrategy(IdleStrategyType)}. The default is {@link
+     * IdleStrategyType#BACKOFF}.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setIdleStrategy(@Nonnull IdleStrategyType idleStrategy) {
+        checkNotNull(idleStrategy, "idleStrategy must not be null");
+        this.idleStrategy = idleStrategy;
+        return this;
+    }
+
+    /**
+     * Returns if blocking tasklets run on virtual threads, see {@link
+     * #setVirtualThreadsEnabled(boolean)}.
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    /**
+     * Sets whether the tasklets of blocking processors run on virtual
+     * threads. By default each blocking tasklet gets its own platform
+     * thread, so a job with hundreds of blocking processors creates hundreds
+     * of OS threads. Virtual threads are much cheaper to create and park,
+     * and when they run out of input they are woken up by the upstream
+     * processors instead of polling their input.
+     * <p>
+     * Virtual threads require Java 21 or newer. On older JVMs this setting
+     * is ignored with a warning. Note that a blocking call inside a {@code
+     * synchronized} block pins the carrier thread of a virtual thread.
+     * <p>
+     * Feature is disabled by default.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setVirtualThreadsEnabled(boolean enabled) {
+        this.virtualThreadsEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns the CPUs the cooperative threads are pinned to, see {@link
+     * #setCooperativeThreadCpus(String)}.
+     */
+    @Nullable
+    public String getCooperativeThreadCpus() {
+        return cooperativeThreadCpus;
+    }
+
+    /**
+     * Returns the IDs of the CPUs the cooperative threads are pinned to, in
+     * the order they are assigned to the threads, or an empty list if the
+     * threads aren't pinned. See {@link #setCooperativeThreadCpus(String)}.
+     */
+    @Nonnull
+    public List<Integer> getCooperativeThreadCpuList() {
+        return cooperativeThreadCpus != null ? parseCpuList(cooperativeThreadCpus) : new ArrayList<>();
+    }
+
+    /**
+     * Sets the CPUs to pin the cooperative threads to, in the list format of
+     * the {@code taskset} utility, for example {@code "0-7,16-23"}. The
+     * thread with index {@code i} is pinned to the {@code i}-th CPU in the
+     * list, wrapping around if there are more threads than CPUs.
+     * <p>
+     * On a multi-socket machine Jet also places the tasklets with the same
+     * local processor index on the same socket, so that most items passed
+     * over local edges stay in one NUMA node. Work stealing and tasklet load
+     * balancing then only move tasklets between threads of the same socket.
+     * <p>
+     * Pinning requires Linux and the {@code taskset} utility of util-linux
+     * on the {@code PATH} of the Jet process: each cooperative thread runs
+     * it once, when it starts. There's no fallback to native calls. If
+     * {@code taskset} isn't found, Jet logs a warning and doesn't pin the
+     * threads; if it fails for a thread, Jet logs a warning and that thread
+     * isn't pinned. By default the threads aren't pinned.
+     *
+     * @param cpus the CPU list or {@code null} to disable pinning
+     * @return this instance for fluent API
+     * @throws IllegalArgumentException if the list is malformed
+     */
+    @Nonnull
+    public InstanceConfig setCooperativeThreadCpus(@Nullable String cpus) {
+        if (cpus != null && !cpus.trim().isEmpty()) {
+            parseCpuList(cpus);
+            this.cooperativeThreadCpus = cpus;
+        } else {
+            this.cooperativeThreadCpus = null;
+        }
+        return this;
+    }
+
+    /**
+     * Returns if the packets of distributed edges are multiplexed, see {@link
+     * #setPacketMultiplexingEnabled(boolean)}.
+     */
+    public boolean isPacketMultiplexingEnabled() {
+        return packetMultiplexingEnabled;
+    }
+
+    /**
+     * Sets whether the packets of all distributed edges of a job that go to
+     * the same member should be coalesced into shared frames. Without it,
+     * each edge sends its own packets, so a DAG with many distributed edges
+     * sends many small packets. With it, the packets produced by all edges
+     * at about the same time are sent as one network packet, which reduces
+     * the packet count and the per-packet overhead of the network layer.
+     * <p>
+     * Every member accepts the coalesced frames, so the setting only affects
+     * the packets this member sends. Feature is disabled by default.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setPacketMultiplexingEnabled(boolean enabled) {
+        this.packetMultiplexingEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns the number of groups after which a grouping processor spills
+     * them to disk, see {@link #setGroupingSpillThreshold(long)}.
+     */
+    public long getGroupingSpillThreshold() {
+        return groupingSpillThreshold;
+    }
+
+    /**
+     * Sets the number of groups a batch grouping processor keeps in memory.
+     * When a processor reaches it, it writes its groups, sorted by the
+     * serialized key, to a file in the {@linkplain #setSpillDirectory spill
+     * directory} and starts over. When all input is processed, the files are
+     * merged and the groups with the same key are combined. This lets a
+     * processor aggregate more distinct keys than fit in the heap.
+     * <p>
+     * Spilling applies to the aggregate operations that have the {@link
+     * com.hazelcast.jet.aggregate.AggregateOperation#combineFn() combine}
+     * primitive. The keys and the accumulators must be serializable. Two
+     * keys are considered equal if their serialized forms are equal, which
+     * is the same rule that {@code IMap} uses. The file I/O is done on the
+     * processor's thread, so the threshold should be large enough for the
+     * spills to be rare.
+     * <p>
+     * The default value is 0, which means the groups are never spilled.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setGroupingSpillThreshold(long threshold) {
+        checkNotNegative(threshold, "threshold must not be negative");
+        this.groupingSpillThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Returns the number of joined items after which a partitioned hash-join
+     * spills them to disk, see {@link #setJoinSpillThreshold(long)}.
+     */
+    public long getJoinSpillThreshold() {
+        return joinSpillThreshold;
+    }
+
+    /**
+     * Sets the number of items of the joined stream a processor of a
+     * {@linkplain com.hazelcast.jet.pipeline.JoinClause#partitioned()
+     * partitioned hash-join} keeps in memory. When the threshold is reached,
+     * the processor writes the remaining joined items to files in the
+     * {@linkplain #setSpillDirectory spill directory}, split by the hash of
+     * the serialized key. The primary stream items that don't match a key in
+     * memory are written to the files of the same split and joined when all
+     * input is processed, one split at a time. This lets a processor join
+     * more items than fit in the heap.
+     * <p>
+     * Spilling applies only to batch jobs. The keys, the joined items and
+     * the primary stream items must be serializable. The output of the
+     * spilled items comes after the output of the others.
+     * <p>
+     * The default value is 0, which means the items are never spilled.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setJoinSpillThreshold(long threshold) {
+        checkNotNegative(threshold, "threshold must not be negative");
+        this.joinSpillThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Returns the number of items after which a sorting processor spills
+     * them to disk, see {@link #setSortSpillThreshold(long)}.
+     */
+    public long getSortSpillThreshold() {
+        return sortSpillThreshold;
+    }
+
+    /**
+     * Sets the number of items a processor of a {@linkplain
+     * com.hazelcast.jet.pipeline.BatchStage#sort sort} or a {@linkplain
+     * com.hazelcast.jet.pipeline.BatchStage#sortMergeJoin sort-merge join}
+     * keeps in memory. When the threshold is reached, the processor sorts
+     * the items, writes them to a file in the {@linkplain #setSpillDirectory
+     * spill directory} and starts over. When all input is processed, the
+     * files are merged. The items must be serializable.
+     * <p>
+     * The default value is 0, which means the items are never spilled.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setSortSpillThreshold(long threshold) {
+        checkNotNegative(threshold, "threshold must not be negative");
+        this.sortSpillThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Returns the directory for the files of spilled data, see {@link
+     * #setSpillDirectory(String)}.
+     */
+    @Nullable
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Sets the directory where the grouping, join and sorting processors
+     * write the data spilled to disk, see {@link
+     * #setGroupingSpillThreshold(long)}, {@link #setJoinSpillThreshold(long)}
+     * and {@link #setSortSpillThreshold(long)}. The files are deleted when
+     * the processor completes. By default, the directory in the {@code
+     * java.io.tmpdir} system property is used.
+     *
+     * @param directory the directory or {@code null} to use the default
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setSpillDirectory(@Nullable String directory) {
+        this.spillDirectory = directory != null && !directory.trim().isEmpty() ? directory : null;
+        return this;
+    }
+
+    /**
+     * Returns the directory for the snapshot data, see {@link
+     * #setSnapshotDirectory(String)}.
+     */
+    @Nullable
+    public String getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    /**
+     * Sets the directory where the members store the snapshot data of the
+     * jobs. Each member appends the chunks written by its processors to
+     * memory-mapped files in the directory and replicates them to the
+     * {@linkplain #setBackupCount backup count} next members, so the snapshot
+     * data doesn't take space in the heap. The validation record of the
+     * snapshot and the exported snapshots are still stored in IMaps.
+     * Incremental snapshots are not taken, each snapshot is a full one.
+     * <p>
+     * The files of a member are deleted when the member shuts down. If all
+     * the members that have the copies of some member's data leave the
+     * cluster, the job can't be restored from the snapshot and fails when it
+     * restarts.
+     * <p>
+     * By default, the snapshot data is stored in IMaps.
+     *
+     * @param directory the directory or {@code null} to store the snapshots
+     *                  in IMaps
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setSnapshotDirectory(@Nullable String directory) {
+        this.snapshotDirectory = directory != null && !directory.trim().isEmpty() ? directory : null;
+        return this;
+    }
+
+    /**
+     * Parses a CPU list in the format used by {@code taskset} and {@code
+     * cpuset}, for example {@code "0-3,8,10-11"}.
+     */
+    private static List<Integer> parseCpuList(@Nonnull String cpuList) {
+        List<Integer> cpus = new ArrayList<>();
+        try {
+            for (String range : cpuList.split(",")) {
+                String[] bounds = range.trim().split("-");
+                if (bounds.length > 2) {
+                    throw new IllegalArgumentException("Invalid CPU range: " + range);
+                }
+                int from = Integer.parseInt(bounds[0].trim());
+                int to = bounds.length == 2 ? Integer.parseInt(bounds[1].trim()) : from;
+                if (from < 0 || to < from) {
+                    throw new IllegalArgumentException("Invalid CPU range: " + range);
+                }
+                for (int cpu = from; cpu <= to; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid CPU list: " + cpuList, e);
+        }
+        return cpus;
+    }
 }
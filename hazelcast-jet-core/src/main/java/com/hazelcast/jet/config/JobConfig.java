@@ -52,6 +52,10 @@ public class JobConfig implements IdentifiedDataSerializable {
     private List<ResourceConfig> resourceConfigs = new ArrayList<>();
     private JobClassLoaderFactory classLoaderFactory;
     private String initialSnapshotName;
+    private IdleStrategyType idleStrategy;
+    private boolean incrementalSnapshots;
+    private boolean snapshotCompressionEnabled;
+    private boolean nonBlockingSnapshotAlignment;
 
     /**
      * Returns the name of the job or {@code null} if no name was given.
@@ -417,6 +421,149 @@ public class JobConfig implements IdentifiedDataSerializable {
         return this;
     }
 
+    /**
+     * Returns the idle strategy configured for this job or {@code null}, if
+     * the member's default is used. See {@link
+     * #setIdleStrategy(IdleStrategyType)}.
+     */
+    @Nullable
+    public IdleStrategyType getIdleStrategy() {
+        return idleStrategy;
+    }
+
+    /**
+     * Sets what the threads executing this job do when the job's tasklets
+     * make no progress. For example, a latency-critical job can use {@link
+     * IdleStrategyType#BUSY_SPIN} and a job with low traffic can use {@link
+     * IdleStrategyType#ADAPTIVE} to save CPU.
+     * <p>
+     * Cooperative threads are shared by all jobs: a thread that runs
+     * tasklets of several jobs uses the strategy that idles the least.
+     * <p>
+     * The default value is {@code null}, which means the member's {@linkplain
+     * InstanceConfig#setIdleStrategy(IdleStrategyType) default} is used.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setIdleStrategy(@Nullable IdleStrategyType idleStrategy) {
+        this.idleStrategy = idleStrategy;
+        return this;
+    }
+
+    /**
+     * Returns whether the job uses incremental snapshots, see {@link
+     * #setIncrementalSnapshots(boolean)}.
+     */
+    public boolean isIncrementalSnapshots() {
+        return incrementalSnapshots;
+    }
+
+    /**
+     * Sets whether the job's snapshots can be incremental. An incremental
+     * snapshot contains only the keys changed since the previous snapshot:
+     * the processors that support it, such as the windowed and rolling
+     * aggregations, track the keys changed since the last snapshot and save
+     * only those. This way the size of the snapshot and the network traffic
+     * depend on the update rate and not on the size of the state.
+     * <p>
+     * Jet still takes a full snapshot from time to time: the first
+     * snapshot of each execution, the snapshot after a failed one and the
+     * snapshot after the incremental ones together grew too large compared
+     * to the last full one. Consecutive incremental snapshots are compacted
+     * in the background. Exported snapshots are always full. This setting is
+     * only relevant with <i>at-least-once</i> or <i>exactly-once</i>
+     * processing guarantees.
+     * <p>
+     * The default value is {@code false}.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setIncrementalSnapshots(boolean enabled) {
+        this.incrementalSnapshots = enabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the job's snapshot chunks are compressed, see {@link
+     * #setSnapshotCompressionEnabled(boolean)}.
+     */
+    public boolean isSnapshotCompressionEnabled() {
+        return snapshotCompressionEnabled;
+    }
+
+    /**
+     * Sets whether to compress the job's snapshots. Each snapshot chunk is
+     * compressed using LZ4 with a dictionary taken from the first chunk the
+     * writer produced, so that also the small chunks of a vertex with
+     * similar keys and values compress well. A chunk that doesn't compress
+     * is stored as is. The compression reduces the memory used by the
+     * snapshot maps and the backup traffic at the cost of CPU time spent
+     * on the cooperative threads when taking and restoring the snapshot.
+     * <p>
+     * The chunks of the incremental snapshots, see {@link
+     * #setIncrementalSnapshots(boolean)}, are not compressed. This setting
+     * is only relevant with <i>at-least-once</i> or <i>exactly-once</i>
+     * processing guarantees.
+     * <p>
+     * The default value is {@code false}.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setSnapshotCompressionEnabled(boolean enabled) {
+        this.snapshotCompressionEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the job's snapshots use non-blocking alignment, see
+     * {@link #setNonBlockingSnapshotAlignment(boolean)}.
+     */
+    public boolean isNonBlockingSnapshotAlignment() {
+        return nonBlockingSnapshotAlignment;
+    }
+
+    /**
+     * Sets whether the job's snapshots use non-blocking alignment. With the
+     * default, blocking alignment and the <i>exactly-once</i> guarantee, a
+     * processor stops receiving from an input that delivered the snapshot
+     * barrier until the barrier arrives from all other inputs. Meanwhile
+     * the stopped inputs fill up and backpressure their upstream.
+     * <p>
+     * With non-blocking alignment, a processor saves its state and forwards
+     * the barrier as soon as it receives it from any input, and it keeps
+     * receiving from all inputs. The items that arrive on the other inputs
+     * before their barrier, the in-flight items, are processed as usual and
+     * also saved to the snapshot. When the job restarts from the snapshot,
+     * the processor processes them again after restoring its state.
+     * <p>
+     * This only removes the blocking during the alignment: the barrier
+     * doesn't overtake the items queued ahead of it, it's still received
+     * after them, so under backpressure the snapshot isn't faster to
+     * start. The snapshot is larger by the in-flight items.
+     * <p>
+     * An in-flight item is restored to the processor that owns the
+     * partition the item was routed by, so the state of the processors with
+     * partitioned inputs must be keyed by the same key as the edge. The
+     * snapshots of the processors with a broadcast input, the terminal
+     * snapshots, such as the one taken by {@link
+     * Job#cancelAndExportSnapshot(String)}, and the snapshots of jobs with
+     * {@linkplain #setIncrementalSnapshots(boolean) incremental snapshots}
+     * always use blocking alignment. This setting is only relevant with the
+     * <i>exactly-once</i> processing guarantee.
+     * <p>
+     * The default value is {@code false}.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setNonBlockingSnapshotAlignment(boolean enabled) {
+        this.nonBlockingSnapshotAlignment = enabled;
+        return this;
+    }
+
     @Override
     public int getFactoryId() {
         return JetConfigDataSerializerHook.FACTORY_ID;
@@ -437,6 +584,10 @@ public class JobConfig implements IdentifiedDataSerializable {
         out.writeObject(resourceConfigs);
         out.writeObject(classLoaderFactory);
         out.writeUTF(initialSnapshotName);
+        out.writeObject(idleStrategy);
+        out.writeBoolean(incrementalSnapshots);
+        out.writeBoolean(snapshotCompressionEnabled);
+        out.writeBoolean(nonBlockingSnapshotAlignment);
     }
 
     @Override
@@ -449,6 +600,10 @@ public class JobConfig implements IdentifiedDataSerializable {
         resourceConfigs = in.readObject();
         classLoaderFactory = in.readObject();
         initialSnapshotName = in.readUTF();
+        idleStrategy = in.readObject();
+        incrementalSnapshots = in.readBoolean();
+        snapshotCompressionEnabled = in.readBoolean();
+        nonBlockingSnapshotAlignment = in.readBoolean();
     }
 
     @Override
@@ -483,6 +638,18 @@ public class JobConfig implements IdentifiedDataSerializable {
         if (!Objects.equals(classLoaderFactory, jobConfig.classLoaderFactory)) {
             return false;
         }
+        if (idleStrategy != jobConfig.idleStrategy) {
+            return false;
+        }
+        if (incrementalSnapshots != jobConfig.incrementalSnapshots) {
+            return false;
+        }
+        if (snapshotCompressionEnabled != jobConfig.snapshotCompressionEnabled) {
+            return false;
+        }
+        if (nonBlockingSnapshotAlignment != jobConfig.nonBlockingSnapshotAlignment) {
+            return false;
+        }
         return Objects.equals(initialSnapshotName, jobConfig.initialSnapshotName);
     }
 
@@ -496,6 +663,10 @@ public class JobConfig implements IdentifiedDataSerializable {
         result = 31 * result + (resourceConfigs != null ? resourceConfigs.hashCode() : 0);
         result = 31 * result + (classLoaderFactory != null ? classLoaderFactory.hashCode() : 0);
         result = 31 * result + (initialSnapshotName != null ? initialSnapshotName.hashCode() : 0);
+        result = 31 * result + (idleStrategy != null ? idleStrategy.hashCode() : 0);
+        result = 31 * result + (incrementalSnapshots ? 1 : 0);
+        result = 31 * result + (snapshotCompressionEnabled ? 1 : 0);
+        result = 31 * result + (nonBlockingSnapshotAlignment ? 1 : 0);
         return result;
     }
 }
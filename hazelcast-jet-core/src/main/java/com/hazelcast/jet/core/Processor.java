@@ -71,6 +71,8 @@ public interface Processor {
      * <p>
      * Processor instances of a single vertex are allowed to return different
      * values, but a single processor instance must always return the same value.
+     * The method is called before {@link #init}, because a non-cooperative
+     * processor is initialized on its own thread.
      * <p>
      * The default implementation returns {@code true}.
      */
@@ -21,6 +21,7 @@ import com.hazelcast.jet.Traversers;
 import com.hazelcast.jet.Util;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.core.EventTimePolicy;
 import com.hazelcast.jet.core.Inbox;
 import com.hazelcast.jet.core.Outbox;
@@ -47,6 +48,7 @@ import com.hazelcast.jet.impl.processor.InsertWatermarksP;
 import com.hazelcast.jet.impl.processor.RollingAggregateP;
 import com.hazelcast.jet.impl.processor.SessionWindowP;
 import com.hazelcast.jet.impl.processor.SlidingWindowP;
+import com.hazelcast.jet.impl.processor.SpillSettings;
 import com.hazelcast.jet.impl.processor.TransformP;
 import com.hazelcast.jet.impl.processor.TransformUsingContextP;
 import com.hazelcast.jet.pipeline.ContextFactory;
@@ -303,6 +305,10 @@ public final class Processors {
      * extracting function must be supplied and the aggregate operation must
      * contain a separate accumulation function for each edge.
      * <p>
+     * The groups are spilled to disk according to the {@linkplain
+     * InstanceConfig#setGroupingSpillThreshold grouping spill threshold},
+     * the processors are then non-cooperative.
+     * <p>
      * This processor has state, but does not save it to snapshot. On job
      * restart, the state will be lost.
      *
@@ -316,12 +322,13 @@ public final class Processors {
      * @param <OUT> type of the item to emit
      */
     @Nonnull
-    public static <K, A, R, OUT> DistributedSupplier<Processor> aggregateByKeyP(
+    public static <K, A, R, OUT> ProcessorSupplier aggregateByKeyP(
             @Nonnull List<DistributedFunction<?, ? extends K>> keyFns,
             @Nonnull AggregateOperation<A, R> aggrOp,
             @Nonnull DistributedBiFunction<? super K, ? super R, OUT> mapToOutputFn
     ) {
-        return () -> new GroupP<>(keyFns, aggrOp, mapToOutputFn);
+        return SpillSettings.supplier(InstanceConfig::getGroupingSpillThreshold,
+                spillSettings -> new GroupP<>(keyFns, aggrOp, mapToOutputFn, spillSettings));
     }
 
     /**
@@ -337,6 +344,10 @@ public final class Processors {
      * extracting function must be supplied and the aggregate operation must
      * contain a separate accumulation function for each edge.
      * <p>
+     * The groups are spilled to disk according to the {@linkplain
+     * InstanceConfig#setGroupingSpillThreshold grouping spill threshold},
+     * the processors are then non-cooperative.
+     * <p>
      * This processor has state, but does not save it to snapshot. On job
      * restart, the state will be lost.
      *
@@ -346,11 +357,13 @@ public final class Processors {
      * @param <A> type of accumulator returned from {@code aggrOp.createAccumulatorFn()}
      */
     @Nonnull
-    public static <K, A> DistributedSupplier<Processor> accumulateByKeyP(
+    public static <K, A> ProcessorSupplier accumulateByKeyP(
             @Nonnull List<DistributedFunction<?, ? extends K>> getKeyFns,
             @Nonnull AggregateOperation<A, ?> aggrOp
     ) {
-        return () -> new GroupP<>(getKeyFns, aggrOp.withIdentityFinish(), Util::entry);
+        AggregateOperation<A, A> accumulateOp = aggrOp.withIdentityFinish();
+        return SpillSettings.supplier(InstanceConfig::getGroupingSpillThreshold,
+                spillSettings -> new GroupP<>(getKeyFns, accumulateOp, Util::entry, spillSettings));
     }
 
     /**
@@ -365,6 +378,10 @@ public final class Processors {
      * Since the input to this vertex must be bounded, its primary use case
      * are batch jobs.
      * <p>
+     * The groups are spilled to disk according to the {@linkplain
+     * InstanceConfig#setGroupingSpillThreshold grouping spill threshold},
+     * the processors are then non-cooperative.
+     * <p>
      * This processor has state, but does not save it to snapshot. On job
      * restart, the state will be lost.
      *
@@ -377,14 +394,13 @@ public final class Processors {
      * @param <OUT> type of the item to emit
      */
     @Nonnull
-    public static <K, A, R, OUT> DistributedSupplier<Processor> combineByKeyP(
+    public static <K, A, R, OUT> ProcessorSupplier combineByKeyP(
             @Nonnull AggregateOperation<A, R> aggrOp,
             @Nonnull DistributedBiFunction<? super K, ? super R, OUT> mapToOutputFn
     ) {
-        return () -> new GroupP<>(
-                Entry::getKey,
-                aggrOp.withCombiningAccumulateFn(Entry<K, A>::getValue),
-                mapToOutputFn);
+        AggregateOperation1<Entry<K, A>, A, R> combineOp = aggrOp.withCombiningAccumulateFn(Entry<K, A>::getValue);
+        return SpillSettings.supplier(InstanceConfig::getGroupingSpillThreshold,
+                spillSettings -> new GroupP<>(Entry::getKey, combineOp, mapToOutputFn, spillSettings));
     }
 
     /**
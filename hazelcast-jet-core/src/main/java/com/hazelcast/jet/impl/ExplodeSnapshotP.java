@@ -17,74 +17,138 @@
 package com.hazelcast.jet.impl;
 
 import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.impl.JobRepository.FilterSnapshotDeltaPredicate;
+import com.hazelcast.jet.impl.JobRepository.LatestSnapshotValues;
 import com.hazelcast.jet.impl.execution.BroadcastEntry;
+import com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotTombstone;
 import com.hazelcast.nio.BufferObjectDataInput;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static com.hazelcast.jet.Traversers.traverseIterable;
 import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
+/**
+ * Parses the snapshot chunks read from the snapshot map and emits the
+ * entries to the ordinal of their vertex. If the state was saved with
+ * incremental snapshots, the chunks of the incremental snapshots are
+ * received on ordinal 1 before the chunks of their base snapshot on
+ * ordinal 0: for each key, the value from the latest incremental snapshot
+ * replaces the base value and a tombstone removes it.
+ * <p>
+ * The {@linkplain CompressedSnapshotChunk compressed chunks} are
+ * decompressed using the dictionaries from the validation record.
+ * <p>
+ * The chunks on ordinal 0 are decompressed and deserialized on the
+ * {@linkplain JetService#SNAPSHOT_PARSE_EXECUTOR_NAME snapshot parse
+ * executor}, up to {@value #MAX_PENDING_CHUNKS} at a time. The processor
+ * emits the entries of a chunk as a whole, in the order the chunks were
+ * received.
+ */
 public class ExplodeSnapshotP extends AbstractProcessor {
 
-    private final Map<String, FlatMapper<byte[], Object>> vertexToFlatMapper = new HashMap<>();
+    private static final int MAX_PENDING_CHUNKS = 16;
+
+    @Probe
+    private final AtomicLong restoredChunks = new AtomicLong();
+    @Probe
+    private final AtomicLong restoredEntries = new AtomicLong();
+    @Probe
+    private final AtomicLong restoredBytes = new AtomicLong();
+    @Probe
+    private final AtomicLong restoreTimeMillis = new AtomicLong();
+    @Probe(name = "numPendingChunks")
+    private final AtomicInteger numPendingChunksMetric = new AtomicInteger();
+
+    private final Map<String, Integer> vertexToOrdinal;
+    private final Set<String> unknownVertices = new HashSet<>();
     private final long expectedSnapshotId;
+    private final long lastSnapshotId;
+    private final long compactedSnapshotId;
+    private final Map<String, byte[]> dictionaries;
+    // vertex name -> key -> the latest values from the incremental snapshots
+    private final Map<String, Map<Object, LatestSnapshotValues>> deltas = new HashMap<>();
+    private final Queue<CompletableFuture<ParsedChunk>> pendingChunks = new ArrayDeque<>();
     private InternalSerializationService serializationService;
+    private ExecutorService restoreExecutor;
+    private long startNanos;
+    private Traverser<Object> parsedChunkTraverser;
+    private int parsedChunkOrdinal;
+    private Traverser<Entry<Integer, Object>> deltaTraverser;
+    private Entry<Integer, Object> pendingDeltaItem;
 
-    ExplodeSnapshotP(Map<String, Integer> vertexToOrdinal, long expectedSnapshotId) {
+    /**
+     * @param expectedSnapshotId ID of the full snapshot in the map on ordinal 0
+     * @param lastSnapshotId ID of the last incremental snapshot, or the
+     *        same as {@code expectedSnapshotId} if there are none
+     * @param compactedSnapshotId ID up to which the incremental snapshots
+     *        were compacted
+     * @param dictionaries the dictionaries of the compressed chunks
+     */
+    ExplodeSnapshotP(
+            Map<String, Integer> vertexToOrdinal, long expectedSnapshotId, long lastSnapshotId, long compactedSnapshotId,
+            Map<String, byte[]> dictionaries
+    ) {
+        this.vertexToOrdinal = vertexToOrdinal;
         this.expectedSnapshotId = expectedSnapshotId;
-        for (Entry<String, Integer> en : vertexToOrdinal.entrySet()) {
-            Object oldValue = vertexToFlatMapper.put(en.getKey(), flatMapper(en.getValue(), this::traverser));
-            assert oldValue == null : "Duplicate ordinal: " + en.getValue();
-        }
+        this.lastSnapshotId = lastSnapshotId;
+        this.compactedSnapshotId = compactedSnapshotId;
+        this.dictionaries = dictionaries;
     }
 
     @Override
     protected void init(@Nonnull Context context) {
-        serializationService =
-                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
-    }
-
-    private Traverser<Object> traverser(byte[] data) {
-        BufferObjectDataInput in = serializationService.createObjectDataInput(data);
-
-        return () -> uncheckCall(() -> {
-            Object key = in.readObject();
-            if (key == SnapshotDataValueTerminator.INSTANCE) {
-                in.close();
-                return null;
-            }
-            Object value = in.readObject();
-            return key instanceof BroadcastKey
-                    ? new BroadcastEntry(key, value)
-                    : entry(key, value);
-        });
+        HazelcastInstanceImpl instance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        serializationService = instance.getSerializationService();
+        restoreExecutor = instance.node.nodeEngine.getExecutionService()
+                                                  .getExecutor(JetService.SNAPSHOT_PARSE_EXECUTOR_NAME);
+        startNanos = System.nanoTime();
     }
 
     @Override
     protected boolean tryProcess0(@Nonnull Object item) {
+        // don't wait for the chunks being parsed, unless there are too many of them
+        if (!emitParsedChunks() && (parsedChunkTraverser != null || pendingChunks.size() >= MAX_PENDING_CHUNKS)) {
+            return false;
+        }
         if (((Entry) item).getKey() instanceof SnapshotValidationRecord.SnapshotValidationKey) {
             // ignore the validation record
             return true;
         }
-        Entry<SnapshotDataKey, byte[]> casted = (Entry<SnapshotDataKey, byte[]>) item;
+        Entry<SnapshotDataKey, Object> casted = (Entry<SnapshotDataKey, Object>) item;
         String vertexName = casted.getKey().vertexName();
-        FlatMapper<byte[], Object> flatMapper = vertexToFlatMapper.get(vertexName);
-        if (flatMapper == null) {
-            if (!vertexToFlatMapper.containsKey(vertexName)) {
-                // log only once
-                vertexToFlatMapper.put(vertexName, null);
-                getLogger().warning("Data for unknown vertex found in the snapshot, ignoring. Vertex=" + vertexName);
-            }
+        Integer ordinal = vertexToOrdinal.get(vertexName);
+        if (ordinal == null) {
+            warnUnknownVertex(vertexName);
             return true;
         }
         long snapshotId = casted.getKey().snapshotId();
@@ -93,6 +157,167 @@ public class ExplodeSnapshotP extends AbstractProcessor {
                     + expectedSnapshotId + ", found=" + snapshotId);
             return true;
         }
-        return flatMapper.tryProcess(casted.getValue());
+        // the deltas are complete at this point, the parsing tasks only read them
+        Map<Object, LatestSnapshotValues> vertexDeltas = deltas.get(vertexName);
+        Object chunk = casted.getValue();
+        pendingChunks.add(CompletableFuture.supplyAsync(
+                () -> uncheckCall(() -> parse(vertexName, ordinal, chunk, vertexDeltas)), restoreExecutor));
+        numPendingChunksMetric.lazySet(pendingChunks.size());
+        return true;
+    }
+
+    @Override
+    protected boolean tryProcess1(@Nonnull Object item) throws IOException {
+        Entry<SnapshotDataKey, byte[]> casted = (Entry<SnapshotDataKey, byte[]>) item;
+        SnapshotDataKey chunkKey = casted.getKey();
+        if (!FilterSnapshotDeltaPredicate.isLive(chunkKey, expectedSnapshotId, lastSnapshotId, compactedSnapshotId)) {
+            // chunk of an incremental snapshot that failed or was compacted
+            return true;
+        }
+        if (!vertexToOrdinal.containsKey(chunkKey.vertexName())) {
+            warnUnknownVertex(chunkKey.vertexName());
+            return true;
+        }
+        Map<Object, LatestSnapshotValues> vertexDeltas =
+                deltas.computeIfAbsent(chunkKey.vertexName(), x -> new HashMap<>());
+        try (BufferObjectDataInput in = serializationService.createObjectDataInput(casted.getValue())) {
+            for (Object key = in.readObject(); key != SnapshotDataValueTerminator.INSTANCE; key = in.readObject()) {
+                Object value = in.readObject();
+                vertexDeltas.computeIfAbsent(key, x -> new LatestSnapshotValues()).add(chunkKey.snapshotId(), value);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tryProcess() {
+        // emit the chunks parsed in the meantime, but don't wait for the others
+        return emitParsedChunks() || parsedChunkTraverser == null;
+    }
+
+    @Override
+    public boolean complete() {
+        if (!emitParsedChunks()) {
+            return false;
+        }
+        if (deltaTraverser == null) {
+            deltaTraverser = traverseIterable(deltas.entrySet())
+                    .flatMap(vertexEntry -> {
+                        Integer ordinal = vertexToOrdinal.get(vertexEntry.getKey());
+                        return traverseIterable(vertexEntry.getValue().entrySet())
+                                .flatMap(e -> traverseIterable(e.getValue().values)
+                                        .filter(value -> value != SnapshotTombstone.INSTANCE)
+                                        .map(value -> entry(ordinal, toItem(e.getKey(), value))));
+                    });
+        }
+        for (;;) {
+            if (pendingDeltaItem == null) {
+                pendingDeltaItem = deltaTraverser.next();
+                if (pendingDeltaItem == null) {
+                    updateRestoreTime();
+                    return true;
+                }
+            }
+            if (!tryEmit(pendingDeltaItem.getKey(), pendingDeltaItem.getValue())) {
+                return false;
+            }
+            lazyAdd(restoredEntries, 1);
+            pendingDeltaItem = null;
+        }
+    }
+
+    /**
+     * Emits the entries of the parsed chunks from the head of the pending
+     * chunks.
+     *
+     * @return true, if there are no more pending chunks
+     */
+    private boolean emitParsedChunks() {
+        for (;;) {
+            if (parsedChunkTraverser == null) {
+                CompletableFuture<ParsedChunk> head = pendingChunks.peek();
+                if (head == null) {
+                    return true;
+                }
+                if (!head.isDone()) {
+                    return false;
+                }
+                pendingChunks.remove();
+                numPendingChunksMetric.lazySet(pendingChunks.size());
+                ParsedChunk parsedChunk;
+                try {
+                    parsedChunk = head.join();
+                } catch (CompletionException e) {
+                    throw sneakyThrow(peel(e));
+                }
+                parsedChunkOrdinal = parsedChunk.ordinal;
+                parsedChunkTraverser = traverseIterable(parsedChunk.items);
+                lazyAdd(restoredChunks, 1);
+                lazyAdd(restoredEntries, parsedChunk.items.size());
+            }
+            if (!emitFromTraverser(parsedChunkOrdinal, parsedChunkTraverser)) {
+                return false;
+            }
+            parsedChunkTraverser = null;
+            updateRestoreTime();
+        }
+    }
+
+    /**
+     * Decompresses and deserializes the chunk, skipping the keys replaced by
+     * the incremental snapshots. Called on the restore executor.
+     */
+    private ParsedChunk parse(
+            String vertexName, int ordinal, Object chunk, @Nullable Map<Object, LatestSnapshotValues> vertexDeltas
+    ) throws IOException {
+        byte[] data;
+        int chunkLength;
+        if (chunk instanceof CompressedSnapshotChunk) {
+            CompressedSnapshotChunk compressedChunk = (CompressedSnapshotChunk) chunk;
+            data = compressedChunk.decompress(vertexName, dictionaries);
+            chunkLength = compressedChunk.compressedLength();
+        } else {
+            data = (byte[]) chunk;
+            chunkLength = data.length;
+        }
+        List<Object> items = new ArrayList<>();
+        try (BufferObjectDataInput in = serializationService.createObjectDataInput(data)) {
+            for (Object key = in.readObject(); key != SnapshotDataValueTerminator.INSTANCE; key = in.readObject()) {
+                Object value = in.readObject();
+                if (vertexDeltas == null || !vertexDeltas.containsKey(key)) {
+                    items.add(toItem(key, value));
+                }
+            }
+        }
+        // the bytes read from the snapshot map, not the decompressed ones
+        restoredBytes.addAndGet(chunkLength);
+        return new ParsedChunk(ordinal, items);
+    }
+
+    private void updateRestoreTime() {
+        restoreTimeMillis.lazySet(NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private void warnUnknownVertex(String vertexName) {
+        if (unknownVertices.add(vertexName)) {
+            // log only once
+            getLogger().warning("Data for unknown vertex found in the snapshot, ignoring. Vertex=" + vertexName);
+        }
+    }
+
+    private static Object toItem(Object key, Object value) {
+        return key instanceof BroadcastKey
+                ? new BroadcastEntry(key, value)
+                : entry(key, value);
+    }
+
+    private static final class ParsedChunk {
+        final int ordinal;
+        final List<Object> items;
+
+        ParsedChunk(int ordinal, List<Object> items) {
+            this.ordinal = ordinal;
+            this.items = items;
+        }
     }
 }
@@ -28,6 +28,9 @@ import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.JobNotFoundException;
 import com.hazelcast.jet.impl.execution.TaskletExecutionService;
 import com.hazelcast.jet.impl.operation.NotifyMemberShutdownOperation;
+import com.hazelcast.jet.impl.snapshot.IMapSnapshotStore;
+import com.hazelcast.jet.impl.snapshot.LocalDiskSnapshotStore;
+import com.hazelcast.jet.impl.snapshot.SnapshotStore;
 import com.hazelcast.jet.impl.util.ExceptionUtil;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Packet;
@@ -41,6 +44,8 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
@@ -52,6 +57,7 @@ import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.JetGroupProperty.JET_SHUTDOWNHOOK_ENABLED;
 import static com.hazelcast.jet.impl.util.Util.memoizeConcurrent;
 import static com.hazelcast.spi.properties.GroupProperty.SHUTDOWNHOOK_POLICY;
+import static com.hazelcast.util.executor.ExecutorType.CACHED;
 import static java.lang.Boolean.parseBoolean;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -61,6 +67,28 @@ public class JetService
     public static final String SERVICE_NAME = "hz:impl:jetService";
     public static final int MAX_PARALLEL_ASYNC_OPS = 1000;
 
+    /**
+     * The executor on which the snapshot chunks are fetched when a job is
+     * restored, so that the cooperative threads don't block on the fetches.
+     */
+    public static final String SNAPSHOT_FETCH_EXECUTOR_NAME = "jet:snapshotFetch";
+
+    /**
+     * The executor on which the snapshot chunks are parsed when a job is
+     * restored, so that the cooperative threads don't spend time
+     * deserializing the state. It's separate from the {@linkplain
+     * #SNAPSHOT_FETCH_EXECUTOR_NAME fetch executor} so that the parsing
+     * doesn't wait for the fetches and vice versa.
+     */
+    public static final String SNAPSHOT_PARSE_EXECUTOR_NAME = "jet:snapshotParse";
+
+    /**
+     * The executor on which the {@link LocalDiskSnapshotStore} creates, maps
+     * and writes its files, so that the cooperative threads don't block on
+     * the disk when they take a snapshot.
+     */
+    public static final String SNAPSHOT_STORE_EXECUTOR_NAME = "jet:snapshotStore";
+
     private static final int NOTIFY_MEMBER_SHUTDOWN_DELAY = 5;
 
     private NodeEngineImpl nodeEngine;
@@ -80,6 +108,9 @@ public class JetService
     private JobRepository jobRepository;
     private JobCoordinationService jobCoordinationService;
     private JobExecutionService jobExecutionService;
+    private IMapSnapshotStore imapSnapshotStore;
+    private SnapshotStore snapshotStore;
+    private LocalDiskSnapshotStore localSnapshotStore;
 
     private final AtomicInteger numConcurrentAsyncOps = new AtomicInteger();
 
@@ -98,9 +129,24 @@ public class JetService
         this.config = findJetServiceConfig(engine.getConfig());
         this.sharedMigrationWatcher = new MigrationWatcher(engine.getHazelcastInstance());
         jetInstance = new JetInstanceImpl((HazelcastInstanceImpl) engine.getHazelcastInstance(), config);
-        taskletExecutionService = new TaskletExecutionService(nodeEngine,
-                config.getInstanceConfig().getCooperativeThreadCount());
+        taskletExecutionService = new TaskletExecutionService(nodeEngine, config.getInstanceConfig());
         jobRepository = new JobRepository(jetInstance);
+        imapSnapshotStore = new IMapSnapshotStore(engine.getHazelcastInstance());
+        snapshotStore = imapSnapshotStore;
+        int cooperativeThreadCount = config.getInstanceConfig().getCooperativeThreadCount();
+        String snapshotDirectory = config.getInstanceConfig().getSnapshotDirectory();
+        if (snapshotDirectory != null) {
+            nodeEngine.getExecutionService().register(SNAPSHOT_STORE_EXECUTOR_NAME,
+                    cooperativeThreadCount, Integer.MAX_VALUE, CACHED);
+            localSnapshotStore = new LocalDiskSnapshotStore(
+                    nodeEngine, snapshotDirectory, config.getInstanceConfig().getBackupCount());
+            snapshotStore = localSnapshotStore;
+            jobRepository.setSnapshotStore(localSnapshotStore);
+        }
+        nodeEngine.getExecutionService().register(SNAPSHOT_FETCH_EXECUTOR_NAME,
+                cooperativeThreadCount, Integer.MAX_VALUE, CACHED);
+        nodeEngine.getExecutionService().register(SNAPSHOT_PARSE_EXECUTOR_NAME,
+                cooperativeThreadCount, Integer.MAX_VALUE, CACHED);
         jobExecutionService = new JobExecutionService(nodeEngine, taskletExecutionService, jobRepository);
         jobCoordinationService = createJobCoordinationService();
         networking = new Networking(engine, jobExecutionService, config.getInstanceConfig().getFlowControlPeriodMs());
@@ -174,6 +220,9 @@ public class JetService
         taskletExecutionService.shutdown(false);
         taskletExecutionService.awaitWorkerTermination();
         networking.shutdown();
+        if (localSnapshotStore != null) {
+            localSnapshotStore.shutdown();
+        }
     }
 
     @Override
@@ -203,6 +252,24 @@ public class JetService
         return jobRepository;
     }
 
+    /**
+     * Returns the store of the snapshot data map with the given name. The
+     * exported snapshots are always stored in IMaps.
+     */
+    @Nonnull
+    public SnapshotStore snapshotStore(@Nonnull String mapName) {
+        return mapName.startsWith(JobRepository.EXPORTED_SNAPSHOTS_PREFIX) ? imapSnapshotStore : snapshotStore;
+    }
+
+    /**
+     * Returns the local-disk snapshot store or {@code null}, if the snapshot
+     * directory isn't configured.
+     */
+    @Nullable
+    public LocalDiskSnapshotStore localSnapshotStore() {
+        return localSnapshotStore;
+    }
+
     public NodeEngineImpl getNodeEngine() {
         return nodeEngine;
     }
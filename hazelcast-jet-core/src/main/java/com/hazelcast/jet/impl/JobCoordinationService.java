@@ -79,6 +79,7 @@ import static com.hazelcast.jet.impl.util.JetGroupProperty.JOB_SCAN_PERIOD;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFinest;
 import static com.hazelcast.jet.impl.util.Util.getJetInstance;
+import static com.hazelcast.spi.ExecutionService.ASYNC_EXECUTOR;
 import static com.hazelcast.util.executor.ExecutorType.CACHED;
 import static java.util.Comparator.comparing;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -598,6 +599,15 @@ public class JobCoordinationService {
                 snapshotInterval, MILLISECONDS);
     }
 
+    /**
+     * Compacts the incremental snapshots of the job on the async executor,
+     * it can take long and shouldn't hold the coordinator threads.
+     */
+    void scheduleSnapshotCompaction(MasterContext mc, long executionId) {
+        nodeEngine.getExecutionService().execute(ASYNC_EXECUTOR,
+                () -> mc.snapshotContext().compactSnapshots(executionId));
+    }
+
     /**
      * Restarts a job for a new execution if the cluster is stable.
      * Otherwise, it reschedules the restart task.
@@ -57,6 +57,11 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
     private volatile long ongoingSnapshotId = NO_SNAPSHOT;
     private volatile long ongoingSnapshotStartTime = Long.MIN_VALUE;
     private volatile String exportedSnapshotMapName;
+    private volatile boolean ongoingSnapshotIncremental;
+    private volatile long baseSnapshotId = NO_SNAPSHOT;
+    private volatile long baseSnapshotBytes;
+    private volatile long deltaSnapshotBytes;
+    private volatile long compactedSnapshotId = NO_SNAPSHOT;
     @Nullable
     private volatile String lastSnapshotFailure;
     @Nullable
@@ -97,15 +102,25 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         this.suspended = suspended;
     }
 
+    /**
+     * Starts a new snapshot. An incremental snapshot is written to the delta
+     * map and depends on the {@linkplain #baseSnapshotId() base snapshot}
+     * and on the incremental snapshots after it.
+     */
     @SuppressWarnings("NonAtomicOperationOnVolatileField")
     @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT",
             justification = "all updates to ongoingSnapshotId are synchronized")
-    public void startNewSnapshot(String exportedSnapshotMapName) {
+    public void startNewSnapshot(String exportedSnapshotMapName, boolean isIncremental) {
+        assert !isIncremental || exportedSnapshotMapName == null : "exported snapshot can't be incremental";
         ongoingSnapshotId++;
         ongoingSnapshotStartTime = Clock.currentTimeMillis();
         this.exportedSnapshotMapName = exportedSnapshotMapName;
+        this.ongoingSnapshotIncremental = isIncremental;
     }
 
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT",
+            justification = "all updates to deltaSnapshotBytes are synchronized")
     public SnapshotStats ongoingSnapshotDone(long numBytes, long numKeys, long numChunks, @Nullable String failureText) {
         lastSnapshotFailure = failureText;
         SnapshotStats res = new SnapshotStats(
@@ -113,11 +128,20 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         );
         // switch dataMapIndex only if the snapshot was successful and it wasn't an exported one
         if (failureText == null && exportedSnapshotMapName == null) {
-            dataMapIndex = ongoingDataMapIndex();
+            if (ongoingSnapshotIncremental) {
+                deltaSnapshotBytes += numBytes;
+            } else {
+                dataMapIndex = ongoingDataMapIndex();
+                baseSnapshotId = ongoingSnapshotId;
+                baseSnapshotBytes = numBytes;
+                deltaSnapshotBytes = 0;
+                compactedSnapshotId = NO_SNAPSHOT;
+            }
             snapshotId = ongoingSnapshotId;
             snapshotStats = res;
         }
         exportedSnapshotMapName = null;
+        ongoingSnapshotIncremental = false;
         ongoingSnapshotStartTime = Long.MIN_VALUE;
         return res;
     }
@@ -130,6 +154,47 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         return snapshotId;
     }
 
+    /**
+     * The ID of the last successful full snapshot, the one in the data map
+     * at {@link #dataMapIndex()}. If it's lower than {@link #snapshotId()},
+     * the incremental snapshots after it are in the delta map.
+     */
+    public long baseSnapshotId() {
+        return baseSnapshotId;
+    }
+
+    /**
+     * The size of the {@linkplain #baseSnapshotId() base snapshot} in bytes.
+     */
+    public long baseSnapshotBytes() {
+        return baseSnapshotBytes;
+    }
+
+    /**
+     * The total size of the incremental snapshots taken since the {@linkplain
+     * #baseSnapshotId() base snapshot} in bytes, before compaction.
+     */
+    public long deltaSnapshotBytes() {
+        return deltaSnapshotBytes;
+    }
+
+    /**
+     * The ID of the last incremental snapshot compacted with the ones before
+     * it or {@link #NO_SNAPSHOT}, if there was no compaction since the
+     * {@linkplain #baseSnapshotId() base snapshot}.
+     */
+    public long compactedSnapshotId() {
+        return compactedSnapshotId;
+    }
+
+    /**
+     * Records the result of a compaction of the incremental snapshots up to
+     * the given ID.
+     */
+    void setCompactedSnapshotId(long compactedSnapshotId) {
+        this.compactedSnapshotId = compactedSnapshotId;
+    }
+
     /**
      * The data map index of current successful snapshot (0 or 1) or -1, if
      * there's no successful snapshot.
@@ -240,6 +305,11 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         out.writeObject(exportedSnapshotMapName);
         out.writeBoolean(suspended);
         out.writeLong(timestamp.get());
+        out.writeBoolean(ongoingSnapshotIncremental);
+        out.writeLong(baseSnapshotId);
+        out.writeLong(baseSnapshotBytes);
+        out.writeLong(deltaSnapshotBytes);
+        out.writeLong(compactedSnapshotId);
     }
 
     @Override
@@ -255,6 +325,11 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         exportedSnapshotMapName = in.readObject();
         suspended = in.readBoolean();
         timestamp.set(in.readLong());
+        ongoingSnapshotIncremental = in.readBoolean();
+        baseSnapshotId = in.readLong();
+        baseSnapshotBytes = in.readLong();
+        deltaSnapshotBytes = in.readLong();
+        compactedSnapshotId = in.readLong();
     }
 
     @Override
@@ -266,6 +341,8 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
                 ", suspended=" + suspended +
                 ", dataMapIndex=" + dataMapIndex +
                 ", snapshotId=" + snapshotId +
+                ", baseSnapshotId=" + baseSnapshotId +
+                ", compactedSnapshotId=" + compactedSnapshotId +
                 ", ongoingSnapshotId=" + ongoingSnapshotId +
                 ", ongoingSnapshotStartTime=" + toLocalTime(ongoingSnapshotStartTime) +
                 ", snapshotStats=" + snapshotStats +
@@ -26,15 +26,26 @@ import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ResourceConfig;
 import com.hazelcast.jet.core.JobNotFoundException;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.operation.CompactSnapshotDeltasOperation;
+import com.hazelcast.jet.impl.snapshot.IMapSnapshotStore;
+import com.hazelcast.jet.impl.snapshot.SnapshotStore;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.map.EntryBackupProcessor;
 import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.nio.IOUtil;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.query.PartitionPredicate;
 import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.InternalCompletableFuture;
+import com.hazelcast.spi.NodeEngine;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import javax.annotation.Nonnull;
@@ -43,9 +54,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -56,7 +69,11 @@ import java.util.jar.JarInputStream;
 import java.util.zip.DeflaterOutputStream;
 
 import static com.hazelcast.jet.Util.idToString;
+import static com.hazelcast.jet.impl.JobExecutionRecord.NO_SNAPSHOT;
+import static com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.DEFAULT_CHUNK_SIZE;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
+import static com.hazelcast.jet.impl.util.Util.createObjectDataInput;
+import static com.hazelcast.jet.impl.util.Util.createObjectDataOutput;
 import static java.util.Collections.newSetFromMap;
 import static java.util.Comparator.comparing;
 import static java.util.concurrent.TimeUnit.HOURS;
@@ -129,6 +146,7 @@ public class JobRepository {
     private final IMap<Long, JobResult> jobResults;
     private final IMap<String, SnapshotValidationRecord> exportedSnapshotDetailsCache;
     private long resourcesExpirationMillis = DEFAULT_RESOURCES_EXPIRATION_MILLIS;
+    private SnapshotStore snapshotStore;
 
     /**
      * Because the member can fail at any moment we try to delete job data regularly
@@ -152,6 +170,16 @@ public class JobRepository {
         this.jobExecutionRecords = instance.getMap(JOB_EXECUTION_RECORDS_MAP_NAME);
         this.jobResults = instance.getMap(JOB_RESULTS_MAP_NAME);
         this.exportedSnapshotDetailsCache = instance.getMap(EXPORTED_SNAPSHOTS_DETAIL_CACHE);
+        this.snapshotStore = new IMapSnapshotStore(instance);
+    }
+
+    /**
+     * Sets the store of the snapshot data maps, the default is the {@link
+     * IMapSnapshotStore}. The incremental snapshots are always stored in
+     * an IMap.
+     */
+    void setSnapshotStore(@Nonnull SnapshotStore snapshotStore) {
+        this.snapshotStore = snapshotStore;
     }
 
     // for tests
@@ -442,6 +470,15 @@ public class JobRepository {
         return SNAPSHOT_DATA_MAP_PREFIX + idToString(jobId) + '.' + dataMapIndex;
     }
 
+    /**
+     * Returns map name in the form {@code "_jet.snapshot.<jobId>.delta"}. The
+     * map stores the incremental snapshots taken after the full snapshot in
+     * the current snapshot data map.
+     */
+    public static String snapshotDeltaMapName(long jobId) {
+        return SNAPSHOT_DATA_MAP_PREFIX + idToString(jobId) + ".delta";
+    }
+
     /**
      * Returns map name in the form {@code "_jet.exportedSnapshot.<jobId>.<dataMapIndex>"}.
      */
@@ -453,21 +490,191 @@ public class JobRepository {
      * Delete all snapshots for a given job.
      */
     private void destroySnapshotDataMaps(long jobId) {
-        instance.getMap(snapshotDataMapName(jobId, 0)).destroy();
-        instance.getMap(snapshotDataMapName(jobId, 1)).destroy();
+        snapshotStore.destroy(snapshotDataMapName(jobId, 0));
+        snapshotStore.destroy(snapshotDataMapName(jobId, 1));
+        instance.getMap(snapshotDeltaMapName(jobId)).destroy();
         logFine(logger, "Destroyed both snapshot maps for job %s", idToString(jobId));
     }
 
     void clearSnapshotData(long jobId, int dataMapIndex) {
         String mapName = snapshotDataMapName(jobId, dataMapIndex);
         try {
-            instance.getMap(mapName).clear();
+            snapshotStore.clear(mapName);
             logFine(logger, "Cleared snapshot data map %s", mapName);
         } catch (Exception logged) {
             logger.warning("Cannot delete old snapshot data  " + idToString(jobId), logged);
         }
     }
 
+    /**
+     * Deletes all incremental snapshots of the job, called after a full
+     * snapshot replaced them.
+     */
+    void clearSnapshotDeltas(long jobId) {
+        String mapName = snapshotDeltaMapName(jobId);
+        try {
+            instance.getMap(mapName).clear();
+            logFine(logger, "Cleared snapshot delta map %s", mapName);
+        } catch (Exception logged) {
+            logger.warning("Cannot delete old incremental snapshots of " + idToString(jobId), logged);
+        }
+    }
+
+    /**
+     * Deletes the chunks of an incremental snapshot that failed.
+     */
+    void removeSnapshotDelta(long jobId, long snapshotId) {
+        instance.getMap(snapshotDeltaMapName(jobId))
+                .removeAll(new FilterSnapshotDeltaPredicate(snapshotId - 1, snapshotId, NO_SNAPSHOT, false));
+    }
+
+    /**
+     * Merges the chunks of the incremental snapshots after {@code
+     * baseSnapshotId} up to {@code snapshotId} into new chunks that contain
+     * only the latest value of each key. The new chunks have the {@code
+     * snapshotId} and a negative sequence. They are ignored until the
+     * caller sets {@code snapshotId} as the compacted snapshot ID in the
+     * {@link JobExecutionRecord}, after that it should call {@link
+     * #removeCompactedSnapshotDeltas}. If the caller doesn't do it, it
+     * should remove the new chunks using {@link #removeSnapshotCompaction}.
+     * <p>
+     * The chunks are merged by the members that own the partitions of the
+     * delta map, see {@link #compactLocalSnapshotDeltas}. Called on the
+     * master, it waits for the members.
+     *
+     * @return the number of chunks written
+     */
+    int compactSnapshotDeltas(
+            NodeEngine nodeEngine, long jobId, long baseSnapshotId, long compactedSnapshotId, long snapshotId
+    ) {
+        // chunks of an earlier compaction to the same snapshot that didn't complete
+        removeSnapshotCompaction(jobId, snapshotId);
+
+        List<InternalCompletableFuture<Integer>> futures = new ArrayList<>();
+        for (Entry<Address, List<Integer>> e : nodeEngine.getPartitionService().getMemberPartitionsMap().entrySet()) {
+            int[] partitionIds = e.getValue().stream().mapToInt(Integer::intValue).toArray();
+            futures.add(nodeEngine.getOperationService().invokeOnTarget(JetService.SERVICE_NAME,
+                    new CompactSnapshotDeltasOperation(jobId, baseSnapshotId, compactedSnapshotId, snapshotId,
+                            partitionIds),
+                    e.getKey()));
+        }
+        int numChunks = 0;
+        for (InternalCompletableFuture<Integer> future : futures) {
+            numChunks += future.join();
+        }
+        return numChunks;
+    }
+
+    /**
+     * Merges the chunks in the given partitions of the delta map as
+     * described in {@link #compactSnapshotDeltas}. Called on the member that
+     * owns the partitions, the partitions are merged one by one, so that
+     * only the state in one partition is held in the memory. If a partition
+     * migrates away meanwhile, its chunks are merged remotely.
+     * <p>
+     * The values are deserialized, the job class loader must be set as the
+     * thread context class loader.
+     *
+     * @return the number of chunks written
+     */
+    public int compactLocalSnapshotDeltas(
+            NodeEngine nodeEngine, long jobId, long baseSnapshotId, long compactedSnapshotId, long snapshotId,
+            int[] partitionIds
+    ) throws IOException {
+        IMap<SnapshotDataKey, byte[]> deltaMap = instance.getMap(snapshotDeltaMapName(jobId));
+        int[] partitionKeys = nodeEngine.<JetService>getService(JetService.SERVICE_NAME).getSharedPartitionKeys();
+        FilterSnapshotDeltaPredicate filter =
+                new FilterSnapshotDeltaPredicate(baseSnapshotId, snapshotId, compactedSnapshotId, false);
+        int numChunks = 0;
+        try (BufferObjectDataOutput out = createObjectDataOutput(nodeEngine)) {
+            for (int partitionId : partitionIds) {
+                // vertex name -> partition key -> key -> the values from the latest snapshot
+                Map<String, Map<Integer, Map<Object, LatestSnapshotValues>>> merged = new HashMap<>();
+                for (Entry<SnapshotDataKey, byte[]> chunk
+                        : deltaMap.entrySet(new PartitionPredicate<>(partitionKeys[partitionId], filter))) {
+                    SnapshotDataKey chunkKey = chunk.getKey();
+                    Map<Object, LatestSnapshotValues> values = merged
+                            .computeIfAbsent(chunkKey.vertexName(), x -> new HashMap<>())
+                            .computeIfAbsent(chunkKey.partitionKey(), x -> new LinkedHashMap<>());
+                    readLatestValues(nodeEngine, chunkKey.snapshotId(), chunk.getValue(), values);
+                }
+                for (Entry<String, Map<Integer, Map<Object, LatestSnapshotValues>>> vertexEntry : merged.entrySet()) {
+                    for (Entry<Integer, Map<Object, LatestSnapshotValues>> e : vertexEntry.getValue().entrySet()) {
+                        // the key contains the partition key and the vertex name, the sequence is unique for them
+                        SnapshotDataKey firstChunkKey = new SnapshotDataKey(e.getKey(), snapshotId,
+                                vertexEntry.getKey(), -1);
+                        numChunks += writeCompactedChunks(deltaMap, out, firstChunkKey, e.getValue());
+                    }
+                }
+            }
+        }
+        return numChunks;
+    }
+
+    private static void readLatestValues(
+            NodeEngine nodeEngine, long chunkSnapshotId, byte[] chunk, Map<Object, LatestSnapshotValues> values
+    ) throws IOException {
+        try (BufferObjectDataInput in = createObjectDataInput(nodeEngine, chunk)) {
+            for (Object key = in.readObject(); key != SnapshotDataValueTerminator.INSTANCE; key = in.readObject()) {
+                Object value = in.readObject();
+                values.computeIfAbsent(key, x -> new LatestSnapshotValues()).add(chunkSnapshotId, value);
+            }
+        }
+    }
+
+    /**
+     * Writes the values to chunks with the decreasing sequence starting at
+     * the sequence of {@code firstChunkKey}, returns the number of chunks.
+     */
+    private static int writeCompactedChunks(
+            IMap<SnapshotDataKey, byte[]> deltaMap, BufferObjectDataOutput out, SnapshotDataKey firstChunkKey,
+            Map<Object, LatestSnapshotValues> values
+    ) throws IOException {
+        int numChunks = 0;
+        for (Entry<Object, LatestSnapshotValues> e : values.entrySet()) {
+            for (Object value : e.getValue().values) {
+                out.writeObject(e.getKey());
+                out.writeObject(value);
+            }
+            if (out.position() >= DEFAULT_CHUNK_SIZE) {
+                writeCompactedChunk(deltaMap, out, firstChunkKey, numChunks++);
+            }
+        }
+        if (out.position() > 0) {
+            writeCompactedChunk(deltaMap, out, firstChunkKey, numChunks++);
+        }
+        return numChunks;
+    }
+
+    private static void writeCompactedChunk(
+            IMap<SnapshotDataKey, byte[]> deltaMap, BufferObjectDataOutput out, SnapshotDataKey firstChunkKey, int index
+    ) throws IOException {
+        out.writeObject(SnapshotDataValueTerminator.INSTANCE);
+        deltaMap.set(new SnapshotDataKey(firstChunkKey.partitionKey(), firstChunkKey.snapshotId(),
+                firstChunkKey.vertexName(), firstChunkKey.sequence() - index), out.toByteArray());
+        out.clear();
+    }
+
+    /**
+     * Deletes the chunks that were replaced by a compaction to {@code
+     * snapshotId}, which is now the compacted snapshot ID in the {@link
+     * JobExecutionRecord}. The chunks of the incremental snapshots taken
+     * after it are kept.
+     */
+    void removeCompactedSnapshotDeltas(long jobId, long baseSnapshotId, long snapshotId) {
+        instance.getMap(snapshotDeltaMapName(jobId))
+                .removeAll(new FilterSnapshotDeltaPredicate(baseSnapshotId, Long.MAX_VALUE, snapshotId, true));
+    }
+
+    /**
+     * Deletes the chunks written by an incomplete compaction to {@code
+     * snapshotId}.
+     */
+    void removeSnapshotCompaction(long jobId, long snapshotId) {
+        instance.getMap(snapshotDeltaMapName(jobId))
+                .removeAll(new FilterSnapshotDeltaPredicate(snapshotId - 1, snapshotId, snapshotId, false));
+    }
+
     void cacheValidationRecord(@Nonnull String snapshotName, @Nonnull SnapshotValidationRecord validationRecord) {
         exportedSnapshotDetailsCache.set(snapshotName, validationRecord);
     }
@@ -582,6 +789,95 @@ public class JobRepository {
         }
     }
 
+    /**
+     * Matches the chunks in the {@linkplain #snapshotDeltaMapName snapshot
+     * delta map} that are live: their snapshot ID is after the base
+     * snapshot ID and not after the snapshot ID. The chunks up to the
+     * compacted snapshot ID were replaced by the chunks written by the
+     * compaction, which have the compacted snapshot ID and a negative
+     * sequence. If {@code inverted}, it matches the chunks that are not
+     * live.
+     */
+    public static class FilterSnapshotDeltaPredicate
+            implements Predicate<SnapshotDataKey, Object>, IdentifiedDataSerializable {
+
+        private long baseSnapshotId;
+        private long snapshotId;
+        private long compactedSnapshotId;
+        private boolean inverted;
+
+        public FilterSnapshotDeltaPredicate() {
+        }
+
+        FilterSnapshotDeltaPredicate(long baseSnapshotId, long snapshotId, long compactedSnapshotId, boolean inverted) {
+            this.baseSnapshotId = baseSnapshotId;
+            this.snapshotId = snapshotId;
+            this.compactedSnapshotId = compactedSnapshotId;
+            this.inverted = inverted;
+        }
+
+        @Override
+        public boolean apply(Entry<SnapshotDataKey, Object> mapEntry) {
+            return isLive(mapEntry.getKey(), baseSnapshotId, snapshotId, compactedSnapshotId) != inverted;
+        }
+
+        static boolean isLive(SnapshotDataKey key, long baseSnapshotId, long snapshotId, long compactedSnapshotId) {
+            long id = key.snapshotId();
+            if (id <= baseSnapshotId || id > snapshotId) {
+                return false;
+            }
+            return id > compactedSnapshotId
+                    ? key.sequence() >= 0
+                    : id == compactedSnapshotId && key.sequence() < 0;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return JetInitDataSerializerHook.FACTORY_ID;
+        }
+
+        @Override
+        public int getId() {
+            return JetInitDataSerializerHook.FILTER_SNAPSHOT_DELTA_PREDICATE;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeLong(baseSnapshotId);
+            out.writeLong(snapshotId);
+            out.writeLong(compactedSnapshotId);
+            out.writeBoolean(inverted);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            baseSnapshotId = in.readLong();
+            snapshotId = in.readLong();
+            compactedSnapshotId = in.readLong();
+            inverted = in.readBoolean();
+        }
+    }
+
+    /**
+     * The values of a key from the latest incremental snapshot that contains
+     * it. Broadcast keys have a value from each processor that saved them.
+     */
+    static final class LatestSnapshotValues {
+        final List<Object> values = new ArrayList<>(1);
+        private long snapshotId = Long.MIN_VALUE;
+
+        void add(long valueSnapshotId, Object value) {
+            if (valueSnapshotId < snapshotId) {
+                return;
+            }
+            if (valueSnapshotId > snapshotId) {
+                snapshotId = valueSnapshotId;
+                values.clear();
+            }
+            values.add(value);
+        }
+    }
+
     public static class FilterJobIdPredicate implements Predicate<Long, Long>, IdentifiedDataSerializable {
 
         public FilterJobIdPredicate() {
@@ -38,6 +38,7 @@ import com.hazelcast.jet.impl.operation.CompleteExecutionOperation;
 import com.hazelcast.jet.impl.operation.InitExecutionOperation;
 import com.hazelcast.jet.impl.operation.StartExecutionOperation;
 import com.hazelcast.jet.impl.operation.TerminateExecutionOperation;
+import com.hazelcast.jet.impl.snapshot.SnapshotStore;
 import com.hazelcast.jet.impl.util.ExceptionUtil;
 import com.hazelcast.jet.impl.util.LoggingUtil;
 import com.hazelcast.jet.impl.util.NonCompletableFuture;
@@ -64,6 +65,7 @@ import java.util.function.Function;
 import static com.hazelcast.jet.Util.idToString;
 import static com.hazelcast.jet.config.ProcessingGuarantee.NONE;
 import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.Edge.from;
 import static com.hazelcast.jet.core.JobStatus.COMPLETED;
 import static com.hazelcast.jet.core.JobStatus.FAILED;
 import static com.hazelcast.jet.core.JobStatus.NOT_RUNNING;
@@ -71,10 +73,10 @@ import static com.hazelcast.jet.core.JobStatus.RUNNING;
 import static com.hazelcast.jet.core.JobStatus.STARTING;
 import static com.hazelcast.jet.core.JobStatus.SUSPENDED;
 import static com.hazelcast.jet.core.JobStatus.SUSPENDED_EXPORTING_SNAPSHOT;
-import static com.hazelcast.jet.core.processor.SourceProcessors.readMapP;
 import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
 import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
 import static com.hazelcast.jet.impl.JobRepository.EXPORTED_SNAPSHOTS_PREFIX;
+import static com.hazelcast.jet.impl.JobRepository.snapshotDeltaMapName;
 import static com.hazelcast.jet.impl.TerminationMode.ActionAfterTerminate.RESTART;
 import static com.hazelcast.jet.impl.TerminationMode.ActionAfterTerminate.SUSPEND;
 import static com.hazelcast.jet.impl.TerminationMode.CANCEL_FORCEFUL;
@@ -341,20 +343,47 @@ public class MasterJobContext {
     }
 
     private void rewriteDagWithSnapshotRestore(DAG dag, long snapshotId, String mapName) {
+        // if the last snapshot was incremental, the map contains its base snapshot and
+        // the state is merged with the incremental snapshots from the delta map
+        JobExecutionRecord record = mc.jobExecutionRecord();
+        boolean hasDeltas = snapshotId >= 0 && record.baseSnapshotId() >= 0 && record.baseSnapshotId() < snapshotId;
+        long lastSnapshotId = snapshotId;
+        long compactedSnapshotId = record.compactedSnapshotId();
+        if (hasDeltas) {
+            snapshotId = record.baseSnapshotId();
+        }
+        SnapshotStore snapshotStore = mc.getJetService().snapshotStore(mapName);
         IMap<Object, Object> snapshotMap = mc.nodeEngine().getHazelcastInstance().getMap(mapName);
-        snapshotId = SnapshotValidator.validateSnapshot(snapshotId, mc.jobIdString(), snapshotMap);
-        logger.info("State of " + mc.jobIdString() + " will be restored from snapshot " + snapshotId + ", map=" + mapName);
+        SnapshotValidationRecord validationRecord = SnapshotValidator.validateSnapshot(
+                snapshotId, mc.jobIdString(), snapshotMap, snapshotStore.isQueryable());
+        snapshotStore.validateChunkCount(mapName, validationRecord, mc.jobIdString());
+        snapshotId = validationRecord.snapshotId();
+        if (!hasDeltas) {
+            lastSnapshotId = snapshotId;
+        }
+        logger.info("State of " + mc.jobIdString() + " will be restored from snapshot " + snapshotId + ", map=" + mapName
+                + (hasDeltas ? ", with incremental snapshots up to " + lastSnapshotId : ""));
 
         List<Vertex> originalVertices = new ArrayList<>();
         dag.iterator().forEachRemaining(originalVertices::add);
 
         Map<String, Integer> vertexToOrdinal = new HashMap<>();
         Vertex readSnapshotVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "read",
-                readMapP(mapName));
+                snapshotStore.readP(mapName));
         long finalSnapshotId = snapshotId;
+        long finalLastSnapshotId = lastSnapshotId;
+        Map<String, byte[]> dictionaries = validationRecord.dictionaries();
         Vertex explodeVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "explode",
-                () -> new ExplodeSnapshotP(vertexToOrdinal, finalSnapshotId));
+                () -> new ExplodeSnapshotP(vertexToOrdinal, finalSnapshotId, finalLastSnapshotId, compactedSnapshotId,
+                        dictionaries));
         dag.edge(between(readSnapshotVertex, explodeVertex).isolated());
+        if (hasDeltas) {
+            // the deltas are read first so that the base entries they replace can be skipped
+            String deltaMapName = snapshotDeltaMapName(mc.jobId());
+            Vertex readDeltaVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "readDelta",
+                    mc.getJetService().snapshotStore(deltaMapName).readP(deltaMapName));
+            dag.edge(from(readDeltaVertex).to(explodeVertex, 1).isolated().priority(-1));
+        }
 
         int index = 0;
         // add the edges
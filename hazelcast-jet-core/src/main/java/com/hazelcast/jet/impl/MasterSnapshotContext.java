@@ -24,6 +24,7 @@ import com.hazelcast.jet.impl.JobExecutionRecord.SnapshotStats;
 import com.hazelcast.jet.impl.execution.init.ExecutionPlan;
 import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
+import com.hazelcast.jet.impl.snapshot.SnapshotStore;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.Operation;
 
@@ -40,8 +41,10 @@ import static com.hazelcast.jet.core.JobStatus.RUNNING;
 import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
 import static com.hazelcast.jet.impl.JobRepository.EXPORTED_SNAPSHOTS_PREFIX;
 import static com.hazelcast.jet.impl.JobRepository.exportedSnapshotMapName;
+import static com.hazelcast.jet.impl.JobRepository.snapshotDeltaMapName;
 import static com.hazelcast.jet.impl.JobRepository.snapshotDataMapName;
 import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Part of {@link MasterContext} that deals with snapshot creation.
@@ -58,6 +61,19 @@ class MasterSnapshotContext {
      */
     private boolean snapshotInProgress;
 
+    /**
+     * True, if the next regular snapshot can be incremental: the previous
+     * snapshot was a successful regular snapshot in the current execution.
+     * After a restart, a failure or an export, the processors don't know
+     * which of their keys changed since the last regular snapshot.
+     */
+    private boolean incrementalAllowed;
+
+    /**
+     * It's true while the incremental snapshots are being compacted.
+     */
+    private volatile boolean compactionInProgress;
+
     /**
      * A future (re)created when the job is started and completed when terminal
      * snapshot is completed (successfully or not).
@@ -82,6 +98,18 @@ class MasterSnapshotContext {
      */
     private final Queue<Tuple3<String, Boolean, CompletableFuture<Void>>> snapshotQueue = new LinkedList<>();
 
+    /**
+     * A full snapshot is taken instead of an incremental one when the
+     * incremental snapshots after the last full snapshot have at least this
+     * percentage of its size.
+     */
+    private static final int MAX_DELTA_SIZE_PERCENT = 50;
+
+    /**
+     * The number of incremental snapshots after which they are compacted.
+     */
+    private static final int COMPACTION_THRESHOLD = 8;
+
     MasterSnapshotContext(MasterContext masterContext, ILogger logger) {
         mc = masterContext;
         this.logger = logger;
@@ -114,6 +142,7 @@ class MasterSnapshotContext {
 
     void tryBeginSnapshot() {
         boolean isTerminal;
+        boolean isIncremental;
         String snapshotMapName;
         CompletableFuture<Void> future;
         mc.lock();
@@ -139,7 +168,8 @@ class MasterSnapshotContext {
             snapshotMapName = requestedSnapshot.f0();
             isTerminal = requestedSnapshot.f1();
             future = requestedSnapshot.f2();
-            mc.jobExecutionRecord().startNewSnapshot(snapshotMapName);
+            isIncremental = snapshotMapName == null && isIncrementalAllowed();
+            mc.jobExecutionRecord().startNewSnapshot(snapshotMapName, isIncremental);
         } finally {
             mc.unlock();
         }
@@ -148,22 +178,25 @@ class MasterSnapshotContext {
         long newSnapshotId = mc.jobExecutionRecord().ongoingSnapshotId();
         boolean isExport = snapshotMapName != null;
         String finalMapName = isExport ? exportedSnapshotMapName(snapshotMapName)
+                : isIncremental ? snapshotDeltaMapName(mc.jobId())
                 : snapshotDataMapName(mc.jobId(), mc.jobExecutionRecord().ongoingDataMapIndex());
         if (isExport) {
             mc.nodeEngine().getHazelcastInstance().getMap(finalMapName).clear();
         }
         logger.info(String.format("Starting snapshot %d for %s", newSnapshotId, mc.jobIdString())
                 + (isTerminal ? ", terminal" : "")
+                + (isIncremental ? ", incremental" : "")
                 + (isExport ? ", exporting to '" + snapshotMapName + '\'' : ""));
 
         Function<ExecutionPlan, Operation> factory =
-                plan -> new SnapshotOperation(mc.jobId(), mc.executionId(), newSnapshotId, finalMapName, isTerminal);
+                plan -> new SnapshotOperation(mc.jobId(), mc.executionId(), newSnapshotId, finalMapName, isTerminal,
+                        isIncremental);
 
         // Need to take a copy of executionId: we don't cancel the scheduled task when the execution
         // finalizes. If a new execution is started in the meantime, we'll use the execution ID to detect it.
         long localExecutionId = mc.executionId();
         mc.invokeOnParticipants(factory, responses -> onSnapshotCompleted(
-                responses, localExecutionId, newSnapshotId, finalMapName, isExport, isTerminal, future),
+                responses, localExecutionId, newSnapshotId, finalMapName, isExport, isTerminal, isIncremental, future),
                 null);
     }
 
@@ -174,6 +207,7 @@ class MasterSnapshotContext {
             String snapshotMapName,
             boolean wasExport,
             boolean wasTerminal,
+            boolean wasIncremental,
             @Nullable CompletableFuture<Void> future
     ) {
         // Note: this method can be called after finalizeJob() is called or even after new execution started.
@@ -189,19 +223,10 @@ class MasterSnapshotContext {
         }
 
         IMap<Object, Object> snapshotMap = mc.nodeEngine().getHazelcastInstance().getMap(snapshotMapName);
+        // the incremental snapshot is validated together with its base snapshot
         try {
-            SnapshotValidationRecord validationRecord = new SnapshotValidationRecord(snapshotId,
-                    mergedResult.getNumChunks(), mergedResult.getNumBytes(),
-                    mc.jobExecutionRecord().ongoingSnapshotStartTime(), mc.jobId(), mc.jobName(),
-                    mc.jobRecord().getDagJson());
-            Object oldValue = snapshotMap.put(SnapshotValidationRecord.KEY, validationRecord);
-            if (snapshotMapName.startsWith(EXPORTED_SNAPSHOTS_PREFIX)) {
-                String snapshotName = snapshotMapName.substring(EXPORTED_SNAPSHOTS_PREFIX.length());
-                mc.jobRepository().cacheValidationRecord(snapshotName, validationRecord);
-            }
-            if (oldValue != null) {
-                logger.severe("SnapshotValidationRecord overwritten after writing to '" + snapshotMapName + "' for "
-                        + mc.jobIdString() + ": snapshot data might be corrupted");
+            if (!wasIncremental) {
+                writeValidationRecord(snapshotId, snapshotMapName, mergedResult, snapshotMap);
             }
         } catch (Exception e) {
             mergedResult.merge(new SnapshotOperationResult(0, 0, 0, e));
@@ -212,7 +237,12 @@ class MasterSnapshotContext {
             logger.warning(mc.jobIdString() + " snapshot " + snapshotId + " failed on some member(s), " +
                     "one of the failures: " + mergedResult.getError());
             try {
-                snapshotMap.clear();
+                if (wasIncremental) {
+                    // the map contains also the previous incremental snapshots
+                    mc.jobRepository().removeSnapshotDelta(mc.jobId(), snapshotId);
+                } else {
+                    snapshotStore(snapshotMapName).clear(snapshotMapName);
+                }
             } catch (Exception e) {
                 logger.warning(mc.jobIdString() + ": failed to clear snapshot map '" + snapshotMapName
                                 + "' after a failure", e);
@@ -222,13 +252,18 @@ class MasterSnapshotContext {
                 mergedResult.getNumBytes(), mergedResult.getNumKeys(), mergedResult.getNumChunks(),
                 mergedResult.getError());
         mc.writeJobExecutionRecord(false);
-        logger.info(String.format("Snapshot %d for %s completed with status %s in %dms, " +
-                        "%,d bytes, %,d keys in %,d chunks, stored in '%s'",
+        logger.info(String.format("%s %d for %s completed with status %s in %dms, " +
+                        "%,d bytes (%,d compressed), %,d keys in %,d chunks, stored in '%s'",
+                wasIncremental ? "Incremental snapshot" : "Snapshot",
                 snapshotId, mc.jobIdString(), isSuccess ? "SUCCESS" : "FAILURE",
-                stats.duration(), stats.numBytes(),
+                stats.duration(), stats.numBytes(), mergedResult.getNumCompressedBytes(),
                 stats.numKeys(), stats.numChunks(),
                 snapshotMapName));
         mc.jobRepository().clearSnapshotData(mc.jobId(), mc.jobExecutionRecord().ongoingDataMapIndex());
+        if (isSuccess && !wasExport && !wasIncremental) {
+            // the new full snapshot replaces the incremental snapshots
+            mc.jobRepository().clearSnapshotDeltas(mc.jobId());
+        }
         if (future != null) {
             if (isSuccess) {
                 future.complete(null);
@@ -246,6 +281,11 @@ class MasterSnapshotContext {
             }
             assert snapshotInProgress : "snapshot not in progress";
             snapshotInProgress = false;
+            incrementalAllowed = isSuccess && !wasExport;
+            if (isSuccess && wasIncremental && shouldCompact()) {
+                compactionInProgress = true;
+                mc.coordinationService().scheduleSnapshotCompaction(mc, executionId);
+            }
             if (wasTerminal) {
                 // after a terminal snapshot, no more snapshots are scheduled in this execution
                 boolean completedNow = terminalSnapshotFuture.complete(null);
@@ -260,12 +300,115 @@ class MasterSnapshotContext {
         tryBeginSnapshot();
     }
 
+    private void writeValidationRecord(
+            long snapshotId, String snapshotMapName, SnapshotOperationResult mergedResult,
+            IMap<Object, Object> snapshotMap
+    ) {
+        SnapshotValidationRecord validationRecord = new SnapshotValidationRecord(snapshotId,
+                mergedResult.getNumChunks(), mergedResult.getNumBytes(),
+                mc.jobExecutionRecord().ongoingSnapshotStartTime(), mc.jobId(), mc.jobName(),
+                mc.jobRecord().getDagJson(), mergedResult.getDictionaries());
+        Object oldValue = snapshotMap.put(SnapshotValidationRecord.KEY, validationRecord);
+        if (snapshotMapName.startsWith(EXPORTED_SNAPSHOTS_PREFIX)) {
+            String snapshotName = snapshotMapName.substring(EXPORTED_SNAPSHOTS_PREFIX.length());
+            mc.jobRepository().cacheValidationRecord(snapshotName, validationRecord);
+        }
+        if (oldValue != null) {
+            logger.severe("SnapshotValidationRecord overwritten after writing to '" + snapshotMapName + "' for "
+                    + mc.jobIdString() + ": snapshot data might be corrupted");
+        }
+    }
+
+    private SnapshotStore snapshotStore(String mapName) {
+        return mc.getJetService().snapshotStore(mapName);
+    }
+
+    private boolean isIncrementalAllowed() {
+        JobExecutionRecord record = mc.jobExecutionRecord();
+        return incrementalAllowed
+                && mc.jobConfig().isIncrementalSnapshots()
+                && snapshotStore(snapshotDeltaMapName(mc.jobId())).isQueryable()
+                && record.baseSnapshotId() >= 0
+                && record.deltaSnapshotBytes() * 100 < record.baseSnapshotBytes() * MAX_DELTA_SIZE_PERCENT;
+    }
+
+    private boolean shouldCompact() {
+        JobExecutionRecord record = mc.jobExecutionRecord();
+        long lastMerged = Math.max(record.baseSnapshotId(), record.compactedSnapshotId());
+        return !compactionInProgress && record.snapshotId() - lastMerged >= COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Merges the incremental snapshots taken after the last full snapshot,
+     * so that a restore doesn't have to read the values that were replaced
+     * later. The merged snapshots are used only if the execution and the
+     * full snapshot didn't change in the meantime.
+     */
+    void compactSnapshots(long executionId) {
+        long baseSnapshotId;
+        long compactedSnapshotId;
+        long snapshotId;
+        mc.lock();
+        try {
+            JobExecutionRecord record = mc.jobExecutionRecord();
+            if (mc.executionId() != executionId || mc.jobStatus() != RUNNING) {
+                compactionInProgress = false;
+                return;
+            }
+            baseSnapshotId = record.baseSnapshotId();
+            compactedSnapshotId = record.compactedSnapshotId();
+            snapshotId = record.snapshotId();
+        } finally {
+            mc.unlock();
+        }
+
+        boolean committed = false;
+        long start = System.nanoTime();
+        try {
+            int numChunks = mc.jobRepository().compactSnapshotDeltas(
+                    mc.nodeEngine(), mc.jobId(), baseSnapshotId, compactedSnapshotId, snapshotId);
+            mc.lock();
+            try {
+                if (mc.executionId() == executionId && mc.jobExecutionRecord().baseSnapshotId() == baseSnapshotId) {
+                    mc.jobExecutionRecord().setCompactedSnapshotId(snapshotId);
+                    committed = true;
+                }
+            } finally {
+                mc.unlock();
+            }
+            if (committed) {
+                mc.writeJobExecutionRecord(false);
+                mc.jobRepository().removeCompactedSnapshotDeltas(mc.jobId(), baseSnapshotId, snapshotId);
+                logger.info(String.format("Incremental snapshots %d to %d for %s compacted into %,d chunks in %dms",
+                        baseSnapshotId + 1, snapshotId, mc.jobIdString(), numChunks,
+                        NANOSECONDS.toMillis(System.nanoTime() - start)));
+            }
+        } catch (Exception e) {
+            logger.warning("Compaction of incremental snapshots for " + mc.jobIdString() + " failed", e);
+        } finally {
+            if (!committed) {
+                removeCompaction(snapshotId);
+            }
+            compactionInProgress = false;
+        }
+    }
+
+    private void removeCompaction(long snapshotId) {
+        try {
+            mc.jobRepository().removeSnapshotCompaction(mc.jobId(), snapshotId);
+        } catch (Exception e) {
+            logger.warning("Failed to remove incomplete compaction of incremental snapshots for "
+                    + mc.jobIdString(), e);
+        }
+    }
+
     CompletableFuture<Void> terminalSnapshotFuture() {
         return terminalSnapshotFuture;
     }
 
     void onExecutionStarted() {
         snapshotInProgress = false;
+        incrementalAllowed = false;
         assert snapshotQueue.isEmpty() : "snapshotQueue not empty";
         terminalSnapshotFuture = new CompletableFuture<>();
     }
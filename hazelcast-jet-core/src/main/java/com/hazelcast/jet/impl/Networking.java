@@ -20,6 +20,7 @@ import com.hazelcast.jet.impl.execution.ExecutionContext;
 import com.hazelcast.jet.impl.execution.SenderTasklet;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.nio.Connection;
@@ -28,6 +29,7 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ScheduledFuture;
@@ -39,11 +41,47 @@ import static com.hazelcast.jet.impl.util.Util.getMemberConnection;
 import static com.hazelcast.jet.impl.util.Util.getRemoteMembers;
 import static com.hazelcast.jet.Util.idToString;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
 import static com.hazelcast.nio.Packet.FLAG_JET_FLOW_CONTROL;
 import static com.hazelcast.nio.Packet.FLAG_URGENT;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class Networking {
+    /**
+     * The offset of the flow-control timestamp echoed by the sender in the
+     * stream packet header. The receiver uses it to measure the round-trip
+     * time.
+     */
+    public static final int STREAM_PACKET_TIMESTAMP_OFFSET = LONG_SIZE_IN_BYTES + 2 * INT_SIZE_IN_BYTES;
+
+    /**
+     * The size of the header written by {@link #createStreamPacketHeader}.
+     */
+    public static final int STREAM_PACKET_HEADER_SIZE = STREAM_PACKET_TIMESTAMP_OFFSET + LONG_SIZE_IN_BYTES;
+
+    /**
+     * The value of the byte following the stream packet header if the rest of
+     * the packet is not compressed.
+     */
+    public static final byte PAYLOAD_UNCOMPRESSED = 0;
+
+    /**
+     * The value of the byte following the stream packet header if the rest of
+     * the packet is compressed. The byte is followed by the uncompressed
+     * length and the data compressed by {@link
+     * com.hazelcast.jet.impl.util.Lz4Codec}.
+     */
+    public static final byte PAYLOAD_COMPRESSED = 1;
+
+    /**
+     * The vertex ID in the header of a packet that contains multiple stream
+     * packets, see {@link com.hazelcast.jet.impl.execution.PacketMultiplexerTasklet}.
+     * The header is followed by the stream packets, each prefixed with its
+     * length.
+     */
+    public static final int MULTIPLEXED_FRAME_VERTEX_ID = -1;
+
     private static final byte[] EMPTY_BYTES = new byte[0];
 
     private final NodeEngineImpl nodeEngine;
@@ -71,13 +109,36 @@ public class Networking {
         handleFlowControlPacket(packet.getConn().getEndPoint(), packet.toByteArray());
     }
 
-    private void handleStreamPacket(Packet packet) throws IOException {
-        BufferObjectDataInput in = createObjectDataInput(nodeEngine, packet.toByteArray());
-        long executionId = in.readLong();
-        int vertexId = in.readInt();
-        int ordinal = in.readInt();
+    private void handleStreamPacket(Packet packet) {
+        byte[] payload = packet.toByteArray();
+        handleStreamPacket(packet.getConn().getEndPoint(), payload, 0, payload.length);
+    }
+
+    private void handleStreamPacket(Address fromAddr, byte[] buffer, int offset, int length) {
+        // Read the header directly from the array, the receiver tasklet reads the rest
+        // using its own reusable input. That's why we don't create an input per packet.
+        boolean bigEndian = nodeEngine.getSerializationService().getByteOrder() == ByteOrder.BIG_ENDIAN;
+        long executionId = Bits.readLong(buffer, offset, bigEndian);
+        int vertexId = Bits.readInt(buffer, offset + LONG_SIZE_IN_BYTES, bigEndian);
+        if (vertexId == MULTIPLEXED_FRAME_VERTEX_ID) {
+            handleMultiplexedFrame(fromAddr, buffer, offset, length, bigEndian);
+            return;
+        }
+        int ordinal = Bits.readInt(buffer, offset + LONG_SIZE_IN_BYTES + INT_SIZE_IN_BYTES, bigEndian);
         ExecutionContext executionContext = jobExecutionService.getExecutionContext(executionId);
-        executionContext.handlePacket(vertexId, ordinal, packet.getConn().getEndPoint(), in);
+        executionContext.handlePacket(vertexId, ordinal, fromAddr, buffer, offset, length);
+    }
+
+    private void handleMultiplexedFrame(Address fromAddr, byte[] frame, int offset, int length, boolean bigEndian) {
+        // The receiver tasklets read the stream packets in place, the frame is
+        // referenced until all of them are read.
+        int end = offset + length;
+        for (int pos = offset + STREAM_PACKET_HEADER_SIZE; pos < end; ) {
+            int packetLength = Bits.readInt(frame, pos, bigEndian);
+            pos += INT_SIZE_IN_BYTES;
+            handleStreamPacket(fromAddr, frame, pos, packetLength);
+            pos += packetLength;
+        }
     }
 
     public static byte[] createStreamPacketHeader(NodeEngine nodeEngine, long executionId,
@@ -86,6 +147,9 @@ public class Networking {
             out.writeLong(executionId);
             out.writeInt(destinationVertexId);
             out.writeInt(ordinal);
+            // placeholder for the echoed flow-control timestamp
+            out.writeLong(0);
+            assert out.position() == STREAM_PACKET_HEADER_SIZE : "unexpected header size: " + out.position();
             return out.toByteArray();
         } catch (IOException e) {
             throw sneakyThrow(e);
@@ -115,6 +179,8 @@ public class Networking {
         try (BufferObjectDataOutput out = createObjectDataOutput(nodeEngine)) {
             final boolean[] hasData = {false};
             Map<Long, ExecutionContext> executionContexts = jobExecutionService.getExecutionContextsFor(member);
+            // the senders echo the timestamp in the next stream packet, which lets the receivers measure the RTT
+            out.writeLong(System.nanoTime());
             out.writeInt(executionContexts.size());
             executionContexts.forEach((execId, exeCtx) -> uncheckRun(() -> {
                 out.writeLong(execId);
@@ -133,6 +199,7 @@ public class Networking {
 
     private void handleFlowControlPacket(Address fromAddr, byte[] packet) throws IOException {
         try (BufferObjectDataInput in = createObjectDataInput(nodeEngine, packet)) {
+            final long timestamp = in.readLong();
             final int executionCtxCount = in.readInt();
             for (int j = 0; j < executionCtxCount; j++) {
                 final long executionId = in.readLong();
@@ -156,7 +223,7 @@ public class Networking {
                         logMissingSenderTasklet(destVertexId, destOrdinal);
                         return;
                     }
-                    t.setSendSeqLimitCompressed(sendSeqLimitCompressed);
+                    t.setSendSeqLimitCompressed(sendSeqLimitCompressed, timestamp);
                 }
             }
         }
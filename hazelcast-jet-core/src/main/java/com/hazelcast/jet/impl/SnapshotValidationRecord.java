@@ -17,12 +17,14 @@
 package com.hazelcast.jet.impl;
 
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.util.Map;
 
 public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     public static final SnapshotValidationKey KEY = SnapshotValidationKey.KEY;
@@ -35,12 +37,14 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     private long jobId;
     private String jobName;
     private String dagJsonString;
+    private Map<String, byte[]> dictionaries;
 
     public SnapshotValidationRecord() {
     }
 
     SnapshotValidationRecord(long snapshotId, long numChunks, long numBytes, long creationTime, long jobId,
-                                    @Nonnull String jobName, @Nonnull String dagJsonString) {
+                                    @Nonnull String jobName, @Nonnull String dagJsonString,
+                                    @Nonnull Map<String, byte[]> dictionaries) {
         this.snapshotId = snapshotId;
         this.numChunks = numChunks;
         this.numBytes = numBytes;
@@ -48,6 +52,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
         this.jobId = jobId;
         this.jobName = jobName;
         this.dagJsonString = dagJsonString;
+        this.dictionaries = dictionaries;
     }
 
     public long snapshotId() {
@@ -78,6 +83,14 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
         return dagJsonString;
     }
 
+    /**
+     * Returns the dictionaries of the {@link CompressedSnapshotChunk
+     * compressed chunks} in the snapshot, empty if it has none.
+     */
+    public Map<String, byte[]> dictionaries() {
+        return dictionaries;
+    }
+
     @Override
     public int getFactoryId() {
         return JetInitDataSerializerHook.FACTORY_ID;
@@ -97,6 +110,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
         out.writeLong(jobId);
         out.writeUTF(jobName);
         out.writeUTF(dagJsonString);
+        CompressedSnapshotChunk.writeDictionaries(out, dictionaries);
     }
 
     @Override
@@ -108,6 +122,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
         jobId = in.readLong();
         jobName = in.readUTF();
         dagJsonString = in.readUTF();
+        dictionaries = CompressedSnapshotChunk.readDictionaries(in);
     }
 
     enum SnapshotValidationKey {
@@ -35,15 +35,19 @@ final class SnapshotValidator {
      *      if snapshot id is not known
      * @param jobIdString name and id of the job (for debug output)
      * @param map snapshot map to validate
-     * @return the snapshot id of the snapshot being validated
+     * @param countChunks whether the chunks are stored in the map and their
+     *      count should be checked
+     * @return the validation record of the snapshot
      */
-    static long validateSnapshot(long snapshotId, String jobIdString, IMap<Object, Object> map) {
+    static SnapshotValidationRecord validateSnapshot(
+            long snapshotId, String jobIdString, IMap<Object, Object> map, boolean countChunks
+    ) {
         SnapshotValidationRecord validationRecord = (SnapshotValidationRecord) map.get(SnapshotValidationRecord.KEY);
         if (validationRecord == null) {
             throw new JetException("State for " + jobIdString + " was supposed to be restored from '" + map.getName()
                     + "', but that map doesn't contain the validation record: not an IMap with Jet snapshot or corrupted");
         }
-        if (validationRecord.numChunks() != map.size() - 1) {
+        if (countChunks && validationRecord.numChunks() != map.size() - 1) {
             // fallback validation that counts using aggregate(), ignoring different snapshot IDs
             Long filteredCount = map.aggregate(Aggregators.count(), e -> e.getKey() instanceof SnapshotDataKey
                     && ((SnapshotDataKey) e.getKey()).snapshotId() == snapshotId);
@@ -56,6 +60,6 @@ final class SnapshotValidator {
             throw new JetException(jobIdString + ": '" + map.getName() + "' was supposed to contain snapshotId="
                     + snapshotId + ", but it contains snapshotId=" + validationRecord.snapshotId());
         }
-        return validationRecord.snapshotId();
+        return validationRecord;
     }
 }
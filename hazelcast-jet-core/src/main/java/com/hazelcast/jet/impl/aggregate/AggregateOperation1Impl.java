@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.impl.aggregate;
 
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.datamodel.Tag;
 import com.hazelcast.jet.function.DistributedBiConsumer;
@@ -37,9 +38,10 @@ public class AggregateOperation1Impl<T0, A, R>
             @Nullable DistributedBiConsumer<? super A, ? super A> combineFn,
             @Nullable DistributedBiConsumer<? super A, ? super A> deductFn,
             @Nonnull DistributedFunction<? super A, ? extends R> exportFn,
-            @Nonnull DistributedFunction<? super A, ? extends R> finishFn
+            @Nonnull DistributedFunction<? super A, ? extends R> finishFn,
+            @Nullable FixedSizeAccumulatorCodec<A> fixedSizeCodec
     ) {
-        super(createFn, accumulateFns(accumulateFn), combineFn, deductFn, exportFn, finishFn);
+        super(createFn, accumulateFns(accumulateFn), combineFn, deductFn, exportFn, finishFn, fixedSizeCodec);
     }
 
     @Nonnull
@@ -54,7 +56,7 @@ public class AggregateOperation1Impl<T0, A, R>
     ) {
         checkSerializable(accumulateFn, "accumulateFn");
         return new AggregateOperation1Impl<>(
-                createFn(), accumulateFn, combineFn(), deductFn(), exportFn(), finishFn());
+                createFn(), accumulateFn, combineFn(), deductFn(), exportFn(), finishFn(), fixedSizeCodec());
     }
 
     @Nonnull @Override
@@ -67,18 +69,25 @@ public class AggregateOperation1Impl<T0, A, R>
         return (DistributedBiConsumer<? super A, ? super T>) accumulateFns[0];
     }
 
+    @Nonnull @Override
+    public AggregateOperation1<T0, A, R> withFixedSizeCodec(@Nullable FixedSizeAccumulatorCodec<A> codec) {
+        checkSerializable(codec, "codec");
+        return new AggregateOperation1Impl<>(
+                createFn(), accumulateFn(), combineFn(), deductFn(), exportFn(), finishFn(), codec);
+    }
+
     @Nonnull @Override
     public AggregateOperation1<T0, A, A> withIdentityFinish() {
         return new AggregateOperation1Impl<>(
                 createFn(), accumulateFn(), combineFn(), deductFn(),
-                unsupportedExportFn(), DistributedFunction.identity());
+                unsupportedExportFn(), DistributedFunction.identity(), fixedSizeCodec());
     }
 
     @Nonnull @Override
     public <R_NEW> AggregateOperation1<T0, A, R_NEW> andThen(DistributedFunction<? super R, ? extends R_NEW> thenFn) {
         return new AggregateOperation1Impl<>(
                 createFn(), accumulateFn(), combineFn(), deductFn(),
-                exportFn().andThen(thenFn), finishFn().andThen(thenFn)
+                exportFn().andThen(thenFn), finishFn().andThen(thenFn), fixedSizeCodec()
         );
     }
 }
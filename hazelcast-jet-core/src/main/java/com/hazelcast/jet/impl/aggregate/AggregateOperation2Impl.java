@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.impl.aggregate;
 
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
 import com.hazelcast.jet.aggregate.AggregateOperation2;
 import com.hazelcast.jet.datamodel.Tag;
 import com.hazelcast.jet.function.DistributedBiConsumer;
@@ -38,10 +39,11 @@ public class AggregateOperation2Impl<T0, T1, A, R>
             @Nullable DistributedBiConsumer<? super A, ? super A> combineFn,
             @Nullable DistributedBiConsumer<? super A, ? super A> deductFn,
             @Nonnull DistributedFunction<? super A, ? extends R> exportFn,
-            @Nonnull DistributedFunction<? super A, ? extends R> finishFn
+            @Nonnull DistributedFunction<? super A, ? extends R> finishFn,
+            @Nullable FixedSizeAccumulatorCodec<A> fixedSizeCodec
     ) {
         super(createFn, accumulateFns(accumulateFn0, accumulateFn1),
-                combineFn, deductFn, exportFn, finishFn);
+                combineFn, deductFn, exportFn, finishFn, fixedSizeCodec);
     }
 
     private AggregateOperation2Impl(
@@ -50,9 +52,10 @@ public class AggregateOperation2Impl<T0, T1, A, R>
             @Nullable DistributedBiConsumer<? super A, ? super A> combineFn,
             @Nullable DistributedBiConsumer<? super A, ? super A> deductFn,
             @Nonnull DistributedFunction<? super A, ? extends R> exportFn,
-            @Nonnull DistributedFunction<? super A, ? extends R> finishFn
+            @Nonnull DistributedFunction<? super A, ? extends R> finishFn,
+            @Nullable FixedSizeAccumulatorCodec<A> fixedSizeCodec
     ) {
-        super(createFn, accumulateFns, combineFn, deductFn, exportFn, finishFn);
+        super(createFn, accumulateFns, combineFn, deductFn, exportFn, finishFn, fixedSizeCodec);
     }
 
     @Nonnull @Override
@@ -73,7 +76,8 @@ public class AggregateOperation2Impl<T0, T1, A, R>
     ) {
         checkSerializable(accumulateFn0, "accumulateFn0");
         return new AggregateOperation2Impl<>(
-                createFn(), accumulateFn0, accumulateFn1(), combineFn(), deductFn(), exportFn(), finishFn());
+                createFn(), accumulateFn0, accumulateFn1(), combineFn(), deductFn(), exportFn(), finishFn(),
+                fixedSizeCodec());
     }
 
     @Nonnull @Override
@@ -82,7 +86,8 @@ public class AggregateOperation2Impl<T0, T1, A, R>
     ) {
         checkSerializable(accumulateFn1, "accumulateFn1");
         return new AggregateOperation2Impl<>(
-                createFn(), accumulateFn0(), accumulateFn1, combineFn(), deductFn(), exportFn(), finishFn());
+                createFn(), accumulateFn0(), accumulateFn1, combineFn(), deductFn(), exportFn(), finishFn(),
+                fixedSizeCodec());
     }
 
     @Nonnull @Override
@@ -95,11 +100,18 @@ public class AggregateOperation2Impl<T0, T1, A, R>
         return (DistributedBiConsumer<? super A, T>) accumulateFns[tag.index()];
     }
 
+    @Nonnull @Override
+    public AggregateOperation2<T0, T1, A, R> withFixedSizeCodec(@Nullable FixedSizeAccumulatorCodec<A> codec) {
+        checkSerializable(codec, "codec");
+        return new AggregateOperation2Impl<>(
+                createFn(), accumulateFns, combineFn(), deductFn(), exportFn(), finishFn(), codec);
+    }
+
     @Nonnull @Override
     public AggregateOperation2<T0, T1, A, A> withIdentityFinish() {
         return new AggregateOperation2Impl<>(
                 createFn(), accumulateFns, combineFn(), deductFn(),
-                unsupportedExportFn(), DistributedFunction.identity());
+                unsupportedExportFn(), DistributedFunction.identity(), fixedSizeCodec());
     }
 
     @Nonnull @Override
@@ -108,7 +120,7 @@ public class AggregateOperation2Impl<T0, T1, A, R>
     ) {
         return new AggregateOperation2Impl<>(
                 createFn(), accumulateFns, combineFn(), deductFn(),
-                exportFn().andThen(thenFn), finishFn().andThen(thenFn)
+                exportFn().andThen(thenFn), finishFn().andThen(thenFn), fixedSizeCodec()
         );
     }
 }
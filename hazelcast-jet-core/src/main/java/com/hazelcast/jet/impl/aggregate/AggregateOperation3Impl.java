@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.impl.aggregate;
 
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
 import com.hazelcast.jet.aggregate.AggregateOperation3;
 import com.hazelcast.jet.datamodel.Tag;
 import com.hazelcast.jet.function.DistributedBiConsumer;
@@ -39,10 +40,11 @@ public class AggregateOperation3Impl<T0, T1, T2, A, R>
             @Nullable DistributedBiConsumer<? super A, ? super A> combineFn,
             @Nullable DistributedBiConsumer<? super A, ? super A> deductFn,
             @Nonnull DistributedFunction<? super A, ? extends R> exportFn,
-            @Nonnull DistributedFunction<? super A, ? extends R> finishFn
+            @Nonnull DistributedFunction<? super A, ? extends R> finishFn,
+            @Nullable FixedSizeAccumulatorCodec<A> fixedSizeCodec
     ) {
         super(createFn, accumulateFns(accumulateFn0, accumulateFn1, accumulateFn2),
-                combineFn, deductFn, exportFn, finishFn);
+                combineFn, deductFn, exportFn, finishFn, fixedSizeCodec);
     }
 
     private AggregateOperation3Impl(
@@ -51,9 +53,10 @@ public class AggregateOperation3Impl<T0, T1, T2, A, R>
             @Nullable DistributedBiConsumer<? super A, ? super A> combineFn,
             @Nullable DistributedBiConsumer<? super A, ? super A> deductFn,
             @Nonnull DistributedFunction<? super A, ? extends R> exportFn,
-            @Nonnull DistributedFunction<? super A, ? extends R> finishFn
+            @Nonnull DistributedFunction<? super A, ? extends R> finishFn,
+            @Nullable FixedSizeAccumulatorCodec<A> fixedSizeCodec
     ) {
-        super(createFn, accumulateFns, combineFn, deductFn, exportFn, finishFn);
+        super(createFn, accumulateFns, combineFn, deductFn, exportFn, finishFn, fixedSizeCodec);
     }
 
     @Nonnull @Override
@@ -81,7 +84,7 @@ public class AggregateOperation3Impl<T0, T1, T2, A, R>
         checkSerializable(accumulateFn0, "accumulateFn0");
         return new AggregateOperation3Impl<>(
                 createFn(), accumulateFn0, accumulateFn1(), accumulateFn2(),
-                combineFn(), deductFn(), exportFn(), finishFn());
+                combineFn(), deductFn(), exportFn(), finishFn(), fixedSizeCodec());
     }
 
     @Nonnull @Override
@@ -91,7 +94,7 @@ public class AggregateOperation3Impl<T0, T1, T2, A, R>
         checkSerializable(accumulateFn1, "accumulateFn1");
         return new AggregateOperation3Impl<>(
                 createFn(), accumulateFn0(), accumulateFn1, accumulateFn2(),
-                combineFn(), deductFn(), exportFn(), finishFn());
+                combineFn(), deductFn(), exportFn(), finishFn(), fixedSizeCodec());
     }
 
     @Nonnull @Override
@@ -101,7 +104,7 @@ public class AggregateOperation3Impl<T0, T1, T2, A, R>
         checkSerializable(accumulateFn2, "accumulateFn2");
         return new AggregateOperation3Impl<>(
                 createFn(), accumulateFn0(), accumulateFn1(), accumulateFn2,
-                combineFn(), deductFn(), exportFn(), finishFn());
+                combineFn(), deductFn(), exportFn(), finishFn(), fixedSizeCodec());
     }
 
     @Nonnull @Override
@@ -114,11 +117,18 @@ public class AggregateOperation3Impl<T0, T1, T2, A, R>
         return (DistributedBiConsumer<? super A, T>) accumulateFns[tag.index()];
     }
 
+    @Nonnull @Override
+    public AggregateOperation3<T0, T1, T2, A, R> withFixedSizeCodec(@Nullable FixedSizeAccumulatorCodec<A> codec) {
+        checkSerializable(codec, "codec");
+        return new AggregateOperation3Impl<>(
+                createFn(), accumulateFns, combineFn(), deductFn(), exportFn(), finishFn(), codec);
+    }
+
     @Nonnull @Override
     public AggregateOperation3<T0, T1, T2, A, A> withIdentityFinish() {
         return new AggregateOperation3Impl<>(
                 createFn(), accumulateFns, combineFn(), deductFn(),
-                unsupportedExportFn(), DistributedFunction.identity());
+                unsupportedExportFn(), DistributedFunction.identity(), fixedSizeCodec());
     }
 
     @Nonnull @Override
@@ -127,7 +137,7 @@ public class AggregateOperation3Impl<T0, T1, T2, A, R>
     ) {
         return new AggregateOperation3Impl<>(
                 createFn(), accumulateFns, combineFn(), deductFn(),
-                exportFn().andThen(thenFn), finishFn().andThen(thenFn)
+                exportFn().andThen(thenFn), finishFn().andThen(thenFn), fixedSizeCodec()
         );
     }
 }
@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.impl.aggregate;
 
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.function.DistributedBiConsumer;
 import com.hazelcast.jet.function.DistributedFunction;
@@ -34,6 +35,7 @@ public class AggregateOperationImpl<A, R> implements AggregateOperation<A, R> {
     private final DistributedBiConsumer<? super A, ? super A> deductFn;
     private final DistributedFunction<? super A, ? extends R> exportFn;
     private final DistributedFunction<? super A, ? extends R> finishFn;
+    private final FixedSizeAccumulatorCodec<A> fixedSizeCodec;
 
     public AggregateOperationImpl(
             @Nonnull DistributedSupplier<A> createFn,
@@ -41,7 +43,8 @@ public class AggregateOperationImpl<A, R> implements AggregateOperation<A, R> {
             @Nullable DistributedBiConsumer<? super A, ? super A> combineFn,
             @Nullable DistributedBiConsumer<? super A, ? super A> deductFn,
             @Nonnull DistributedFunction<? super A, ? extends R> exportFn,
-            @Nonnull DistributedFunction<? super A, ? extends R> finishFn
+            @Nonnull DistributedFunction<? super A, ? extends R> finishFn,
+            @Nullable FixedSizeAccumulatorCodec<A> fixedSizeCodec
     ) {
         for (Object f : accumulateFns) {
             checkNotNull(f, "accumulateFns array contains a null slot");
@@ -52,6 +55,7 @@ public class AggregateOperationImpl<A, R> implements AggregateOperation<A, R> {
         this.deductFn = deductFn;
         this.exportFn = exportFn;
         this.finishFn = finishFn;
+        this.fixedSizeCodec = fixedSizeCodec;
     }
 
     @Override
@@ -94,11 +98,23 @@ public class AggregateOperationImpl<A, R> implements AggregateOperation<A, R> {
         return finishFn;
     }
 
+    @Nullable @Override
+    public FixedSizeAccumulatorCodec<A> fixedSizeCodec() {
+        return fixedSizeCodec;
+    }
+
     @Nonnull @Override
     @SuppressWarnings("unchecked")
     public AggregateOperation<A, R> withAccumulateFns(DistributedBiConsumer... accumulateFns) {
         return new AggregateOperationImpl<>(
-                createFn(), accumulateFns, combineFn(), deductFn(), exportFn(), finishFn());
+                createFn(), accumulateFns, combineFn(), deductFn(), exportFn(), finishFn(), fixedSizeCodec());
+    }
+
+    @Nonnull @Override
+    public AggregateOperation<A, R> withFixedSizeCodec(@Nullable FixedSizeAccumulatorCodec<A> codec) {
+        checkSerializable(codec, "codec");
+        return new AggregateOperationImpl<>(
+                createFn(), accumulateFns, combineFn(), deductFn(), exportFn(), finishFn(), codec);
     }
 
     @Nonnull @Override
@@ -106,7 +122,7 @@ public class AggregateOperationImpl<A, R> implements AggregateOperation<A, R> {
         checkSerializable(finishFn, "finishFn");
         return new AggregateOperationImpl<>(
                 createFn(), accumulateFns, combineFn(), deductFn(),
-                unsupportedExportFn(), DistributedFunction.identity());
+                unsupportedExportFn(), DistributedFunction.identity(), fixedSizeCodec());
     }
 
     @Nonnull
@@ -114,7 +130,7 @@ public class AggregateOperationImpl<A, R> implements AggregateOperation<A, R> {
     public <R_NEW> AggregateOperation<A, R_NEW> andThen(DistributedFunction<? super R, ? extends R_NEW> thenFn) {
         return new AggregateOperationImpl<>(
                 createFn(), accumulateFns, combineFn(), deductFn(),
-                exportFn().andThen(thenFn), finishFn().andThen(thenFn)
+                exportFn().andThen(thenFn), finishFn().andThen(thenFn), fixedSizeCodec()
         );
     }
 
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.aggregate;
+
+import com.hazelcast.jet.accumulator.DoubleAccumulator;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.LongDoubleAccumulator;
+import com.hazelcast.jet.accumulator.LongLongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.function.DistributedBiConsumer;
+import com.hazelcast.jet.function.DistributedToDoubleFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The accumulate function of the aggregate operations that keep one or two
+ * primitive values in the accumulator: {@code counting()}, {@code
+ * summingLong()}, {@code summingDouble()}, {@code averagingLong()} and
+ * {@code averagingDouble()}. It works as any other accumulate function,
+ * but a processor can recognize it using {@link #of} and keep the values
+ * in primitive arrays instead of accumulator objects. The operations
+ * derived from the original operation keep the recognizable function
+ * as long as they keep its accumulate function.
+ *
+ * @param <T> input item type
+ */
+public final class PrimitiveAccumulateFn<T> implements DistributedBiConsumer<Object, T> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shape of the accumulator and how the item changes it.
+     */
+    public enum Kind {
+        /** {@code LongAccumulator}, the count is in the long column. */
+        COUNTING,
+        /** {@code LongAccumulator}, the sum is in the long column. */
+        SUMMING_LONG,
+        /** {@code DoubleAccumulator}, the sum is in the double column. */
+        SUMMING_DOUBLE,
+        /**
+         * {@code LongLongAccumulator}, the count is in the long column and
+         * the sum in the second long column.
+         */
+        AVERAGING_LONG,
+        /**
+         * {@code LongDoubleAccumulator}, the count is in the long column and
+         * the sum in the double column.
+         */
+        AVERAGING_DOUBLE
+    }
+
+    private final Kind kind;
+    private final DistributedToLongFunction<? super T> getLongValueFn;
+    private final DistributedToDoubleFunction<? super T> getDoubleValueFn;
+
+    private PrimitiveAccumulateFn(
+            Kind kind,
+            DistributedToLongFunction<? super T> getLongValueFn,
+            DistributedToDoubleFunction<? super T> getDoubleValueFn
+    ) {
+        this.kind = kind;
+        this.getLongValueFn = getLongValueFn;
+        this.getDoubleValueFn = getDoubleValueFn;
+    }
+
+    @Nonnull
+    public static <T> PrimitiveAccumulateFn<T> counting() {
+        return new PrimitiveAccumulateFn<>(Kind.COUNTING, null, null);
+    }
+
+    @Nonnull
+    public static <T> PrimitiveAccumulateFn<T> summingLong(
+            @Nonnull DistributedToLongFunction<? super T> getLongValueFn
+    ) {
+        return new PrimitiveAccumulateFn<>(Kind.SUMMING_LONG, getLongValueFn, null);
+    }
+
+    @Nonnull
+    public static <T> PrimitiveAccumulateFn<T> summingDouble(
+            @Nonnull DistributedToDoubleFunction<? super T> getDoubleValueFn
+    ) {
+        return new PrimitiveAccumulateFn<>(Kind.SUMMING_DOUBLE, null, getDoubleValueFn);
+    }
+
+    @Nonnull
+    public static <T> PrimitiveAccumulateFn<T> averagingLong(
+            @Nonnull DistributedToLongFunction<? super T> getLongValueFn
+    ) {
+        return new PrimitiveAccumulateFn<>(Kind.AVERAGING_LONG, getLongValueFn, null);
+    }
+
+    @Nonnull
+    public static <T> PrimitiveAccumulateFn<T> averagingDouble(
+            @Nonnull DistributedToDoubleFunction<? super T> getDoubleValueFn
+    ) {
+        return new PrimitiveAccumulateFn<>(Kind.AVERAGING_DOUBLE, null, getDoubleValueFn);
+    }
+
+    /**
+     * Returns the primitive accumulate function of the given aggregate
+     * operation or {@code null}, if it doesn't have one. It has one if its
+     * arity is 1, its accumulate function is a {@code PrimitiveAccumulateFn}
+     * and its create function returns an accumulator of the matching
+     * type with the initial value of zero.
+     */
+    @Nullable
+    public static PrimitiveAccumulateFn<Object> of(@Nonnull AggregateOperation<?, ?> aggrOp) {
+        if (aggrOp.arity() != 1 || !(aggrOp.accumulateFn(0) instanceof PrimitiveAccumulateFn)) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        PrimitiveAccumulateFn<Object> fn = (PrimitiveAccumulateFn<Object>) aggrOp.accumulateFn(0);
+        return fn.newAccumulator().equals(aggrOp.createFn().get()) ? fn : null;
+    }
+
+    @Nonnull
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * Returns the long value of the item. Applies to {@link
+     * Kind#SUMMING_LONG} and {@link Kind#AVERAGING_LONG}.
+     */
+    public long longValue(T item) {
+        return getLongValueFn.applyAsLong(item);
+    }
+
+    /**
+     * Returns the double value of the item. Applies to {@link
+     * Kind#SUMMING_DOUBLE} and {@link Kind#AVERAGING_DOUBLE}.
+     */
+    public double doubleValue(T item) {
+        return getDoubleValueFn.applyAsDouble(item);
+    }
+
+    /**
+     * Returns a new accumulator of the type matching the kind, with the
+     * value of zero.
+     */
+    @Nonnull
+    public Object newAccumulator() {
+        switch (kind) {
+            case COUNTING:
+            case SUMMING_LONG:
+                return new LongAccumulator();
+            case SUMMING_DOUBLE:
+                return new DoubleAccumulator();
+            case AVERAGING_LONG:
+                return new LongLongAccumulator();
+            case AVERAGING_DOUBLE:
+                return new LongDoubleAccumulator();
+            default:
+                throw new AssertionError("Unknown kind: " + kind);
+        }
+    }
+
+    /**
+     * Adds the given column values to the accumulator, as if the
+     * accumulator of the values was combined into it. The columns that
+     * don't apply to the kind are ignored.
+     */
+    public void combineInto(@Nonnull Object acc, long longValue, long longValue2, double doubleValue) {
+        switch (kind) {
+            case COUNTING:
+            case SUMMING_LONG:
+                ((LongAccumulator) acc).add(longValue);
+                break;
+            case SUMMING_DOUBLE:
+                ((DoubleAccumulator) acc).accumulate(doubleValue);
+                break;
+            case AVERAGING_LONG:
+                LongLongAccumulator lla = (LongLongAccumulator) acc;
+                lla.set1(Math.addExact(lla.get1(), longValue));
+                lla.set2(Math.addExact(lla.get2(), longValue2));
+                break;
+            case AVERAGING_DOUBLE:
+                LongDoubleAccumulator lda = (LongDoubleAccumulator) acc;
+                lda.setLong(Math.addExact(lda.getLong(), longValue));
+                lda.setDouble(lda.getDouble() + doubleValue);
+                break;
+            default:
+                throw new AssertionError("Unknown kind: " + kind);
+        }
+    }
+
+    @Override
+    public void acceptEx(Object acc, T item) {
+        switch (kind) {
+            case COUNTING:
+                ((LongAccumulator) acc).add(1);
+                break;
+            case SUMMING_LONG:
+                ((LongAccumulator) acc).add(getLongValueFn.applyAsLong(item));
+                break;
+            case SUMMING_DOUBLE:
+                ((DoubleAccumulator) acc).accumulate(getDoubleValueFn.applyAsDouble(item));
+                break;
+            case AVERAGING_LONG:
+                LongLongAccumulator lla = (LongLongAccumulator) acc;
+                lla.set1(incrementCount(lla.get1()));
+                lla.set2(Math.addExact(lla.get2(), getLongValueFn.applyAsLong(item)));
+                break;
+            case AVERAGING_DOUBLE:
+                LongDoubleAccumulator lda = (LongDoubleAccumulator) acc;
+                lda.setLong(incrementCount(lda.getLong()));
+                lda.setDouble(lda.getDouble() + getDoubleValueFn.applyAsDouble(item));
+                break;
+            default:
+                throw new AssertionError("Unknown kind: " + kind);
+        }
+    }
+
+    /**
+     * Returns the count incremented by one.
+     *
+     * @throws ArithmeticException if the count overflows
+     */
+    public static long incrementCount(long count) {
+        // a bit faster check than in addExact, specialized for increment
+        if (count == Long.MAX_VALUE) {
+            throw new ArithmeticException("Counter overflow");
+        }
+        return count + 1;
+    }
+}
@@ -27,6 +27,7 @@ import com.hazelcast.instance.BuildInfo;
 import com.hazelcast.instance.BuildInfoProvider;
 import com.hazelcast.instance.JetBuildInfo;
 import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.MetricsConfig;
@@ -51,6 +52,7 @@ import static com.hazelcast.jet.impl.config.XmlJetConfigLocator.getJetConfigStre
 import static com.hazelcast.jet.impl.config.XmlJetConfigLocator.getMemberConfigStream;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.util.StringUtil.LINE_SEPARATOR;
+import static com.hazelcast.util.StringUtil.upperCaseInternal;
 
 /**
  * Loads the {@link JetConfig} using XML.
@@ -197,6 +199,39 @@ public final class XmlJetConfigBuilder extends AbstractXmlConfigBuilder {
                 case "lossless-restart-enabled":
                     instanceConfig.setLosslessRestartEnabled(booleanValue(node));
                     break;
+                case "work-stealing-enabled":
+                    instanceConfig.setWorkStealingEnabled(booleanValue(node));
+                    break;
+                case "tasklet-load-balancing-enabled":
+                    instanceConfig.setTaskletLoadBalancingEnabled(booleanValue(node));
+                    break;
+                case "idle-strategy":
+                    instanceConfig.setIdleStrategy(IdleStrategyType.valueOf(upperCaseInternal(stringValue(node))));
+                    break;
+                case "virtual-threads-enabled":
+                    instanceConfig.setVirtualThreadsEnabled(booleanValue(node));
+                    break;
+                case "cooperative-thread-cpus":
+                    instanceConfig.setCooperativeThreadCpus(stringValue(node));
+                    break;
+                case "packet-multiplexing-enabled":
+                    instanceConfig.setPacketMultiplexingEnabled(booleanValue(node));
+                    break;
+                case "grouping-spill-threshold":
+                    instanceConfig.setGroupingSpillThreshold(longValue(node));
+                    break;
+                case "spill-directory":
+                    instanceConfig.setSpillDirectory(stringValue(node));
+                    break;
+                case "join-spill-threshold":
+                    instanceConfig.setJoinSpillThreshold(longValue(node));
+                    break;
+                case "sort-spill-threshold":
+                    instanceConfig.setSortSpillThreshold(longValue(node));
+                    break;
+                case "snapshot-directory":
+                    instanceConfig.setSnapshotDirectory(stringValue(node));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized XML element: " + name);
             }
@@ -217,6 +252,15 @@ public final class XmlJetConfigBuilder extends AbstractXmlConfigBuilder {
                 case "receive-window-multiplier":
                     config.setReceiveWindowMultiplier(intValue(child));
                     break;
+                case "packet-compression-enabled":
+                    config.setPacketCompressionEnabled(booleanValue(child));
+                    break;
+                case "columnar-encoding-enabled":
+                    config.setColumnarEncodingEnabled(booleanValue(child));
+                    break;
+                case "adaptive-flow-control-enabled":
+                    config.setAdaptiveFlowControlEnabled(booleanValue(child));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized XML element: " + name);
             }
@@ -251,8 +295,8 @@ public final class XmlJetConfigBuilder extends AbstractXmlConfigBuilder {
         return Integer.parseInt(stringValue(node));
     }
 
-    private int longValue(Node node) {
-        return Integer.parseInt(stringValue(node));
+    private long longValue(Node node) {
+        return Long.parseLong(stringValue(node));
     }
 
     private String stringValue(Node node) {
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+
+/**
+ * The columnar encoding of a packet of homogeneous items sent over a
+ * distributed edge. It applies to packets of {@link Entry} items created by
+ * {@link com.hazelcast.jet.Util#entry} or {@link Tuple2} items where all
+ * keys and all values have the same class. Instead of writing each item
+ * with its type header, the packet contains:
+ * <ol>
+ *     <li>the number of items
+ *     <li>the record type and the type of the key and value column
+ *     <li>all keys, followed by all values. If the column type is {@code
+ *         String}, {@code Long} or {@code Integer}, the values are written
+ *         without a type header, otherwise with {@code writeObject()}
+ *     <li>the partition IDs as a packed array of variable-length ints
+ * </ol>
+ * The size of an item for the purpose of flow control is the sum of the
+ * sizes of its key and value.
+ */
+final class ColumnarBatch {
+
+    /** The packet body contains items written one after another. */
+    static final byte LAYOUT_ROWS = 0;
+    /** The packet body is in the columnar encoding. */
+    static final byte LAYOUT_COLUMNS = 1;
+
+    private static final byte RECORD_ENTRY = 0;
+    private static final byte RECORD_TUPLE2 = 1;
+
+    private static final byte COLUMN_OBJECT = 0;
+    private static final byte COLUMN_STRING = 1;
+    private static final byte COLUMN_LONG = 2;
+    private static final byte COLUMN_INTEGER = 3;
+
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+    private static final int VARINT_SHIFT = 7;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private ColumnarBatch() {
+    }
+
+    /**
+     * Writes a columnar batch. The keys are written directly to the packet,
+     * the values to a separate buffer, which is appended when the batch is
+     * finished. Must be used by a single thread.
+     */
+    static final class Writer {
+        private final BufferObjectDataOutput valueColumn;
+        private int[] partitionIds = new int[INITIAL_CAPACITY];
+        private int count;
+        private int countPosition;
+        private byte recordType;
+        private byte keyType;
+        private byte valueType;
+
+        Writer(BufferObjectDataOutput valueColumn) {
+            this.valueColumn = valueColumn;
+        }
+
+        /**
+         * Starts a batch of items similar to the given item, if it can be
+         * batched. Writes the batch header to {@code out}.
+         *
+         * @return true if the batch was started, false if the item can't
+         *      be written in the columnar encoding
+         */
+        boolean start(BufferObjectDataOutput out, Object item) throws IOException {
+            int type = recordType(item);
+            if (type < 0) {
+                return false;
+            }
+            Entry e = (Entry) item;
+            recordType = (byte) type;
+            keyType = columnType(e.getKey());
+            valueType = columnType(e.getValue());
+            count = 0;
+            valueColumn.clear();
+            out.writeByte(LAYOUT_COLUMNS);
+            countPosition = out.position();
+            out.writeInt(0);
+            out.writeByte(recordType);
+            out.writeByte(keyType);
+            out.writeByte(valueType);
+            return true;
+        }
+
+        /**
+         * Tells whether the item can be added to the current batch.
+         */
+        boolean accepts(Object item) {
+            if (recordType(item) != recordType) {
+                return false;
+            }
+            Entry e = (Entry) item;
+            return matches(keyType, e.getKey()) && matches(valueType, e.getValue());
+        }
+
+        /**
+         * Adds an item {@link #accepts accepted} by this batch.
+         *
+         * @return the number of bytes written for the item
+         */
+        int add(BufferObjectDataOutput out, Object item, int partitionId) throws IOException {
+            Entry e = (Entry) item;
+            int keyStart = out.position();
+            writeValue(out, keyType, e.getKey());
+            int valueStart = valueColumn.position();
+            writeValue(valueColumn, valueType, e.getValue());
+            if (count == partitionIds.length) {
+                partitionIds = Arrays.copyOf(partitionIds, count * 2);
+            }
+            partitionIds[count++] = partitionId;
+            return out.position() - keyStart + valueColumn.position() - valueStart;
+        }
+
+        /**
+         * Returns an estimate of the number of bytes the batch will add to
+         * the packet in {@link #finish}.
+         */
+        int pendingBytes() {
+            return valueColumn.position() + 2 * count;
+        }
+
+        /**
+         * Appends the value column and the partition IDs to {@code out}.
+         *
+         * @return the number of items in the batch
+         */
+        int finish(BufferObjectDataOutput out) throws IOException {
+            out.writeInt(countPosition, count);
+            out.write(valueColumn.toByteArray());
+            for (int i = 0; i < count; i++) {
+                // -1 is used for items without a partition, we shift to make it non-negative
+                writeVarInt(out, partitionIds[i] + 1);
+            }
+            valueColumn.clear();
+            return count;
+        }
+    }
+
+    /**
+     * Reads a columnar batch written by {@link Writer}. The whole batch is
+     * read at once because the key and the value of an item are in different
+     * parts of the packet. Must be used by a single thread.
+     */
+    static final class Reader {
+        private Object[] keys = new Object[INITIAL_CAPACITY];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private int[] partitionIds = new int[INITIAL_CAPACITY];
+        private int[] sizes = new int[INITIAL_CAPACITY];
+        private byte recordType;
+
+        /**
+         * Reads a batch from the input, which must be positioned after the
+         * {@link #LAYOUT_COLUMNS} byte.
+         *
+         * @return the number of items in the batch
+         */
+        int read(BufferObjectDataInput in) throws IOException {
+            int count = in.readInt();
+            recordType = in.readByte();
+            byte keyType = in.readByte();
+            byte valueType = in.readByte();
+            if (keys.length < count) {
+                int capacity = Math.max(count, keys.length * 2);
+                keys = new Object[capacity];
+                values = new Object[capacity];
+                partitionIds = new int[capacity];
+                sizes = new int[capacity];
+            }
+            for (int i = 0; i < count; i++) {
+                int start = in.position();
+                keys[i] = readValue(in, keyType);
+                sizes[i] = in.position() - start;
+            }
+            for (int i = 0; i < count; i++) {
+                int start = in.position();
+                values[i] = readValue(in, valueType);
+                sizes[i] += in.position() - start;
+            }
+            for (int i = 0; i < count; i++) {
+                partitionIds[i] = readVarInt(in) - 1;
+            }
+            return count;
+        }
+
+        /**
+         * Returns the item at the given index and releases the references to
+         * its key and value.
+         */
+        Object takeItem(int index) {
+            Object key = keys[index];
+            Object value = values[index];
+            keys[index] = null;
+            values[index] = null;
+            return recordType == RECORD_TUPLE2 ? tuple2(key, value) : entry(key, value);
+        }
+
+        int partitionId(int index) {
+            return partitionIds[index];
+        }
+
+        /**
+         * Returns the number of bytes the item at the given index occupied in
+         * the packet.
+         */
+        int itemSize(int index) {
+            return sizes[index];
+        }
+    }
+
+    private static int recordType(Object item) {
+        // exact class match: subclasses and other Entry implementations may have own serializers
+        if (item == null) {
+            return -1;
+        }
+        if (item.getClass() == SimpleImmutableEntry.class) {
+            return RECORD_ENTRY;
+        }
+        if (item.getClass() == Tuple2.class) {
+            return RECORD_TUPLE2;
+        }
+        return -1;
+    }
+
+    private static byte columnType(Object value) {
+        if (value == null) {
+            return COLUMN_OBJECT;
+        }
+        Class<?> clazz = value.getClass();
+        return clazz == String.class ? COLUMN_STRING
+                : clazz == Long.class ? COLUMN_LONG
+                : clazz == Integer.class ? COLUMN_INTEGER
+                : COLUMN_OBJECT;
+    }
+
+    private static boolean matches(byte columnType, Object value) {
+        return columnType == COLUMN_OBJECT || value != null && columnType(value) == columnType;
+    }
+
+    private static void writeValue(ObjectDataOutput out, byte columnType, Object value) throws IOException {
+        switch (columnType) {
+            case COLUMN_STRING:
+                out.writeUTF((String) value);
+                break;
+            case COLUMN_LONG:
+                out.writeLong((Long) value);
+                break;
+            case COLUMN_INTEGER:
+                out.writeInt((Integer) value);
+                break;
+            default:
+                out.writeObject(value);
+        }
+    }
+
+    private static Object readValue(ObjectDataInput in, byte columnType) throws IOException {
+        switch (columnType) {
+            case COLUMN_STRING:
+                return in.readUTF();
+            case COLUMN_LONG:
+                return in.readLong();
+            case COLUMN_INTEGER:
+                return in.readInt();
+            default:
+                return in.readObject();
+        }
+    }
+
+    private static void writeVarInt(ObjectDataOutput out, int value) throws IOException {
+        while ((value & ~VARINT_PAYLOAD_MASK) != 0) {
+            out.writeByte(value & VARINT_PAYLOAD_MASK | VARINT_CONTINUATION_BIT);
+            value >>>= VARINT_SHIFT;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ObjectDataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & VARINT_PAYLOAD_MASK) << shift;
+            shift += VARINT_SHIFT;
+        } while ((b & VARINT_CONTINUATION_BIT) != 0);
+        return value;
+    }
+}
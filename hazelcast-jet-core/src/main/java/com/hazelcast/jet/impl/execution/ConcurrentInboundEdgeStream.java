@@ -26,7 +26,10 @@ import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.util.function.Predicate;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.BitSet;
+import java.util.function.ObjIntConsumer;
 import java.util.function.ToIntFunction;
 
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
@@ -39,6 +42,14 @@ import static com.hazelcast.jet.impl.util.Util.toLocalTime;
  * {@link InboundEdgeStream} implemented in terms of a {@link ConcurrentConveyor}.
  * The conveyor has as many 1-to-1 concurrent queues as there are upstream tasklets
  * contributing to it.
+ * <p>
+ * With blocking alignment, a snapshot barrier is forwarded after it was
+ * received from all queues and the queues that delivered it aren't drained
+ * meanwhile. With non-blocking alignment, the barrier is forwarded as soon
+ * as it's received from the first queue and all queues are still drained.
+ * The items drained from the other queues before their barrier are the
+ * in-flight items of the snapshot, see {@link #recordInFlightItems}. The
+ * barrier doesn't overtake the items queued ahead of it.
  */
 public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
 
@@ -51,6 +62,9 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     private final WatermarkCoalescer watermarkCoalescer;
     private final BitSet receivedBarriers; // indicates if current snapshot is received on the queue
     private final ILogger logger;
+    private final WakeupSignal wakeupSignal;
+    // null, if the snapshot alignment is blocking
+    private final ToIntFunction<Object> inFlightPartitionKeyFn;
 
     // Tells whether we are operating in exactly-once or at-least-once mode.
     // In other words, whether a barrier from all queues must be present before
@@ -58,6 +72,9 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     // Once a terminal snapshot barrier is reached, this is always true.
     private boolean waitForAllBarriers;
     private SnapshotBarrier currentBarrier;  // next snapshot barrier to emit
+    private boolean barrierForwarded; // only with non-blocking alignment the barrier is forwarded before it's complete
+    private long completedSnapshotId = Long.MIN_VALUE; // the last snapshot received from all queues
+    private ObjIntConsumer<Object> inFlightItemSink; // not null while recording the in-flight items
     private long numActiveQueues; // number of active queues remaining
 
     /**
@@ -68,10 +85,35 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
      */
     public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
                                        boolean waitForAllBarriers, String debugName) {
+        this(conveyor, ordinal, priority, waitForAllBarriers, debugName, null);
+    }
+
+    /**
+     * @param wakeupSignal the signal the producers to the conveyor use to wake
+     *          up the consumer, or {@code null}
+     */
+    public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
+                                       boolean waitForAllBarriers, String debugName,
+                                       @Nullable WakeupSignal wakeupSignal) {
+        this(conveyor, ordinal, priority, waitForAllBarriers, debugName, wakeupSignal, null);
+    }
+
+    /**
+     * @param inFlightPartitionKeyFn if not {@code null}, the snapshot alignment
+     *          is non-blocking and the function returns the key of the partition
+     *          an in-flight item was routed by. Applies only if {@code
+     *          waitForAllBarriers} is {@code true}.
+     */
+    public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
+                                       boolean waitForAllBarriers, String debugName,
+                                       @Nullable WakeupSignal wakeupSignal,
+                                       @Nullable ToIntFunction<Object> inFlightPartitionKeyFn) {
         this.conveyor = conveyor;
+        this.wakeupSignal = wakeupSignal;
         this.ordinal = ordinal;
         this.priority = priority;
-        this.waitForAllBarriers = waitForAllBarriers;
+        this.inFlightPartitionKeyFn = waitForAllBarriers ? inFlightPartitionKeyFn : null;
+        this.waitForAllBarriers = waitForAllBarriers && inFlightPartitionKeyFn == null;
 
         watermarkCoalescer = WatermarkCoalescer.create(conveyor.queueCount());
 
@@ -86,6 +128,11 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         return ordinal;
     }
 
+    @Nullable @Override
+    public WakeupSignal wakeupSignal() {
+        return wakeupSignal;
+    }
+
     @Override
     public int priority() {
         return priority;
@@ -105,13 +152,18 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 continue;
             }
 
-            ProgressState result = drainQueue(q, dest);
+            ProgressState result = drainQueue(q, dest,
+                    inFlightItemSink != null && !receivedBarriers.get(queueIndex) ? inFlightItemSink : null);
             tracker.mergeWith(result);
 
             if (itemDetector.item == DONE_ITEM) {
                 conveyor.removeQueue(queueIndex);
                 receivedBarriers.clear(queueIndex);
                 numActiveQueues--;
+                if (barrierForwarded && receivedBarriers.cardinality() == numActiveQueues) {
+                    // the queue that didn't deliver the barrier yet is done
+                    completeBarrier();
+                }
                 long wmTimestamp = watermarkCoalescer.queueDone(queueIndex);
                 if (maybeEmitWm(wmTimestamp, dest)) {
                     if (logger.isFinestEnabled()) {
@@ -141,16 +193,22 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 return tracker.toProgressState();
             }
 
-            if (itemDetector.item != null) {
-                // if we have received the current snapshot from all active queues, forward it
-                if (receivedBarriers.cardinality() == numActiveQueues) {
-                    assert currentBarrier != null : "currentBarrier == null";
+            if (itemDetector.item != null && currentBarrier != null) {
+                // if we have received the current snapshot from all active queues, forward it.
+                // With non-blocking alignment, it's forwarded when received from the first queue.
+                boolean allReceived = receivedBarriers.cardinality() == numActiveQueues;
+                if (!barrierForwarded && (allReceived || isNonBlockingAlignment())) {
                     boolean res = dest.test(currentBarrier);
                     assert res : "test result expected to be true";
-                    currentBarrier = null;
-                    receivedBarriers.clear();
+                    barrierForwarded = true;
+                    if (allReceived) {
+                        completeBarrier();
+                    }
                     return MADE_PROGRESS;
                 }
+                if (allReceived) {
+                    completeBarrier();
+                }
             }
         }
 
@@ -184,12 +242,14 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
      * {@link Watermark} or {@link SnapshotBarrier}. Also updates the {@code tracker} with new status.
      *
      */
-    private ProgressState drainQueue(Pipe<Object> queue, Predicate<Object> dest) {
-        itemDetector.reset(dest);
+    private ProgressState drainQueue(Pipe<Object> queue, Predicate<Object> dest,
+                                     @Nullable ObjIntConsumer<Object> inFlightSink) {
+        itemDetector.reset(dest, inFlightSink, inFlightPartitionKeyFn);
 
         int drainedCount = queue.drain(itemDetector);
 
         itemDetector.dest = null;
+        itemDetector.inFlightSink = null;
         return ProgressState.valueOf(drainedCount > 0, itemDetector.item == DONE_ITEM);
     }
 
@@ -209,17 +269,48 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         receivedBarriers.set(queueIndex);
     }
 
+    private void completeBarrier() {
+        completedSnapshotId = currentBarrier.snapshotId();
+        currentBarrier = null;
+        barrierForwarded = false;
+        receivedBarriers.clear();
+        inFlightItemSink = null;
+    }
+
+    @Override
+    public boolean isNonBlockingAlignment() {
+        return inFlightPartitionKeyFn != null && !waitForAllBarriers;
+    }
+
+    @Override
+    public void recordInFlightItems(long snapshotId, @Nonnull ObjIntConsumer<Object> sink) {
+        if (isNonBlockingAlignment() && snapshotId > completedSnapshotId) {
+            inFlightItemSink = sink;
+        }
+    }
+
+    @Override
+    public boolean isRecordingInFlightItems() {
+        return inFlightItemSink != null && numActiveQueues > 0;
+    }
+
     /**
      * Drains a concurrent conveyor's queue while watching for {@link Watermark}s
      * and {@link SnapshotBarrier}s.
      * When encountering either of them it prevents draining more items.
+     * If there's an in-flight sink, the items are passed also to it.
      */
     private static final class ItemDetector implements Predicate<Object> {
         Predicate<Object> dest;
+        ObjIntConsumer<Object> inFlightSink;
+        ToIntFunction<Object> partitionKeyFn;
         BroadcastItem item;
 
-        void reset(Predicate<Object> newDest) {
+        void reset(Predicate<Object> newDest, ObjIntConsumer<Object> newInFlightSink,
+                   ToIntFunction<Object> newPartitionKeyFn) {
             dest = newDest;
+            inFlightSink = newInFlightSink;
+            partitionKeyFn = newPartitionKeyFn;
             item = null;
         }
 
@@ -230,7 +321,13 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 item = (BroadcastItem) o;
                 return false;
             }
-            return dest.test(o);
+            if (!dest.test(o)) {
+                return false;
+            }
+            if (inFlightSink != null) {
+                inFlightSink.accept(o, partitionKeyFn.applyAsInt(o));
+            }
+            return true;
         }
     }
 
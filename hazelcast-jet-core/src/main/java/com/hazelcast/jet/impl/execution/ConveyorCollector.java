@@ -19,16 +19,29 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
 import com.hazelcast.jet.impl.util.ProgressState;
 
+import javax.annotation.Nullable;
+
 public class ConveyorCollector implements OutboundCollector {
 
     private final ConcurrentConveyor<Object> conveyor;
     private final int queueIndex;
     private final int[] partitions;
+    private final WakeupSignal wakeupSignal;
 
     public ConveyorCollector(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions) {
+        this(conveyor, queueIndex, partitions, null);
+    }
+
+    /**
+     * @param wakeupSignal signal to the consumer of the conveyor, used to
+     *                     wake it up after an item was added, or {@code null}
+     */
+    public ConveyorCollector(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions,
+                             @Nullable WakeupSignal wakeupSignal) {
         this.conveyor = conveyor;
         this.queueIndex = queueIndex;
         this.partitions = partitions;
+        this.wakeupSignal = wakeupSignal;
     }
 
     @Override
@@ -47,7 +60,13 @@ public class ConveyorCollector implements OutboundCollector {
     }
 
     protected ProgressState offerToConveyor(Object item) {
-        return conveyor.offer(queueIndex, item) ? ProgressState.DONE : ProgressState.NO_PROGRESS;
+        if (!conveyor.offer(queueIndex, item)) {
+            return ProgressState.NO_PROGRESS;
+        }
+        if (wakeupSignal != null) {
+            wakeupSignal.wakeUp();
+        }
+        return ProgressState.DONE;
     }
 }
 
@@ -20,12 +20,19 @@ import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 
+import javax.annotation.Nullable;
+
 public class ConveyorCollectorWithPartition extends ConveyorCollector {
 
     public ConveyorCollectorWithPartition(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions) {
         super(conveyor, queueIndex, partitions);
     }
 
+    public ConveyorCollectorWithPartition(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions,
+                                          @Nullable WakeupSignal wakeupSignal) {
+        super(conveyor, queueIndex, partitions, wakeupSignal);
+    }
+
     @Override
     public ProgressState offer(Object item, int partitionId) {
         return offerToConveyor(new ObjectWithPartitionId(item, partitionId));
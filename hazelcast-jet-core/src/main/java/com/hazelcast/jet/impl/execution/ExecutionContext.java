@@ -29,7 +29,6 @@ import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResul
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
-import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 
@@ -134,7 +133,8 @@ public class ExecutionContext {
                 // begin job execution
                 JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
                 ClassLoader cl = service.getJobExecutionService().getClassLoader(jobConfig, jobId);
-                executionFuture = taskletExecService.beginExecute(tasklets, cancellationFuture, cl)
+                executionFuture = taskletExecService.beginExecute(tasklets, cancellationFuture, cl,
+                        jobConfig.getIdleStrategy())
                         .thenApply(res -> {
                             // There's a race here: a snapshot could be requested after the job just completed
                             // normally, in that case we'll report that it terminated with snapshot.
@@ -208,20 +208,20 @@ public class ExecutionContext {
      * Starts a new snapshot by incrementing the current snapshot id
      */
     public CompletionStage<SnapshotOperationResult> beginSnapshot(long snapshotId, String mapName,
-                                                                  boolean isTerminal) {
+                                                                  boolean isTerminal, boolean isIncremental) {
         synchronized (executionLock) {
             if (cancellationFuture.isDone() || executionFuture != null && executionFuture.isDone()) {
                 throw new CancellationException();
             }
-            return snapshotContext.startNewSnapshot(snapshotId, mapName, isTerminal);
+            return snapshotContext.startNewSnapshot(snapshotId, mapName, isTerminal, isIncremental);
         }
     }
 
-    public void handlePacket(int vertexId, int ordinal, Address sender, BufferObjectDataInput in) {
+    public void handlePacket(int vertexId, int ordinal, Address sender, byte[] buffer, int offset, int length) {
         receiverMap.get(vertexId)
                    .get(ordinal)
                    .get(sender)
-                   .receiveStreamPacket(in);
+                   .receiveStreamPacket(buffer, offset, length);
     }
 
     public boolean hasParticipant(Address member) {
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.core.PartitionAware;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.Comparator;
+
+/**
+ * The snapshot key of an in-flight item of a snapshot with non-blocking
+ * alignment: an item the processor received after it saved its state, but
+ * before it received the snapshot barrier on the item's queue. The
+ * processor that restores the key processes the item again after the
+ * snapshot is restored, see {@link ProcessorTasklet}.
+ * <p>
+ * The partition key is the key of the partition the item was routed by,
+ * so that the item is restored to the processor that also restores the
+ * state for the item's key.
+ */
+public final class InFlightItemKey implements IdentifiedDataSerializable, PartitionAware<Integer> {
+
+    /**
+     * Orders the keys in the order the items were received.
+     */
+    static final Comparator<InFlightItemKey> RECEIVE_ORDER =
+            Comparator.comparingInt(InFlightItemKey::processorIndex).thenComparingLong(InFlightItemKey::sequence);
+
+    private int partitionKey;
+    private int processorIndex;
+    private int ordinal;
+    private long sequence;
+
+    // for deserialization
+    public InFlightItemKey() {
+    }
+
+    /**
+     * @param partitionKey   the key of the partition the item was routed by
+     * @param processorIndex global index of the processor that received the item
+     * @param ordinal        the ordinal the item was received on
+     * @param sequence       the sequence of the item among the in-flight items
+     *                       received by the processor
+     */
+    InFlightItemKey(int partitionKey, int processorIndex, int ordinal, long sequence) {
+        this.partitionKey = partitionKey;
+        this.processorIndex = processorIndex;
+        this.ordinal = ordinal;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public Integer getPartitionKey() {
+        return partitionKey;
+    }
+
+    int processorIndex() {
+        return processorIndex;
+    }
+
+    int ordinal() {
+        return ordinal;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.IN_FLIGHT_ITEM_KEY;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(partitionKey);
+        out.writeInt(processorIndex);
+        out.writeInt(ordinal);
+        out.writeLong(sequence);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        partitionKey = in.readInt();
+        processorIndex = in.readInt();
+        ordinal = in.readInt();
+        sequence = in.readLong();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        InFlightItemKey that = (InFlightItemKey) o;
+        return processorIndex == that.processorIndex && sequence == that.sequence;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * processorIndex + Long.hashCode(sequence);
+    }
+
+    @Override
+    public String toString() {
+        return "InFlightItemKey{" +
+                "partitionKey=" + partitionKey +
+                ", processorIndex=" + processorIndex +
+                ", ordinal=" + ordinal +
+                ", sequence=" + sequence +
+                '}';
+    }
+}
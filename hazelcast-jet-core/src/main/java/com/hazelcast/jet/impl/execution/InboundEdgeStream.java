@@ -19,6 +19,10 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.util.function.Predicate;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.ObjIntConsumer;
+
 /**
  * The inbound side of a data stream corresponding to a single DAG edge identified by its ordinal. In the
  * {@code ProcessorTasklet} it corresponds to the target of an edge; in {@code SenderTasklet} it corresponds to the
@@ -65,4 +69,42 @@ public interface InboundEdgeStream {
      * Returns the last coalesced WM that was forwarded from the edge.
      */
     long coalescedWm();
+
+    /**
+     * Returns the signal the producers use to wake up the consumer of this
+     * stream or {@code null}, if the producers don't signal.
+     */
+    @Nullable
+    default WakeupSignal wakeupSignal() {
+        return null;
+    }
+
+    /**
+     * Returns true, if the stream forwards a snapshot barrier as soon as it
+     * receives it from any queue and the consuming processor uses
+     * non-blocking snapshot alignment.
+     */
+    default boolean isNonBlockingAlignment() {
+        return false;
+    }
+
+    /**
+     * Starts recording the in-flight items of the snapshot with
+     * the given ID: the items drained from the queues that didn't yet
+     * deliver the barrier of the snapshot are also passed to the sink with
+     * the key of the partition they were routed by. The recording stops
+     * when the barrier is received from all queues. Has no effect if the
+     * stream doesn't use {@linkplain #isNonBlockingAlignment() non-blocking
+     * alignment} or it already received the barrier from all queues.
+     */
+    default void recordInFlightItems(long snapshotId, @Nonnull ObjIntConsumer<Object> sink) {
+    }
+
+    /**
+     * Returns true while the stream is recording the in-flight items, see
+     * {@link #recordInFlightItems}.
+     */
+    default boolean isRecordingInFlightItems() {
+        return false;
+    }
 }
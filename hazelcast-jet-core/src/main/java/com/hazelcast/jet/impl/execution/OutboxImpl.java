@@ -17,6 +17,7 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotTombstone;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.jet.impl.util.Util;
@@ -26,7 +27,10 @@ import com.hazelcast.spi.serialization.SerializationService;
 import javax.annotation.Nonnull;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.IntStream;
@@ -60,6 +64,13 @@ public class OutboxImpl implements OutboxInternal {
 
     private boolean blocked;
 
+    // The keys saved to the previous and to the current snapshot, null if not
+    // tracked. See trackSnapshotKeys().
+    private Set<Data> previousSnapshotKeys;
+    private Set<Data> currentSnapshotKeys;
+    private Iterator<Data> removedSnapshotKeys;
+    private Data tombstone;
+
     /**
      * @param outstreams The output queues
      * @param hasSnapshot If the last queue in {@code outstreams} is the snapshot queue
@@ -202,6 +213,9 @@ public class OutboxImpl implements OutboxInternal {
 
         boolean success = offerInternal(snapshotEdge, pendingSnapshotEntry);
         if (success) {
+            if (currentSnapshotKeys != null) {
+                currentSnapshotKeys.add(pendingSnapshotEntry.getKey());
+            }
             pendingSnapshotEntry = null;
             unfinishedSnapshotKey = null;
             unfinishedSnapshotValue = null;
@@ -212,6 +226,58 @@ public class OutboxImpl implements OutboxInternal {
         return success;
     }
 
+    /**
+     * Starts tracking the keys offered to the snapshot. Used for a processor
+     * that always saves all its keys when the job uses incremental snapshots:
+     * a key saved to the previous snapshot, but not to the current one, was
+     * removed from the processor's state. See {@link
+     * #offerSnapshotTombstones(boolean)}.
+     */
+    void trackSnapshotKeys() {
+        previousSnapshotKeys = new HashSet<>();
+        currentSnapshotKeys = new HashSet<>();
+    }
+
+    /**
+     * Called after the processor saved its state to the snapshot. If the
+     * snapshot is incremental, offers a tombstone for each key saved to the
+     * previous snapshot, but not to the current one.
+     *
+     * @return true, if all tombstones were offered
+     */
+    boolean offerSnapshotTombstones(boolean isIncremental) {
+        if (currentSnapshotKeys == null) {
+            return true;
+        }
+        if (isIncremental) {
+            if (removedSnapshotKeys == null) {
+                previousSnapshotKeys.removeAll(currentSnapshotKeys);
+                removedSnapshotKeys = previousSnapshotKeys.iterator();
+                if (tombstone == null) {
+                    tombstone = serializationService.toData(SnapshotTombstone.INSTANCE);
+                }
+            }
+            for (;;) {
+                if (pendingSnapshotEntry == null) {
+                    if (!removedSnapshotKeys.hasNext()) {
+                        break;
+                    }
+                    pendingSnapshotEntry = entry(removedSnapshotKeys.next(), tombstone);
+                }
+                if (!offerInternal(snapshotEdge, pendingSnapshotEntry)) {
+                    return false;
+                }
+                pendingSnapshotEntry = null;
+            }
+        }
+        Set<Data> reused = previousSnapshotKeys;
+        reused.clear();
+        previousSnapshotKeys = currentSnapshotKeys;
+        currentSnapshotKeys = reused;
+        removedSnapshotKeys = null;
+        return true;
+    }
+
     @Override
     public boolean hasUnfinishedItem() {
         return unfinishedItem != null || unfinishedSnapshotKey != null;
@@ -247,6 +313,15 @@ public class OutboxImpl implements OutboxInternal {
         return offerInternal(allEdgesAndSnapshot, item);
     }
 
+    /**
+     * Offers the item only to the snapshot queue. Used for the barrier of
+     * a snapshot with non-blocking alignment, which is offered to the edges
+     * before the in-flight items are saved.
+     */
+    final boolean offerToSnapshotQueue(Object item) {
+        return offerInternal(snapshotEdge, item);
+    }
+
     @Override
     public long lastForwardedWm() {
         return lastForwardedWm.get();
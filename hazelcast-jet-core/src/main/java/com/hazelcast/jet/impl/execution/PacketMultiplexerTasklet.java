@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.MPSCQueue;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.nio.Connection;
+import com.hazelcast.nio.Packet;
+import com.hazelcast.spi.NodeEngine;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.jet.impl.Networking.MULTIPLEXED_FRAME_VERTEX_ID;
+import static com.hazelcast.jet.impl.Networking.createStreamPacketHeader;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
+import static com.hazelcast.jet.impl.util.Util.createObjectDataOutput;
+import static com.hazelcast.jet.impl.util.Util.getMemberConnection;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static java.util.Collections.singletonList;
+
+/**
+ * Sends the packets of all {@link SenderTasklet}s of a job execution that go
+ * to the same member. The packets that the senders hand over between two
+ * calls of this tasklet are coalesced into frames of up to {@value
+ * #FRAME_SIZE_LIMIT} bytes. A frame has a stream packet header with the
+ * vertex ID of {@link com.hazelcast.jet.impl.Networking#MULTIPLEXED_FRAME_VERTEX_ID}
+ * followed by length-prefixed stream packets. A single packet is sent as
+ * it is.
+ * <p>
+ * The tasklet is done when all the senders registered with it are done and
+ * it sent all their packets.
+ */
+public class PacketMultiplexerTasklet implements Tasklet {
+
+    /**
+     * A frame is flushed when adding the next packet would make it larger
+     * than this. A single larger packet is sent alone.
+     */
+    static final int FRAME_SIZE_LIMIT = 1 << 16;
+
+    private final Connection connection;
+    private final Queue<byte[]> queue = new MPSCQueue<>(null);
+    private final WakeupSignal wakeupSignal = new WakeupSignal();
+    private final ProgressTracker tracker = new ProgressTracker();
+    private final BufferObjectDataOutput frameBuffer;
+    private final int framePosPastHeader;
+    private final AtomicInteger activeSenders = new AtomicInteger();
+
+    // the first packet of the current frame, written to the frame buffer only when a second one is added
+    private byte[] firstPacket;
+    private int packetsInFrame;
+
+    public PacketMultiplexerTasklet(NodeEngine nodeEngine, Address destinationAddress, long executionId) {
+        this.connection = getMemberConnection(nodeEngine, destinationAddress);
+        this.frameBuffer = createObjectDataOutput(nodeEngine);
+        uncheckRun(() -> frameBuffer.write(
+                createStreamPacketHeader(nodeEngine, executionId, MULTIPLEXED_FRAME_VERTEX_ID, 0)));
+        this.framePosPastHeader = frameBuffer.position();
+    }
+
+    /**
+     * Registers a sender tasklet. Must be called before the execution
+     * starts.
+     */
+    void registerSender() {
+        activeSenders.incrementAndGet();
+    }
+
+    /**
+     * Called by a sender tasklet after it handed over its last packet.
+     */
+    void senderDone() {
+        activeSenders.decrementAndGet();
+    }
+
+    /**
+     * Hands over a packet to be sent. Called by the sender tasklets.
+     */
+    void send(byte[] packet) {
+        queue.add(packet);
+        wakeupSignal.wakeUp();
+    }
+
+    @Nonnull @Override
+    public List<WakeupSignal> wakeupSignals() {
+        return singletonList(wakeupSignal);
+    }
+
+    @Nonnull @Override
+    public ProgressState call() {
+        tracker.reset();
+        // Read before draining: the senders hand over their last packet before they
+        // report done, so if all are done now, we'll drain all their packets below.
+        final boolean sendersDone = activeSenders.get() == 0;
+        try {
+            for (byte[] packet; (packet = queue.poll()) != null; ) {
+                tracker.madeProgress();
+                addToFrame(packet);
+            }
+            flushFrame();
+        } catch (IOException e) {
+            throw rethrow(e);
+        }
+        if (!sendersDone) {
+            tracker.notDone();
+        }
+        return tracker.toProgressState();
+    }
+
+    private void addToFrame(byte[] packet) throws IOException {
+        if (packetsInFrame > 0
+                && frameSize() + Integer.BYTES + packet.length > FRAME_SIZE_LIMIT) {
+            flushFrame();
+        }
+        if (packetsInFrame == 0) {
+            firstPacket = packet;
+        } else {
+            if (packetsInFrame == 1) {
+                frameBuffer.position(framePosPastHeader);
+                writeToFrame(firstPacket);
+                firstPacket = null;
+            }
+            writeToFrame(packet);
+        }
+        packetsInFrame++;
+    }
+
+    private int frameSize() {
+        return packetsInFrame == 1
+                ? framePosPastHeader + Integer.BYTES + firstPacket.length
+                : frameBuffer.position();
+    }
+
+    private void writeToFrame(byte[] packet) throws IOException {
+        frameBuffer.writeInt(packet.length);
+        frameBuffer.write(packet);
+    }
+
+    private void flushFrame() {
+        if (packetsInFrame == 0) {
+            return;
+        }
+        byte[] payload;
+        if (packetsInFrame == 1) {
+            payload = firstPacket;
+            firstPacket = null;
+        } else {
+            payload = frameBuffer.toByteArray();
+        }
+        packetsInFrame = 0;
+        connection.write(new Packet(payload).setPacketType(Packet.Type.JET));
+    }
+
+    @Override
+    public String toString() {
+        return "PacketMultiplexerTasklet " + connection.getEndPoint();
+    }
+}
@@ -55,10 +55,32 @@ enum ProcessorState {
     SAVE_SNAPSHOT,
 
     /**
-     * Waiting for the outbox to accept the {@link SnapshotBarrier}.
+     * Waiting for the outbox to accept the tombstones for the keys removed
+     * since the previous snapshot, if the processor doesn't track them
+     * itself.
+     */
+    SAVE_SNAPSHOT_TOMBSTONES,
+
+    /**
+     * Waiting for the outbox to accept the {@link SnapshotBarrier}. With
+     * non-blocking alignment, it's offered only to the edges and the
+     * processor then records the in-flight items.
      */
     EMIT_BARRIER,
 
+    /**
+     * Waiting for the outbox to accept the last in-flight items of a
+     * snapshot with non-blocking alignment and then the {@link
+     * SnapshotBarrier} to the snapshot queue.
+     */
+    SAVE_IN_FLIGHT_ITEMS,
+
+    /**
+     * Making calls to {@link Processor#process} with the in-flight items
+     * restored from a snapshot with non-blocking alignment.
+     */
+    PROCESS_RESTORED_IN_FLIGHT_ITEMS,
+
     /**
      * Waiting for the outbox to accept the {@code DONE_ITEM}.
      */
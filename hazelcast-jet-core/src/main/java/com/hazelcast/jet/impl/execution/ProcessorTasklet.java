@@ -25,6 +25,7 @@ import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.Processor.Context;
 import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
 import com.hazelcast.jet.impl.processor.ProcessorWrapper;
 import com.hazelcast.jet.impl.util.ArrayDequeInbox;
 import com.hazelcast.jet.impl.util.CircularListCursor;
@@ -43,6 +44,8 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.TreeMap;
@@ -56,10 +59,14 @@ import static com.hazelcast.jet.impl.execution.ProcessorState.EMIT_BARRIER;
 import static com.hazelcast.jet.impl.execution.ProcessorState.EMIT_DONE_ITEM;
 import static com.hazelcast.jet.impl.execution.ProcessorState.END;
 import static com.hazelcast.jet.impl.execution.ProcessorState.PROCESS_INBOX;
+import static com.hazelcast.jet.impl.execution.ProcessorState.PROCESS_RESTORED_IN_FLIGHT_ITEMS;
 import static com.hazelcast.jet.impl.execution.ProcessorState.PROCESS_WATERMARK;
+import static com.hazelcast.jet.impl.execution.ProcessorState.SAVE_IN_FLIGHT_ITEMS;
 import static com.hazelcast.jet.impl.execution.ProcessorState.SAVE_SNAPSHOT;
+import static com.hazelcast.jet.impl.execution.ProcessorState.SAVE_SNAPSHOT_TOMBSTONES;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.NO_NEW_WM;
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static com.hazelcast.jet.impl.util.Util.jobNameAndExecutionId;
@@ -73,6 +80,8 @@ import static java.util.stream.Collectors.toCollection;
 public class ProcessorTasklet implements Tasklet {
 
     private static final int OUTBOX_BATCH_SIZE = 2048;
+    // the number of restored items after which restoreFromSnapshot() is called
+    private static final int RESTORE_BATCH_SIZE = 4096;
 
     private final ProgressTracker progTracker = new ProgressTracker();
     private final OutboundEdgeStream[] outstreams;
@@ -85,9 +94,11 @@ public class ProcessorTasklet implements Tasklet {
 
     private final ArrayDequeInbox inbox = new ArrayDequeInbox(progTracker);
     private final Queue<ArrayList<InboundEdgeStream>> instreamGroupQueue;
+    private final List<InboundEdgeStream> instreams;
     private final WatermarkCoalescer watermarkCoalescer;
     private final ILogger logger;
     private final SerializationService serializationService;
+    private final List<WakeupSignal> wakeupSignals;
 
     private int numActiveOrdinals; // counter for remaining active ordinals
     private CircularListCursor<InboundEdgeStream> instreamCursor;
@@ -104,6 +115,19 @@ public class ProcessorTasklet implements Tasklet {
     // Once a terminal snapshot barrier is reached, this is always true.
     private boolean waitForAllBarriers;
 
+    // With non-blocking alignment, the processor saves its state when it receives
+    // the barrier from the first input and records the items received from the
+    // other inputs before their barrier. These in-flight items are offered to the
+    // snapshot before the inbox is filled again, so at most one inbox of them is
+    // buffered, and processed again after the snapshot is restored.
+    private final boolean nonBlockingSnapshotAlignment;
+    private boolean recordingInFlightItems;
+    private long inFlightItemSequence;
+    private final Queue<Entry<InFlightItemKey, Object>> inFlightItems = new ArrayDeque<>();
+    private final List<Entry<InFlightItemKey, Object>> restoredInFlightItems = new ArrayList<>();
+    private int restoredInFlightItemIndex;
+    private int restoredInFlightItemOrdinal;
+
     private final AtomicLongArray receivedCounts;
     private final AtomicLongArray receivedBatches;
     private final AtomicLongArray emittedCounts;
@@ -126,6 +150,7 @@ public class ProcessorTasklet implements Tasklet {
         this.serializationService = serializationService;
         this.processor = processor;
         this.numActiveOrdinals = instreams.size();
+        this.instreams = new ArrayList<>(instreams);
         this.instreamGroupQueue = new ArrayDeque<>(instreams.stream()
                 .collect(groupingBy(InboundEdgeStream::priority, TreeMap::new,
                         toCollection(ArrayList<InboundEdgeStream>::new)))
@@ -135,6 +160,13 @@ public class ProcessorTasklet implements Tasklet {
                                     .toArray(OutboundEdgeStream[]::new);
         this.ssContext = ssContext;
         this.logger = getLogger(context);
+        this.wakeupSignals = instreams.stream()
+                                      .map(InboundEdgeStream::wakeupSignal)
+                                      .filter(Objects::nonNull)
+                                      .collect(toCollection(ArrayList::new));
+        if (context instanceof ProcCtx) {
+            wakeupSignals.add(((ProcCtx) context).wakeupSignal());
+        }
 
         instreamCursor = popInstreamGroup();
         receivedCounts = new AtomicLongArray(instreams.size());
@@ -144,7 +176,10 @@ public class ProcessorTasklet implements Tasklet {
         receivedBarriers = new BitSet(instreams.size());
         state = initialProcessingState();
         pendingSnapshotId = ssContext.activeSnapshotId() + 1;
-        waitForAllBarriers = ssContext.processingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE;
+        nonBlockingSnapshotAlignment = ssContext.processingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE
+                && !instreams.isEmpty() && instreams.stream().allMatch(InboundEdgeStream::isNonBlockingAlignment);
+        waitForAllBarriers = ssContext.processingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE
+                && !nonBlockingSnapshotAlignment;
 
         watermarkCoalescer = WatermarkCoalescer.create(instreams.size());
         if (probeBuilder != null) {
@@ -209,6 +244,11 @@ public class ProcessorTasklet implements Tasklet {
                 serializationService, OUTBOX_BATCH_SIZE, emittedCounts);
     }
 
+    @Nonnull @Override
+    public List<WakeupSignal> wakeupSignals() {
+        return wakeupSignals;
+    }
+
     @Override
     public void init() {
         if (serializationService.getManagedContext() != null) {
@@ -222,6 +262,11 @@ public class ProcessorTasklet implements Tasklet {
         } catch (Exception e) {
             throw sneakyThrow(e);
         }
+        if (context.snapshottingEnabled()
+                && context.jobConfig().isIncrementalSnapshots()
+                && !(context instanceof ProcCtx && ((ProcCtx) context).savesSnapshotDeltas())) {
+            outbox.trackSnapshotKeys();
+        }
     }
 
     @Override @Nonnull
@@ -274,11 +319,17 @@ public class ProcessorTasklet implements Tasklet {
             case PROCESS_INBOX:
                 progTracker.notDone();
                 if (inbox.isEmpty()) {
+                    if (recordingInFlightItems && !offerInFlightItems()) {
+                        return;
+                    }
                     if (isSnapshotInbox() || processor.tryProcess()) {
                         assert !outbox.hasUnfinishedItem() : isSnapshotInbox()
                                 ? "Unfinished item before fillInbox call"
                                 : "Processor.tryProcess() returned true, but there's unfinished item in the outbox";
                         fillInbox();
+                        if (isSnapshotInbox()) {
+                            takeRestoredInFlightItems();
+                        }
                     } else {
                         return;
                     }
@@ -297,9 +348,12 @@ public class ProcessorTasklet implements Tasklet {
                         state = COMPLETE_EDGE;
                         progTracker.madeProgress();
                         return;
-                    } else if (numActiveOrdinals > 0
-                            && receivedBarriers.cardinality() == numActiveOrdinals) {
-                        // we have an empty inbox and received the current snapshot barrier from all active ordinals
+                    } else if (recordingInFlightItems) {
+                        state = isInFlightRecordingDone() ? SAVE_IN_FLIGHT_ITEMS : PROCESS_WATERMARK;
+                    } else if (numActiveOrdinals > 0 && currentBarrier != null
+                            && (isNonBlockingBarrier() || receivedBarriers.cardinality() == numActiveOrdinals)) {
+                        // we have an empty inbox and received the current snapshot barrier from all active
+                        // ordinals or, with non-blocking alignment, from any ordinal
                         state = SAVE_SNAPSHOT;
                         return;
                     } else if (numActiveOrdinals == 0) {
@@ -318,13 +372,39 @@ public class ProcessorTasklet implements Tasklet {
                     assert !outbox.hasUnfinishedItem() :
                             "outbox has unfinished item after successful completeEdge() or finishSnapshotRestore()";
                     progTracker.madeProgress();
-                    state = initialProcessingState();
+                    if (isSnapshotInbox() && !restoredInFlightItems.isEmpty()) {
+                        restoredInFlightItems.sort(
+                                (e1, e2) -> InFlightItemKey.RECEIVE_ORDER.compare(e1.getKey(), e2.getKey()));
+                        state = PROCESS_RESTORED_IN_FLIGHT_ITEMS;
+                    } else {
+                        state = initialProcessingState();
+                    }
                 }
                 return;
 
+            case PROCESS_RESTORED_IN_FLIGHT_ITEMS:
+                progTracker.notDone();
+                if (inbox.isEmpty()) {
+                    progTracker.madeProgress();
+                    if (!fillInboxWithRestoredInFlightItems()) {
+                        state = initialProcessingState();
+                        return;
+                    }
+                }
+                processor.process(restoredInFlightItemOrdinal, inbox);
+                return;
+
             case SAVE_SNAPSHOT:
                 progTracker.notDone();
                 if (processor.saveToSnapshot()) {
+                    progTracker.madeProgress();
+                    state = SAVE_SNAPSHOT_TOMBSTONES;
+                }
+                return;
+
+            case SAVE_SNAPSHOT_TOMBSTONES:
+                progTracker.notDone();
+                if (outbox.offerSnapshotTombstones(ssContext.isIncrementalSnapshot())) {
                     progTracker.madeProgress();
                     state = EMIT_BARRIER;
                 }
@@ -332,7 +412,14 @@ public class ProcessorTasklet implements Tasklet {
 
             case EMIT_BARRIER:
                 assert currentBarrier != null : "currentBarrier == null";
-                if (outbox.offerToEdgesAndSnapshot(currentBarrier)) {
+                if (isNonBlockingBarrier()) {
+                    // the edges get the barrier now, the snapshot queue after the in-flight items
+                    if (outbox.offer(currentBarrier)) {
+                        progTracker.madeProgress();
+                        startRecordingInFlightItems();
+                        state = initialProcessingState();
+                    }
+                } else if (outbox.offerToEdgesAndSnapshot(currentBarrier)) {
                     progTracker.madeProgress();
                     if (currentBarrier.isTerminal()) {
                         state = EMIT_DONE_ITEM;
@@ -346,8 +433,26 @@ public class ProcessorTasklet implements Tasklet {
                 progTracker.notDone();
                 return;
 
+            case SAVE_IN_FLIGHT_ITEMS:
+                progTracker.notDone();
+                if (offerInFlightItems() && outbox.offerToSnapshotQueue(currentBarrier)) {
+                    progTracker.madeProgress();
+                    recordingInFlightItems = false;
+                    currentBarrier = null;
+                    receivedBarriers.clear();
+                    pendingSnapshotId++;
+                    state = initialProcessingState();
+                }
+                return;
+
             case COMPLETE:
                 progTracker.notDone();
+                if (recordingInFlightItems) {
+                    // the inputs completed while recording the in-flight items
+                    progTracker.madeProgress();
+                    state = SAVE_IN_FLIGHT_ITEMS;
+                    return;
+                }
                 // check ssContext to see if a barrier should be emitted
                 long currSnapshotId = ssContext.activeSnapshotId();
                 assert currSnapshotId <= pendingSnapshotId : "Unexpected new snapshot id " + currSnapshotId
@@ -402,6 +507,9 @@ public class ProcessorTasklet implements Tasklet {
                 continue;
             }
             result = currInstream.drainTo(addToInboxFunction);
+            if (isSnapshotInbox()) {
+                result = drainRestoreBatch(result);
+            }
             progTracker.madeProgress(result.isMadeProgress());
 
             // check if the last drained item is special
@@ -449,12 +557,39 @@ public class ProcessorTasklet implements Tasklet {
         queuesSize.lazySet(instreamCursor == null ? 0 : sum(instreamCursor.getList(), InboundEdgeStream::sizes));
     }
 
+    /**
+     * Keeps draining the snapshot restore edge while it has items, up to
+     * {@value #RESTORE_BATCH_SIZE} items in the inbox, so that the processor
+     * restores its state in larger batches.
+     *
+     * @param result the result of the first drain
+     * @return the merged result of the drains
+     */
+    private ProgressState drainRestoreBatch(ProgressState result) {
+        while (result.isMadeProgress() && !result.isDone() && inbox.size() < RESTORE_BATCH_SIZE) {
+            Object lastItem = inbox.queue().peekLast();
+            if (lastItem instanceof Watermark || lastItem instanceof SnapshotBarrier) {
+                break;
+            }
+            ProgressState nextResult = currInstream.drainTo(addToInboxFunction);
+            if (!nextResult.isMadeProgress() && !nextResult.isDone()) {
+                break;
+            }
+            result = ProgressState.valueOf(true, nextResult.isDone());
+        }
+        return result;
+    }
+
     private CircularListCursor<InboundEdgeStream> popInstreamGroup() {
         return Optional.ofNullable(instreamGroupQueue.poll())
                        .map(CircularListCursor::new)
                        .orElse(null);
     }
 
+    Context context() {
+        return context;
+    }
+
     @Override
     public String toString() {
         String jobPrefix = context.jobConfig().getName() == null ? "" : context.jobConfig().getName() + "/";
@@ -477,6 +612,93 @@ public class ProcessorTasklet implements Tasklet {
         receivedBarriers.set(ordinal);
     }
 
+    /**
+     * Returns true, if the current snapshot uses non-blocking alignment: the
+     * processor saves its state without waiting for the barrier from all
+     * inputs. Terminal snapshots always use blocking alignment.
+     */
+    private boolean isNonBlockingBarrier() {
+        return nonBlockingSnapshotAlignment && numActiveOrdinals > 0 && !currentBarrier.isTerminal();
+    }
+
+    private void startRecordingInFlightItems() {
+        recordingInFlightItems = true;
+        for (InboundEdgeStream instream : instreams) {
+            int ordinal = instream.ordinal();
+            instream.recordInFlightItems(pendingSnapshotId, (item, partitionKey) -> inFlightItems.add(entry(
+                    new InFlightItemKey(partitionKey, context.globalProcessorIndex(), ordinal, inFlightItemSequence++),
+                    item)));
+        }
+    }
+
+    /**
+     * Offers the recorded in-flight items to the snapshot.
+     *
+     * @return true, if the outbox accepted all of them
+     */
+    private boolean offerInFlightItems() {
+        while (!inFlightItems.isEmpty()) {
+            Entry<InFlightItemKey, Object> e = inFlightItems.peek();
+            if (!outbox.offerToSnapshot(e.getKey(), e.getValue())) {
+                return false;
+            }
+            inFlightItems.remove();
+            progTracker.madeProgress();
+        }
+        return true;
+    }
+
+    /**
+     * Returns true, if the current snapshot barrier was received from all
+     * queues of all active inputs.
+     */
+    private boolean isInFlightRecordingDone() {
+        if (receivedBarriers.cardinality() != numActiveOrdinals) {
+            return false;
+        }
+        for (InboundEdgeStream instream : instreams) {
+            if (instream.isRecordingInFlightItems()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the next restored in-flight items received on the same ordinal to
+     * the inbox.
+     *
+     * @return false, if there are no more restored in-flight items
+     */
+    private boolean fillInboxWithRestoredInFlightItems() {
+        if (restoredInFlightItemIndex == restoredInFlightItems.size()) {
+            restoredInFlightItems.clear();
+            restoredInFlightItemIndex = 0;
+            return false;
+        }
+        restoredInFlightItemOrdinal = restoredInFlightItems.get(restoredInFlightItemIndex).getKey().ordinal();
+        for (; restoredInFlightItemIndex < restoredInFlightItems.size(); restoredInFlightItemIndex++) {
+            Entry<InFlightItemKey, Object> e = restoredInFlightItems.get(restoredInFlightItemIndex);
+            if (e.getKey().ordinal() != restoredInFlightItemOrdinal) {
+                break;
+            }
+            inbox.queue().add(e.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Moves the in-flight items of a snapshot with non-blocking alignment
+     * from the snapshot inbox aside, they are processed after the snapshot
+     * is restored.
+     */
+    @SuppressWarnings("unchecked")
+    private void takeRestoredInFlightItems() {
+        inbox.queue().removeIf(item -> item instanceof Entry
+                && ((Entry) item).getKey() instanceof InFlightItemKey
+                && restoredInFlightItems.add((Entry<InFlightItemKey, Object>) item));
+    }
+
     /**
      * Initial state of the processor. If there are no inbound ordinals left, we will go to COMPLETE state
      * otherwise to PROCESS_INBOX.
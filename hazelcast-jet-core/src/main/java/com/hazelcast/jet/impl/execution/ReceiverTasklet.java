@@ -16,9 +16,11 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.util.concurrent.MPSCQueue;
+import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.config.InstanceConfig;
-import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
+import com.hazelcast.jet.impl.util.Lz4Codec;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.logging.ILogger;
@@ -27,16 +29,21 @@ import com.hazelcast.nio.BufferObjectDataInput;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
-import java.util.ArrayDeque;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.hazelcast.jet.impl.Networking.PAYLOAD_COMPRESSED;
+import static com.hazelcast.jet.impl.Networking.STREAM_PACKET_TIMESTAMP_OFFSET;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFinest;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static java.lang.Math.ceil;
+import static java.util.Collections.singletonList;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Receives from a remote member the data associated with a single edge.
@@ -68,18 +75,55 @@ public class ReceiverTasklet implements Tasklet {
      */
     static final int INITIAL_RECEIVE_WINDOW_COMPRESSED = 800;
 
+    /**
+     * In the adaptive mode, the delivery rate is the maximum of the rates
+     * measured in this many last flow-control periods.
+     */
+    static final int BANDWIDTH_FILTER_LENGTH = 10;
+
+    /**
+     * In the adaptive mode, the minimum receive window.
+     */
+    static final int MIN_ADAPTIVE_RECEIVE_WINDOW_COMPRESSED = 4;
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    // the min RTT sample expires after this time, so that we detect route changes
+    private static final long RTT_FILTER_WINDOW_NANOS = SECONDS.toNanos(10);
+
+    // In the adaptive mode the receive window is this many times the bandwidth-delay product.
+    // We use a higher gain when the receiver is starved to probe for more bandwidth, and a
+    // unit gain when items are waiting, to keep the amount of buffered data low.
+    private static final double PROBE_GAIN = 2.0;
+    private static final double DRAIN_GAIN = 1.0;
+
     /**
      * Receive Window converges towards the amount of data processed per flow-control
      * period multiplied by this number.
      */
     private final int rwinMultiplier;
     private final double flowControlPeriodNs;
+    private final boolean adaptiveFlowControl;
     private final ILogger logger;
 
-    private final Queue<BufferObjectDataInput> incoming = new MPSCQueue<>(null);
+    private final Queue<IncomingPacket> incoming = new MPSCQueue<>(null);
+    private final WakeupSignal wakeupSignal = new WakeupSignal();
     private final ProgressTracker tracker = new ProgressTracker();
-    private final ArrayDeque<ObjWithPtionIdAndSize> inbox = new ArrayDeque<>();
     private final OutboundCollector collector;
+    // reused for all received packets, initialized with the packet being read
+    private final BufferObjectDataInput input;
+    // holds the items of the current packet, if it's in the columnar encoding
+    private final ColumnarBatch.Reader columnarReader = new ColumnarBatch.Reader();
+    // holds the decompressed content of the current packet, if it was compressed
+    private byte[] decompressBuffer = EMPTY_BYTES;
+    private boolean columnarPacket;
+    private int columnarIndex;
+    // number of items in the current packet not yet read from the input
+    private int itemsLeftInPacket;
+    // the item read from the input, but not yet accepted by the collector, or null
+    private Object pendingItem;
+    private int pendingItemPartitionId;
+    private long pendingItemFootprint;
 
     private boolean receptionDone;
 
@@ -92,25 +136,40 @@ public class ReceiverTasklet implements Tasklet {
     // read by a task scheduler thread, written by a tasklet execution thread
     private volatile long ackedSeq;
     private volatile int numWaitingInInbox;
+    // minimum of the RTT samples in the last RTT_FILTER_WINDOW_NANOS, -1 if there was no sample
+    private volatile long minRttNanos = -1;
+
+    // read and written by a tasklet execution thread
+    private long minRttTimestamp;
 
     // read and written by updateAndGetSendSeqLimitCompressed(), which is invoked sequentially by a task scheduler
-    private int receiveWindowCompressed;
+    private volatile int receiveWindowCompressed;
     private int prevAckedSeqCompressed;
     private long prevTimestamp;
+    // delivery rates in the last BANDWIDTH_FILTER_LENGTH periods, in compressed seqs per nanosecond
+    private final double[] deliveryRates = new double[BANDWIDTH_FILTER_LENGTH];
+    private int deliveryRateIndex;
 
     //                 END FLOW-CONTROL STATE
 
     public ReceiverTasklet(
-            OutboundCollector collector, int rwinMultiplier, int flowControlPeriodMs,
-            LoggingService loggingService, String debugName
+            OutboundCollector collector, int rwinMultiplier, int flowControlPeriodMs, boolean adaptiveFlowControl,
+            LoggingService loggingService, InternalSerializationService serializationService, String debugName
     ) {
         this.collector = collector;
+        this.input = serializationService.createObjectDataInput(EMPTY_BYTES);
         this.rwinMultiplier = rwinMultiplier;
         this.flowControlPeriodNs = (double) MILLISECONDS.toNanos(flowControlPeriodMs);
+        this.adaptiveFlowControl = adaptiveFlowControl;
         this.logger = loggingService.getLogger(getClass().getName() + '.' + debugName);
         this.receiveWindowCompressed = INITIAL_RECEIVE_WINDOW_COMPRESSED;
     }
 
+    @Nonnull @Override
+    public List<WakeupSignal> wakeupSignals() {
+        return singletonList(wakeupSignal);
+    }
+
     @Override @Nonnull
     public ProgressState call() {
         if (receptionDone) {
@@ -118,32 +177,47 @@ public class ReceiverTasklet implements Tasklet {
         }
         tracker.reset();
         tracker.notDone();
-        tryFillInbox();
-        for (ObjWithPtionIdAndSize o; (o = inbox.peek()) != null; ) {
-            final Object item = o.getItem();
+        // Items are deserialized one at a time, directly before they're offered to the
+        // collector. If the collector refuses an item, we keep it until the next call.
+        while (pendingItem != null || readNextItem()) {
+            final Object item = pendingItem;
             if (item == DONE_ITEM) {
                 receptionDone = true;
-                inbox.remove();
-                assert inbox.peek() == null : "Found something in the queue beyond the DONE_ITEM: " + inbox.remove();
+                pendingItem = null;
+                assert itemsLeftInPacket == 0 : "Found " + itemsLeftInPacket + " items beyond the DONE_ITEM";
                 break;
             }
             ProgressState outcome = item instanceof BroadcastItem
                     ? collector.offerBroadcast((BroadcastItem) item)
-                    : collector.offer(item, o.getPartitionId());
+                    : collector.offer(item, pendingItemPartitionId);
             if (!outcome.isDone()) {
                 tracker.madeProgress(outcome.isMadeProgress());
                 break;
             }
             tracker.madeProgress();
-            inbox.remove();
-            ackItem(o.estimatedMemoryFootprint);
+            pendingItem = null;
+            ackItem(pendingItemFootprint);
         }
-        numWaitingInInbox = inbox.size();
+        numWaitingInInbox = itemsLeftInPacket + (pendingItem != null ? 1 : 0);
         return tracker.toProgressState();
     }
 
-    void receiveStreamPacket(BufferObjectDataInput packetInput) {
-        incoming.add(packetInput);
+    /**
+     * Adds a packet received from the network. The packet starts with the
+     * stream packet header, which this method ignores.
+     */
+    void receiveStreamPacket(byte[] packet) {
+        receiveStreamPacket(packet, 0, packet.length);
+    }
+
+    /**
+     * Adds a packet received from the network that takes the given range
+     * of the array, for example a packet in a multiplexed frame. The array
+     * is read in place, the caller must not modify it.
+     */
+    public void receiveStreamPacket(byte[] buffer, int offset, int length) {
+        incoming.add(new IncomingPacket(buffer, offset, length));
+        wakeupSignal.wakeUp();
     }
 
     /**
@@ -180,6 +254,8 @@ public class ReceiverTasklet implements Tasklet {
      *     Return the {@code sentSeq} limit as the current acked seq plus the current
      *     receive window.
      * </li></ol>
+     * In the adaptive mode, once we have an RTT sample, the receive window is
+     * computed by {@link #adaptiveReceiveWindow} instead.
      *
      * @param timestampNow value of the timestamp at the time the method is called. The timestamp
      *                     must be obtained from {@code System.nanoTime()}.
@@ -195,7 +271,13 @@ public class ReceiverTasklet implements Tasklet {
         final int ackedSeqCompressedDelta = ackedSeqCompressed - prevAckedSeqCompressed;
         prevAckedSeqCompressed = ackedSeqCompressed;
 
-        if (hadPrevStats) {
+        if (hadPrevStats && adaptiveFlowControl && minRttNanos >= 0) {
+            final int newRwin = adaptiveReceiveWindow(ackedSeqCompressedDelta, ackTimeDelta);
+            if (newRwin != receiveWindowCompressed) {
+                logFinest(logger, "receiveWindowCompressed changed from %d to %d", receiveWindowCompressed, newRwin);
+                receiveWindowCompressed = newRwin;
+            }
+        } else if (hadPrevStats) {
             final double ackedSeqsPerAckPeriod = flowControlPeriodNs * ackedSeqCompressedDelta / ackTimeDelta;
             final int targetRwin = rwinMultiplier * (int) ceil(ackedSeqsPerAckPeriod);
             int rwinDiff = targetRwin - receiveWindowCompressed;
@@ -215,6 +297,67 @@ public class ReceiverTasklet implements Tasklet {
         return ackedSeqCompressed + receiveWindowCompressed;
     }
 
+    /**
+     * Computes the receive window from the estimated bandwidth-delay product,
+     * similar to the BBR congestion control:
+     * <ul><li>
+     *     the bandwidth is the maximum delivery rate in the last {@value
+     *     #BANDWIDTH_FILTER_LENGTH} flow-control periods
+     * </li><li>
+     *     the delay is the minimum RTT measured in the last 10 seconds plus
+     *     one flow-control period, because the sender learns about a new
+     *     limit only once per period
+     * </li></ul>
+     * If items are waiting in the inbox, the receiver is the bottleneck and
+     * the window is one bandwidth-delay product, enough to keep the receiver
+     * busy without buffering more. Otherwise the window is twice as large to
+     * let the sender increase the rate, and it never shrinks.
+     */
+    private int adaptiveReceiveWindow(int ackedSeqCompressedDelta, long ackTimeDelta) {
+        deliveryRates[deliveryRateIndex] = (double) ackedSeqCompressedDelta / ackTimeDelta;
+        deliveryRateIndex = (deliveryRateIndex + 1) % BANDWIDTH_FILTER_LENGTH;
+        double bandwidth = 0;
+        for (double rate : deliveryRates) {
+            bandwidth = Math.max(bandwidth, rate);
+        }
+        final double bdp = bandwidth * (minRttNanos + flowControlPeriodNs);
+        if (numWaitingInInbox == 0) {
+            return Math.max(receiveWindowCompressed, (int) ceil(PROBE_GAIN * bdp));
+        }
+        return Math.max(MIN_ADAPTIVE_RECEIVE_WINDOW_COMPRESSED, (int) ceil(DRAIN_GAIN * bdp));
+    }
+
+    /**
+     * Updates the minimum RTT with a sample obtained from a timestamp echoed
+     * by the sender. A minimum older than {@link #RTT_FILTER_WINDOW_NANOS} is
+     * replaced by the new sample.
+     */
+    // Only the tasklet execution thread calls this method
+    void recordRttSample(long timestampNow, long echoedTimestamp) {
+        final long rtt = timestampNow - echoedTimestamp;
+        final long currentMin = minRttNanos;
+        if (currentMin < 0 || rtt <= currentMin || timestampNow - minRttTimestamp > RTT_FILTER_WINDOW_NANOS) {
+            minRttNanos = rtt;
+            minRttTimestamp = timestampNow;
+        }
+    }
+
+    /**
+     * Returns the current receive window in bytes.
+     */
+    public long receiveWindowBytes() {
+        return (long) receiveWindowCompressed << COMPRESSED_SEQ_UNIT_LOG2;
+    }
+
+    /**
+     * Returns the minimum measured round-trip time to the sender in
+     * microseconds, or -1 if it wasn't measured yet.
+     */
+    public long minRttMicros() {
+        final long rtt = minRttNanos;
+        return rtt < 0 ? -1 : NANOSECONDS.toMicros(rtt);
+    }
+
     // Only one thread writes to ackedSeq
     @SuppressWarnings("NonAtomicOperationOnVolatileField")
     long ackItem(long itemWeight) {
@@ -250,37 +393,77 @@ public class ReceiverTasklet implements Tasklet {
         return overhead + itemBlobSize;
     }
 
-    private void tryFillInbox() {
+    /**
+     * Reads the next item into {@link #pendingItem}, taking the next packet
+     * from {@link #incoming} if the current one is exhausted.
+     *
+     * @return false if there are no more items to read
+     */
+    private boolean readNextItem() {
         try {
-            long totalBytes = 0;
-            long totalItems = 0;
-            for (BufferObjectDataInput received; (received = incoming.poll()) != null; ) {
-                final int itemCount = received.readInt();
-                for (int i = 0; i < itemCount; i++) {
-                    final int mark = received.position();
-                    final Object item = received.readObject();
-                    final int itemSize = received.position() - mark;
-                    inbox.add(new ObjWithPtionIdAndSize(item, received.readInt(), itemSize));
+            while (itemsLeftInPacket == 0) {
+                IncomingPacket packet = incoming.poll();
+                if (packet == null) {
+                    input.clear();
+                    return false;
                 }
-                totalItems += itemCount;
-                totalBytes += received.position();
-                received.close();
+                input.init(packet.buffer, packet.offset + STREAM_PACKET_TIMESTAMP_OFFSET);
+                final long echoedTimestamp = input.readLong();
+                if (echoedTimestamp != 0) {
+                    recordRttSample(System.nanoTime(), echoedTimestamp);
+                }
+                if (input.readByte() == PAYLOAD_COMPRESSED) {
+                    decompress(packet);
+                }
+                if (input.readByte() == ColumnarBatch.LAYOUT_COLUMNS) {
+                    itemsLeftInPacket = columnarReader.read(input);
+                    columnarIndex = 0;
+                    columnarPacket = true;
+                } else {
+                    itemsLeftInPacket = input.readInt();
+                    columnarPacket = false;
+                }
+                lazyAdd(bytesInCounter, packet.length);
+                lazyAdd(itemsInCounter, itemsLeftInPacket);
                 tracker.madeProgress();
             }
-            lazyAdd(bytesInCounter, totalBytes);
-            lazyAdd(itemsInCounter, totalItems);
+            if (columnarPacket) {
+                pendingItem = columnarReader.takeItem(columnarIndex);
+                pendingItemFootprint = estimatedMemoryFootprint(columnarReader.itemSize(columnarIndex));
+                pendingItemPartitionId = columnarReader.partitionId(columnarIndex);
+                columnarIndex++;
+            } else {
+                final int mark = input.position();
+                pendingItem = input.readObject();
+                pendingItemFootprint = estimatedMemoryFootprint(input.position() - mark);
+                pendingItemPartitionId = input.readInt();
+            }
+            itemsLeftInPacket--;
+            return true;
         } catch (IOException e) {
             throw rethrow(e);
         }
     }
 
-    private static class ObjWithPtionIdAndSize extends ObjectWithPartitionId {
-        final long estimatedMemoryFootprint;
-
-        ObjWithPtionIdAndSize(Object item, int partitionId, int itemBlobSize) {
-            super(item, partitionId);
-            this.estimatedMemoryFootprint = estimatedMemoryFootprint(itemBlobSize);
+    /**
+     * Decompresses the packet into {@link #decompressBuffer} and initializes
+     * the input with it. The input must be positioned after the compression
+     * flag.
+     */
+    private void decompress(IncomingPacket packet) throws IOException {
+        final int length = input.readInt();
+        if (decompressBuffer.length < length) {
+            decompressBuffer = new byte[length];
         }
+        final int dataPos = input.position();
+        final int packetEnd = packet.offset + packet.length;
+        int decompressedLength =
+                Lz4Codec.decompress(packet.buffer, dataPos, packetEnd - dataPos, decompressBuffer, 0, length);
+        if (decompressedLength != length) {
+            throw new JetException("Corrupted compressed packet, expected " + length + " bytes, but got "
+                    + decompressedLength);
+        }
+        input.init(decompressBuffer, 0);
     }
 
     public AtomicLong getItemsInCounter() {
@@ -290,4 +473,19 @@ public class ReceiverTasklet implements Tasklet {
     public AtomicLong getBytesInCounter() {
         return bytesInCounter;
     }
+
+    /**
+     * A received stream packet, a range of the array it was received in.
+     */
+    private static final class IncomingPacket {
+        final byte[] buffer;
+        final int offset;
+        final int length;
+
+        IncomingPacket(byte[] buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
 }
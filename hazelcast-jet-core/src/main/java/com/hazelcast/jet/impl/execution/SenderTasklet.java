@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.jet.impl.util.Lz4Codec;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
@@ -28,11 +29,19 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.util.function.Predicate;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.hazelcast.jet.impl.Networking.PAYLOAD_COMPRESSED;
+import static com.hazelcast.jet.impl.Networking.PAYLOAD_UNCOMPRESSED;
+import static com.hazelcast.jet.impl.Networking.STREAM_PACKET_HEADER_SIZE;
+import static com.hazelcast.jet.impl.Networking.STREAM_PACKET_TIMESTAMP_OFFSET;
 import static com.hazelcast.jet.impl.Networking.createStreamPacketHeader;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.execution.ReceiverTasklet.compressSeq;
@@ -42,9 +51,19 @@ import static com.hazelcast.jet.impl.util.Util.createObjectDataOutput;
 import static com.hazelcast.jet.impl.util.Util.getMemberConnection;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class SenderTasklet implements Tasklet {
 
+    // smaller packets aren't worth compressing
+    private static final int MIN_COMPRESSIBLE_SIZE = 256;
+    // a compressed packet must be at most this fraction of the original size to be sent
+    private static final double MAX_COMPRESSION_RATIO = 0.8;
+    // max number of packets sent uncompressed after a packet didn't compress well
+    private static final int MAX_COMPRESSION_BACKOFF = 1024;
+
     private final Connection connection;
     private final Queue<Object> inbox = new ArrayDeque<>();
     private final ProgressTracker progTracker = new ProgressTracker();
@@ -54,37 +73,87 @@ public class SenderTasklet implements Tasklet {
     private final int packetSizeLimit;
     private final AtomicLong itemsOutCounter = new AtomicLong();
     private final AtomicLong bytesOutCounter = new AtomicLong();
+    private final AtomicLong throttledTimeNanos = new AtomicLong();
+    // null if compression is disabled
+    private final Lz4Codec compressor;
+    // null if columnar encoding is disabled
+    private final ColumnarBatch.Writer columnarWriter;
+    // null if packet multiplexing is disabled
+    private final PacketMultiplexerTasklet multiplexer;
+
+    // header, PAYLOAD_COMPRESSED, uncompressed length and space for compressed data
+    private byte[] compressBuffer;
+    private int compressionBackoff = 1;
+    private int packetsToSkipCompression;
 
     private boolean instreamExhausted;
     // read and written by Jet thread
     private long sentSeq;
+    private long echoedTimestamp;
+    // written by Jet thread, read by the metrics collector
+    private volatile boolean throttled;
+    private volatile long throttledSince;
 
     // Written by HZ networking thread, read by Jet thread
     private volatile int sendSeqLimitCompressed;
+    private volatile long flowControlTimestamp;
     private Predicate<Object> addToInboxFunction = inbox::add;
 
     public SenderTasklet(InboundEdgeStream inboundEdgeStream, NodeEngine nodeEngine, Address destinationAddress,
-                         long executionId, int destinationVertexId, int packetSizeLimit) {
+                         long executionId, int destinationVertexId, int packetSizeLimit,
+                         boolean compressionEnabled, boolean columnarEncodingEnabled,
+                         @Nullable PacketMultiplexerTasklet multiplexer) {
         this.inboundEdgeStream = inboundEdgeStream;
         this.packetSizeLimit = packetSizeLimit;
         this.connection = getMemberConnection(nodeEngine, destinationAddress);
         this.outputBuffer = createObjectDataOutput(nodeEngine);
-        uncheckRun(() -> outputBuffer.write(createStreamPacketHeader(
-                nodeEngine, executionId, destinationVertexId, inboundEdgeStream.ordinal())));
+        this.compressor = compressionEnabled ? new Lz4Codec() : null;
+        this.columnarWriter = columnarEncodingEnabled
+                ? new ColumnarBatch.Writer(createObjectDataOutput(nodeEngine)) : null;
+        this.multiplexer = multiplexer;
+        if (multiplexer != null) {
+            multiplexer.registerSender();
+        }
+        uncheckRun(() -> {
+            outputBuffer.write(createStreamPacketHeader(
+                    nodeEngine, executionId, destinationVertexId, inboundEdgeStream.ordinal()));
+            // the output buffer always contains an uncompressed packet
+            outputBuffer.writeByte(PAYLOAD_UNCOMPRESSED);
+        });
         bufPosPastHeader = outputBuffer.position();
     }
 
+    @Nonnull @Override
+    public List<WakeupSignal> wakeupSignals() {
+        WakeupSignal signal = inboundEdgeStream.wakeupSignal();
+        return signal != null ? singletonList(signal) : emptyList();
+    }
+
     @Nonnull @Override
     public ProgressState call() {
         progTracker.reset();
         tryFillInbox();
         if (progTracker.isDone()) {
+            if (multiplexer != null) {
+                // we're not called again after returning DONE
+                multiplexer.senderDone();
+            }
             return progTracker.toProgressState();
         }
         if (tryFillOutputBuffer()) {
             progTracker.madeProgress();
-            connection.write(new Packet(outputBuffer.toByteArray()).setPacketType(Packet.Type.JET));
+            // The connection only accepts a Packet backed by a heap array of the exact payload length
+            // and it doesn't tell us when the packet was written, so we can't hand over and later
+            // recycle the output buffer. toByteArray() is the only copy and allocation per packet.
+            byte[] payload = compressIfBeneficial(outputBuffer.toByteArray());
+            lazyAdd(bytesOutCounter, payload.length);
+            if (multiplexer != null) {
+                multiplexer.send(payload);
+            } else {
+                connection.write(new Packet(payload).setPacketType(Packet.Type.JET));
+            }
         }
+        updateThrottledTime(!inbox.isEmpty() && !isWithinLimit(sentSeq, sendSeqLimitCompressed));
         return progTracker.toProgressState();
     }
 
@@ -101,47 +170,147 @@ public class SenderTasklet implements Tasklet {
         progTracker.madeProgress(result.isMadeProgress());
         instreamExhausted = result.isDone();
         if (instreamExhausted) {
-            inbox.add(new ObjectWithPartitionId(DONE_ITEM, -1));
+            inbox.add(DONE_ITEM);
         }
     }
 
     private boolean tryFillOutputBuffer() {
         try {
-            // header size + slot for writtenCount
-            outputBuffer.position(bufPosPastHeader + Bits.INT_SIZE_IN_BYTES);
-            int writtenCount = 0;
-            for (Object item;
-                 outputBuffer.position() < packetSizeLimit
-                         && isWithinLimit(sentSeq, sendSeqLimitCompressed)
-                         && (item = inbox.poll()) != null;
-                 writtenCount++
-            ) {
-                ObjectWithPartitionId itemWithPId = item instanceof ObjectWithPartitionId ?
-                        (ObjectWithPartitionId) item : new ObjectWithPartitionId(item, - 1);
-                final int mark = outputBuffer.position();
-                outputBuffer.writeObject(itemWithPId.getItem());
-                sentSeq += estimatedMemoryFootprint(outputBuffer.position() - mark);
-                outputBuffer.writeInt(itemWithPId.getPartitionId());
-            }
-            outputBuffer.writeInt(bufPosPastHeader, writtenCount);
-            lazyAdd(bytesOutCounter, outputBuffer.position());
+            outputBuffer.position(bufPosPastHeader);
+            final Object first = inbox.peek();
+            final int writtenCount = columnarWriter != null && first != null
+                    && columnarWriter.start(outputBuffer, payload(first))
+                    ? fillColumns()
+                    : fillRows();
             lazyAdd(itemsOutCounter, writtenCount);
-            return writtenCount > 0;
+            if (writtenCount == 0) {
+                return false;
+            }
+            // Echo each flow-control timestamp only once, in the first packet sent after it
+            // arrived. The receiver then measures the round-trip time plus our reaction time.
+            final long timestamp = flowControlTimestamp;
+            outputBuffer.writeLong(STREAM_PACKET_TIMESTAMP_OFFSET, timestamp != echoedTimestamp ? timestamp : 0);
+            echoedTimestamp = timestamp;
+            return true;
         } catch (IOException e) {
             throw rethrow(e);
         }
     }
 
+    private int fillRows() throws IOException {
+        outputBuffer.writeByte(ColumnarBatch.LAYOUT_ROWS);
+        final int countPos = outputBuffer.position();
+        // slot for writtenCount
+        outputBuffer.position(countPos + Bits.INT_SIZE_IN_BYTES);
+        int writtenCount = 0;
+        for (Object item;
+             outputBuffer.position() < packetSizeLimit
+                     && isWithinLimit(sentSeq, sendSeqLimitCompressed)
+                     && (item = inbox.poll()) != null;
+             writtenCount++
+        ) {
+            final int mark = outputBuffer.position();
+            outputBuffer.writeObject(payload(item));
+            sentSeq += estimatedMemoryFootprint(outputBuffer.position() - mark);
+            outputBuffer.writeInt(partitionId(item));
+        }
+        outputBuffer.writeInt(countPos, writtenCount);
+        return writtenCount;
+    }
+
+    private int fillColumns() throws IOException {
+        for (Object item;
+             outputBuffer.position() + columnarWriter.pendingBytes() < packetSizeLimit
+                     && isWithinLimit(sentSeq, sendSeqLimitCompressed)
+                     && (item = inbox.peek()) != null
+                     && columnarWriter.accepts(payload(item));
+        ) {
+            inbox.remove();
+            sentSeq += estimatedMemoryFootprint(columnarWriter.add(outputBuffer, payload(item), partitionId(item)));
+        }
+        return columnarWriter.finish(outputBuffer);
+    }
+
+    // items without a partition are in the inbox as they are, to avoid an allocation per item
+    private static Object payload(Object item) {
+        return item instanceof ObjectWithPartitionId ? ((ObjectWithPartitionId) item).getItem() : item;
+    }
+
+    private static int partitionId(Object item) {
+        return item instanceof ObjectWithPartitionId ? ((ObjectWithPartitionId) item).getPartitionId() : -1;
+    }
+
+    /**
+     * Accumulates the time during which the tasklet had data to send, but
+     * the flow control didn't allow it. We read the clock only when the
+     * state changes.
+     */
+    private void updateThrottledTime(boolean isThrottled) {
+        if (isThrottled == throttled) {
+            return;
+        }
+        throttled = isThrottled;
+        long now = System.nanoTime();
+        if (isThrottled) {
+            throttledSince = now;
+        } else {
+            lazyAdd(throttledTimeNanos, now - throttledSince);
+        }
+    }
+
+    /**
+     * Returns a compressed copy of the packet, if compression is enabled and
+     * the compressed packet is sufficiently smaller. Otherwise returns the
+     * given packet.
+     * <p>
+     * Each time a packet doesn't compress well, we send twice as many packets
+     * uncompressed before trying again, up to {@value MAX_COMPRESSION_BACKOFF}
+     * packets. This keeps the CPU overhead low for incompressible data, while
+     * still detecting when the data starts to compress well.
+     */
+    private byte[] compressIfBeneficial(byte[] packet) {
+        if (compressor == null || packet.length < MIN_COMPRESSIBLE_SIZE) {
+            return packet;
+        }
+        if (packetsToSkipCompression > 0) {
+            packetsToSkipCompression--;
+            return packet;
+        }
+        int dataLength = packet.length - bufPosPastHeader;
+        int compressedDataPos = bufPosPastHeader + Bits.INT_SIZE_IN_BYTES;
+        int requiredSize = compressedDataPos + Lz4Codec.maxCompressedLength(dataLength);
+        if (compressBuffer == null || compressBuffer.length < requiredSize) {
+            compressBuffer = new byte[requiredSize];
+            compressBuffer[STREAM_PACKET_HEADER_SIZE] = PAYLOAD_COMPRESSED;
+        }
+        // the header is copied for each packet because of the echoed timestamp
+        System.arraycopy(packet, 0, compressBuffer, 0, STREAM_PACKET_HEADER_SIZE);
+        int compressedLength = compressedDataPos
+                + compressor.compress(packet, bufPosPastHeader, dataLength, compressBuffer, compressedDataPos);
+        if (compressedLength > packet.length * MAX_COMPRESSION_RATIO) {
+            packetsToSkipCompression = compressionBackoff;
+            compressionBackoff = Math.min(2 * compressionBackoff, MAX_COMPRESSION_BACKOFF);
+            return packet;
+        }
+        compressionBackoff = 1;
+        Bits.writeInt(compressBuffer, bufPosPastHeader, dataLength,
+                outputBuffer.getByteOrder() == ByteOrder.BIG_ENDIAN);
+        return Arrays.copyOf(compressBuffer, compressedLength);
+    }
+
     /**
      * Updates the upper limit on {@link #sentSeq}, which constrains how much more data this tasklet can send.
      *
      * @param sendSeqLimitCompressed the compressed seq read from a flow-control message. The method
      *                               {@link #isWithinLimit(long, int)} derives the limit on the uncompressed
      *                               {@code sentSeq} from the number supplied here.
+     * @param timestamp the receiver's timestamp of the flow-control message, the tasklet echoes it
+     *                  in the next packet it sends
      */
     // Called from HZ networking thread
-    public void setSendSeqLimitCompressed(int sendSeqLimitCompressed) {
+    public void setSendSeqLimitCompressed(int sendSeqLimitCompressed, long timestamp) {
         this.sendSeqLimitCompressed = sendSeqLimitCompressed;
+        this.flowControlTimestamp = timestamp;
     }
 
     @Override
@@ -166,4 +335,13 @@ public class SenderTasklet implements Tasklet {
     public AtomicLong getBytesOutCounter() {
         return bytesOutCounter;
     }
+
+    /**
+     * Returns the total time during which the tasklet had data to send, but
+     * was blocked by the flow control, in milliseconds.
+     */
+    public long throttledTimeMillis() {
+        long total = throttledTimeNanos.get();
+        return NANOSECONDS.toMillis(throttled ? total + System.nanoTime() - throttledSince : total);
+    }
 }
@@ -21,8 +21,12 @@ import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
 import com.hazelcast.logging.ILogger;
 
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -41,6 +45,12 @@ public class SnapshotContext {
      */
     private volatile boolean isTerminal;
 
+    /**
+     * If true, the processors that support it save only the keys changed
+     * since the previous snapshot.
+     */
+    private volatile boolean isIncremental;
+
     /**
      * Current number of {@link StoreSnapshotTasklet}s in the job. It's
      * decremented as the tasklets complete (this is when they receive
@@ -98,8 +108,10 @@ public class SnapshotContext {
     private volatile CompletableFuture<SnapshotOperationResult> future;
 
     private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong totalCompressedBytes = new AtomicLong();
     private final AtomicLong totalKeys = new AtomicLong();
     private final AtomicLong totalChunks = new AtomicLong();
+    private final Map<String, byte[]> dictionaries = new ConcurrentHashMap<>();
     private boolean isCancelled;
 
     public SnapshotContext(ILogger logger, String jobNameAndExecutionId, long activeSnapshotId,
@@ -134,6 +146,14 @@ public class SnapshotContext {
         return isTerminal;
     }
 
+    /**
+     * Returns true, if the current snapshot is incremental. A processor that
+     * tracks its changed keys should save only those.
+     */
+    public boolean isIncrementalSnapshot() {
+        return isIncremental;
+    }
+
     ProcessingGuarantee processingGuarantee() {
         return guarantee;
     }
@@ -149,12 +169,20 @@ public class SnapshotContext {
         this.numHigherPriorityTasklets = highPriorityTaskletCount;
     }
 
+    /**
+     * Starts a snapshot that isn't incremental, see {@link
+     * #startNewSnapshot(long, String, boolean, boolean)}.
+     */
+    CompletableFuture<SnapshotOperationResult> startNewSnapshot(long snapshotId, String mapName, boolean isTerminal) {
+        return startNewSnapshot(snapshotId, mapName, isTerminal, false);
+    }
+
     /**
      * This method is called when the member received {@link
      * SnapshotOperation}.
      */
     synchronized CompletableFuture<SnapshotOperationResult> startNewSnapshot(
-            long snapshotId, String mapName, boolean isTerminal) {
+            long snapshotId, String mapName, boolean isTerminal, boolean isIncremental) {
         assert snapshotId == currentSnapshotId + 1
                 : "new snapshotId not incremented by 1. Previous=" + currentSnapshotId + ", new=" + snapshotId;
         assert currentSnapshotId == activeSnapshotId : "last snapshot was postponed but not started";
@@ -163,6 +191,7 @@ public class SnapshotContext {
             throw new CancellationException("execution cancelled");
         }
         this.isTerminal = isTerminal;
+        this.isIncremental = isIncremental;
 
         boolean success = numRemainingTasklets.compareAndSet(0, numTasklets);
         assert success : "numRemainingTasklets wasn't 0, but " + numRemainingTasklets.get();
@@ -222,12 +251,32 @@ public class SnapshotContext {
         }
     }
 
+    /**
+     * Called when current snapshot is done in {@link StoreSnapshotTasklet}
+     * with no compressed chunks, see {@link #snapshotDoneForTasklet(long,
+     * long, long, long, Entry)}.
+     */
+    void snapshotDoneForTasklet(long numBytes, long numKeys, long numChunks) {
+        snapshotDoneForTasklet(numBytes, numBytes, numKeys, numChunks, null);
+    }
+
     /**
      * Called when current snapshot is done in {@link StoreSnapshotTasklet}
      * (it received barriers from all its processors and all async flush
      * operations are done).
+     *
+     * @param numCompressedBytes the size of the chunks after compression
+     * @param dictionary the key and the dictionary of the compressed chunks
+     *        or null, if the tasklet didn't compress any
      */
-    void snapshotDoneForTasklet(long numBytes, long numKeys, long numChunks) {
+    void snapshotDoneForTasklet(
+            long numBytes, long numCompressedBytes, long numKeys, long numChunks,
+            @Nullable Entry<String, byte[]> dictionary
+    ) {
+        if (dictionary != null) {
+            dictionaries.put(dictionary.getKey(), dictionary.getValue());
+        }
+        totalCompressedBytes.addAndGet(numCompressedBytes);
         totalBytes.addAndGet(numBytes);
         totalKeys.addAndGet(numKeys);
         totalChunks.addAndGet(numChunks);
@@ -256,14 +305,16 @@ public class SnapshotContext {
             assert future == null : "future=" + future;
             return;
         }
-        future.complete(
-                new SnapshotOperationResult(totalBytes.get(), totalKeys.get(), totalChunks.get(), snapshotError.get()));
+        future.complete(new SnapshotOperationResult(totalBytes.get(), totalCompressedBytes.get(), totalKeys.get(),
+                totalChunks.get(), dictionaries, snapshotError.get()));
 
         future = null;
         snapshotError.set(null);
         totalBytes.set(0);
+        totalCompressedBytes.set(0);
         totalKeys.set(0);
         totalChunks.set(0);
+        dictionaries.clear();
         currentMapName = null;
     }
 
@@ -25,12 +25,15 @@ import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.util.function.Predicate;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.Map.Entry;
 
 import static com.hazelcast.jet.impl.execution.StoreSnapshotTasklet.State.DONE;
 import static com.hazelcast.jet.impl.execution.StoreSnapshotTasklet.State.DRAIN;
 import static com.hazelcast.jet.impl.execution.StoreSnapshotTasklet.State.FLUSH;
 import static com.hazelcast.jet.impl.execution.StoreSnapshotTasklet.State.REACHED_BARRIER;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 
 public class StoreSnapshotTasklet implements Tasklet {
 
@@ -68,6 +71,12 @@ public class StoreSnapshotTasklet implements Tasklet {
         addToInboxFunction = this::addToInbox;
     }
 
+    @Nonnull @Override
+    public List<WakeupSignal> wakeupSignals() {
+        WakeupSignal signal = inboundEdgeStream.wakeupSignal();
+        return signal != null ? singletonList(signal) : emptyList();
+    }
+
     @Nonnull @Override
     public ProgressState call() {
         progTracker.reset();
@@ -120,8 +129,9 @@ public class StoreSnapshotTasklet implements Tasklet {
                     snapshotContext.reportError(error);
                 }
                 progTracker.madeProgress();
-                snapshotContext.snapshotDoneForTasklet(ssWriter.getTotalPayloadBytes(), ssWriter.getTotalKeys(),
-                        ssWriter.getTotalChunks());
+                snapshotContext.snapshotDoneForTasklet(ssWriter.getTotalPayloadBytes(),
+                        ssWriter.getTotalCompressedPayloadBytes(), ssWriter.getTotalKeys(), ssWriter.getTotalChunks(),
+                        ssWriter.getDictionary());
                 ssWriter.resetStats();
                 pendingSnapshotId++;
                 hasReachedBarrier = false;
@@ -19,6 +19,9 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.jet.impl.util.ProgressState;
 
 import javax.annotation.Nonnull;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
 
 public interface Tasklet {
 
@@ -32,6 +35,15 @@ public interface Tasklet {
         return true;
     }
 
+    /**
+     * Returns the signals the producers of this tasklet's input use to wake
+     * up the worker that executes the tasklet.
+     */
+    @Nonnull
+    default List<WakeupSignal> wakeupSignals() {
+        return emptyList();
+    }
+
     default void close() {
     }
 
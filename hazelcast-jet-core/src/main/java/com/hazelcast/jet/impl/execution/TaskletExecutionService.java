@@ -18,7 +18,12 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.config.IdleStrategyType;
+import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.impl.exception.ShutdownInProgressException;
+import com.hazelcast.jet.impl.util.AdaptiveIdleStrategy;
+import com.hazelcast.jet.impl.util.CpuAffinity;
 import com.hazelcast.jet.impl.util.NonCompletableFuture;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
@@ -28,26 +33,32 @@ import com.hazelcast.util.concurrent.BackoffIdleStrategy;
 import com.hazelcast.util.concurrent.IdleStrategy;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.withTryCatch;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFinest;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
 import static java.lang.Thread.currentThread;
@@ -67,13 +78,33 @@ public class TaskletExecutionService {
             new BackoffIdleStrategy(0, 0, MICROSECONDS.toNanos(1), MILLISECONDS.toNanos(1));
     private static final IdleStrategy IDLER_NON_COOPERATIVE =
             new BackoffIdleStrategy(0, 0, MICROSECONDS.toNanos(1), MILLISECONDS.toNanos(5));
-
-    private final ExecutorService blockingTaskletExecutor = newCachedThreadPool(new BlockingTaskThreadFactory());
+    private static final IdleStrategy IDLER_BUSY_SPIN = n -> false;
+    private static final IdleStrategy IDLER_YIELD = n -> {
+        Thread.yield();
+        return false;
+    };
+    // a tasklet can migrate to another cooperative worker at most once per this period
+    private static final long MIN_TASKLET_RESIDENCE_NANOS = MILLISECONDS.toNanos(100);
+    // length of the period over which the load of the tasklets is measured
+    private static final long LOAD_MEASUREMENT_PERIOD_NANOS = MILLISECONDS.toNanos(500);
+    // a worker rebalances only if its load exceeds the least loaded worker's by this ratio
+    private static final double LOAD_IMBALANCE_THRESHOLD = 0.2;
+
+    private final ExecutorService blockingTaskletExecutor;
+    private final boolean virtualThreadsEnabled;
     private final CooperativeWorker[] cooperativeWorkers;
     private final Thread[] cooperativeThreadPool;
     private final String hzInstanceName;
     private final ILogger logger;
+    private final boolean workStealingEnabled;
+    private final boolean loadBalancingEnabled;
+    private final IdleStrategyType defaultIdleStrategy;
     private int cooperativeThreadIndex;
+    // socket --> indices of the workers pinned to CPUs of that socket, only used if there's more than one socket
+    private final int[][] workersBySocket;
+    private final int[] socketThreadIndex;
+    private final int[] allWorkers;
+    private final AtomicBoolean pinningFailureLogged = new AtomicBoolean();
     @Probe
     private final AtomicInteger blockingWorkerCount = new AtomicInteger();
 
@@ -85,16 +116,46 @@ public class TaskletExecutionService {
     private final Object lock = new Object();
 
     public TaskletExecutionService(NodeEngineImpl nodeEngine, int threadCount) {
+        this(nodeEngine, new InstanceConfig().setCooperativeThreadCount(threadCount));
+    }
+
+    public TaskletExecutionService(NodeEngineImpl nodeEngine, InstanceConfig config) {
+        int threadCount = config.getCooperativeThreadCount();
         this.hzInstanceName = nodeEngine.getHazelcastInstance().getName();
         this.cooperativeWorkers = new CooperativeWorker[threadCount];
         this.cooperativeThreadPool = new Thread[threadCount];
+        this.workStealingEnabled = config.isWorkStealingEnabled() && threadCount > 1;
+        this.loadBalancingEnabled = config.isTaskletLoadBalancingEnabled() && threadCount > 1;
+        this.defaultIdleStrategy = config.getIdleStrategy();
         this.logger = nodeEngine.getLoggingService().getLogger(TaskletExecutionService.class);
+        ExecutorService virtualThreadExecutor = config.isVirtualThreadsEnabled() ? createVirtualThreadExecutor() : null;
+        this.virtualThreadsEnabled = virtualThreadExecutor != null;
+        this.blockingTaskletExecutor = virtualThreadsEnabled
+                ? virtualThreadExecutor
+                : newCachedThreadPool(new BlockingTaskThreadFactory());
 
         nodeEngine.getMetricsRegistry().newProbeBuilder()
                        .withTag("module", "jet")
                        .scanAndRegister(this);
 
-        Arrays.setAll(cooperativeWorkers, i -> new CooperativeWorker());
+        List<Integer> cpus = cooperativeThreadCpus(config);
+        if (!cpus.isEmpty()) {
+            Arrays.setAll(cooperativeWorkers, i -> {
+                int cpu = cpus.get(i % cpus.size());
+                return new CooperativeWorker(cpu, CpuAffinity.socketOf(cpu));
+            });
+        } else {
+            Arrays.setAll(cooperativeWorkers, i -> new CooperativeWorker(-1, 0));
+        }
+        Map<Integer, List<Integer>> socketToWorkers = new TreeMap<>();
+        for (int i = 0; i < threadCount; i++) {
+            socketToWorkers.computeIfAbsent(cooperativeWorkers[i].socket, x -> new ArrayList<>()).add(i);
+        }
+        this.workersBySocket = socketToWorkers.values().stream()
+                                              .map(l -> l.stream().mapToInt(Integer::intValue).toArray())
+                                              .toArray(int[][]::new);
+        this.socketThreadIndex = new int[workersBySocket.length];
+        this.allWorkers = IntStream.range(0, threadCount).toArray();
         Arrays.setAll(cooperativeThreadPool, i -> new Thread(cooperativeWorkers[i],
                 String.format("hz.%s.jet.cooperative.thread-%d", hzInstanceName, i)));
         Arrays.stream(cooperativeThreadPool).forEach(Thread::start);
@@ -106,6 +167,20 @@ public class TaskletExecutionService {
         }
     }
 
+    /**
+     * Returns the CPUs to pin the cooperative threads to, an empty list if
+     * they shouldn't or can't be pinned.
+     */
+    private List<Integer> cooperativeThreadCpus(InstanceConfig config) {
+        List<Integer> cpus = config.getCooperativeThreadCpuList();
+        if (!cpus.isEmpty() && !CpuAffinity.isTasksetAvailable()) {
+            logger.warning("The cooperative threads won't be pinned to the CPUs " + config.getCooperativeThreadCpus()
+                    + ": the taskset utility wasn't found on the PATH");
+            return emptyList();
+        }
+        return cpus;
+    }
+
     /**
      * Submits the tasklets for execution and returns a future which gets
      * completed when the execution of all the tasklets has completed. If an
@@ -122,11 +197,28 @@ public class TaskletExecutionService {
             @Nonnull List<? extends Tasklet> tasklets,
             @Nonnull CompletableFuture<Void> cancellationFuture,
             @Nonnull ClassLoader jobClassLoader
+    ) {
+        return beginExecute(tasklets, cancellationFuture, jobClassLoader, null);
+    }
+
+    /**
+     * Same as {@link #beginExecute(List, CompletableFuture, ClassLoader)}, but
+     * uses the given idle strategy for the tasklets.
+     *
+     * @param idleStrategy the job's idle strategy or {@code null} to use the
+     *                     member's default
+     */
+    CompletableFuture<Void> beginExecute(
+            @Nonnull List<? extends Tasklet> tasklets,
+            @Nonnull CompletableFuture<Void> cancellationFuture,
+            @Nonnull ClassLoader jobClassLoader,
+            @Nullable IdleStrategyType idleStrategy
     ) {
         if (gracefulShutdown.get() != null) {
             throw new ShutdownInProgressException();
         }
-        final ExecutionTracker executionTracker = new ExecutionTracker(tasklets.size(), cancellationFuture);
+        final ExecutionTracker executionTracker = new ExecutionTracker(tasklets.size(), cancellationFuture,
+                idleStrategy != null ? idleStrategy : defaultIdleStrategy);
         try {
             final Map<Boolean, List<Tasklet>> byCooperation =
                     tasklets.stream().collect(partitioningBy(Tasklet::isCooperative));
@@ -148,6 +240,28 @@ public class TaskletExecutionService {
         }
     }
 
+    /**
+     * Creates an executor that starts a new virtual thread for each task, or
+     * returns {@code null} if the JVM doesn't support virtual threads. Uses
+     * reflection because Jet is compiled for Java 8.
+     */
+    @Nullable
+    private ExecutorService createVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class)
+                                  .invoke(builder, String.format("hz.%s.jet.blocking.thread-", hzInstanceName), 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                                                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            logger.warning("Virtual threads are enabled, but not supported by this JVM (Java 21 or newer is "
+                    + "required), blocking tasklets will run on platform threads");
+            return null;
+        }
+    }
+
     private void submitBlockingTasklets(ExecutionTracker executionTracker, ClassLoader jobClassLoader,
                                         List<Tasklet> tasklets) {
         CountDownLatch startedLatch = new CountDownLatch(tasklets.size());
@@ -179,17 +293,93 @@ public class TaskletExecutionService {
         // them could happen to not use all threads. When the other one ends,
         // some worker might have no tasklet.
         synchronized (lock) {
-            for (Tasklet t : tasklets) {
-                trackersByThread[cooperativeThreadIndex].add(new TaskletTracker(t, executionTracker, jobClassLoader));
-                cooperativeThreadIndex = (cooperativeThreadIndex + 1) % trackersByThread.length;
+            if (loadBalancingEnabled) {
+                assignByMeasuredLoad(trackersByThread, tasklets, executionTracker, jobClassLoader);
+            } else {
+                for (Tasklet t : tasklets) {
+                    trackersByThread[nextWorkerIndex(t)].add(new TaskletTracker(t, executionTracker, jobClassLoader));
+                }
             }
         }
         for (int i = 0; i < trackersByThread.length; i++) {
+            for (TaskletTracker tracker : trackersByThread[i]) {
+                attachWakeupTarget(tracker.tasklet, cooperativeWorkers[i].wakeupTarget);
+            }
             cooperativeWorkers[i].trackers.addAll(trackersByThread[i]);
         }
         Arrays.stream(cooperativeThreadPool).forEach(LockSupport::unpark);
     }
 
+    /**
+     * Returns the index of the worker to assign the tasklet to. Normally
+     * tasklets are assigned round-robin. If the workers are pinned to CPUs
+     * of multiple sockets, the processors of a vertex are split into
+     * contiguous ranges by their local index, one range per socket, and
+     * assigned round-robin among the workers of that socket. Processors
+     * with the same local index are then on the same socket, which keeps
+     * the items on isolated edges and most items on local edges in one
+     * NUMA node.
+     */
+    private int nextWorkerIndex(Tasklet t) {
+        int socket = socketIndex(t);
+        if (socket >= 0) {
+            int[] workers = workersBySocket[socket];
+            int index = workers[socketThreadIndex[socket]];
+            socketThreadIndex[socket] = (socketThreadIndex[socket] + 1) % workers.length;
+            return index;
+        }
+        int index = cooperativeThreadIndex;
+        cooperativeThreadIndex = (cooperativeThreadIndex + 1) % cooperativeWorkers.length;
+        return index;
+    }
+
+    /**
+     * Returns the index into {@link #workersBySocket} for the tasklet, or -1
+     * if the tasklet can run on any worker.
+     */
+    private int socketIndex(Tasklet t) {
+        if (workersBySocket.length < 2 || !(t instanceof ProcessorTasklet)) {
+            return -1;
+        }
+        Processor.Context context = ((ProcessorTasklet) t).context();
+        return context.localProcessorIndex() * workersBySocket.length / context.localParallelism();
+    }
+
+    /**
+     * Assigns each tasklet to the worker with the lowest load. The cost of
+     * a new tasklet is not known yet, we estimate it as the average measured
+     * load of the running tasklets. If workers are pinned to multiple
+     * sockets, only the workers of the tasklet's socket are considered, see
+     * {@link #nextWorkerIndex}.
+     */
+    private void assignByMeasuredLoad(
+            List<TaskletTracker>[] trackersByThread, List<Tasklet> tasklets,
+            ExecutionTracker executionTracker, ClassLoader jobClassLoader
+    ) {
+        long[] loads = new long[cooperativeWorkers.length];
+        long totalLoad = 0;
+        int totalTaskletCount = 0;
+        for (int i = 0; i < cooperativeWorkers.length; i++) {
+            loads[i] = cooperativeWorkers[i].load;
+            totalLoad += loads[i];
+            totalTaskletCount += cooperativeWorkers[i].trackers.size();
+        }
+        // if nothing was measured yet, this degrades to round-robin
+        long estimatedTaskletLoad = Math.max(1, totalTaskletCount == 0 ? 0 : totalLoad / totalTaskletCount);
+        for (Tasklet t : tasklets) {
+            int socket = socketIndex(t);
+            int[] candidates = socket >= 0 ? workersBySocket[socket] : allWorkers;
+            int target = candidates[0];
+            for (int i : candidates) {
+                if (loads[i] < loads[target]) {
+                    target = i;
+                }
+            }
+            trackersByThread[target].add(new TaskletTracker(t, executionTracker, jobClassLoader));
+            loads[target] += estimatedTaskletLoad;
+        }
+    }
+
     private String trackersToString() {
         return Arrays.stream(cooperativeWorkers)
                      .flatMap(w -> w.trackers.stream())
@@ -219,6 +409,8 @@ public class TaskletExecutionService {
     private final class BlockingWorker implements Runnable {
         private final TaskletTracker tracker;
         private final CountDownLatch startedLatch;
+        // set only when running on a virtual thread
+        private WakeupSignal.Target wakeupTarget;
 
         private BlockingWorker(TaskletTracker tracker, CountDownLatch startedLatch) {
             this.tracker = tracker;
@@ -238,16 +430,28 @@ public class TaskletExecutionService {
                 assert !oldName.equals(currentThread().getName()) : "unexpected thread name pattern: " + oldName;
                 blockingWorkerCount.incrementAndGet();
 
+                if (virtualThreadsEnabled) {
+                    wakeupTarget = new WakeupSignal.Target();
+                    wakeupTarget.setThread(currentThread());
+                    attachWakeupTarget(t, wakeupTarget);
+                }
+
                 startedLatch.countDown();
                 t.init();
+                IdleStrategy idler = createIdler(tracker.executionTracker.idleStrategy, false);
+                AdaptiveIdleStrategy adaptiveIdler =
+                        idler instanceof AdaptiveIdleStrategy ? (AdaptiveIdleStrategy) idler : null;
                 long idleCount = 0;
                 ProgressState result;
                 do {
                     result = t.call();
+                    if (adaptiveIdler != null) {
+                        adaptiveIdler.iterationDone(result.isMadeProgress());
+                    }
                     if (result.isMadeProgress()) {
                         idleCount = 0;
                     } else {
-                        IDLER_NON_COOPERATIVE.idle(++idleCount);
+                        idle(idler, ++idleCount);
                     }
                 } while (!result.isDone()
                         && !tracker.executionTracker.executionCompletedExceptionally()
@@ -256,14 +460,44 @@ public class TaskletExecutionService {
                 logger.warning("Exception in " + t, e);
                 tracker.executionTracker.exception(new JetException("Exception in " + t + ": " + e, e));
             } finally {
+                if (wakeupTarget != null) {
+                    attachWakeupTarget(t, null);
+                }
                 blockingWorkerCount.decrementAndGet();
                 currentThread().setContextClassLoader(clBackup);
                 currentThread().setName(oldName);
                 tracker.executionTracker.taskletDone();
             }
         }
+
+        private void idle(IdleStrategy idler, long idleCount) {
+            if (wakeupTarget == null) {
+                idler.idle(idleCount);
+                return;
+            }
+            // The producers of our input unpark us when they add an item. The
+            // idler still limits the park time: we aren't signalled when
+            // there's room in our outbox.
+            if (!wakeupTarget.parking()) {
+                // an item came after we checked the input
+                return;
+            }
+            try {
+                idler.idle(idleCount);
+            } finally {
+                wakeupTarget.unparked();
+            }
+        }
     }
 
+    /**
+     * A cooperative worker runs its tasklets in a loop. If work stealing is
+     * enabled, an idle worker posts a steal request to the busiest peer. The
+     * peer handles the request between two iterations of its own loop by
+     * moving one of its tasklets to the thief, that's why a tasklet is never
+     * executed by two threads at the same time. Each worker only ever removes
+     * tasklets from its own {@code trackers} list.
+     */
     private final class CooperativeWorker implements Runnable {
         private static final int COOPERATIVE_LOGGING_THRESHOLD = 5;
 
@@ -271,14 +505,52 @@ public class TaskletExecutionService {
         private final CopyOnWriteArrayList<TaskletTracker> trackers;
         @Probe
         private final AtomicLong iterationCount = new AtomicLong();
+        @Probe
+        private final AtomicLong stolenTaskletCount = new AtomicLong();
+        @Probe
+        private final AtomicLong donatedTaskletCount = new AtomicLong();
+        @Probe
+        private final AtomicLong idleNanos = new AtomicLong();
         private final ProgressTracker progressTracker = new ProgressTracker();
-
-        CooperativeWorker() {
+        private final WakeupSignal.Target wakeupTarget = new WakeupSignal.Target();
+        // the CPU to pin the thread to or -1, and the socket of that CPU
+        private final int cpu;
+        private final int socket;
+
+        // the thief that asked this worker to hand over a tasklet, if any
+        private final AtomicReference<CooperativeWorker> stealRequest = new AtomicReference<>();
+        // the peer this worker has posted a steal request to, if any
+        private CooperativeWorker pendingVictim;
+        private volatile boolean isBusy;
+        // nanoseconds spent in tasklet calls per LOAD_MEASUREMENT_PERIOD_NANOS, as measured in the last period
+        @Probe
+        private volatile long load;
+        private long periodStart = System.nanoTime();
+
+        private IdleStrategyType idleStrategyType;
+        private IdleStrategy idler;
+        private AdaptiveIdleStrategy adaptiveIdler;
+        // the number of tasklets when the idler was last chosen
+        private int idlerTaskletCount;
+        // guarded by synchronized(this)
+        private boolean isExited;
+        private volatile Thread thread;
+
+        CooperativeWorker(int cpu, int socket) {
             this.trackers = new CopyOnWriteArrayList<>();
+            this.cpu = cpu;
+            this.socket = socket;
         }
 
         @Override
         public void run() {
+            thread = currentThread();
+            wakeupTarget.setThread(thread);
+            if (cpu >= 0 && !CpuAffinity.pinCurrentThread(cpu) && pinningFailureLogged.compareAndSet(false, true)) {
+                logger.warning("Failed to pin cooperative threads to CPUs, pinning requires Linux and "
+                        + "the taskset utility");
+            }
+            updateIdler();
             long idleCount = 0;
             // capture thread once and prevent lambda allocation on each iteration
             Consumer<TaskletTracker> runTasklet = t -> runTasklet(Thread.currentThread(), t);
@@ -293,19 +565,201 @@ public class TaskletExecutionService {
                 // use garbage-free iterator -- relies on implementation in COWArrayList that doesn't use an Iterator
                 trackers.forEach(runTasklet);
                 lazyIncrement(iterationCount);
-                if (progressTracker.isMadeProgress()) {
+                boolean madeProgress = progressTracker.isMadeProgress();
+                if (workStealingEnabled) {
+                    balance(madeProgress);
+                }
+                if (loadBalancingEnabled) {
+                    measureLoad();
+                }
+                if (adaptiveIdler != null) {
+                    adaptiveIdler.iterationDone(madeProgress);
+                }
+                if (madeProgress) {
                     idleCount = 0;
                 } else {
-                    IDLER_COOPERATIVE.idle(++idleCount);
+                    if (++idleCount == 1 || trackers.size() != idlerTaskletCount) {
+                        updateIdler();
+                    }
+                    long idleStart = System.nanoTime();
+                    // producers of our tasklets' input unpark us, see WakeupSignal. We
+                    // don't park if an item came after we checked the input.
+                    if (wakeupTarget.parking()) {
+                        idler.idle(idleCount);
+                        wakeupTarget.unparked();
+                    }
+                    lazyAdd(idleNanos, System.nanoTime() - idleStart);
                 }
             }
-            trackers.forEach(t -> t.executionTracker.taskletDone());
-            trackers.clear();
+            synchronized (this) {
+                isExited = true;
+                trackers.forEach(t -> t.executionTracker.taskletDone());
+                trackers.clear();
+            }
+        }
+
+        /**
+         * Chooses the idle strategy that idles the least among the strategies
+         * of the jobs whose tasklets this worker runs.
+         */
+        private void updateIdler() {
+            IdleStrategyType type = defaultIdleStrategy;
+            for (int i = 0; i < trackers.size(); i++) {
+                IdleStrategyType jobType = trackers.get(i).executionTracker.idleStrategy;
+                if (jobType.ordinal() < type.ordinal()) {
+                    type = jobType;
+                }
+            }
+            idlerTaskletCount = trackers.size();
+            if (type != idleStrategyType) {
+                idleStrategyType = type;
+                idler = createIdler(type, true);
+                adaptiveIdler = idler instanceof AdaptiveIdleStrategy ? (AdaptiveIdleStrategy) idler : null;
+            }
+        }
+
+        private void balance(boolean madeProgress) {
+            if (isBusy != madeProgress) {
+                isBusy = madeProgress;
+            }
+            CooperativeWorker thief = stealRequest.get();
+            if (thief != null) {
+                donateTasklet(thief);
+                stealRequest.set(null);
+            }
+            if (pendingVictim != null && pendingVictim.stealRequest.get() != this) {
+                pendingVictim = null;
+            }
+            if (!madeProgress && pendingVictim == null && gracefulShutdown.get() == null) {
+                CooperativeWorker victim = findVictim();
+                if (victim != null && victim.stealRequest.compareAndSet(null, this)) {
+                    pendingVictim = victim;
+                }
+            }
+        }
+
+        /**
+         * Returns the busy peer with the most tasklets that can spare one, or
+         * {@code null} if there's no such peer.
+         */
+        private CooperativeWorker findVictim() {
+            CooperativeWorker victim = null;
+            int victimTaskletCount = 1;
+            for (CooperativeWorker w : cooperativeWorkers) {
+                if (w == this || !w.isBusy || w.socket != socket) {
+                    continue;
+                }
+                int count = w.trackers.size();
+                if (count > victimTaskletCount) {
+                    victim = w;
+                    victimTaskletCount = count;
+                }
+            }
+            return victim;
+        }
+
+        /**
+         * Moves one of this worker's tasklets to the {@code thief}. Only
+         * tasklets that didn't migrate recently are eligible, so that a tasklet
+         * doesn't bounce between threads and lose its cache locality.
+         */
+        private void donateTasklet(CooperativeWorker thief) {
+            if (trackers.size() < 2) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (int i = trackers.size() - 1; i >= 0; i--) {
+                TaskletTracker t = trackers.get(i);
+                if (now - t.lastMigrationNanos >= MIN_TASKLET_RESIDENCE_NANOS) {
+                    if (moveTasklet(t, thief, now)) {
+                        thief.stolenTaskletCount.incrementAndGet();
+                    }
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Called at the end of each iteration. When the measurement period
+         * elapses, publishes the measured load and, if this worker is
+         * overloaded compared to the least loaded worker, moves to it the
+         * tasklet that best evens out the load of the two.
+         */
+        private void measureLoad() {
+            long now = System.nanoTime();
+            long elapsed = now - periodStart;
+            if (elapsed < LOAD_MEASUREMENT_PERIOD_NANOS) {
+                return;
+            }
+            long busyNanos = 0;
+            for (int i = 0; i < trackers.size(); i++) {
+                TaskletTracker t = trackers.get(i);
+                t.lastPeriodBusyNanos = t.periodBusyNanos * LOAD_MEASUREMENT_PERIOD_NANOS / elapsed;
+                t.periodBusyNanos = 0;
+                busyNanos += t.lastPeriodBusyNanos;
+            }
+            load = busyNanos;
+            periodStart = now;
+
+            CooperativeWorker target = this;
+            for (CooperativeWorker w : cooperativeWorkers) {
+                if (w.load < target.load && w.socket == socket) {
+                    target = w;
+                }
+            }
+            long gap = busyNanos - target.load;
+            if (target == this || trackers.size() < 2 || gap <= busyNanos * LOAD_IMBALANCE_THRESHOLD) {
+                return;
+            }
+            // Moving a tasklet with load L changes the loads to (busy - L, target + L).
+            // Any L < gap improves the balance, the best one is the closest to gap / 2.
+            TaskletTracker candidate = null;
+            long bestDistance = Long.MAX_VALUE;
+            for (int i = 0; i < trackers.size(); i++) {
+                TaskletTracker t = trackers.get(i);
+                long taskletLoad = t.lastPeriodBusyNanos;
+                long distance = Math.abs(gap / 2 - taskletLoad);
+                if (taskletLoad > 0 && taskletLoad < gap && distance < bestDistance
+                        && now - t.lastMigrationNanos >= MIN_TASKLET_RESIDENCE_NANOS) {
+                    candidate = t;
+                    bestDistance = distance;
+                }
+            }
+            if (candidate != null && moveTasklet(candidate, target, now)) {
+                load = busyNanos - candidate.lastPeriodBusyNanos;
+            }
+        }
+
+        /**
+         * Moves a tasklet from this worker to the {@code target} worker. Must be
+         * called from this worker's thread, outside of the iteration over the
+         * tasklets.
+         *
+         * @return false, if the target worker already exited
+         */
+        private boolean moveTasklet(TaskletTracker t, CooperativeWorker target, long now) {
+            synchronized (target) {
+                if (target.isExited) {
+                    return false;
+                }
+                t.lastMigrationNanos = now;
+                attachWakeupTarget(t.tasklet, target.wakeupTarget);
+                target.trackers.add(t);
+                trackers.remove(t);
+            }
+            lazyIncrement(donatedTaskletCount);
+            logFinest(logger, "Tasklet %s moved to another cooperative thread", t.tasklet);
+            Thread targetThread = target.thread;
+            if (targetThread != null) {
+                LockSupport.unpark(targetThread);
+            }
+            return true;
         }
 
         private void runTasklet(Thread thread, TaskletTracker t) {
             long start = 0;
-            if (logger.isFinestEnabled()) {
+            boolean isFinestEnabled = logger.isFinestEnabled();
+            if (loadBalancingEnabled || isFinestEnabled) {
                 start = System.nanoTime();
             }
             try {
@@ -323,7 +777,10 @@ public class TaskletExecutionService {
                 dismissTasklet(t);
             }
 
-            if (logger.isFinestEnabled()) {
+            if (loadBalancingEnabled) {
+                t.periodBusyNanos += System.nanoTime() - start;
+            }
+            if (isFinestEnabled) {
                 long elapsedMs = NANOSECONDS.toMillis((System.nanoTime() - start));
                 if (elapsedMs > COOPERATIVE_LOGGING_THRESHOLD) {
                     logger.finest("Cooperative tasklet call of '" + t.tasklet + "' took more than "
@@ -343,11 +800,16 @@ public class TaskletExecutionService {
         final Tasklet tasklet;
         final ExecutionTracker executionTracker;
         final ClassLoader jobClassLoader;
+        // only accessed by the owning worker or while handing over under a lock
+        long lastMigrationNanos;
+        long periodBusyNanos;
+        long lastPeriodBusyNanos;
 
         TaskletTracker(Tasklet tasklet, ExecutionTracker executionTracker, ClassLoader jobClassLoader) {
             this.tasklet = tasklet;
             this.executionTracker = executionTracker;
             this.jobClassLoader = jobClassLoader;
+            this.lastMigrationNanos = System.nanoTime() - MIN_TASKLET_RESIDENCE_NANOS;
         }
 
         @Override
@@ -356,6 +818,31 @@ public class TaskletExecutionService {
         }
     }
 
+    private static void attachWakeupTarget(Tasklet tasklet, @Nullable WakeupSignal.Target target) {
+        for (WakeupSignal signal : tasklet.wakeupSignals()) {
+            signal.setTarget(target);
+        }
+    }
+
+    /**
+     * Returns an idle strategy of the given type. The returned instance can
+     * be stateful, it must be used only by a single thread.
+     */
+    private static IdleStrategy createIdler(IdleStrategyType type, boolean cooperative) {
+        switch (type) {
+            case BUSY_SPIN:
+                return IDLER_BUSY_SPIN;
+            case YIELD:
+                return IDLER_YIELD;
+            case ADAPTIVE:
+                return new AdaptiveIdleStrategy();
+            case BACKOFF:
+                return cooperative ? IDLER_COOPERATIVE : IDLER_NON_COOPERATIVE;
+            default:
+                throw new IllegalArgumentException("Unknown idle strategy: " + type);
+        }
+    }
+
     private final class BlockingTaskThreadFactory implements ThreadFactory {
         private final AtomicInteger seq = new AtomicInteger();
 
@@ -374,13 +861,15 @@ public class TaskletExecutionService {
     private final class ExecutionTracker {
 
         final NonCompletableFuture future = new NonCompletableFuture();
+        final IdleStrategyType idleStrategy;
         volatile List<Future> blockingFutures = emptyList();
 
         private final AtomicInteger completionLatch;
         private final AtomicReference<Throwable> executionException = new AtomicReference<>();
 
-        ExecutionTracker(int taskletCount, CompletableFuture<Void> cancellationFuture) {
+        ExecutionTracker(int taskletCount, CompletableFuture<Void> cancellationFuture, IdleStrategyType idleStrategy) {
             this.completionLatch = new AtomicInteger(taskletCount);
+            this.idleStrategy = idleStrategy;
             cancellationFuture.whenComplete(withTryCatch(logger, (r, e) -> {
                 if (e == null) {
                     e = new IllegalStateException("cancellationFuture should be completed exceptionally");
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lets the producer of a tasklet's input wake up the worker thread that
+ * executes the tasklet, if that thread is parked because it had nothing to
+ * do. There is one signal per input conveyor of a tasklet.
+ * <p>
+ * The execution service attaches the {@link Target} of the worker that
+ * currently runs the tasklet and re-attaches it when the tasklet moves to
+ * another worker. If no target is attached, {@link #wakeUp()} is a no-op.
+ * The cost of a wake-up call when the worker isn't parked is three
+ * volatile reads, the first call after the worker's last park also writes
+ * the pending flag.
+ * <p>
+ * A wake-up that comes while the worker isn't parked stays pending and the
+ * worker doesn't park the next time it's idle, because the producer might
+ * have added the item after the worker checked its input. Workers still
+ * park with a timeout: the signal only covers the input, not the room in
+ * the outbox.
+ */
+public final class WakeupSignal {
+
+    private volatile Target target;
+
+    /**
+     * Unparks the worker currently executing the tasklet, if it's parked.
+     */
+    public void wakeUp() {
+        Target t = target;
+        if (t != null) {
+            t.wakeUp();
+        }
+    }
+
+    void setTarget(Target target) {
+        this.target = target;
+    }
+
+    /**
+     * The worker-side counterpart of the signal. One instance per worker
+     * thread.
+     */
+    static final class Target {
+        private volatile Thread thread;
+        private volatile boolean isParked;
+        private volatile boolean isPending;
+
+        void setThread(Thread thread) {
+            this.thread = thread;
+        }
+
+        /**
+         * Called by the worker thread before it parks.
+         *
+         * @return false, if there was a wake-up since the worker last parked,
+         *         the worker must not park then, but check its input again
+         */
+        boolean parking() {
+            isParked = true;
+            // the producer writes isPending before it reads isParked, so at
+            // least one of us sees the other's write
+            if (isPending) {
+                isParked = false;
+                isPending = false;
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Called by the worker thread after it's done parking.
+         */
+        void unparked() {
+            isParked = false;
+            // the worker checks its input after this, a wake-up from before
+            // is for an item it will see
+            isPending = false;
+        }
+
+        boolean isParked() {
+            return isParked;
+        }
+
+        void wakeUp() {
+            if (!isPending) {
+                isPending = true;
+            }
+            if (isParked) {
+                // clear the flag so that other producers don't unpark us again
+                isParked = false;
+                Thread t = thread;
+                if (t != null) {
+                    LockSupport.unpark(t);
+                }
+            }
+        }
+    }
+}
@@ -22,9 +22,12 @@ import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.impl.execution.SnapshotContext;
+import com.hazelcast.jet.impl.execution.WakeupSignal;
 import com.hazelcast.logging.ILogger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public final class Contexts {
 
@@ -134,16 +137,20 @@ public final class Contexts {
 
         private final int localProcessorIndex;
         private final int globalProcessorIndex;
+        private final WakeupSignal wakeupSignal = new WakeupSignal();
+        private final SnapshotContext snapshotContext;
+        private boolean savesSnapshotDeltas;
 
         @SuppressWarnings("checkstyle:ParameterNumber")
         public ProcCtx(JetInstance instance, long jobId, long executionId, JobConfig jobConfig,
                        ILogger logger, String vertexName, int localProcessorIndex,
                        int globalProcessorIndex, ProcessingGuarantee processingGuarantee, int localParallelism,
-                       int memberIndex, int memberCount) {
+                       int memberIndex, int memberCount, @Nullable SnapshotContext snapshotContext) {
             super(instance, jobId, executionId, jobConfig, logger, vertexName, localParallelism,
                     memberCount * localParallelism, memberIndex, memberCount, processingGuarantee);
             this.localProcessorIndex = localProcessorIndex;
             this.globalProcessorIndex = globalProcessorIndex;
+            this.snapshotContext = snapshotContext;
         }
 
         @Override
@@ -155,5 +162,43 @@ public final class Contexts {
         public int globalProcessorIndex() {
             return globalProcessorIndex;
         }
+
+        /**
+         * Returns the signal the processor can use to wake up the worker
+         * running it, for example from a callback of an asynchronous
+         * operation.
+         */
+        public WakeupSignal wakeupSignal() {
+            return wakeupSignal;
+        }
+
+        @Nullable
+        public SnapshotContext snapshotContext() {
+            return snapshotContext;
+        }
+
+        /**
+         * Returns true, if the snapshot being saved is incremental. A processor
+         * that {@linkplain #setSavesSnapshotDeltas() saves deltas} should save
+         * only the keys changed since the previous snapshot.
+         */
+        public boolean isIncrementalSnapshot() {
+            return snapshotContext != null && snapshotContext.isIncrementalSnapshot();
+        }
+
+        /**
+         * Called by the processor in {@code init()} to declare that it saves
+         * only the changed keys to an incremental snapshot, including a {@code
+         * SnapshotTombstone} for each removed key. For other processors the
+         * removed keys are found by comparing the keys with those saved to the
+         * previous snapshot.
+         */
+        public void setSavesSnapshotDeltas() {
+            savesSnapshotDeltas = true;
+        }
+
+        public boolean savesSnapshotDeltas() {
+            return savesSnapshotDeltas;
+        }
     }
 }
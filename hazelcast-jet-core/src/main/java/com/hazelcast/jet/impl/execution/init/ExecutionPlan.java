@@ -29,6 +29,7 @@ import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Edge.RoutingPolicy;
+import com.hazelcast.jet.core.Partitioner;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.impl.JetService;
@@ -38,12 +39,14 @@ import com.hazelcast.jet.impl.execution.ConveyorCollectorWithPartition;
 import com.hazelcast.jet.impl.execution.InboundEdgeStream;
 import com.hazelcast.jet.impl.execution.OutboundCollector;
 import com.hazelcast.jet.impl.execution.OutboundEdgeStream;
+import com.hazelcast.jet.impl.execution.PacketMultiplexerTasklet;
 import com.hazelcast.jet.impl.execution.ProcessorTasklet;
 import com.hazelcast.jet.impl.execution.ReceiverTasklet;
 import com.hazelcast.jet.impl.execution.SenderTasklet;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.execution.StoreSnapshotTasklet;
 import com.hazelcast.jet.impl.execution.Tasklet;
+import com.hazelcast.jet.impl.execution.WakeupSignal;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcSupplierCtx;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
@@ -62,14 +65,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.hazelcast.internal.util.concurrent.ConcurrentConveyor.concurrentConveyor;
 import static com.hazelcast.jet.Util.idToString;
@@ -94,6 +100,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     private final Map<Integer, Map<Integer, Map<Address, ReceiverTasklet>>> receiverMap = new HashMap<>();
     /** dest vertex id --> dest ordinal --> dest addr --> sender tasklet */
     private final Map<Integer, Map<Integer, Map<Address, SenderTasklet>>> senderMap = new HashMap<>();
+    /** dest addr --> multiplexer shared by the sender tasklets, empty if packet multiplexing is disabled */
+    private final Map<Address, PacketMultiplexerTasklet> multiplexerMap = new HashMap<>();
 
     /** Snapshot of partition table used to route items on partitioned edges */
     private Address[] partitionOwners;
@@ -107,6 +115,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     private final Map<String, ConcurrentConveyor<Object>[]> localConveyorMap = new HashMap<>();
     private final Map<String, Map<Address, ConcurrentConveyor<Object>>> edgeSenderConveyorMap = new HashMap<>();
     private final List<Processor> processors = new ArrayList<>();
+    /** conveyor --> signal its producers use to wake up its consumer */
+    private final Map<ConcurrentConveyor<Object>, WakeupSignal> wakeupSignals = new IdentityHashMap<>();
 
     private PartitionArrangement ptionArrgmt;
 
@@ -150,8 +160,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             ConcurrentConveyor<Object> ssConveyor = ConcurrentConveyor.concurrentConveyor(null, snapshotQueues);
             StoreSnapshotTasklet ssTasklet = new StoreSnapshotTasklet(snapshotContext,
                     new ConcurrentInboundEdgeStream(ssConveyor, 0, 0, true,
-                            "ssFrom:" + vertex.name()),
-                    new AsyncSnapshotWriterImpl(nodeEngine, snapshotContext, vertex.name(), memberIndex, memberCount),
+                            "ssFrom:" + vertex.name(), wakeupSignal(ssConveyor)),
+                    new AsyncSnapshotWriterImpl(nodeEngine, snapshotContext, vertex.name(), memberIndex, memberCount,
+                            jobConfig.isSnapshotCompressionEnabled()),
                     nodeEngine.getLogger(StoreSnapshotTasklet.class.getName() + "." + vertex.name()),
                     vertex.name(), vertex.isHigherPriorityUpstream());
             tasklets.add(ssTasklet);
@@ -177,7 +188,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         jobConfig.getProcessingGuarantee(),
                         vertex.localParallelism(),
                         memberIndex,
-                        memberCount
+                        memberCount,
+                        snapshotContext
                 );
 
                 ProbeBuilder probeBuilder = this.nodeEngine.getMetricsRegistry().newProbeBuilder()
@@ -210,7 +222,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         vertex, localProcessorIdx, globalProcessorIndex
                 );
 
-                OutboundCollector snapshotCollector = new ConveyorCollector(ssConveyor, localProcessorIdx, null);
+                OutboundCollector snapshotCollector = new ConveyorCollector(ssConveyor, localProcessorIdx, null,
+                        wakeupSignal(ssConveyor));
 
                 ProcessorTasklet processorTasklet = new ProcessorTasklet(context, nodeEngine.getSerializationService(),
                         processor, inboundStreams, outboundStreams, snapshotContext, snapshotCollector,
@@ -226,6 +239,7 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                                         .collect(toList());
 
         tasklets.addAll(allReceivers);
+        tasklets.addAll(multiplexerMap.values());
     }
 
     public static String createLoggerName(
@@ -337,9 +351,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             v.outboundEdges().forEach(e -> e.initTransientFields(vMap, v, true));
         });
         final IPartitionService partitionService = nodeEngine.getPartitionService();
+        // the partitioners of the inbound edges find the partitions of the in-flight items
         vertices.stream()
-                .map(VertexDef::outboundEdges)
-                .flatMap(List::stream)
+                .flatMap(v -> Stream.concat(v.outboundEdges().stream(), v.inboundEdges().stream()))
                 .map(EdgeDef::partitioner)
                 .filter(Objects::nonNull)
                 .forEach(p -> p.init(partitionService::getPartitionId));
@@ -376,7 +390,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     /**
      * Creates (if absent) for the given edge one sender tasklet per remote member,
      * each with a single conveyor with a number of producer queues feeding it.
-     * Populates the {@link #senderMap} and {@link #tasklets} fields.
+     * Populates the {@link #senderMap}, {@link #multiplexerMap} and {@link
+     * #tasklets} fields.
      */
     private Map<Address, ConcurrentConveyor<Object>> memberToSenderConveyorMap(
             Map<String, Map<Address, ConcurrentConveyor<Object>>> edgeSenderConveyorMap, EdgeDef edge,
@@ -396,12 +411,17 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                 + destAddr.toString().replace('.', '-'));
                 final int destVertexId = edge.destVertex().vertexId();
                 final SenderTasklet t = new SenderTasklet(inboundEdgeStream, nodeEngine,
-                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit());
+                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit(),
+                        edge.getConfig().isPacketCompressionEnabled(),
+                        edge.getConfig().isColumnarEncodingEnabled(), multiplexer(destAddr));
                 if (firstTasklet == null) {
                     firstTasklet = t;
                 }
                 bytesCounters.add(t.getBytesOutCounter());
                 itemsCounters.add(t.getItemsOutCounter());
+                probeBuilder.withTag("remoteMember", destAddr.toString())
+                            .register(t, "flowControlThrottledTime", ProbeLevel.INFO, ProbeUnit.MS,
+                                    (LongProbeFunction<SenderTasklet>) SenderTasklet::throttledTimeMillis);
                 senderMap.computeIfAbsent(destVertexId, xx -> new HashMap<>())
                          .computeIfAbsent(edge.destOrdinal(), xx -> new HashMap<>())
                          .put(destAddr, t);
@@ -484,7 +504,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                     e -> createConveyorArray(downstreamParallelism, 1, queueSize));
             return IntStream.range(0, downstreamParallelism)
                             .filter(i -> i % upstreamParallelism == processorIndex)
-                            .mapToObj(i -> new ConveyorCollector(localConveyors[i], 0, ptionsPerProcessor[i]))
+                            .mapToObj(i -> new ConveyorCollector(localConveyors[i], 0, ptionsPerProcessor[i],
+                                    wakeupSignal(localConveyors[i])))
                             .toArray(OutboundCollector[]::new);
         }
 
@@ -503,7 +524,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                 });
         final OutboundCollector[] localCollectors = new OutboundCollector[downstreamParallelism];
         Arrays.setAll(localCollectors, n ->
-                new ConveyorCollector(localConveyors[n], processorIndex, ptionsPerProcessor[n]));
+                new ConveyorCollector(localConveyors[n], processorIndex, ptionsPerProcessor[n],
+                        wakeupSignal(localConveyors[n])));
 
         // in a local edge, we only have the local collectors.
         if (!edge.isDistributed()) {
@@ -522,8 +544,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         allCollectors[0] = compositeCollector(localCollectors, edge, totalPtionCount);
         int index = 1;
         for (Map.Entry<Address, int[]> entry : memberToPartitions.entrySet()) {
-            allCollectors[index++] = new ConveyorCollectorWithPartition(senderConveyorMap.get(entry.getKey()),
-                    processorIndex, entry.getValue());
+            ConcurrentConveyor<Object> senderConveyor = senderConveyorMap.get(entry.getKey());
+            allCollectors[index++] = new ConveyorCollectorWithPartition(senderConveyor,
+                    processorIndex, entry.getValue(), wakeupSignal(senderConveyor));
         }
         return allCollectors;
     }
@@ -547,14 +570,22 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                            final int queueOffset = --offset;
                            Arrays.setAll(collectors, n -> new ConveyorCollector(
                                    localConveyors[n], localConveyors[n].queueCount() + queueOffset,
-                                   ptionsPerProcessor[n]));
+                                   ptionsPerProcessor[n], wakeupSignal(localConveyors[n])));
                            final OutboundCollector collector = compositeCollector(collectors, edge, totalPtionCount);
                            ReceiverTasklet receiverTasklet = new ReceiverTasklet(
                                    collector, edge.getConfig().getReceiveWindowMultiplier(),
                                    getConfig().getInstanceConfig().getFlowControlPeriodMs(),
-                                   nodeEngine.getLoggingService(),
+                                   edge.getConfig().isAdaptiveFlowControlEnabled(),
+                                   nodeEngine.getLoggingService(), nodeEngine.getSerializationService(),
                                    "receiverFor:" + edge.destVertex().name() + "#" + edge.destOrdinal());
                            addrToTasklet.put(addr, receiverTasklet);
+                           ProbeBuilder memberProbeBuilder = probeBuilder.withTag("remoteMember", addr.toString());
+                           memberProbeBuilder.register(receiverTasklet, "flowControlWindow", ProbeLevel.INFO,
+                                   ProbeUnit.BYTES,
+                                   (LongProbeFunction<ReceiverTasklet>) ReceiverTasklet::receiveWindowBytes);
+                           memberProbeBuilder.register(receiverTasklet, "flowControlRttMicros", ProbeLevel.INFO,
+                                   ProbeUnit.COUNT,
+                                   (LongProbeFunction<ReceiverTasklet>) ReceiverTasklet::minRttMicros);
                            if (firstTasklet == null) {
                                firstTasklet = receiverTasklet;
                            }
@@ -574,6 +605,18 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                    });
     }
 
+    /**
+     * Returns the multiplexer for the given member, creating it if absent, or
+     * null if packet multiplexing is disabled.
+     */
+    private PacketMultiplexerTasklet multiplexer(Address destAddr) {
+        if (!getConfig().getInstanceConfig().isPacketMultiplexingEnabled()) {
+            return null;
+        }
+        return multiplexerMap.computeIfAbsent(destAddr,
+                addr -> new PacketMultiplexerTasklet(nodeEngine, addr, executionId));
+    }
+
     private JetConfig getConfig() {
         JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
         return service.getJetInstance().getConfig();
@@ -582,20 +625,63 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     private List<InboundEdgeStream> createInboundEdgeStreams(VertexDef srcVertex, int localProcessorIdx,
                                                              int globalProcessorIdx) {
         final List<InboundEdgeStream> inboundStreams = new ArrayList<>();
+        boolean nonBlockingAlignment = isNonBlockingSnapshotAlignment(srcVertex);
         for (EdgeDef inEdge : srcVertex.inboundEdges()) {
             // each tasklet has one input conveyor per edge
             final ConcurrentConveyor<Object> conveyor = localConveyorMap.get(inEdge.edgeId())[localProcessorIdx];
             inboundStreams.add(newEdgeStream(inEdge, conveyor,
-                    "inputTo:" + inEdge.destVertex().name() + '#' + globalProcessorIdx));
+                    "inputTo:" + inEdge.destVertex().name() + '#' + globalProcessorIdx,
+                    nonBlockingAlignment ? inFlightPartitionKeyFn(inEdge, globalProcessorIdx) : null));
         }
         return inboundStreams;
     }
 
     private ConcurrentInboundEdgeStream newEdgeStream(EdgeDef inEdge, ConcurrentConveyor<Object> conveyor,
                                                       String debugName) {
+        return newEdgeStream(inEdge, conveyor, debugName, null);
+    }
+
+    private ConcurrentInboundEdgeStream newEdgeStream(EdgeDef inEdge, ConcurrentConveyor<Object> conveyor,
+                                                      String debugName,
+                                                      ToIntFunction<Object> inFlightPartitionKeyFn) {
         return new ConcurrentInboundEdgeStream(conveyor, inEdge.destOrdinal(), inEdge.priority(),
                 jobConfig.getProcessingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE,
-                debugName);
+                debugName, wakeupSignal(conveyor), inFlightPartitionKeyFn);
+    }
+
+    /**
+     * Returns whether the processors of the vertex use non-blocking snapshot
+     * alignment. The in-flight items received from a broadcast edge can't be restored
+     * to the processors that received them and the in-flight items would
+     * remain in the base of the incremental snapshots.
+     */
+    private boolean isNonBlockingSnapshotAlignment(VertexDef vertex) {
+        return jobConfig.isNonBlockingSnapshotAlignment()
+                && jobConfig.getProcessingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE
+                && !jobConfig.isIncrementalSnapshots()
+                && vertex.inboundEdges().stream().noneMatch(e -> e.routingPolicy() == RoutingPolicy.BROADCAST);
+    }
+
+    /**
+     * Returns the function that finds the partition key for an in-flight item
+     * of the edge. The items of a partitioned edge are saved under the key of
+     * the partition they were routed by, the items of other edges under the
+     * key of an arbitrary partition.
+     */
+    @SuppressWarnings("unchecked")
+    private ToIntFunction<Object> inFlightPartitionKeyFn(EdgeDef inEdge, int globalProcessorIdx) {
+        JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
+        int[] partitionKeys = service.getSharedPartitionKeys();
+        Partitioner<Object> partitioner = inEdge.partitioner();
+        if (inEdge.routingPolicy() != RoutingPolicy.PARTITIONED || partitioner == null) {
+            int partitionKey = partitionKeys[globalProcessorIdx % partitionKeys.length];
+            return item -> partitionKey;
+        }
+        return item -> partitionKeys[partitioner.getPartition(item, partitionKeys.length)];
+    }
+
+    private WakeupSignal wakeupSignal(ConcurrentConveyor<Object> conveyor) {
+        return wakeupSignals.computeIfAbsent(conveyor, c -> new WakeupSignal());
     }
 
     public List<Processor> getProcessors() {
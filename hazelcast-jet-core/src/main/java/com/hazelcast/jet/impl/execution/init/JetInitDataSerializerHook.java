@@ -26,11 +26,16 @@ import com.hazelcast.jet.impl.JobRepository.FilterExecutionIdByJobIdPredicate;
 import com.hazelcast.jet.impl.JobRepository.FilterJobIdPredicate;
 import com.hazelcast.jet.impl.JobRepository.FilterJobRecordByNamePredicate;
 import com.hazelcast.jet.impl.JobRepository.FilterJobResultByNamePredicate;
+import com.hazelcast.jet.impl.JobRepository.FilterSnapshotDeltaPredicate;
 import com.hazelcast.jet.impl.JobRepository.UpdateJobExecutionRecordEntryProcessor;
 import com.hazelcast.jet.impl.JobResult;
 import com.hazelcast.jet.impl.JobSummary;
 import com.hazelcast.jet.impl.SnapshotValidationRecord;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
+import com.hazelcast.jet.impl.operation.ClearSnapshotStoreOperation;
+import com.hazelcast.jet.impl.operation.CompactSnapshotDeltasOperation;
 import com.hazelcast.jet.impl.operation.CompleteExecutionOperation;
+import com.hazelcast.jet.impl.operation.CountSnapshotChunksOperation;
 import com.hazelcast.jet.impl.operation.GetClusterMetadataOperation;
 import com.hazelcast.jet.impl.operation.GetJobConfigOperation;
 import com.hazelcast.jet.impl.operation.GetJobIdsByNameOperation;
@@ -42,6 +47,7 @@ import com.hazelcast.jet.impl.operation.InitExecutionOperation;
 import com.hazelcast.jet.impl.operation.JoinSubmittedJobOperation;
 import com.hazelcast.jet.impl.operation.NotifyMemberShutdownOperation;
 import com.hazelcast.jet.impl.operation.PrepareForPassiveClusterOperation;
+import com.hazelcast.jet.impl.operation.ReplicateSnapshotChunkOperation;
 import com.hazelcast.jet.impl.operation.ResumeJobOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
@@ -51,6 +57,7 @@ import com.hazelcast.jet.impl.operation.TerminateExecutionOperation;
 import com.hazelcast.jet.impl.operation.TerminateJobOperation;
 import com.hazelcast.jet.impl.processor.SessionWindowP;
 import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
+import com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
 import com.hazelcast.nio.serialization.DataSerializableFactory;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
@@ -98,6 +105,14 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
     public static final int SNAPSHOT_VALIDATION_RECORD = 36;
     public static final int CLUSTER_METADATA = 37;
     public static final int GET_CLUSTER_METADATA_OP = 38;
+    public static final int ASYNC_SNAPSHOT_WRITER_SNAPSHOT_TOMBSTONE = 39;
+    public static final int FILTER_SNAPSHOT_DELTA_PREDICATE = 40;
+    public static final int REPLICATE_SNAPSHOT_CHUNK_OP = 41;
+    public static final int CLEAR_SNAPSHOT_STORE_OP = 42;
+    public static final int COMPRESSED_SNAPSHOT_CHUNK = 43;
+    public static final int IN_FLIGHT_ITEM_KEY = 44;
+    public static final int COUNT_SNAPSHOT_CHUNKS_OP = 45;
+    public static final int COMPACT_SNAPSHOT_DELTAS_OP = 46;
 
     public static final int FACTORY_ID = FactoryIdHelper.getFactoryId(JET_IMPL_DS_FACTORY, JET_IMPL_DS_FACTORY_ID);
 
@@ -172,6 +187,10 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
                     return new AsyncSnapshotWriterImpl.SnapshotDataKey();
                 case ASYNC_SNAPSHOT_WRITER_SNAPSHOT_DATA_VALUE_TERMINATOR:
                     return AsyncSnapshotWriterImpl.SnapshotDataValueTerminator.INSTANCE;
+                case ASYNC_SNAPSHOT_WRITER_SNAPSHOT_TOMBSTONE:
+                    return AsyncSnapshotWriterImpl.SnapshotTombstone.INSTANCE;
+                case FILTER_SNAPSHOT_DELTA_PREDICATE:
+                    return new FilterSnapshotDeltaPredicate();
                 case SNAPSHOT_OPERATION_RESULT:
                     return new SnapshotOperationResult();
                 case RESUME_JOB_OP:
@@ -192,6 +211,18 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
                     return new ClusterMetadata();
                 case GET_CLUSTER_METADATA_OP:
                     return new GetClusterMetadataOperation();
+                case REPLICATE_SNAPSHOT_CHUNK_OP:
+                    return new ReplicateSnapshotChunkOperation();
+                case CLEAR_SNAPSHOT_STORE_OP:
+                    return new ClearSnapshotStoreOperation();
+                case COMPRESSED_SNAPSHOT_CHUNK:
+                    return new CompressedSnapshotChunk();
+                case IN_FLIGHT_ITEM_KEY:
+                    return new InFlightItemKey();
+                case COUNT_SNAPSHOT_CHUNKS_OP:
+                    return new CountSnapshotChunksOperation();
+                case COMPACT_SNAPSHOT_DELTAS_OP:
+                    return new CompactSnapshotDeltasOperation();
                 default:
                     throw new IllegalArgumentException("Unknown type id " + typeId);
             }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.snapshot.LocalDiskSnapshotStore;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.spi.ExceptionAction;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.exception.TargetNotMemberException;
+
+import java.io.IOException;
+
+/**
+ * Deletes the snapshot chunks stored under a name in the {@link
+ * LocalDiskSnapshotStore} of the target member.
+ */
+public class ClearSnapshotStoreOperation extends Operation implements IdentifiedDataSerializable {
+
+    private String name;
+
+    public ClearSnapshotStoreOperation() {
+    }
+
+    public ClearSnapshotStoreOperation(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public void run() {
+        JetService service = getService();
+        LocalDiskSnapshotStore store = service.localSnapshotStore();
+        if (store != null) {
+            store.clearLocal(name);
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.CLEAR_SNAPSHOT_STORE_OP;
+    }
+
+    @Override
+    public ExceptionAction onInvocationException(Throwable throwable) {
+        // workaround for imdg problem that it retries invokeOnTarget if TargetNotMemberException is thrown
+        return throwable instanceof TargetNotMemberException
+                ? ExceptionAction.THROW_EXCEPTION
+                : super.onInvocationException(throwable);
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(name);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        name = in.readUTF();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.spi.ExecutionService;
+
+import java.io.IOException;
+
+/**
+ * Merges the chunks of the incremental snapshots of a job in the partitions
+ * of the delta map owned by the target member, see {@link
+ * com.hazelcast.jet.impl.JobRepository#compactLocalSnapshotDeltas}. The
+ * response is the number of the chunks written.
+ */
+public class CompactSnapshotDeltasOperation extends AsyncJobOperation {
+
+    private long baseSnapshotId;
+    private long compactedSnapshotId;
+    private long snapshotId;
+    private int[] partitionIds;
+
+    public CompactSnapshotDeltasOperation() {
+    }
+
+    public CompactSnapshotDeltasOperation(
+            long jobId, long baseSnapshotId, long compactedSnapshotId, long snapshotId, int[] partitionIds
+    ) {
+        super(jobId);
+        this.baseSnapshotId = baseSnapshotId;
+        this.compactedSnapshotId = compactedSnapshotId;
+        this.snapshotId = snapshotId;
+        this.partitionIds = partitionIds;
+    }
+
+    @Override
+    protected void doRun() {
+        JetService service = getService();
+        // the merge reads and writes the delta map, it must not block the operation thread
+        getNodeEngine().getExecutionService().execute(ExecutionService.ASYNC_EXECUTOR, () -> {
+            Thread currentThread = Thread.currentThread();
+            ClassLoader previousCL = currentThread.getContextClassLoader();
+            try {
+                currentThread.setContextClassLoader(service.getClassLoader(jobId()));
+                doSendResponse(service.getJobRepository().compactLocalSnapshotDeltas(getNodeEngine(), jobId(),
+                        baseSnapshotId, compactedSnapshotId, snapshotId, partitionIds));
+            } catch (Exception e) {
+                logError(e);
+                doSendResponse(e);
+            } finally {
+                currentThread.setContextClassLoader(previousCL);
+            }
+        });
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.COMPACT_SNAPSHOT_DELTAS_OP;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeLong(baseSnapshotId);
+        out.writeLong(compactedSnapshotId);
+        out.writeLong(snapshotId);
+        out.writeIntArray(partitionIds);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        baseSnapshotId = in.readLong();
+        compactedSnapshotId = in.readLong();
+        snapshotId = in.readLong();
+        partitionIds = in.readIntArray();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.snapshot.LocalDiskSnapshotStore;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.spi.ExceptionAction;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.exception.TargetNotMemberException;
+
+import java.io.IOException;
+
+/**
+ * Counts the chunks of a snapshot the target member can read from its
+ * {@link LocalDiskSnapshotStore} when restoring from the snapshot.
+ */
+public class CountSnapshotChunksOperation extends Operation implements IdentifiedDataSerializable {
+
+    private String name;
+    private long snapshotId;
+    private long response;
+
+    public CountSnapshotChunksOperation() {
+    }
+
+    public CountSnapshotChunksOperation(String name, long snapshotId) {
+        this.name = name;
+        this.snapshotId = snapshotId;
+    }
+
+    @Override
+    public void run() throws Exception {
+        JetService service = getService();
+        LocalDiskSnapshotStore store = service.localSnapshotStore();
+        if (store == null) {
+            throw new JetException("Snapshot directory not configured on member " + getNodeEngine().getThisAddress());
+        }
+        response = store.countLocalChunks(name, snapshotId);
+    }
+
+    @Override
+    public Object getResponse() {
+        return response;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.COUNT_SNAPSHOT_CHUNKS_OP;
+    }
+
+    @Override
+    public ExceptionAction onInvocationException(Throwable throwable) {
+        // workaround for imdg problem that it retries invokeOnTarget if TargetNotMemberException is thrown
+        return throwable instanceof TargetNotMemberException
+                ? ExceptionAction.THROW_EXCEPTION
+                : super.onInvocationException(throwable);
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(name);
+        out.writeLong(snapshotId);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        name = in.readUTF();
+        snapshotId = in.readLong();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.snapshot.LocalDiskSnapshotStore;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.spi.ExceptionAction;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.exception.TargetNotMemberException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores a copy of a snapshot chunk written by another member in the
+ * {@link LocalDiskSnapshotStore} of the target member.
+ */
+public class ReplicateSnapshotChunkOperation extends Operation implements IdentifiedDataSerializable {
+
+    private String name;
+    private String writerUuid;
+    private List<String> replicaUuids;
+    private byte[] key;
+    private byte[] chunk;
+
+    public ReplicateSnapshotChunkOperation() {
+    }
+
+    public ReplicateSnapshotChunkOperation(
+            String name, String writerUuid, List<String> replicaUuids, byte[] key, byte[] chunk
+    ) {
+        this.name = name;
+        this.writerUuid = writerUuid;
+        this.replicaUuids = replicaUuids;
+        this.key = key;
+        this.chunk = chunk;
+    }
+
+    @Override
+    public void run() throws Exception {
+        JetService service = getService();
+        LocalDiskSnapshotStore store = service.localSnapshotStore();
+        if (store == null) {
+            throw new JetException("Snapshot directory not configured on member " + getNodeEngine().getThisAddress());
+        }
+        store.append(name, writerUuid, replicaUuids, key, chunk);
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.REPLICATE_SNAPSHOT_CHUNK_OP;
+    }
+
+    @Override
+    public ExceptionAction onInvocationException(Throwable throwable) {
+        // the snapshot fails if a copy is lost, no point in retrying on another member
+        return throwable instanceof TargetNotMemberException
+                ? ExceptionAction.THROW_EXCEPTION
+                : super.onInvocationException(throwable);
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(name);
+        out.writeUTF(writerUuid);
+        out.writeInt(replicaUuids.size());
+        for (String uuid : replicaUuids) {
+            out.writeUTF(uuid);
+        }
+        out.writeByteArray(key);
+        out.writeByteArray(chunk);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        name = in.readUTF();
+        writerUuid = in.readUTF();
+        int count = in.readInt();
+        replicaUuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            replicaUuids.add(in.readUTF());
+        }
+        key = in.readByteArray();
+        chunk = in.readByteArray();
+    }
+}
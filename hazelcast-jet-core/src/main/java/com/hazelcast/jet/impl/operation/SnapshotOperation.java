@@ -24,10 +24,15 @@ import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk.readDictionaries;
+import static com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk.writeDictionaries;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.withTryCatch;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 
 public class SnapshotOperation extends AsyncJobOperation {
@@ -41,17 +46,20 @@ public class SnapshotOperation extends AsyncJobOperation {
     private long snapshotId;
     private String mapName;
     private boolean isTerminal;
+    private boolean isIncremental;
 
     // for deserialization
     public SnapshotOperation() {
     }
 
-    public SnapshotOperation(long jobId, long executionId, long snapshotId, String mapName, boolean isTerminal) {
+    public SnapshotOperation(long jobId, long executionId, long snapshotId, String mapName, boolean isTerminal,
+                             boolean isIncremental) {
         super(jobId);
         this.executionId = executionId;
         this.snapshotId = snapshotId;
         this.mapName = mapName;
         this.isTerminal = isTerminal;
+        this.isIncremental = isIncremental;
     }
 
     @Override
@@ -60,7 +68,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         ExecutionContext ctx = service.getJobExecutionService().assertExecutionContext(
                 getCallerAddress(), jobId(), executionId, getClass().getSimpleName()
         );
-        ctx.beginSnapshot(snapshotId, mapName, isTerminal).whenComplete(withTryCatch(getLogger(),
+        ctx.beginSnapshot(snapshotId, mapName, isTerminal, isIncremental).whenComplete(withTryCatch(getLogger(),
                 (result, exc) -> {
                     if (exc != null) {
                         result = new SnapshotOperationResult(0, 0, 0, exc);
@@ -99,6 +107,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         out.writeLong(snapshotId);
         out.writeUTF(mapName);
         out.writeBoolean(isTerminal);
+        out.writeBoolean(isIncremental);
     }
 
     @Override
@@ -108,6 +117,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         snapshotId = in.readLong();
         mapName = in.readUTF();
         isTerminal = in.readBoolean();
+        isIncremental = in.readBoolean();
     }
 
     /**
@@ -115,24 +125,51 @@ public class SnapshotOperation extends AsyncJobOperation {
      */
     public static final class SnapshotOperationResult implements IdentifiedDataSerializable {
         private long numBytes;
+        private long numCompressedBytes;
         private long numKeys;
         private long numChunks;
+        private Map<String, byte[]> dictionaries = new HashMap<>();
         private String error;
 
         public SnapshotOperationResult() {
         }
 
         public SnapshotOperationResult(long numBytes, long numKeys, long numChunks, Throwable error) {
+            this(numBytes, numBytes, numKeys, numChunks, emptyMap(), error);
+        }
+
+        /**
+         * @param numCompressedBytes the size of the chunks after compression
+         * @param dictionaries the dictionaries of the compressed chunks, see
+         *        {@link com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk}
+         */
+        public SnapshotOperationResult(
+                long numBytes, long numCompressedBytes, long numKeys, long numChunks,
+                Map<String, byte[]> dictionaries, Throwable error
+        ) {
             this.numBytes = numBytes;
+            this.numCompressedBytes = numCompressedBytes;
             this.numKeys = numKeys;
             this.numChunks = numChunks;
+            this.dictionaries.putAll(dictionaries);
             this.error = error == null ? null : requireNonNull(error.toString());
         }
 
+        /**
+         * Returns the size of the chunks before compression.
+         */
         public long getNumBytes() {
             return numBytes;
         }
 
+        public long getNumCompressedBytes() {
+            return numCompressedBytes;
+        }
+
+        public Map<String, byte[]> getDictionaries() {
+            return dictionaries;
+        }
+
         public long getNumKeys() {
             return numKeys;
         }
@@ -152,8 +189,10 @@ public class SnapshotOperation extends AsyncJobOperation {
          */
         public void merge(SnapshotOperationResult other) {
             numBytes += other.numBytes;
+            numCompressedBytes += other.numCompressedBytes;
             numKeys += other.numKeys;
             numChunks += other.numChunks;
+            dictionaries.putAll(other.dictionaries);
             if (error == null) {
                 error = other.error;
             }
@@ -163,6 +202,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         public String toString() {
             return "SnapshotOperationResult{" +
                     "numBytes=" + numBytes +
+                    ", numCompressedBytes=" + numCompressedBytes +
                     ", numKeys=" + numKeys +
                     ", numChunks=" + numChunks +
                     ", error=" + error +
@@ -182,16 +222,20 @@ public class SnapshotOperation extends AsyncJobOperation {
         @Override
         public void writeData(ObjectDataOutput out) throws IOException {
             out.writeLong(numBytes);
+            out.writeLong(numCompressedBytes);
             out.writeLong(numKeys);
             out.writeLong(numChunks);
+            writeDictionaries(out, dictionaries);
             out.writeUTF(error);
         }
 
         @Override
         public void readData(ObjectDataInput in) throws IOException {
             numBytes = in.readLong();
+            numCompressedBytes = in.readLong();
             numKeys = in.readLong();
             numChunks = in.readLong();
+            dictionaries = readDictionaries(in);
             error = in.readUTF();
         }
     }
@@ -24,11 +24,14 @@ import com.hazelcast.jet.aggregate.AggregateOperation3;
 import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedBiPredicate;
+import com.hazelcast.jet.function.DistributedComparator;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedPredicate;
 import com.hazelcast.jet.function.DistributedTriFunction;
 import com.hazelcast.jet.impl.pipeline.transform.AbstractTransform;
 import com.hazelcast.jet.impl.pipeline.transform.AggregateTransform;
+import com.hazelcast.jet.impl.pipeline.transform.SortMergeJoinTransform;
+import com.hazelcast.jet.impl.pipeline.transform.SortTransform;
 import com.hazelcast.jet.impl.pipeline.transform.Transform;
 import com.hazelcast.jet.pipeline.BatchStage;
 import com.hazelcast.jet.pipeline.BatchStageWithKey;
@@ -159,6 +162,25 @@ public class BatchStageImpl<T> extends ComputeStageImplBase<T> implements BatchS
         return attachHashJoin2(stage1, joinClause1, stage2, joinClause2, mapToOutputFn);
     }
 
+    @Nonnull @Override
+    public BatchStage<T> sort(@Nonnull DistributedComparator<? super T> comparator) {
+        checkSerializable(comparator, "comparator");
+        return attach(new SortTransform<>(transform, comparator), fnAdapter);
+    }
+
+    @Nonnull @Override
+    public <K, T1_IN, T1, R> BatchStage<R> sortMergeJoin(
+            @Nonnull BatchStage<T1_IN> stage1,
+            @Nonnull JoinClause<K, ? super T, ? super T1_IN, ? extends T1> joinClause,
+            @Nonnull DistributedComparator<? super K> keyComparator,
+            @Nonnull DistributedBiFunction<T, T1, R> mapToOutputFn
+    ) {
+        checkSerializable(keyComparator, "keyComparator");
+        checkSerializable(mapToOutputFn, "mapToOutputFn");
+        return attach(new SortMergeJoinTransform<>(asList(transform, transformOf(stage1)),
+                joinClause, keyComparator, mapToOutputFn), fnAdapter);
+    }
+
     @Nonnull @Override
     @SuppressWarnings("unchecked")
     public <R> BatchStage<R> aggregate(@Nonnull AggregateOperation1<? super T, ?, ? extends R> aggrOp) {
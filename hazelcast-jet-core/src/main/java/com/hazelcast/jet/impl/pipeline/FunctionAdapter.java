@@ -293,8 +293,12 @@ class JetEventFunctionAdapter extends FunctionAdapter {
     adaptJoinClause(
             @Nonnull JoinClause<? extends K, ? super T0, ? super T1, ? extends T1_OUT> joinClause
     ) {
-        return JoinClause.<K, JetEvent<T0>, T1>onKeys(adaptKeyFn(joinClause.leftKeyFn()), joinClause.rightKeyFn())
-                .projecting(joinClause.rightProjectFn());
+        JoinClause<K, JetEvent<T0>, T1, T1_OUT> adapted = JoinClause
+                .<K, JetEvent<T0>, T1>onKeys(adaptKeyFn(joinClause.leftKeyFn()), joinClause.rightKeyFn())
+                .projecting(joinClause.rightProjectFn())
+                .strategy(joinClause.strategy())
+                .estimatedSize(joinClause.estimatedSize());
+        return joinClause.isOffHeap() ? adapted.offHeap() : adapted;
     }
 
     @Nonnull @Override
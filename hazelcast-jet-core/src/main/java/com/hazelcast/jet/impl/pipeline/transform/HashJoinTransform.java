@@ -16,16 +16,21 @@
 
 package com.hazelcast.jet.impl.pipeline.transform;
 
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.datamodel.Tag;
 import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
 import com.hazelcast.jet.function.DistributedTriFunction;
 import com.hazelcast.jet.impl.pipeline.Planner;
 import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
 import com.hazelcast.jet.impl.processor.HashJoinCollectP;
 import com.hazelcast.jet.impl.processor.HashJoinP;
+import com.hazelcast.jet.impl.processor.PartitionedHashJoinP;
+import com.hazelcast.jet.impl.processor.SpillSettings;
 import com.hazelcast.jet.pipeline.JoinClause;
+import com.hazelcast.jet.pipeline.JoinStrategy;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -52,6 +57,7 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
             @Nonnull DistributedBiFunction mapToOutputBiFn
     ) {
         super(upstream.size() + "-way hash-join", upstream);
+        checkPartitionedClauses(clauses);
         this.clauses = clauses;
         this.tags = tags;
         this.mapToOutputBiFn = mapToOutputBiFn;
@@ -65,12 +71,29 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
             @Nonnull DistributedTriFunction<T0, T1, T2, R> mapToOutputTriFn
     ) {
         super(upstream.size() + "-way hash-join", upstream);
+        checkPartitionedClauses(clauses);
         this.clauses = clauses;
         this.tags = tags;
         this.mapToOutputBiFn = null;
         this.mapToOutputTriFn = mapToOutputTriFn;
     }
 
+    private static void checkPartitionedClauses(List<? extends JoinClause<?, ?, ?, ?>> clauses) {
+        if (clauses.size() > 1 && clauses.stream().anyMatch(c -> c.strategy() == JoinStrategy.PARTITIONED)) {
+            throw new IllegalArgumentException("A partitioned join clause must be the only clause of the hash-join");
+        }
+    }
+
+    private boolean isPartitioned() {
+        if (clauses.size() != 1) {
+            return false;
+        }
+        JoinClause<?, ?, ?, ?> clause = clauses.get(0);
+        return clause.strategy() == JoinStrategy.PARTITIONED
+                || clause.strategy() == JoinStrategy.AUTO
+                        && clause.estimatedSize() >= JoinClause.AUTO_PARTITIONED_MIN_SIZE;
+    }
+
     //         ---------           ----------           ----------
     //        | primary |         | joined-1 |         | joined-2 |
     //         ---------           ----------           ----------
@@ -95,6 +118,10 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
     @Override
     @SuppressWarnings("unchecked")
     public void addToDag(Planner p) {
+        if (isPartitioned()) {
+            addPartitionedToDag(p);
+            return;
+        }
         PlannerVertex primary = p.xform2vertex.get(this.upstream().get(0));
         List keyFns = this.clauses.stream()
                                   .map(JoinClause::leftKeyFn)
@@ -116,8 +143,9 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
                     (DistributedFunction<Object, Object>) clause.rightKeyFn();
             DistributedFunction<Object, Object> projectFn =
                     (DistributedFunction<Object, Object>) clause.rightProjectFn();
+            boolean offHeap = clause.isOffHeap();
             Vertex collector = p.dag.newVertex(collectorName + collectorOrdinal,
-                    () -> new HashJoinCollectP(getKeyFn, projectFn));
+                    () -> new HashJoinCollectP(getKeyFn, projectFn, offHeap));
             collector.localParallelism(1);
             p.dag.edge(from(fromPv.v, fromPv.nextAvailableOrdinal())
                     .to(collector, 0)
@@ -128,4 +156,50 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
             collectorOrdinal++;
         }
     }
+
+    //         ---------           ----------
+    //        | primary |         | joined-1 |
+    //         ---------           ----------
+    //             |                   |
+    //        distributed         distributed
+    //        partitioned         partitioned
+    //         ordinal 0           prioritized
+    //             |               ordinal 1
+    //              \                  |
+    //               \                 v
+    //                ----------->  --------
+    //                             | joiner |
+    //                              --------
+    @SuppressWarnings("unchecked")
+    private void addPartitionedToDag(Planner p) {
+        PlannerVertex primary = p.xform2vertex.get(this.upstream().get(0));
+        PlannerVertex joined = p.xform2vertex.get(this.upstream().get(1));
+        JoinClause<?, ?, ?, ?> clause = this.clauses.get(0);
+        DistributedFunction<Object, Object> leftKeyFn = (DistributedFunction<Object, Object>) clause.leftKeyFn();
+        DistributedFunction<Object, Object> rightKeyFn = (DistributedFunction<Object, Object>) clause.rightKeyFn();
+        DistributedFunction<Object, Object> projectFn =
+                (DistributedFunction<Object, Object>) clause.rightProjectFn();
+        boolean offHeap = clause.isOffHeap();
+        // the spilled primary items are joined on completion, which a stream never reaches
+        boolean spillable = !isStreaming(this.upstream().get(0));
+        List<Tag> tags = this.tags;
+        DistributedBiFunction mapToOutputBiFn = this.mapToOutputBiFn;
+        DistributedToLongFunction<InstanceConfig> spillThresholdFn =
+                spillable ? InstanceConfig::getJoinSpillThreshold : config -> 0;
+        Vertex joiner = p.addVertex(this, name() + "-joiner", localParallelism(),
+                SpillSettings.supplier(spillThresholdFn, spillSettings -> new PartitionedHashJoinP<>(
+                        leftKeyFn, rightKeyFn, projectFn, offHeap, spillSettings, tags, mapToOutputBiFn))).v;
+        p.dag.edge(from(primary.v, primary.nextAvailableOrdinal())
+                .to(joiner, 0)
+                .distributed().partitioned(leftKeyFn));
+        p.dag.edge(from(joined.v, joined.nextAvailableOrdinal())
+                .to(joiner, 1)
+                .distributed().partitioned(rightKeyFn)
+                .priority(-1));
+    }
+
+    private static boolean isStreaming(Transform transform) {
+        return transform instanceof StreamSourceTransform
+                || transform.upstream().stream().anyMatch(HashJoinTransform::isStreaming);
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.function.DistributedBiFunction;
+import com.hazelcast.jet.function.DistributedComparator;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+import com.hazelcast.jet.impl.processor.SortMergeJoinP;
+import com.hazelcast.jet.impl.processor.SpillSettings;
+import com.hazelcast.jet.pipeline.JoinClause;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+public class SortMergeJoinTransform<K, T0, T1, R> extends AbstractTransform {
+    private static final String NULL_KEY_PARTITIONING_KEY = "";
+
+    @Nonnull
+    private final JoinClause<K, ? super T0, ?, ?> clause;
+    @Nonnull
+    private final DistributedComparator<? super K> keyComparator;
+    @Nonnull
+    private final DistributedBiFunction mapToOutputFn;
+
+    public SortMergeJoinTransform(
+            @Nonnull List<Transform> upstream,
+            @Nonnull JoinClause<K, ? super T0, ?, ?> clause,
+            @Nonnull DistributedComparator<? super K> keyComparator,
+            @Nonnull DistributedBiFunction mapToOutputFn
+    ) {
+        super("sort-merge-join", upstream);
+        this.clause = clause;
+        this.keyComparator = keyComparator;
+        this.mapToOutputFn = mapToOutputFn;
+    }
+
+    //         ---------           ----------
+    //        | primary |         | joined-1 |
+    //         ---------           ----------
+    //             |                    |
+    //        distributed          distributed
+    //        partitioned          partitioned
+    //             \                    /
+    //              v                  v
+    //             ---------------------
+    //            |   SortMergeJoinP    |
+    //             ---------------------
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addToDag(Planner p) {
+        DistributedFunction<Object, Object> leftKeyFn = (DistributedFunction<Object, Object>) clause.leftKeyFn();
+        DistributedFunction<Object, Object> rightKeyFn = (DistributedFunction<Object, Object>) clause.rightKeyFn();
+        DistributedFunction<Object, Object> projectFn = (DistributedFunction<Object, Object>) clause.rightProjectFn();
+        DistributedComparator<Object> keyComparator = (DistributedComparator<Object>) this.keyComparator;
+        DistributedBiFunction<Object, Object, Object> mapToOutputFn = this.mapToOutputFn;
+        PlannerVertex pv = p.addVertex(this, name(), localParallelism(),
+                SpillSettings.supplier(InstanceConfig::getSortSpillThreshold, spillSettings -> new SortMergeJoinP<>(
+                        leftKeyFn, rightKeyFn, projectFn, keyComparator, mapToOutputFn, spillSettings)));
+        p.addEdges(this, pv.v, (edge, ordinal) ->
+                edge.distributed().partitioned(nullSafe(ordinal == 0 ? leftKeyFn : rightKeyFn)));
+    }
+
+    /**
+     * Returns a key function for the partitioned edge that maps a {@code
+     * null} key to a non-null one. The items with a {@code null} key don't
+     * match any item, they only have to get to some processor.
+     */
+    private static DistributedFunction<Object, Object> nullSafe(DistributedFunction<Object, Object> keyFn) {
+        return item -> {
+            Object key = keyFn.apply(item);
+            return key != null ? key : NULL_KEY_PARTITIONING_KEY;
+        };
+    }
+}
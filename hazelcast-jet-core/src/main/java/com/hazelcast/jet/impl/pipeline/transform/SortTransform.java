@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.core.Partitioner;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.function.DistributedComparator;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+import com.hazelcast.jet.impl.processor.MergeSortedRangesP;
+import com.hazelcast.jet.impl.processor.SortBoundariesP;
+import com.hazelcast.jet.impl.processor.SortP;
+import com.hazelcast.jet.impl.processor.SortRouteP;
+import com.hazelcast.jet.impl.processor.SortSampleP;
+import com.hazelcast.jet.impl.processor.SpillSettings;
+
+import javax.annotation.Nonnull;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.Edge.from;
+import static com.hazelcast.jet.core.ProcessorMetaSupplier.forceTotalParallelismOne;
+
+public class SortTransform<T> extends AbstractTransform {
+    @Nonnull
+    private final DistributedComparator<? super T> comparator;
+
+    public SortTransform(@Nonnull Transform upstream, @Nonnull DistributedComparator<? super T> comparator) {
+        super("sort", upstream);
+        this.comparator = comparator;
+    }
+
+    //                   --------
+    //                  | source |
+    //                   --------
+    //                       |
+    //                     local
+    //                    unicast
+    //                       v
+    //                 -------------
+    //                | SortSampleP |
+    //                 -------------
+    //           ordinal 0 |   | ordinal 1
+    //         distributed |   |
+    //          all-to-one |   |
+    //                     v   |
+    //      -----------------  |
+    //     | SortBoundariesP | |    total parallelism = 1
+    //      -----------------  |
+    //          distributed |  | local
+    //            broadcast |  | unicast
+    //                      v  v
+    //                 ------------
+    //                | SortRouteP |
+    //                 ------------
+    //                       |
+    //                  distributed
+    //             partitioned by range
+    //                       v
+    //                 ------------
+    //                |   SortP    |  sorts by range and item
+    //                 ------------
+    //                       |
+    //                  distributed
+    //                   all-to-one
+    //                       v
+    //           --------------------
+    //          | MergeSortedRangesP |  local parallelism = 1
+    //           --------------------
+    @Override
+    public void addToDag(Planner p) {
+        String vertexName = name();
+        DistributedComparator<? super T> comparator = this.comparator;
+        Vertex sample = p.dag.newVertex(vertexName + "-sample", SortSampleP::new)
+                             .localParallelism(localParallelism());
+        // a single processor in the cluster collects all the samples, the
+        // all-to-one edge goes to the member owning the same partition key.
+        // The key has no '@', which would make only its suffix count.
+        String boundariesKey = "sort-boundaries-" + vertexName.hashCode();
+        Vertex boundaries = p.dag.newVertex(vertexName + "-boundaries", forceTotalParallelismOne(
+                ProcessorSupplier.of(() -> new SortBoundariesP<>(comparator)), boundariesKey))
+                                 .localParallelism(1);
+        Vertex route = p.dag.newVertex(vertexName + "-route", SpillSettings.supplier(
+                InstanceConfig::getSortSpillThreshold, spillSettings -> new SortRouteP<>(comparator, spillSettings)))
+                            .localParallelism(localParallelism());
+        Vertex sort = p.dag.newVertex(vertexName + "-sort", SpillSettings.supplier(
+                InstanceConfig::getSortSpillThreshold, spillSettings -> new SortP<>(comparator, spillSettings)))
+                           .localParallelism(localParallelism());
+        PlannerVertex merge = p.addVertex(this, vertexName, 1, MergeSortedRangesP::new);
+        p.addEdges(this, sample);
+        p.dag.edge(from(sample, 0).to(boundaries).distributed().allToOne(boundariesKey));
+        p.dag.edge(from(boundaries).to(route, 0).distributed().broadcast());
+        p.dag.edge(from(sample, 1).to(route, 1));
+        // the range index is the partition ID, the ranges are as many as partitions
+        DistributedFunction<Entry<Integer, T>, Integer> rangeFn = Entry::getKey;
+        p.dag.edge(between(route, sort).distributed().partitioned(rangeFn, Partitioner.HASH_CODE));
+        p.dag.edge(between(sort, merge.v).distributed().allToOne(vertexName.hashCode()));
+    }
+}
@@ -26,6 +26,8 @@ import com.hazelcast.jet.core.ResettableSingletonTraverser;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.function.DistributedBiFunction;
+import com.hazelcast.jet.impl.execution.WakeupSignal;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
 import com.hazelcast.jet.pipeline.ContextFactory;
 
 import javax.annotation.Nonnull;
@@ -61,6 +63,7 @@ public final class AsyncTransformUsingContextOrderedP<C, T, R> extends AbstractP
     private ArrayDeque<Object> queue;
     private Traverser<?> currentTraverser = Traversers.empty();
     private int maxAsyncOps;
+    private WakeupSignal wakeupSignal;
     private ResettableSingletonTraverser<Watermark> watermarkTraverser = new ResettableSingletonTraverser<>();
     private boolean tryProcessSucceeded;
 
@@ -96,6 +99,9 @@ public final class AsyncTransformUsingContextOrderedP<C, T, R> extends AbstractP
         }
         maxAsyncOps = contextFactory.maxPendingCallsPerProcessor();
         queue = new ArrayDeque<>(maxAsyncOps);
+        if (context instanceof ProcCtx) {
+            wakeupSignal = ((ProcCtx) context).wakeupSignal();
+        }
     }
 
     @Override
@@ -110,6 +116,10 @@ public final class AsyncTransformUsingContextOrderedP<C, T, R> extends AbstractP
         CompletableFuture<? extends Traverser<R>> future = callAsyncFn.apply(contextObject, castedItem);
         if (future != null) {
             queue.add(tuple2(castedItem, future));
+            if (wakeupSignal != null) {
+                // wake up the worker in case it parked waiting for the result
+                future.whenComplete((r, e) -> wakeupSignal.wakeUp());
+            }
         }
         return true;
     }
@@ -30,6 +30,8 @@ import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.impl.execution.WakeupSignal;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
 import com.hazelcast.jet.impl.util.LoggingUtil;
 import com.hazelcast.jet.pipeline.ContextFactory;
 
@@ -80,6 +82,7 @@ public final class AsyncTransformUsingContextUnorderedP<C, T, K, R> extends Abst
 
     private C contextObject;
     private ManyToOneConcurrentArrayQueue<Tuple3<T, Long, Object>> resultQueue;
+    private WakeupSignal wakeupSignal;
     // TODO we can use more efficient structure: we only remove from the beginning and add to the end
     private final SortedMap<Long, Long> watermarkCounts = new TreeMap<>();
     private final Map<T, Integer> inFlightItems = new IdentityHashMap<>();
@@ -130,6 +133,9 @@ public final class AsyncTransformUsingContextUnorderedP<C, T, K, R> extends Abst
         }
         maxAsyncOps = contextFactory.maxPendingCallsPerProcessor();
         resultQueue = new ManyToOneConcurrentArrayQueue<>(maxAsyncOps);
+        if (context instanceof ProcCtx) {
+            wakeupSignal = ((ProcCtx) context).wakeupSignal();
+        }
     }
 
     @Override
@@ -160,8 +166,12 @@ public final class AsyncTransformUsingContextUnorderedP<C, T, K, R> extends Abst
         asyncOpsCounter++;
         watermarkCounts.merge(lastReceivedWm, 1L, Long::sum);
         Long lastWatermarkAtReceiveTime = lastReceivedWm;
-        future.whenComplete(withTryCatch(getLogger(),
-                (r, e) -> resultQueue.add(tuple3(item, lastWatermarkAtReceiveTime, r != null ? r : e))));
+        future.whenComplete(withTryCatch(getLogger(), (r, e) -> {
+            resultQueue.add(tuple3(item, lastWatermarkAtReceiveTime, r != null ? r : e));
+            if (wakeupSignal != null) {
+                wakeupSignal.wakeUp();
+            }
+        }));
         inFlightItems.merge(item, 1, Integer::sum);
         return true;
     }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * A two-level timer wheel of keys and their deadlines. The far level is a
+ * map of buckets, each covering {@code 2^shift} consecutive deadlines; an
+ * entry is appended to its bucket without ordering. The near level is a
+ * binary min-heap of the entries from the buckets that were reached by a
+ * poll. A bucket is moved to the heap as a whole when the heap is empty
+ * and the poll limit passes the bucket's start.
+ * <p>
+ * The index doesn't remove or update entries. If the deadline of a key
+ * changes, the caller adds a new entry and ignores the outdated one when
+ * it's polled. Except when a new bucket is created, adding and polling
+ * don't allocate.
+ * <p>
+ * The class is not thread-safe.
+ *
+ * @param <K> type of the key
+ */
+final class DeadlineIndex<K> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_SHIFT = 30;
+
+    private final int shift;
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+    // the bucket the last entry was added to, saves the lookup in buckets
+    private long lastBucketIndex = Long.MIN_VALUE;
+    private Bucket lastBucket;
+    // entries with bucket index up to this one go to the heap
+    private long heapBucketIndex = Long.MIN_VALUE;
+
+    private long[] heapDeadlines = new long[INITIAL_CAPACITY];
+    private Object[] heapKeys = new Object[INITIAL_CAPACITY];
+    private int heapSize;
+    private int size;
+
+    private K polledKey;
+    private long polledDeadline;
+
+    /**
+     * @param bucketWidth the range of deadlines in one far bucket, rounded
+     *                    down to a power of two
+     */
+    DeadlineIndex(long bucketWidth) {
+        this.shift = Math.min(MAX_SHIFT, Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(1, bucketWidth)));
+    }
+
+    /**
+     * Adds an entry. There can be multiple entries with the same key.
+     */
+    void add(K key, long deadline) {
+        long bucketIndex = deadline >> shift;
+        size++;
+        if (bucketIndex <= heapBucketIndex) {
+            heapPush(key, deadline);
+            return;
+        }
+        if (bucketIndex != lastBucketIndex || lastBucket == null) {
+            lastBucket = buckets.computeIfAbsent(bucketIndex, x -> new Bucket());
+            lastBucketIndex = bucketIndex;
+        }
+        lastBucket.add(key, deadline);
+    }
+
+    /**
+     * Removes the entry with the lowest deadline, if the deadline is less
+     * than {@code limit}. The removed entry is available through {@link
+     * #polledKey()} and {@link #polledDeadline()}.
+     *
+     * @return false if there's no entry with the deadline less than limit
+     */
+    boolean poll(long limit) {
+        while (heapSize == 0) {
+            Entry<Long, Bucket> first = buckets.firstEntry();
+            if (first == null || first.getKey() << shift >= limit) {
+                return false;
+            }
+            buckets.pollFirstEntry();
+            if (first.getValue() == lastBucket) {
+                lastBucket = null;
+            }
+            heapBucketIndex = first.getKey();
+            moveToHeap(first.getValue());
+        }
+        if (heapDeadlines[0] >= limit) {
+            // the entries in the buckets have even higher deadlines
+            return false;
+        }
+        polledKey = heapPop();
+        size--;
+        return true;
+    }
+
+    K polledKey() {
+        return polledKey;
+    }
+
+    long polledDeadline() {
+        return polledDeadline;
+    }
+
+    /**
+     * Returns the number of entries, including the outdated ones.
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        buckets.clear();
+        lastBucket = null;
+        lastBucketIndex = Long.MIN_VALUE;
+        heapBucketIndex = Long.MIN_VALUE;
+        Arrays.fill(heapKeys, 0, heapSize, null);
+        heapSize = 0;
+        size = 0;
+        polledKey = null;
+    }
+
+    private void moveToHeap(Bucket bucket) {
+        ensureHeapCapacity(bucket.size);
+        System.arraycopy(bucket.deadlines, 0, heapDeadlines, 0, bucket.size);
+        System.arraycopy(bucket.keys, 0, heapKeys, 0, bucket.size);
+        heapSize = bucket.size;
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i, heapDeadlines[i], heapKeys[i]);
+        }
+    }
+
+    private void heapPush(Object key, long deadline) {
+        ensureHeapCapacity(heapSize + 1);
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapDeadlines[parent] <= deadline) {
+                break;
+            }
+            heapDeadlines[i] = heapDeadlines[parent];
+            heapKeys[i] = heapKeys[parent];
+            i = parent;
+        }
+        heapDeadlines[i] = deadline;
+        heapKeys[i] = key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K heapPop() {
+        K key = (K) heapKeys[0];
+        polledDeadline = heapDeadlines[0];
+        int last = --heapSize;
+        long lastDeadline = heapDeadlines[last];
+        Object lastKey = heapKeys[last];
+        heapKeys[last] = null;
+        if (last > 0) {
+            siftDown(0, lastDeadline, lastKey);
+        }
+        return key;
+    }
+
+    private void siftDown(int i, long deadline, Object key) {
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapDeadlines[child + 1] < heapDeadlines[child]) {
+                child++;
+            }
+            if (deadline <= heapDeadlines[child]) {
+                break;
+            }
+            heapDeadlines[i] = heapDeadlines[child];
+            heapKeys[i] = heapKeys[child];
+            i = child;
+        }
+        heapDeadlines[i] = deadline;
+        heapKeys[i] = key;
+    }
+
+    private void ensureHeapCapacity(int capacity) {
+        if (capacity > heapDeadlines.length) {
+            int newCapacity = Math.max(capacity, heapDeadlines.length * 2);
+            heapDeadlines = Arrays.copyOf(heapDeadlines, newCapacity);
+            heapKeys = Arrays.copyOf(heapKeys, newCapacity);
+        }
+    }
+
+    private static final class Bucket {
+        private long[] deadlines = new long[INITIAL_CAPACITY];
+        private Object[] keys = new Object[INITIAL_CAPACITY];
+        private int size;
+
+        void add(Object key, long deadline) {
+            if (size == deadlines.length) {
+                deadlines = Arrays.copyOf(deadlines, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            deadlines[size] = deadline;
+            keys[size] = key;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.Processor.Context;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotTombstone;
+
+import javax.annotation.Nonnull;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * The keys of a processor's state changed since the last snapshot. If the
+ * job uses {@linkplain JobConfig#setIncrementalSnapshots incremental
+ * snapshots}, the processor adds a key each time it changes or removes its
+ * value and saves only the added keys to an incremental snapshot, a
+ * removed key with the {@link SnapshotTombstone}. If it doesn't, the set
+ * stays empty and the processor always saves all keys.
+ *
+ * @param <K> type of the key
+ */
+final class DirtyKeys<K> {
+
+    private final Set<K> keys = new HashSet<>();
+    // null if the job doesn't use incremental snapshots
+    private ProcCtx context;
+
+    /**
+     * Starts tracking the keys, if the job uses incremental snapshots. To be
+     * called from the processor's {@code init()}.
+     */
+    void init(@Nonnull Context context) {
+        if (context instanceof ProcCtx
+                && context.snapshottingEnabled()
+                && context.jobConfig().isIncrementalSnapshots()) {
+            this.context = (ProcCtx) context;
+            this.context.setSavesSnapshotDeltas();
+        }
+    }
+
+    /**
+     * Adds the key, if tracking.
+     */
+    void add(K key) {
+        if (context != null) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Returns true, if the snapshot being saved should contain only the
+     * keys in this set.
+     */
+    boolean isIncrementalSnapshot() {
+        return context != null && context.isIncrementalSnapshot();
+    }
+
+    /**
+     * Returns a traverser over the keys in this set, removing each key as
+     * it's traversed.
+     */
+    @Nonnull
+    Traverser<K> traverseAndRemove() {
+        Iterator<K> iterator = keys.iterator();
+        return () -> {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            K key = iterator.next();
+            iterator.remove();
+            return key;
+        };
+    }
+
+    /**
+     * Returns a traverser over the snapshot entries of the keys in this set,
+     * removing each key as it's traversed. The value is the one returned by
+     * {@code valueFn} or the {@link SnapshotTombstone}, if it returns {@code
+     * null}.
+     */
+    @Nonnull
+    Traverser<Entry<K, Object>> traverseDelta(@Nonnull Function<? super K, ?> valueFn) {
+        return traverseAndRemove().map(key -> {
+            Object value = valueFn.apply(key);
+            return entry(key, value != null ? value : SnapshotTombstone.INSTANCE);
+        });
+    }
+
+    /**
+     * Removes all keys, to be called when saving a full snapshot.
+     */
+    void clear() {
+        keys.clear();
+    }
+
+    int size() {
+        return keys.size();
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.Processor.Context;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+
+/**
+ * Sorts items that might not fit into the memory. The items are collected
+ * in a list, when it reaches the spill threshold, it's sorted and written
+ * to a run file. {@link #sorted()} merges the runs and the items still in
+ * memory with a priority queue. The sort is stable: equal items are
+ * returned in the order they were added.
+ * <p>
+ * Without a comparator the items are only buffered and returned in the
+ * order they were added, still spilling to disk if there are too many.
+ * <p>
+ * A run file is a sequence of {@code [int length][item]} records, the
+ * items are in the serialized form. The class is not thread-safe.
+ *
+ * @param <T> type of the item
+ */
+final class ExternalSorter<T> {
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    private final Comparator<? super T> comparator;
+    private final long spillThreshold;
+    private final Path directory;
+    private final InternalSerializationService serializationService;
+    private final List<T> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private final List<DataInputStream> openStreams = new ArrayList<>();
+    private long size;
+
+    /**
+     * @param comparator the sort order or {@code null} to keep the order of
+     *                   addition
+     * @param spillThreshold the number of items kept in memory, 0 to never
+     *                       spill
+     * @param directory the directory for the run files, only used if the
+     *                  threshold is positive
+     * @param serializationService the serialization service for the run
+     *                             files, only used if the threshold is
+     *                             positive
+     */
+    ExternalSorter(
+            @Nullable Comparator<? super T> comparator,
+            long spillThreshold,
+            @Nullable Path directory,
+            @Nullable InternalSerializationService serializationService
+    ) {
+        assert spillThreshold == 0 || directory != null && serializationService != null;
+        this.comparator = comparator;
+        this.spillThreshold = spillThreshold;
+        this.directory = directory;
+        this.serializationService = serializationService;
+    }
+
+    /**
+     * Returns a new sorter with the spill threshold and directory of the
+     * processor. A sorter for a processor without an instance never spills.
+     */
+    @Nonnull
+    static <T> ExternalSorter<T> create(
+            @Nonnull Context context,
+            @Nonnull SpillSettings spillSettings,
+            @Nullable Comparator<? super T> comparator
+    ) {
+        if (context.jetInstance() == null || !spillSettings.isEnabled()) {
+            return new ExternalSorter<>(comparator, 0, null, null);
+        }
+        return new ExternalSorter<>(comparator, spillSettings.threshold(), spillSettings.directory(),
+                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService());
+    }
+
+    void add(@Nonnull T item) throws IOException {
+        buffer.add(item);
+        size++;
+        if (spillThreshold > 0 && buffer.size() >= spillThreshold) {
+            spill();
+        }
+    }
+
+    /**
+     * Returns the number of items added.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of run files spilled so far.
+     */
+    int runCount() {
+        return runs.size();
+    }
+
+    /**
+     * Returns a traverser over all the items in the sort order. No more
+     * items can be added after this call.
+     */
+    @Nonnull
+    Traverser<T> sorted() throws IOException {
+        if (comparator != null) {
+            buffer.sort(comparator);
+        }
+        if (runs.isEmpty()) {
+            return traverseIterable(buffer);
+        }
+        List<Traverser<T>> sources = new ArrayList<>(runs.size() + 1);
+        for (Path run : runs) {
+            sources.add(readRun(run));
+        }
+        sources.add(traverseIterable(buffer));
+        if (comparator == null) {
+            return traverseIterable(sources).flatMap(t -> t);
+        }
+        PriorityQueue<Cursor<T>> cursors = new PriorityQueue<>(sources.size(),
+                Comparator.<Cursor<T>, T>comparing(c -> c.head, comparator).thenComparingInt(c -> c.index));
+        for (int i = 0; i < sources.size(); i++) {
+            Cursor<T> cursor = new Cursor<>(sources.get(i), i);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return () -> {
+            Cursor<T> first = cursors.poll();
+            if (first == null) {
+                return null;
+            }
+            T item = first.head;
+            if (first.advance()) {
+                cursors.add(first);
+            }
+            return item;
+        };
+    }
+
+    /**
+     * Closes and deletes the run files and releases the items in memory.
+     */
+    void dispose() throws IOException {
+        for (DataInputStream in : openStreams) {
+            in.close();
+        }
+        openStreams.clear();
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private void spill() throws IOException {
+        if (comparator != null) {
+            buffer.sort(comparator);
+        }
+        Path file = Files.createTempFile(directory, "jet-sort-", ".run");
+        runs.add(file);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), STREAM_BUFFER_SIZE))) {
+            for (T item : buffer) {
+                byte[] bytes = serializationService.toData(item).toByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+        buffer.clear();
+    }
+
+    private Traverser<T> readRun(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), STREAM_BUFFER_SIZE));
+        openStreams.add(in);
+        return () -> {
+            try {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return null;
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                return serializationService.toObject(new HeapData(bytes));
+            } catch (IOException e) {
+                throw sneakyThrow(e);
+            }
+        };
+    }
+
+    private static final class Cursor<T> {
+        private final Traverser<T> source;
+        private final int index;
+        private T head;
+
+        Cursor(Traverser<T> source, int index) {
+            this.source = source;
+            this.index = index;
+        }
+
+        boolean advance() {
+            head = source.next();
+            return head != null;
+        }
+    }
+}
@@ -16,13 +16,17 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.function.DistributedFunction;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +34,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import static com.hazelcast.jet.Traversers.traverseStream;
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.util.Collections.singletonList;
 
@@ -38,26 +43,67 @@ import static java.util.Collections.singletonList;
  * aggregate operation on each group. The items may originate from one or
  * more inbound edges. The supplied aggregate operation must have as many
  * accumulation functions as there are inbound edges.
+ * <p>
+ * If the {@linkplain InstanceConfig#setGroupingSpillThreshold grouping
+ * spill threshold} is set and the aggregate operation can combine
+ * accumulators, the groups are spilled to disk each time their number
+ * reaches the threshold and merged in {@link #complete()}. The spilled
+ * groups are merged by the equality of the serialized keys, so keys that
+ * are equal, but serialize to different bytes, form separate groups. The
+ * processor is then non-cooperative, because it writes and reads the
+ * files. The threshold is passed to the constructor by the {@linkplain
+ * SpillSettings#supplier processor supplier}.
+ * <p>
+ * If the aggregate operation has a {@linkplain
+ * AggregateOperation#fixedSizeCodec() fixed-size codec}, the accumulators
+ * are kept off-heap in an {@link OffHeapAccumulatorTable} instead of the
+ * map and they aren't spilled.
+ * <p>
+ * Otherwise, if spilling is disabled and the aggregate operation has a
+ * {@linkplain com.hazelcast.jet.impl.aggregate.PrimitiveAccumulateFn
+ * primitive accumulate function}, such as {@code counting()} or {@code
+ * summingLong()}, the accumulators are kept in a {@link
+ * PrimitiveAccumulatorTable} instead of the map.
  */
 public class GroupP<K, A, R, OUT> extends AbstractProcessor {
     @Nonnull private final List<DistributedFunction<?, ? extends K>> groupKeyFns;
     @Nonnull private final AggregateOperation<A, R> aggrOp;
 
+    @Nonnull private final BiFunction<? super K, ? super R, OUT> mapToOutputFn;
+    @Nonnull private final SpillSettings spillSettings;
+
     private final Map<K, A> keyToAcc = new HashMap<>();
-    private final Traverser<OUT> resultTraverser;
+    private Traverser<OUT> resultTraverser;
+    // null if spilling is disabled
+    private SpilledRuns<K, A> spilledRuns;
+    // null if the accumulators are on-heap
+    private OffHeapAccumulatorTable<K, A> offHeapTable;
+    // null unless the aggregate operation is primitive and the above two are null
+    private PrimitiveAccumulatorTable<K, A> primitiveTable;
 
     public GroupP(
             @Nonnull List<DistributedFunction<?, ? extends K>> groupKeyFns,
             @Nonnull AggregateOperation<A, R> aggrOp,
             @Nonnull BiFunction<? super K, ? super R, OUT> mapToOutputFn
+    ) {
+        this(groupKeyFns, aggrOp, mapToOutputFn, SpillSettings.NO_SPILLING);
+    }
+
+    public GroupP(
+            @Nonnull List<DistributedFunction<?, ? extends K>> groupKeyFns,
+            @Nonnull AggregateOperation<A, R> aggrOp,
+            @Nonnull BiFunction<? super K, ? super R, OUT> mapToOutputFn,
+            @Nonnull SpillSettings spillSettings
     ) {
         checkTrue(groupKeyFns.size() == aggrOp.arity(), groupKeyFns.size() + " key functions " +
                 "provided for " + aggrOp.arity() + "-arity aggregate operation");
         this.groupKeyFns = groupKeyFns;
         this.aggrOp = aggrOp;
-        this.resultTraverser = traverseStream(keyToAcc
-                .entrySet().stream()
-                .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue()))));
+        this.mapToOutputFn = mapToOutputFn;
+        // the off-heap accumulators and the ones that can't be combined aren't spilled
+        this.spillSettings = aggrOp.fixedSizeCodec() == null && aggrOp.combineFn() != null
+                ? spillSettings
+                : SpillSettings.NO_SPILLING;
     }
 
     public <T> GroupP(
@@ -65,21 +111,101 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
             @Nonnull AggregateOperation1<? super T, A, R> aggrOp,
             @Nonnull BiFunction<? super K, ? super R, OUT> mapToOutputFn
     ) {
-        this(singletonList(groupKeyFn), aggrOp, mapToOutputFn);
+        this(groupKeyFn, aggrOp, mapToOutputFn, SpillSettings.NO_SPILLING);
+    }
+
+    public <T> GroupP(
+            @Nonnull DistributedFunction<? super T, ? extends K> groupKeyFn,
+            @Nonnull AggregateOperation1<? super T, A, R> aggrOp,
+            @Nonnull BiFunction<? super K, ? super R, OUT> mapToOutputFn,
+            @Nonnull SpillSettings spillSettings
+    ) {
+        this(singletonList(groupKeyFn), aggrOp, mapToOutputFn, spillSettings);
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        if (context.jetInstance() == null) {
+            // TestProcessorContext without an instance
+            primitiveTable = PrimitiveAccumulatorTable.create(aggrOp);
+            return;
+        }
+        InternalSerializationService serializationService =
+                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+        if (aggrOp.fixedSizeCodec() != null) {
+            offHeapTable = new OffHeapAccumulatorTable<>(aggrOp, serializationService);
+            return;
+        }
+        if (spillSettings.isEnabled()) {
+            spilledRuns = new SpilledRuns<>(spillSettings.directory(), serializationService);
+            return;
+        }
+        primitiveTable = PrimitiveAccumulatorTable.create(aggrOp);
+    }
+
+    @Override
+    public boolean isCooperative() {
+        return !spillSettings.isEnabled();
     }
 
     @Override
     @SuppressWarnings("unchecked")
-    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) throws IOException {
         Function<Object, ? extends K> keyFn = (Function<Object, ? extends K>) groupKeyFns.get(ordinal);
         K key = keyFn.apply(item);
+        if (primitiveTable != null) {
+            primitiveTable.accumulate(key, item);
+            return true;
+        }
+        if (offHeapTable != null) {
+            aggrOp.accumulateFn(ordinal).accept(offHeapTable.load(key), item);
+            offHeapTable.store();
+            return true;
+        }
         A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
         aggrOp.accumulateFn(ordinal).accept(acc, item);
+        if (spilledRuns != null && keyToAcc.size() >= spillSettings.threshold()) {
+            spilledRuns.spill(keyToAcc);
+        }
         return true;
     }
 
     @Override
     public boolean complete() {
+        if (resultTraverser == null) {
+            resultTraverser = uncheckCall(this::createResultTraverser);
+        }
         return emitFromTraverser(resultTraverser);
     }
+
+    @Override
+    public void close() throws Exception {
+        if (spilledRuns != null) {
+            spilledRuns.dispose();
+        }
+        if (offHeapTable != null) {
+            offHeapTable.dispose();
+        }
+    }
+
+    private Traverser<OUT> createResultTraverser() throws IOException {
+        if (primitiveTable != null) {
+            return primitiveTable.entries()
+                                 .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue())));
+        }
+        if (offHeapTable != null) {
+            return offHeapTable.entries()
+                               .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue())));
+        }
+        if (spilledRuns == null || spilledRuns.runCount() == 0) {
+            return traverseStream(keyToAcc
+                    .entrySet().stream()
+                    .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue()))));
+        }
+        if (!keyToAcc.isEmpty()) {
+            spilledRuns.spill(keyToAcc);
+        }
+        return spilledRuns.merge(aggrOp.combineFn())
+                          .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue())));
+    }
 }
@@ -16,44 +16,51 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.instance.HazelcastInstanceImpl;
 import com.hazelcast.jet.core.AbstractProcessor;
 
 import javax.annotation.Nonnull;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Function;
 
 /**
  * Implements the "collector" pipeline in a hash join transformation. This
  * pipeline collects the entire joined stream into a hashmap and then
  * broadcasts it to all local second-pipeline processors.
+ * <p>
+ * If {@code offHeap} is set, it collects the stream into a {@link
+ * SerializedLookupTable} instead. All the local processors share the
+ * single table, so the member keeps one serialized copy of the joined
+ * stream outside of the Java heap.
  */
 public class HashJoinCollectP<K, E, V> extends AbstractProcessor {
-    private final Map<K, V> map = new HashMap<>();
     @Nonnull private final Function<E, K> keyFn;
     @Nonnull private final Function<E, V> projectFn;
+    private final boolean offHeap;
+    private LookupTableBuilder<K, E, V> builder;
 
-    public HashJoinCollectP(@Nonnull Function<E, K> keyFn, @Nonnull Function<E, V> projectFn) {
+    public HashJoinCollectP(@Nonnull Function<E, K> keyFn, @Nonnull Function<E, V> projectFn, boolean offHeap) {
         this.keyFn = keyFn;
         this.projectFn = projectFn;
+        this.offHeap = offHeap;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        // without an instance (in TestProcessorContext) we fall back to the hashmap
+        builder = new LookupTableBuilder<>(keyFn, projectFn, offHeap && context.jetInstance() != null
+                ? ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService()
+                : null);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess0(@Nonnull Object item) {
-        E e = (E) item;
-        K key = keyFn.apply(e);
-        V value = projectFn.apply(e);
-        V previous = map.put(key, value);
-        if (previous != null) {
-            throw new IllegalStateException(String.format("Duplicate values for key '%s': '%s' and '%s'",
-                    key, previous, value));
-        }
+        builder.add((E) item);
         return true;
     }
 
     @Override
     public boolean complete() {
-        return tryEmit(map);
+        return tryEmit(builder.table());
     }
 }
@@ -38,11 +38,12 @@ import static java.util.Collections.singletonList;
 /**
  * Implements the {@linkplain HashJoinTransform
  * hash-join transform}. On all edges except 0 it will receive a single
- * item &mdash; the lookup table for that edge (a {@code Map}) and then it
- * will process edge 0 by joining to each item the data from lookup tables.
- * It will extract a separate key for each of the lookup tables using the
- * functions supplied in the {@code keyFns} argument. Element 0 in that list
- * corresponds to the lookup table received at ordinal 1 and so on.
+ * item &mdash; the lookup table for that edge (a {@code Map} or a {@link
+ * SerializedLookupTable}) and then it will process edge 0 by joining to
+ * each item the data from lookup tables. It will extract a separate key
+ * for each of the lookup tables using the functions supplied in the {@code
+ * keyFns} argument. Element 0 in that list corresponds to the lookup table
+ * received at ordinal 1 and so on.
  * <p>
  * The {@code tags} is used to populate the output items. It can be {@code
  * null}, in which case {@code keyFns} must have either one or two elements,
@@ -61,11 +62,13 @@ import static java.util.Collections.singletonList;
 public class HashJoinP<E0> extends AbstractProcessor {
 
     private final List<Function<E0, Object>> keyFns;
-    private final List<Map<Object, Object>> lookupTables;
+    private final List<Object> lookupTables;
     private final List<Tag> tags;
     private final BiFunction mapToOutputBiFn;
     private final TriFunction mapToOutputTriFn;
     private boolean ordinal0consumed;
+    // the number of processors that share a SerializedLookupTable
+    private int lookupTableUsers = 1;
 
     public HashJoinP(
             @Nonnull List<Function<E0, Object>> keyFns,
@@ -81,35 +84,65 @@ public class HashJoinP<E0> extends AbstractProcessor {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
+    protected void init(@Nonnull Context context) {
+        // the collector broadcasts its table to all local processors
+        lookupTableUsers = context.localParallelism();
+    }
+
+    @Override
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
         assert !ordinal0consumed : "Edge 0 must have a lower priority than all other edges";
-        lookupTables.set(ordinal, (Map) item);
+        setLookupTable(ordinal, item);
         return true;
     }
 
+    void setLookupTable(int ordinal, @Nonnull Object table) {
+        lookupTables.set(ordinal, table);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess0(@Nonnull Object item) {
-        E0 e0 = (E0) item;
         ordinal0consumed = true;
+        Object result = join((E0) item);
+        return result == null || tryEmit(result);
+    }
+
+    /**
+     * Joins the item to the items from the current lookup tables and
+     * returns the output item, {@code null} if there's none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    Object join(@Nonnull E0 e0) {
         if (tags.isEmpty()) {
-            Object result = keyFns.size() == 2
+            return keyFns.size() == 2
                     ? mapToOutputBiFn.apply(e0, lookupJoined(1, e0))
                     : mapToOutputTriFn.apply(e0, lookupJoined(1, e0), lookupJoined(2, e0));
-            return result == null || tryEmit(result);
         }
         ItemsByTag map = new ItemsByTag();
         for (int i = 1; i < keyFns.size(); i++) {
             map.put(tags.get(i), lookupJoined(i, e0));
         }
-        Object result = mapToOutputBiFn.apply(e0, map);
-        return result == null || tryEmit(result);
+        return mapToOutputBiFn.apply(e0, map);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Object table : lookupTables) {
+            if (table instanceof SerializedLookupTable) {
+                ((SerializedLookupTable) table).release(lookupTableUsers);
+            }
+        }
     }
 
     @Nullable
     private Object lookupJoined(int ordinal, E0 item) {
-        return lookupTables.get(ordinal).get(keyFns.get(ordinal).apply(item));
+        Object table = lookupTables.get(ordinal);
+        Object key = keyFns.get(ordinal).apply(item);
+        return table instanceof SerializedLookupTable
+                ? ((SerializedLookupTable) table).get(key)
+                : ((Map) table).get(key);
     }
 
     private static <E> List<E> prependNull(List<E> in) {
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Collects the items of the joined stream of a hash-join into a lookup
+ * table: either a {@code HashMap} or, if a serialization service is given,
+ * a {@link SerializedLookupTable}. {@link HashJoinP} accepts both.
+ *
+ * @param <K> type of the join key
+ * @param <E> type of the joined item
+ * @param <V> type of the projected item
+ */
+final class LookupTableBuilder<K, E, V> {
+
+    private final Function<E, K> keyFn;
+    private final Function<E, V> projectFn;
+    private final Map<K, V> map;
+    private final SerializedLookupTable<K, V> serializedTable;
+
+    /**
+     * @param offHeapSerializationService the serialization service for the
+     *      off-heap table or {@code null} for an on-heap map
+     */
+    LookupTableBuilder(
+            @Nonnull Function<E, K> keyFn,
+            @Nonnull Function<E, V> projectFn,
+            @Nullable InternalSerializationService offHeapSerializationService
+    ) {
+        this.keyFn = keyFn;
+        this.projectFn = projectFn;
+        if (offHeapSerializationService != null) {
+            this.map = null;
+            this.serializedTable = new SerializedLookupTable<>(offHeapSerializationService);
+        } else {
+            this.map = new HashMap<>();
+            this.serializedTable = null;
+        }
+    }
+
+    void add(@Nonnull E item) {
+        K key = keyFn.apply(item);
+        V value = projectFn.apply(item);
+        if (serializedTable != null) {
+            serializedTable.put(key, value);
+            return;
+        }
+        V previous = map.put(key, value);
+        if (previous != null) {
+            throw new IllegalStateException(String.format("Duplicate values for key '%s': '%s' and '%s'",
+                    key, previous, value));
+        }
+    }
+
+    /**
+     * Tells whether the key was already added.
+     */
+    boolean containsKey(@Nullable Object key) {
+        return serializedTable != null ? serializedTable.containsKey(key) : map.containsKey(key);
+    }
+
+    int size() {
+        return serializedTable != null ? serializedTable.size() : map.size();
+    }
+
+    /**
+     * Returns the lookup table, a {@code Map} or a {@code
+     * SerializedLookupTable}.
+     */
+    @Nonnull
+    Object table() {
+        return map != null ? map : serializedTable;
+    }
+}
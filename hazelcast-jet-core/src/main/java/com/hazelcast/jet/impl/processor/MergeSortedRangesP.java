@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Watermark;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+
+/**
+ * The last vertex of a distributed sort. Receives the sorted ranges from
+ * all {@link SortP} processors and emits their items in the order of the
+ * ranges. The items of one range come from one processor and are already
+ * sorted. A {@link SortP} emits a watermark with the range index before
+ * each range, so the coalesced watermark tells that the items of all the
+ * lower ranges were received: the processor emits them and keeps only the
+ * ranges still in progress.
+ * <p>
+ * The watermarks aren't forwarded.
+ *
+ * @param <T> type of the item
+ */
+public class MergeSortedRangesP<T> extends AbstractProcessor {
+
+    private final TreeMap<Integer, List<T>> ranges = new TreeMap<>();
+    private Traverser<T> completedRanges;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        Entry<Integer, T> e = (Entry<Integer, T>) item;
+        ranges.computeIfAbsent(e.getKey(), x -> new ArrayList<>()).add(e.getValue());
+        return true;
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
+        return emitRangesBefore(watermark.timestamp());
+    }
+
+    @Override
+    public boolean complete() {
+        return emitRangesBefore(Long.MAX_VALUE);
+    }
+
+    private boolean emitRangesBefore(long limit) {
+        if (completedRanges == null) {
+            Traverser<List<T>> lists = () -> {
+                Entry<Integer, List<T>> first = ranges.firstEntry();
+                return first != null && first.getKey() < limit ? ranges.pollFirstEntry().getValue() : null;
+            };
+            completedRanges = lists.flatMap(list -> traverseIterable(list));
+        }
+        if (!emitFromTraverser(completedRanges)) {
+            return false;
+        }
+        completedRanges = null;
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.util.SerializedKeyHashTable;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * Keeps the accumulators of an aggregate operation with a {@linkplain
+ * AggregateOperation#fixedSizeCodec() fixed-size codec} in a {@link
+ * SerializedKeyHashTable}. The accumulator of a key is {@linkplain #load
+ * loaded} into an object shared by all keys, updated by the caller and
+ * {@linkplain #store() stored} back.
+ *
+ * @param <K> type of the key
+ * @param <A> type of the accumulator
+ */
+final class OffHeapAccumulatorTable<K, A> {
+
+    private static final int INITIAL_SIZE = 1 << 10;
+
+    private final InternalSerializationService serializationService;
+    private final FixedSizeAccumulatorCodec<A> codec;
+    private final DistributedSupplier<A> createFn;
+    private final SerializedKeyHashTable table;
+    private final A sharedAcc;
+    private int loadedSlot = -1;
+
+    OffHeapAccumulatorTable(
+            @Nonnull AggregateOperation<A, ?> aggrOp,
+            @Nonnull InternalSerializationService serializationService
+    ) {
+        this.serializationService = serializationService;
+        this.codec = aggrOp.fixedSizeCodec();
+        assert codec != null : "aggregate operation has no fixed-size codec";
+        this.createFn = aggrOp.createFn();
+        this.sharedAcc = createFn.get();
+        byte[] initialValue = new byte[codec.size()];
+        codec.write(createFn.get(), ByteBuffer.wrap(initialValue).order(ByteOrder.nativeOrder()), 0);
+        this.table = new SerializedKeyHashTable(initialValue, INITIAL_SIZE);
+    }
+
+    /**
+     * Returns the accumulator of the key, creating it if absent. The returned
+     * object is only valid until the next call to this method, the changes
+     * to it must be saved with {@link #store()}.
+     */
+    @Nonnull
+    A load(@Nonnull K key) {
+        loadedSlot = table.findOrInsert(serializationService.toData(key).toByteArray());
+        codec.read(table.values(), table.valueOffset(loadedSlot), sharedAcc);
+        return sharedAcc;
+    }
+
+    /**
+     * Saves the accumulator returned by the last {@link #load} call.
+     */
+    void store() {
+        codec.write(sharedAcc, table.values(), table.valueOffset(loadedSlot));
+    }
+
+    /**
+     * Sets the accumulator of the key.
+     */
+    void put(@Nonnull K key, @Nonnull A acc) {
+        int slot = table.findOrInsert(serializationService.toData(key).toByteArray());
+        codec.write(acc, table.values(), table.valueOffset(slot));
+    }
+
+    /**
+     * Returns a new accumulator object with the value of the key or {@code
+     * null}, if the key is absent.
+     */
+    @Nullable
+    A get(@Nonnull K key) {
+        int slot = table.find(serializationService.toData(key).toByteArray());
+        if (slot < 0) {
+            return null;
+        }
+        A acc = createFn.get();
+        codec.read(table.values(), table.valueOffset(slot), acc);
+        return acc;
+    }
+
+    int size() {
+        return table.size();
+    }
+
+    /**
+     * Returns a traverser over all keys, each with its own accumulator
+     * object. No keys can be added while the traverser is in use.
+     */
+    @Nonnull
+    Traverser<Entry<K, A>> entries() {
+        return new Traverser<Entry<K, A>>() {
+            private int slot;
+
+            @Override
+            public Entry<K, A> next() {
+                for (; slot < table.capacity(); slot++) {
+                    if (table.isOccupied(slot)) {
+                        K key = serializationService.toObject(new HeapData(table.key(slot)));
+                        A acc = createFn.get();
+                        codec.read(table.values(), table.valueOffset(slot), acc);
+                        slot++;
+                        return entry(key, acc);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    void clear() {
+        table.clear();
+        loadedSlot = -1;
+    }
+
+    /**
+     * Releases the native memory of the table. The table must not be used
+     * after this call.
+     */
+    void dispose() {
+        table.dispose();
+        loadedSlot = -1;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.datamodel.Tag;
+import com.hazelcast.jet.impl.pipeline.transform.HashJoinTransform;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.hazelcast.jet.Traversers.traverseStream;
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static java.util.Collections.singletonList;
+
+/**
+ * Implements the partitioned variant of the {@linkplain HashJoinTransform
+ * hash-join transform} with one joined stream. Both streams come over
+ * edges partitioned by the join key, so the processor only sees the keys
+ * of its partitions. Instead of receiving a complete lookup table, it
+ * collects its part of the joined stream from the higher-priority edge 1
+ * into its own table and then joins the items from edge 0 as {@link
+ * HashJoinP} does.
+ * <p>
+ * If the {@link SpillSettings} passed to the constructor are enabled and
+ * the {@linkplain InstanceConfig#setJoinSpillThreshold join spill
+ * threshold} is reached, the remaining joined items go to {@link
+ * SpilledJoinBuckets}. A primary item whose key isn't in memory might
+ * match one of them, so it's spilled too and joined in {@link
+ * #complete()}, one bucket at a time. The processor is then
+ * non-cooperative, because it writes and reads the bucket files.
+ */
+public class PartitionedHashJoinP<E0> extends HashJoinP<E0> {
+
+    private final Function<E0, Object> leftKeyFn;
+    private final Function<Object, Object> rightKeyFn;
+    private final Function<Object, Object> rightProjectFn;
+    private final boolean offHeap;
+    private final SpillSettings spillSettings;
+    private LookupTableBuilder<Object, Object, Object> builder;
+
+    private InternalSerializationService serializationService;
+    private SpilledJoinBuckets spilled;
+    private Traverser<Object> spilledOutputTraverser;
+
+    public PartitionedHashJoinP(
+            @Nonnull Function<E0, Object> leftKeyFn,
+            @Nonnull Function<Object, Object> rightKeyFn,
+            @Nonnull Function<Object, Object> rightProjectFn,
+            boolean offHeap,
+            @Nonnull SpillSettings spillSettings,
+            @Nonnull List<Tag> tags,
+            @Nullable BiFunction mapToOutputBiFn
+    ) {
+        super(singletonList(leftKeyFn), tags, mapToOutputBiFn, null);
+        this.leftKeyFn = leftKeyFn;
+        this.rightKeyFn = rightKeyFn;
+        this.rightProjectFn = rightProjectFn;
+        this.offHeap = offHeap;
+        this.spillSettings = spillSettings;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        if (context.jetInstance() == null) {
+            // TestProcessorContext without an instance
+            builder = new LookupTableBuilder<>(rightKeyFn, rightProjectFn, null);
+            return;
+        }
+        serializationService =
+                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+        builder = new LookupTableBuilder<>(rightKeyFn, rightProjectFn, offHeap ? serializationService : null);
+    }
+
+    @Override
+    public boolean isCooperative() {
+        return !spillSettings.isEnabled();
+    }
+
+    @Override
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (spilled == null && spillSettings.isEnabled() && builder.size() >= spillSettings.threshold()) {
+            spilled = new SpilledJoinBuckets(spillSettings.directory(), serializationService);
+        }
+        Object key = spilled != null ? rightKeyFn.apply(item) : null;
+        if (key == null) {
+            builder.add(item);
+            return true;
+        }
+        Object value = rightProjectFn.apply(item);
+        if (builder.containsKey(key)) {
+            throw new IllegalStateException(String.format("Duplicate values for key '%s': '%s'", key, value));
+        }
+        uncheckRun(() -> spilled.addJoined(key, value));
+        return true;
+    }
+
+    @Override
+    public boolean completeEdge(int ordinal) {
+        if (ordinal != 0) {
+            setLookupTable(ordinal, builder.table());
+            if (spilled != null) {
+                uncheckRun(spilled::finishJoined);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        if (spilled != null) {
+            Object key = leftKeyFn.apply((E0) item);
+            if (key != null && !builder.containsKey(key)) {
+                uncheckRun(() -> spilled.addPrimary(key, item));
+                return true;
+            }
+        }
+        return super.tryProcess0(item);
+    }
+
+    @Override
+    public boolean complete() {
+        if (spilled == null) {
+            return true;
+        }
+        if (spilledOutputTraverser == null) {
+            uncheckRun(spilled::finishPrimary);
+            spilledOutputTraverser = traverseStream(IntStream.range(0, SpilledJoinBuckets.BUCKET_COUNT).boxed())
+                    .flatMap(this::joinSpilledBucket);
+        }
+        return emitFromTraverser(spilledOutputTraverser);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (spilled != null) {
+            spilled.dispose();
+        }
+        // the table isn't shared with other processors
+        if (builder != null && builder.table() instanceof SerializedLookupTable) {
+            ((SerializedLookupTable) builder.table()).release(1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Traverser<Object> joinSpilledBucket(int bucket) {
+        setLookupTable(1, uncheckCall(() -> spilled.loadJoined(bucket)));
+        return uncheckCall(() -> spilled.primaryItems(bucket)).map(item -> join((E0) item));
+    }
+}
@@ -86,9 +86,14 @@ public final class PeekWrappedP<T> extends ProcessorWrapper {
                             c.vertexName(),
                             c.globalProcessorIndex())
             );
-            context = new ProcCtx(c.jetInstance(), c.jobId(), c.executionId(), c.jobConfig(),
+            ProcCtx newContext = new ProcCtx(c.jetInstance(), c.jobId(), c.executionId(), c.jobConfig(),
                     newLogger, c.vertexName(), c.localProcessorIndex(), c.globalProcessorIndex(), c.processingGuarantee(),
-                    c.localParallelism(), c.memberIndex(), c.memberCount());
+                    c.localParallelism(), c.memberIndex(), c.memberCount(), c.snapshotContext());
+            super.init(outbox, newContext);
+            if (newContext.savesSnapshotDeltas()) {
+                c.setSavesSnapshotDeltas();
+            }
+            return;
         }
         super.init(outbox, context);
     }
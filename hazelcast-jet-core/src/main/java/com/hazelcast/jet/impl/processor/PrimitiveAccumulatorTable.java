@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.aggregate.PrimitiveAccumulateFn;
+import com.hazelcast.jet.impl.aggregate.PrimitiveAccumulateFn.Kind;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.aggregate.PrimitiveAccumulateFn.incrementCount;
+
+/**
+ * Keeps the accumulators of an aggregate operation with a {@linkplain
+ * PrimitiveAccumulateFn primitive accumulate function} as primitive values
+ * in arrays. Each key gets a dense ID when it's first seen, the ID is the
+ * index into the value arrays. There's no accumulator object per key and
+ * the accumulation is a {@code switch} over the kind of the operation
+ * instead of a call to the accumulate function.
+ * <p>
+ * The key-to-ID dictionary is an open-addressing hash table with linear
+ * probing. Keys can't be removed individually.
+ *
+ * @param <K> type of the key
+ * @param <A> type of the accumulator
+ */
+final class PrimitiveAccumulatorTable<K, A> {
+
+    private static final int MIN_ID_CAPACITY = 16;
+    private static final double LOAD_FACTOR = 0.6;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int HASH_SHIFT = 16;
+
+    private final PrimitiveAccumulateFn<Object> accumulateFn;
+    private final Kind kind;
+    private final DistributedSupplier<A> createFn;
+
+    // ID + 1 of the key hashed to the slot, 0 means an empty slot
+    private int[] slots;
+    private Object[] keys;
+    private int[] hashes;
+    private long[] longs;
+    // only for AVERAGING_LONG
+    private long[] longs2;
+    // only for SUMMING_DOUBLE and AVERAGING_DOUBLE
+    private double[] doubles;
+    private int size;
+
+    private PrimitiveAccumulatorTable(
+            @Nonnull PrimitiveAccumulateFn<Object> accumulateFn,
+            @Nonnull DistributedSupplier<A> createFn
+    ) {
+        this.accumulateFn = accumulateFn;
+        this.kind = accumulateFn.kind();
+        this.createFn = createFn;
+        allocate(MIN_ID_CAPACITY);
+    }
+
+    /**
+     * Returns a new table for the aggregate operation or {@code null}, if the
+     * operation doesn't have a primitive accumulate function.
+     */
+    @Nullable
+    static <K, A> PrimitiveAccumulatorTable<K, A> create(@Nonnull AggregateOperation<A, ?> aggrOp) {
+        PrimitiveAccumulateFn<Object> accumulateFn = PrimitiveAccumulateFn.of(aggrOp);
+        return accumulateFn != null ? new PrimitiveAccumulatorTable<>(accumulateFn, aggrOp.createFn()) : null;
+    }
+
+    /**
+     * Accumulates the item into the values of the key.
+     */
+    void accumulate(K key, @Nonnull Object item) {
+        int id = idOf(key);
+        switch (kind) {
+            case COUNTING:
+                longs[id] = incrementCount(longs[id]);
+                break;
+            case SUMMING_LONG:
+                longs[id] = Math.addExact(longs[id], accumulateFn.longValue(item));
+                break;
+            case SUMMING_DOUBLE:
+                doubles[id] += accumulateFn.doubleValue(item);
+                break;
+            case AVERAGING_LONG:
+                longs[id] = incrementCount(longs[id]);
+                longs2[id] = Math.addExact(longs2[id], accumulateFn.longValue(item));
+                break;
+            case AVERAGING_DOUBLE:
+                longs[id] = incrementCount(longs[id]);
+                doubles[id] += accumulateFn.doubleValue(item);
+                break;
+            default:
+                throw new AssertionError("Unknown kind: " + kind);
+        }
+    }
+
+    /**
+     * Returns the number of keys, the valid IDs are from 0 to {@code size() - 1}.
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    K key(int id) {
+        return (K) keys[id];
+    }
+
+    /**
+     * Combines the values of the key with the given ID into the accumulator.
+     */
+    void combineInto(int id, @Nonnull A acc) {
+        accumulateFn.combineInto(acc, longs[id],
+                longs2 != null ? longs2[id] : 0,
+                doubles != null ? doubles[id] : 0);
+    }
+
+    /**
+     * Returns a new accumulator with the values of the key with the given ID.
+     */
+    @Nonnull
+    A accumulator(int id) {
+        A acc = createFn.get();
+        combineInto(id, acc);
+        return acc;
+    }
+
+    /**
+     * Returns a traverser over all keys in the order they were added, each
+     * with its own accumulator object. No keys can be added while the
+     * traverser is in use.
+     */
+    @Nonnull
+    Traverser<Entry<K, A>> entries() {
+        return new Traverser<Entry<K, A>>() {
+            private int id;
+
+            @Override
+            public Entry<K, A> next() {
+                if (id == size) {
+                    return null;
+                }
+                Entry<K, A> e = entry(key(id), accumulator(id));
+                id++;
+                return e;
+            }
+        };
+    }
+
+    void clear() {
+        size = 0;
+        allocate(MIN_ID_CAPACITY);
+    }
+
+    private int idOf(Object key) {
+        int hash = hash(key);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                if (size == keys.length) {
+                    grow();
+                    return idOf(key);
+                }
+                id = size++;
+                slots[slot] = id + 1;
+                keys[id] = key;
+                hashes[id] = hash;
+                return id;
+            }
+            if (hashes[id] == hash && Objects.equals(keys[id], key)) {
+                return id;
+            }
+        }
+    }
+
+    private void grow() {
+        int idCapacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, idCapacity);
+        hashes = Arrays.copyOf(hashes, idCapacity);
+        longs = Arrays.copyOf(longs, idCapacity);
+        if (longs2 != null) {
+            longs2 = Arrays.copyOf(longs2, idCapacity);
+        }
+        if (doubles != null) {
+            doubles = Arrays.copyOf(doubles, idCapacity);
+        }
+        slots = new int[slotCount(idCapacity)];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private void allocate(int idCapacity) {
+        slots = new int[slotCount(idCapacity)];
+        keys = new Object[idCapacity];
+        hashes = new int[idCapacity];
+        longs = new long[idCapacity];
+        longs2 = kind == Kind.AVERAGING_LONG ? new long[idCapacity] : null;
+        doubles = kind == Kind.SUMMING_DOUBLE || kind == Kind.AVERAGING_DOUBLE ? new double[idCapacity] : null;
+    }
+
+    private static int slotCount(int idCapacity) {
+        // the smallest power of two that keeps the load under LOAD_FACTOR
+        return Integer.highestOneBit((int) (idCapacity / LOAD_FACTOR)) << 1;
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key) * HASH_MULTIPLIER;
+        return h ^ (h >>> HASH_SHIFT);
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.instance.HazelcastInstanceImpl;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.core.AbstractProcessor;
@@ -41,20 +42,33 @@ import static com.hazelcast.jet.Traversers.traverseIterable;
  */
 public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor {
     private final FlatMapper<T, OUT> flatMapper;
+    private final AggregateOperation1<? super T, A, ? extends R> aggrOp;
 
     private final Map<K, A> keyToAcc = new HashMap<>();
+    private final DirtyKeys<K> dirtyKeys = new DirtyKeys<>();
     private final ResettableSingletonTraverser<OUT> outputTraverser = new ResettableSingletonTraverser<>();
-    private Traverser<Entry<K, A>> snapshotTraverser;
+    // null if the accumulators are on-heap
+    private OffHeapAccumulatorTable<K, A> offHeapTable;
+    private Traverser<? extends Entry<K, ?>> snapshotTraverser;
 
     public RollingAggregateP(
             @Nonnull DistributedFunction<? super T, ? extends K> keyFn,
             @Nonnull AggregateOperation1<? super T, A, ? extends R> aggrOp,
             @Nonnull DistributedTriFunction<? super T, ? super K, ? super R, ? extends OUT> mapToOutputFn
     ) {
+        this.aggrOp = aggrOp;
         this.flatMapper = flatMapper(item -> {
             K key = keyFn.apply(item);
-            A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
-            aggrOp.accumulateFn().accept(acc, item);
+            A acc;
+            if (offHeapTable != null) {
+                acc = offHeapTable.load(key);
+                aggrOp.accumulateFn().accept(acc, item);
+                offHeapTable.store();
+            } else {
+                acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
+                aggrOp.accumulateFn().accept(acc, item);
+            }
+            dirtyKeys.add(key);
             R aggResult = aggrOp.exportFn().apply(acc);
             OUT output = mapToOutputFn.apply(item, key, aggResult);
             if (output != null) {
@@ -64,6 +78,16 @@ public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor
         });
     }
 
+    @Override
+    protected void init(@Nonnull Context context) {
+        dirtyKeys.init(context);
+        // the context of TestSupport may have no instance
+        if (aggrOp.fixedSizeCodec() != null && context.jetInstance() != null) {
+            offHeapTable = new OffHeapAccumulatorTable<>(aggrOp,
+                    ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService());
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
@@ -73,15 +97,34 @@ public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor
     @Override
     public boolean saveToSnapshot() {
         if (snapshotTraverser == null) {
-            snapshotTraverser = traverseIterable(keyToAcc.entrySet())
-                    .onFirstNull(() -> snapshotTraverser = null);
+            Traverser<? extends Entry<K, ?>> entries;
+            if (dirtyKeys.isIncrementalSnapshot()) {
+                // the keys are never removed, there are no tombstones
+                entries = dirtyKeys.traverseDelta(offHeapTable != null ? offHeapTable::get : keyToAcc::get);
+            } else {
+                dirtyKeys.clear();
+                entries = offHeapTable != null ? offHeapTable.entries() : traverseIterable(keyToAcc.entrySet());
+            }
+            snapshotTraverser = entries.onFirstNull(() -> snapshotTraverser = null);
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
-        @SuppressWarnings("unchecked") A old = keyToAcc.put((K) key, (A) value);
+        if (offHeapTable != null) {
+            offHeapTable.put((K) key, (A) value);
+            return;
+        }
+        A old = keyToAcc.put((K) key, (A) value);
         assert old == null : "Duplicate key '" + key + '\'';
     }
+
+    @Override
+    public void close() {
+        if (offHeapTable != null) {
+            offHeapTable.dispose();
+        }
+    }
 }
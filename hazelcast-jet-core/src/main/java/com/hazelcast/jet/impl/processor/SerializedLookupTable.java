@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.impl.util.SerializedKeyHashTable;
+import com.hazelcast.nio.serialization.Data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.jet.impl.util.Util.freeDirectBuffer;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+
+/**
+ * The lookup table of a hash-join kept in off-heap memory. Both the keys
+ * and the values are stored in the serialized form: the keys in a {@link
+ * SerializedKeyHashTable} and the values in direct buffers of {@value
+ * #PAGE_SIZE} bytes, the table maps the key to the address and the length
+ * of its value. A lookup serializes the key and deserializes only the
+ * matching value.
+ * <p>
+ * The keys are compared in the serialized form, so a key used for the
+ * lookup must serialize to the same bytes as the equal key in the table.
+ * <p>
+ * The table is filled by one thread. After it's safely published, any
+ * number of threads can look up values concurrently. Each of them calls
+ * {@link #release} when done, the last call frees the native memory.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+final class SerializedLookupTable<K, V> {
+
+    static final int PAGE_SIZE = 1 << 20;
+
+    private static final int ADDRESS_OFFSET = 0;
+    private static final int LENGTH_OFFSET = LONG_SIZE_IN_BYTES;
+    private static final int VALUE_SIZE = LENGTH_OFFSET + INT_SIZE_IN_BYTES;
+    private static final int INITIAL_SIZE = 1 << 10;
+    private static final long NO_ADDRESS = -1L;
+    // the length of a null value
+    private static final int NULL_LENGTH = -1;
+    private static final int PAGE_SHIFT = 32;
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+
+    private final InternalSerializationService serializationService;
+    private final SerializedKeyHashTable table;
+    private final List<ByteBuffer> valuePages = new ArrayList<>();
+    private long valueBytes;
+    private final AtomicInteger releaseCount = new AtomicInteger();
+
+    SerializedLookupTable(@Nonnull InternalSerializationService serializationService) {
+        this.serializationService = serializationService;
+        byte[] initialValue = new byte[VALUE_SIZE];
+        ByteBuffer.wrap(initialValue).order(ByteOrder.nativeOrder()).putLong(ADDRESS_OFFSET, NO_ADDRESS);
+        this.table = new SerializedKeyHashTable(initialValue, INITIAL_SIZE);
+    }
+
+    /**
+     * Adds the value for the key.
+     *
+     * @throws IllegalStateException if the key is already in the table
+     * @throws IllegalArgumentException if the key is null
+     */
+    void put(@Nonnull K key, @Nullable V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("The off-heap lookup table doesn't support null keys");
+        }
+        int slot = table.findOrInsert(serializationService.toData(key).toByteArray());
+        ByteBuffer slots = table.values();
+        int offset = table.valueOffset(slot);
+        if (slots.getLong(offset + ADDRESS_OFFSET) != NO_ADDRESS) {
+            throw new IllegalStateException(String.format("Duplicate values for key '%s': '%s' and '%s'",
+                    key, readValue(slots, offset), value));
+        }
+        Data data = serializationService.toData(value);
+        if (data == null) {
+            slots.putLong(offset + ADDRESS_OFFSET, 0);
+            slots.putInt(offset + LENGTH_OFFSET, NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = data.toByteArray();
+        slots.putLong(offset + ADDRESS_OFFSET, storeValue(bytes));
+        slots.putInt(offset + LENGTH_OFFSET, bytes.length);
+        valueBytes += bytes.length;
+    }
+
+    /**
+     * Returns the value for the key or {@code null}, if the key isn't in
+     * the table.
+     */
+    @Nullable
+    V get(@Nullable Object key) {
+        if (key == null) {
+            return null;
+        }
+        int slot = table.find(serializationService.toData(key).toByteArray());
+        return slot < 0 ? null : readValue(table.values(), table.valueOffset(slot));
+    }
+
+    /**
+     * Tells whether the key is in the table.
+     */
+    boolean containsKey(@Nullable Object key) {
+        return key != null && table.find(serializationService.toData(key).toByteArray()) >= 0;
+    }
+
+    int size() {
+        return table.size();
+    }
+
+    /**
+     * Returns the total size of the serialized values.
+     */
+    long valueBytes() {
+        return valueBytes;
+    }
+
+    /**
+     * Called by each of the {@code userCount} processors sharing the table
+     * when it no longer uses it. The last call frees the native memory, the
+     * table must not be used after it.
+     */
+    void release(int userCount) {
+        if (releaseCount.incrementAndGet() != userCount) {
+            return;
+        }
+        table.dispose();
+        for (ByteBuffer page : valuePages) {
+            freeDirectBuffer(page);
+        }
+        valuePages.clear();
+    }
+
+    private long storeValue(byte[] bytes) {
+        ByteBuffer page = valuePages.isEmpty() ? null : valuePages.get(valuePages.size() - 1);
+        if (page == null || page.remaining() < bytes.length) {
+            page = ByteBuffer.allocateDirect(Math.max(PAGE_SIZE, bytes.length));
+            valuePages.add(page);
+        }
+        long address = (long) (valuePages.size() - 1) << PAGE_SHIFT | page.position();
+        page.put(bytes);
+        return address;
+    }
+
+    private V readValue(ByteBuffer slots, int offset) {
+        int length = slots.getInt(offset + LENGTH_OFFSET);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        long address = slots.getLong(offset + ADDRESS_OFFSET);
+        // a duplicate doesn't share the position, so concurrent readers don't interfere
+        ByteBuffer page = valuePages.get((int) (address >>> PAGE_SHIFT)).duplicate();
+        page.position((int) (address & OFFSET_MASK));
+        byte[] bytes = new byte[length];
+        page.get(bytes);
+        return serializationService.toObject(new HeapData(bytes));
+    }
+}
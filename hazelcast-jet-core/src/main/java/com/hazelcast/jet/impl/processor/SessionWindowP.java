@@ -19,7 +19,6 @@ package com.hazelcast.jet.impl.processor;
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.Traverser;
-import com.hazelcast.jet.Traversers;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.AbstractProcessor;
@@ -37,22 +36,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
-import java.util.SortedMap;
 import java.util.StringJoiner;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
-import java.util.stream.Stream;
 
 import static com.hazelcast.jet.Traversers.traverseIterable;
-import static com.hazelcast.jet.Traversers.traverseStream;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
@@ -62,6 +55,7 @@ import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.logLateEvent;
 import static com.hazelcast.jet.impl.util.Util.toLocalDateTime;
 import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.System.arraycopy;
 import static java.util.Collections.emptyList;
@@ -79,10 +73,12 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
  */
 public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     private static final Watermark COMPLETING_WM = new Watermark(Long.MAX_VALUE);
+    private static final int DEADLINE_BUCKETS_PER_TIMEOUT = 16;
 
     // exposed for testing, to check for memory leaks
     final Map<K, Windows<A>> keyToWindows = new HashMap<>();
-    final SortedMap<Long, Set<K>> deadlineToKeys = new TreeMap<>();
+    final DeadlineIndex<K> deadlines;
+    final DirtyKeys<K> dirtyKeys = new DirtyKeys<>();
     long currentWatermark = Long.MIN_VALUE;
 
     private final long sessionTimeout;
@@ -140,6 +136,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         this.combineFn = requireNonNull(aggrOp.combineFn());
         this.mapToOutputFn = mapToOutputFn;
         this.sessionTimeout = sessionTimeout;
+        this.deadlines = new DeadlineIndex<>(sessionTimeout / DEADLINE_BUCKETS_PER_TIMEOUT);
         this.closedWindowFlatmapper = flatMapper(this::traverseClosedWindows);
     }
 
@@ -147,6 +144,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     protected void init(@Nonnull Context context) {
         processingGuarantee = context.processingGuarantee();
         lastTimeEarlyResultsEmitted = NANOSECONDS.toMillis(System.nanoTime());
+        dirtyKeys.init(context);
     }
 
     @Override
@@ -180,14 +178,15 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         addItem(ordinal,
                 keyToWindows.computeIfAbsent(key, newWindowsFunction),
                 key, timestamp, item);
+        dirtyKeys.add(key);
         return true;
     }
 
     @Override
     public boolean tryProcessWatermark(@Nonnull Watermark wm) {
         currentWatermark = wm.timestamp();
-        assert totalWindows.get() == deadlineToKeys.values().stream().mapToInt(Set::size).sum()
-                : "unexpected totalWindows. Expected=" + deadlineToKeys.values().stream().mapToInt(Set::size).sum()
+        assert totalWindows.get() == keyToWindows.values().stream().mapToInt(w -> w.size).sum()
+                : "unexpected totalWindows. Expected=" + keyToWindows.values().stream().mapToInt(w -> w.size).sum()
                 + ", actual=" + totalWindows.get();
         return closedWindowFlatmapper.tryProcess(wm);
     }
@@ -199,36 +198,49 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     }
 
     private Traverser<Object> traverseClosedWindows(Watermark wm) {
-        SortedMap<Long, Set<K>> windowsToClose = deadlineToKeys.headMap(wm.timestamp());
-
-        Stream<Object> closedWindows = windowsToClose
-                .values().stream()
-                .flatMap(Set::stream)
-                .map(key -> closeWindows(keyToWindows.get(key), key, wm.timestamp()))
-                .flatMap(List::stream);
-        Traverser<Object> result = traverseStream(closedWindows)
-                .onFirstNull(() -> {
-                    lazyAdd(totalWindows, -windowsToClose.values().stream().mapToInt(Set::size).sum());
-                    windowsToClose.clear();
-                });
+        Traverser<Object> result = traverseIterable(keysToClose(wm.timestamp()))
+                .flatMap(key -> traverseIterable(closeWindows(keyToWindows.get(key), key, wm.timestamp())));
         if (wm != COMPLETING_WM) {
             result = result.append(wm);
         }
         return result;
     }
 
-    private void addToDeadlines(K key, long deadline) {
-        if (deadlineToKeys.computeIfAbsent(deadline, x -> new HashSet<>()).add(key)) {
-            lazyIncrement(totalWindows);
+    /**
+     * Returns the keys that have a window ending before the watermark, in the
+     * order of the end of their first window. Only the first window of a
+     * key is indexed in {@link #deadlines}. When the entry of a key is
+     * polled, but its first window has since been extended, the key is
+     * indexed again with the new end.
+     */
+    private List<K> keysToClose(long wm) {
+        List<K> keys = new ArrayList<>();
+        while (deadlines.poll(wm)) {
+            K key = deadlines.polledKey();
+            long deadline = deadlines.polledDeadline();
+            Windows<A> w = keyToWindows.get(key);
+            if (w == null || w.indexedDeadline != deadline) {
+                // an outdated entry
+                continue;
+            }
+            w.indexedDeadline = Long.MAX_VALUE;
+            if (w.ends[0] == deadline) {
+                keys.add(key);
+            } else {
+                indexDeadline(key, w);
+            }
         }
+        return keys;
     }
 
-    private void removeFromDeadlines(K key, long deadline) {
-        Set<K> ks = deadlineToKeys.get(deadline);
-        ks.remove(key);
-        lazyAdd(totalWindows, -1);
-        if (ks.isEmpty()) {
-            deadlineToKeys.remove(deadline);
+    /**
+     * Indexes the end of the first window of the key, unless the key is
+     * already indexed with an earlier deadline.
+     */
+    private void indexDeadline(K key, Windows<A> w) {
+        if (w.ends[0] < w.indexedDeadline) {
+            w.indexedDeadline = w.ends[0];
+            deadlines.add(key, w.indexedDeadline);
         }
     }
 
@@ -237,11 +249,31 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     public boolean saveToSnapshot() {
         if (inComplete) {
             // If we are in completing phase, we can have a half-emitted item. Instead of finishing it and
-            // writing a snapshot, we finish the final items and save no state.
-            return complete();
+            // writing a snapshot, we finish the final items and save no state. An incremental snapshot
+            // must still remove the keys closed by complete().
+            if (!complete()) {
+                return false;
+            }
+            if (!dirtyKeys.isIncrementalSnapshot()) {
+                dirtyKeys.clear();
+                return true;
+            }
+            if (snapshotTraverser == null) {
+                snapshotTraverser = dirtyKeys.traverseDelta(keyToWindows::get)
+                                             .onFirstNull(() -> snapshotTraverser = null);
+            }
+            return emitFromTraverserToSnapshot(snapshotTraverser);
         }
         if (snapshotTraverser == null) {
-            snapshotTraverser = Traversers.<Object>traverseIterable(keyToWindows.entrySet())
+            Traverser entries;
+            if (dirtyKeys.isIncrementalSnapshot()) {
+                // the closed keys are missing in keyToWindows, they are saved with a tombstone
+                entries = dirtyKeys.traverseDelta(keyToWindows::get);
+            } else {
+                dirtyKeys.clear();
+                entries = traverseIterable(keyToWindows.entrySet());
+            }
+            snapshotTraverser = entries
                     .append(entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
                     .onFirstNull(() -> snapshotTraverser = null);
         }
@@ -273,13 +305,14 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
 
     @Override
     public boolean finishSnapshotRestore() {
-        assert deadlineToKeys.isEmpty();
-        // populate deadlineToKeys
+        assert deadlines.isEmpty();
+        // populate deadlines
+        long windowCount = 0;
         for (Entry<K, Windows<A>> entry : keyToWindows.entrySet()) {
-            for (long end : entry.getValue().ends) {
-                addToDeadlines(entry.getKey(), end);
-            }
+            indexDeadline(entry.getKey(), entry.getValue());
+            windowCount += entry.getValue().size;
         }
+        totalWindows.set(windowCount);
         currentWatermark = minRestoredCurrentWatermark;
         totalKeys.set(keyToWindows.size());
         logFine(getLogger(), "Restored currentWatermark from snapshot to: %s", currentWatermark);
@@ -320,8 +353,11 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
                 results.add(out);
             }
         }
+        lazyAdd(totalWindows, -i);
+        dirtyKeys.add(key);
         if (i != w.size) {
             w.removeHead(i);
+            indexDeadline(key, w);
         } else {
             keyToWindows.remove(key);
             totalKeys.set(keyToWindows.size());
@@ -361,22 +397,21 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             if (i + 1 == w.size || w.starts[i + 1] >= eventEnd) {
                 // the window `i + 1` doesn't overlap the event interval
                 w.starts[i] = min(w.starts[i], timestamp);
-                if (w.ends[i] < eventEnd) {
-                    removeFromDeadlines(key, w.ends[i]);
-                    w.ends[i] = eventEnd;
-                    addToDeadlines(key, w.ends[i]);
-                }
+                // the extended end isn't indexed, see keysToClose()
+                w.ends[i] = max(w.ends[i], eventEnd);
                 return w.accs[i];
             }
             // both `i` and `i + 1` windows overlap the event interval
-            removeFromDeadlines(key, w.ends[i]);
             w.ends[i] = w.ends[i + 1];
             combineFn.accept(w.accs[i], w.accs[i + 1]);
             w.removeWindow(i + 1);
+            lazyAdd(totalWindows, -1);
             return w.accs[i];
         }
-        addToDeadlines(key, eventEnd);
-        return insertWindow(w, i, timestamp, eventEnd);
+        A acc = insertWindow(w, i, timestamp, eventEnd);
+        lazyIncrement(totalWindows);
+        indexDeadline(key, w);
+        return acc;
     }
 
     private A insertWindow(Windows<A> w, int idx, long windowStart, long windowEnd) {
@@ -395,6 +430,9 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         private long[] ends = new long[2];
         @SuppressWarnings("unchecked")
         private A[] accs = (A[]) new Object[2];
+        // the deadline the key is indexed with in SessionWindowP.deadlines,
+        // Long.MAX_VALUE if none; not serialized
+        private long indexedDeadline = Long.MAX_VALUE;
 
         private void removeWindow(int idx) {
             size--;
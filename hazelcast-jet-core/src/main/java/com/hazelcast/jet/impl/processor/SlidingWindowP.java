@@ -29,6 +29,7 @@ import com.hazelcast.jet.core.SlidingWindowPolicy;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.function.KeyedWindowResultFunction;
+import com.hazelcast.jet.impl.aggregate.PrimitiveAccumulateFn;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
@@ -39,6 +40,7 @@ import com.hazelcast.util.function.LongFunction;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -72,6 +74,24 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 /**
  * Handles various setups of sliding and tumbling window aggregation.
  * See {@link Processors} for more documentation.
+ * <p>
+ * If the aggregate operation has a {@linkplain
+ * com.hazelcast.jet.impl.aggregate.PrimitiveAccumulateFn primitive
+ * accumulate function}, such as {@code counting()} or {@code
+ * summingLong()}, the items are accumulated into frames kept in {@link
+ * PrimitiveAccumulatorTable}s. The windows and the snapshot are computed
+ * straight from these tables. A frame restored from a snapshot is kept in
+ * {@link #tsToKeyToAcc} and the later items of its timestamp accumulate
+ * there, so each frame is in exactly one of the two maps.
+ * <p>
+ * If the aggregate operation has no {@code deductFn}, the sliding window
+ * is maintained using the two-stack algorithm: the frames entering the
+ * window are combined into the back aggregate, the frames leaving it are
+ * popped from the front stack, which holds the combination of each frame
+ * with all newer frames in the front. When the front stack is empty, it's
+ * rebuilt from the frames in the back. This way each frame is combined a
+ * constant number of times instead of once for every window containing
+ * it.
  *
  * @param <A> type of the frame accumulator object
  * @param <R> type of the finished result
@@ -80,11 +100,15 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
 
     // package-visible for testing
     final Long2ObjectHashMap<Map<K, A>> tsToKeyToAcc = new Long2ObjectHashMap<>();
+    // null if the aggregate operation isn't primitive
+    final Long2ObjectHashMap<PrimitiveAccumulatorTable<K, A>> tsToPrimitiveFrame;
     Map<K, A> slidingWindow;
     // Holds the sliding window while emitting early window results. We reuse the
     // slidingWindow field for early results so the code can be simpler.
     Map<K, A> slidingWindowBackup;
     long nextWinToEmit = Long.MIN_VALUE;
+    // the timestamps of the frames changed since the last snapshot
+    final DirtyKeys<Long> dirtyFrames = new DirtyKeys<>();
 
     @Nonnull
     private final SlidingWindowPolicy winPolicy;
@@ -108,6 +132,8 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     // extracted lambdas to reduce GC litter
     private final LongFunction<Map<K, A>> createMapPerTsFunction;
     private final Function<K, A> createAccFunction;
+    private final LongFunction<PrimitiveAccumulatorTable<K, A>> createPrimitiveFrameFunction;
+    private final Function<K, A> createWindowAccFunction;
 
     @Probe
     private final AtomicLong lateEventsDropped = new AtomicLong();
@@ -128,6 +154,15 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     // optimization that avoids a full scan over the entire keyset.
     private long topTs = Long.MIN_VALUE;
 
+    // The state of the two-stack aggregation, it covers the frames from
+    // twoStackOldestTs to twoStackNewestTs. The first element of frontStack
+    // combines the oldest frame and all frames in the front stack, the
+    // elements are never modified. Long.MIN_VALUE means there's no state.
+    private final ArrayDeque<Map<K, A>> frontStack = new ArrayDeque<>();
+    private Map<K, A> backAggregate = new HashMap<>();
+    private long twoStackOldestTs = Long.MIN_VALUE;
+    private long twoStackNewestTs = Long.MIN_VALUE;
+
     // values used temporarily during snapshot restore
     private long minRestoredNextWinToEmit = Long.MAX_VALUE;
     private long minRestoredFrameTs = Long.MAX_VALUE;
@@ -171,12 +206,21 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             lazyIncrement(totalKeysInFrames);
             return aggrOp.createFn().get();
         };
+        this.tsToPrimitiveFrame = PrimitiveAccumulateFn.of(aggrOp) != null ? new Long2ObjectHashMap<>() : null;
+        this.createPrimitiveFrameFunction = x -> {
+            lazyIncrement(totalFrames);
+            return PrimitiveAccumulatorTable.create(aggrOp);
+        };
+        this.createWindowAccFunction = k -> aggrOp.createFn().get();
     }
 
     @Override
     protected void init(@Nonnull Context context) {
         processingGuarantee = context.processingGuarantee();
         lastTimeEarlyResultsEmitted = NANOSECONDS.toMillis(System.nanoTime());
+        if (isLastStage) {
+            dirtyFrames.init(context);
+        }
     }
 
     @Override
@@ -205,7 +249,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                 winPolicy.frameSize())
             .boxed();
         earlyWinTraverser = traverseStream(earlyWinRange)
-                .flatMap(winEnd -> traverseIterable(computeWindow(winEnd).entrySet())
+                .flatMap(winEnd -> computeWindow(winEnd, true)
                         .map(e -> mapToOutputFn.apply(
                                 winEnd - winPolicy.windowSize(), winEnd,
                                 e.getKey(), aggrOp.exportFn().apply(e.getValue())))
@@ -234,10 +278,21 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return true;
         }
         final K key = keyFns.get(ordinal).apply(item);
-        A acc = tsToKeyToAcc
-                .computeIfAbsent(frameTs, createMapPerTsFunction)
-                .computeIfAbsent(key, createAccFunction);
-        aggrOp.accumulateFn(ordinal).accept(acc, item);
+        if (tsToPrimitiveFrame != null && !tsToKeyToAcc.containsKey(frameTs)) {
+            PrimitiveAccumulatorTable<K, A> frame =
+                    tsToPrimitiveFrame.computeIfAbsent(frameTs, createPrimitiveFrameFunction);
+            int sizeBefore = frame.size();
+            frame.accumulate(key, item);
+            if (frame.size() != sizeBefore) {
+                lazyIncrement(totalKeysInFrames);
+            }
+        } else {
+            A acc = tsToKeyToAcc
+                    .computeIfAbsent(frameTs, createMapPerTsFunction)
+                    .computeIfAbsent(key, createAccFunction);
+            aggrOp.accumulateFn(ordinal).accept(acc, item);
+        }
+        dirtyFrames.add(frameTs);
         topTs = max(topTs, frameTs);
         return true;
     }
@@ -258,9 +313,18 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return flushBuffers();
         }
         if (snapshotTraverser == null) {
-            snapshotTraverser = traverseIterable(tsToKeyToAcc.entrySet())
-                    .<Entry>flatMap(e -> traverseIterable(e.getValue().entrySet())
-                            .map(e2 -> entry(new SnapshotKey(e.getKey(), e2.getKey()), e2.getValue()))
+            Traverser<Long> frameTimestamps;
+            if (dirtyFrames.isIncrementalSnapshot()) {
+                // An incremental snapshot contains the whole changed frames. The evicted frames need no
+                // tombstones, they are older than nextWinToEmit and they are deleted after restoring.
+                frameTimestamps = dirtyFrames.traverseAndRemove();
+            } else {
+                dirtyFrames.clear();
+                frameTimestamps = traverseStream(frameTimestamps());
+            }
+            snapshotTraverser = frameTimestamps
+                    .<Entry>flatMap(ts -> frameEntries(ts)
+                            .map(e -> entry(new SnapshotKey(ts, e.getKey()), e.getValue()))
                     )
                     .append(entry(broadcastKey(Keys.NEXT_WIN_TO_EMIT), nextWinToEmit))
                     .onFirstNull(() -> {
@@ -354,7 +418,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return Traversers.empty();
         }
         return traverseStream(range(rangeStart, wm, winPolicy.frameSize()).boxed())
-                .flatMap(winEnd -> traverseIterable(computeWindow(winEnd).entrySet())
+                .flatMap(winEnd -> computeWindow(winEnd, false)
                         .map(e -> mapToOutputFn.apply(
                                 winEnd - winPolicy.windowSize(), winEnd,
                                 e.getKey(), aggrOp.finishFn().apply(e.getValue())))
@@ -365,7 +429,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         if (nextWinToEmit != Long.MIN_VALUE) {
             return nextWinToEmit;
         }
-        if (tsToKeyToAcc.isEmpty()) {
+        if (!hasFrames()) {
             return Long.MIN_VALUE;
         }
         // We haven't yet processed a watermark so nextWinToEmit is not initialized.
@@ -375,27 +439,31 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         // be correctly initialized using the "add leading/deduct trailing" approach
         // because we start from a window that covers at most one existing frame --
         // the lowest one on record.
-        long bottomTs = tsToKeyToAcc
-                .keySet().stream()
+        long bottomTs = frameTimestamps()
                 .min(naturalOrder())
                 .orElseThrow(() -> new AssertionError("Failed to find the min key in a non-empty map"));
         return min(bottomTs, winPolicy.floorFrameTs(wm));
     }
 
-    private Map<K, A> computeWindow(long frameTs) {
+    /**
+     * @param early true if computing an early window result, which includes
+     *      frames that can still change
+     */
+    private Traverser<Entry<K, A>> computeWindow(long frameTs, boolean early) {
         if (winPolicy.isTumbling()) {
-            return tsToKeyToAcc.getOrDefault(frameTs, emptyMap());
+            return frameEntries(frameTs);
         }
         if (aggrOp.deductFn() == null) {
-            return recomputeWindow(frameTs);
+            // the two-stack state must only contain complete frames
+            return traverseIterable((early ? recomputeWindow(frameTs) : twoStackWindow(frameTs)).entrySet());
         }
         if (slidingWindow == null) {
             slidingWindow = recomputeWindow(frameTs);
         } else {
             // add leading-edge frame
-            patchSlidingWindow(aggrOp.combineFn(), tsToKeyToAcc.get(frameTs));
+            patchSlidingWindow(aggrOp.combineFn(), frameTs);
         }
-        return slidingWindow;
+        return traverseIterable(slidingWindow.entrySet());
     }
 
     private Map<K, A> recomputeWindow(long frameTs) {
@@ -404,24 +472,92 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
              ts <= frameTs;
              ts += winPolicy.frameSize()
         ) {
-            assert combineFn != null : "combineFn == null";
-            for (Entry<K, A> entry : tsToKeyToAcc.getOrDefault(ts, emptyMap()).entrySet()) {
-                combineFn.accept(
-                        window.computeIfAbsent(entry.getKey(), k -> aggrOp.createFn().get()),
-                        entry.getValue());
+            combineFrameIntoWindow(window, ts);
+        }
+        return window;
+    }
+
+    private Map<K, A> twoStackWindow(long frameTs) {
+        long frameSize = winPolicy.frameSize();
+        long winStart = frameTs - winPolicy.windowSize() + frameSize;
+        if (twoStackOldestTs == Long.MIN_VALUE
+                || winStart < twoStackOldestTs || winStart > twoStackNewestTs || frameTs < twoStackNewestTs) {
+            // the window doesn't continue the previous one
+            resetTwoStack();
+            twoStackOldestTs = winStart;
+            twoStackNewestTs = winStart - frameSize;
+        }
+        // push the frames entering the window
+        for (long ts = twoStackNewestTs + frameSize; ts <= frameTs; ts += frameSize) {
+            combineFrameIntoWindow(backAggregate, ts);
+        }
+        twoStackNewestTs = frameTs;
+        // pop the frames leaving the window
+        for (; twoStackOldestTs < winStart && !frontStack.isEmpty(); twoStackOldestTs += frameSize) {
+            frontStack.removeFirst();
+        }
+        if (twoStackOldestTs < winStart) {
+            // The front stack is empty, all frames are in the back. Move the ones
+            // remaining in the window to the front, the oldest one on top.
+            Map<K, A> suffix = emptyMap();
+            for (long ts = frameTs; ts >= winStart; ts -= frameSize) {
+                if (frameSize(ts) > 0) {
+                    Map<K, A> newSuffix = new HashMap<>();
+                    combineIntoWindow(newSuffix, suffix);
+                    combineFrameIntoWindow(newSuffix, ts);
+                    suffix = newSuffix;
+                }
+                frontStack.addFirst(suffix);
             }
+            backAggregate = new HashMap<>();
+            twoStackOldestTs = winStart;
         }
+        // return a new map, the caller may hand out the accumulators
+        Map<K, A> window = new HashMap<>();
+        combineIntoWindow(window, frontStack.peekFirst());
+        combineIntoWindow(window, backAggregate);
         return window;
     }
 
-    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, Map<K, A> patchingFrame) {
-        if (patchingFrame == null) {
+    private void resetTwoStack() {
+        frontStack.clear();
+        backAggregate = new HashMap<>();
+        twoStackOldestTs = Long.MIN_VALUE;
+        twoStackNewestTs = Long.MIN_VALUE;
+    }
+
+    private void combineIntoWindow(Map<K, A> window, @Nullable Map<K, A> frame) {
+        if (frame == null) {
             return;
         }
-        for (Entry<K, A> e : patchingFrame.entrySet()) {
+        assert combineFn != null : "combineFn == null";
+        for (Entry<K, A> entry : frame.entrySet()) {
+            combineFn.accept(window.computeIfAbsent(entry.getKey(), createWindowAccFunction), entry.getValue());
+        }
+    }
+
+    /**
+     * Combines the frame with the given timestamp into the window, reading
+     * a primitive frame directly, without creating an accumulator per key.
+     */
+    private void combineFrameIntoWindow(Map<K, A> window, long ts) {
+        PrimitiveAccumulatorTable<K, A> primitiveFrame = primitiveFrame(ts);
+        if (primitiveFrame == null) {
+            combineIntoWindow(window, tsToKeyToAcc.get(ts));
+            return;
+        }
+        for (int id = 0; id < primitiveFrame.size(); id++) {
+            primitiveFrame.combineInto(id, window.computeIfAbsent(primitiveFrame.key(id), createWindowAccFunction));
+        }
+    }
+
+    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, long patchingFrameTs) {
+        Traverser<Entry<K, A>> patchingFrame = frameEntries(patchingFrameTs);
+        for (Entry<K, A> e = patchingFrame.next(); e != null; e = patchingFrame.next()) {
+            A patch = e.getValue();
             slidingWindow.compute(e.getKey(), (k, acc) -> {
                 A result = acc != null ? acc : aggrOp.createFn().get();
-                patchOp.accept(result, e.getValue());
+                patchOp.accept(result, patch);
                 return result.equals(emptyAcc) ? null : result;
             });
         }
@@ -429,33 +565,37 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
 
     private void completeWindow(long frameTs) {
         long tsOfFrameToEvict = frameTs - winPolicy.windowSize() + winPolicy.frameSize();
-        Map<K, A> evictedFrame = tsToKeyToAcc.remove(tsOfFrameToEvict);
-        if (evictedFrame != null) {
-            lazyAdd(totalKeysInFrames, -evictedFrame.size());
-            lazyAdd(totalFrames, -1);
+        int evictedKeys = frameSize(tsOfFrameToEvict);
+        if (evictedKeys >= 0) {
             if (!winPolicy.isTumbling() && aggrOp.deductFn() != null) {
                 // deduct trailing-edge frame
-                patchSlidingWindow(aggrOp.deductFn(), evictedFrame);
+                patchSlidingWindow(aggrOp.deductFn(), tsOfFrameToEvict);
+            }
+            tsToKeyToAcc.remove(tsOfFrameToEvict);
+            if (tsToPrimitiveFrame != null) {
+                tsToPrimitiveFrame.remove(tsOfFrameToEvict);
             }
+            lazyAdd(totalKeysInFrames, -evictedKeys);
+            lazyAdd(totalFrames, -1);
+        }
+        if (!hasFrames()) {
+            // no frame is left to be in a future window
+            resetTwoStack();
         }
-        assert tsToKeyToAcc.values().stream().mapToInt(Map::size).sum() == totalKeysInFrames.get()
-                : "totalKeysInFrames mismatch, expected=" + tsToKeyToAcc.values().stream().mapToInt(Map::size).sum()
-                + ", actual=" + totalKeysInFrames.get();
+        assert keysInFrames() == totalKeysInFrames.get()
+                : "totalKeysInFrames mismatch, expected=" + keysInFrames() + ", actual=" + totalKeysInFrames.get();
     }
 
     private void completeEarlyWindow(long frameTs) {
         if (winPolicy.isTumbling() || aggrOp.deductFn() == null) {
             return;
         }
-        Map<K, A> frameToDeduct = tsToKeyToAcc.get(frameTs - winPolicy.windowSize() + winPolicy.frameSize());
-        if (frameToDeduct != null) {
-            patchSlidingWindow(aggrOp.deductFn(), frameToDeduct);
-        }
+        patchSlidingWindow(aggrOp.deductFn(), frameTs - winPolicy.windowSize() + winPolicy.frameSize());
     }
 
     private boolean flushBuffers() {
         if (flushTraverser == null) {
-            if (tsToKeyToAcc.isEmpty()) {
+            if (!hasFrames()) {
                 return true;
             }
             flushTraverser = windowTraverserAndEvictor(topTs + winPolicy.windowSize() - winPolicy.frameSize())
@@ -464,6 +604,56 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         return emitFromTraverser(flushTraverser);
     }
 
+    private boolean hasFrames() {
+        return !tsToKeyToAcc.isEmpty() || tsToPrimitiveFrame != null && !tsToPrimitiveFrame.isEmpty();
+    }
+
+    private Stream<Long> frameTimestamps() {
+        return tsToPrimitiveFrame != null
+                ? Stream.concat(tsToKeyToAcc.keySet().stream(), tsToPrimitiveFrame.keySet().stream())
+                : tsToKeyToAcc.keySet().stream();
+    }
+
+    @Nullable
+    private PrimitiveAccumulatorTable<K, A> primitiveFrame(long ts) {
+        return tsToPrimitiveFrame != null ? tsToPrimitiveFrame.get(ts) : null;
+    }
+
+    /**
+     * Returns the number of keys in the frame with the given timestamp or -1,
+     * if there's no such frame.
+     */
+    private int frameSize(long ts) {
+        PrimitiveAccumulatorTable<K, A> primitiveFrame = primitiveFrame(ts);
+        if (primitiveFrame != null) {
+            return primitiveFrame.size();
+        }
+        Map<K, A> frame = tsToKeyToAcc.get(ts);
+        return frame != null ? frame.size() : -1;
+    }
+
+    /**
+     * Returns a traverser over the keys and accumulators of the frame with
+     * the given timestamp. A primitive frame creates the accumulators as it's
+     * traversed, so no keys can be added to it in the meantime.
+     */
+    private Traverser<Entry<K, A>> frameEntries(long ts) {
+        PrimitiveAccumulatorTable<K, A> primitiveFrame = primitiveFrame(ts);
+        if (primitiveFrame != null) {
+            return primitiveFrame.entries();
+        }
+        Map<K, A> frame = tsToKeyToAcc.get(ts);
+        return frame != null ? traverseIterable(frame.entrySet()) : Traversers.empty();
+    }
+
+    private long keysInFrames() {
+        long count = tsToKeyToAcc.values().stream().mapToInt(Map::size).sum();
+        if (tsToPrimitiveFrame != null) {
+            count += tsToPrimitiveFrame.values().stream().mapToInt(PrimitiveAccumulatorTable::size).sum();
+        }
+        return count;
+    }
+
     /**
      * Returns a stream of {@code long}s:
      * {@code for (long i = start; i <= end; i += step) yield i;}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.AbstractProcessor;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the samples from all {@link SortSampleP} processors and emits a
+ * single list of boundaries that splits the sampled items into ranges of
+ * roughly equal size. There's one range per partition of the cluster, so
+ * that the ranges can be routed to the processors using the partition
+ * ID. The boundaries are in the sort order, an item belongs to the range
+ * whose index is the number of boundaries less than or equal to it.
+ * <p>
+ * There must be a single instance of this processor in the cluster, each
+ * {@link SortRouteP} expects to receive exactly one list.
+ *
+ * @param <T> type of the item
+ */
+public class SortBoundariesP<T> extends AbstractProcessor {
+
+    private final Comparator<? super T> comparator;
+    private final List<T> sample = new ArrayList<>();
+    private int rangeCount;
+
+    public SortBoundariesP(@Nonnull Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        rangeCount = context.jetInstance() != null
+                ? context.jetInstance().getHazelcastInstance().getPartitionService().getPartitions().size()
+                : 1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        sample.add((T) item);
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        sample.sort(comparator);
+        ArrayList<T> boundaries = new ArrayList<>();
+        for (int i = 1; i < rangeCount && !sample.isEmpty(); i++) {
+            boundaries.add(sample.get((int) ((long) i * sample.size() / rangeCount)));
+        }
+        return tryEmit(boundaries);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.function.DistributedBiFunction;
+import com.hazelcast.jet.function.DistributedFunction;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+
+/**
+ * Performs an inner join of two inputs by sorting both on the join key
+ * and merging them. The primary items come on ordinal 0 and the joined
+ * items on ordinal 1, both inputs must be partitioned by the join key.
+ * The inputs are sorted using {@link ExternalSorter}, so they don't have
+ * to fit into the memory, except for the joined items with the same key:
+ * they are kept in a list while the primary items with that key are
+ * joined with each of them. The key of each item is computed once, when
+ * it's received, and sorted together with the item. The items with a
+ * {@code null} key don't match any item and are dropped.
+ * <p>
+ * The processor is non-cooperative if the {@link SpillSettings} passed to
+ * the constructor allow the sorters to spill to disk.
+ * <p>
+ * The output comes in the order of the join keys and, within one key, in
+ * the order of the primary items.
+ *
+ * @param <T0> type of the primary item
+ * @param <T1> type of the joined item
+ * @param <V1> type of the value projected from the joined item
+ * @param <K> type of the join key
+ * @param <R> type of the output item
+ */
+public class SortMergeJoinP<T0, T1, V1, K, R> extends AbstractProcessor {
+
+    private final DistributedFunction<? super T0, ? extends K> leftKeyFn;
+    private final DistributedFunction<? super T1, ? extends K> rightKeyFn;
+    private final DistributedFunction<? super T1, ? extends V1> rightProjectFn;
+    private final Comparator<? super K> keyComparator;
+    private final DistributedBiFunction<? super T0, ? super V1, ? extends R> mapToOutputFn;
+    private final SpillSettings spillSettings;
+
+    private ExternalSorter<Entry<K, T0>> primary;
+    private ExternalSorter<Entry<K, T1>> joined;
+    private Traverser<R> traverser;
+
+    public SortMergeJoinP(
+            @Nonnull DistributedFunction<? super T0, ? extends K> leftKeyFn,
+            @Nonnull DistributedFunction<? super T1, ? extends K> rightKeyFn,
+            @Nonnull DistributedFunction<? super T1, ? extends V1> rightProjectFn,
+            @Nonnull Comparator<? super K> keyComparator,
+            @Nonnull DistributedBiFunction<? super T0, ? super V1, ? extends R> mapToOutputFn
+    ) {
+        this(leftKeyFn, rightKeyFn, rightProjectFn, keyComparator, mapToOutputFn, SpillSettings.NO_SPILLING);
+    }
+
+    public SortMergeJoinP(
+            @Nonnull DistributedFunction<? super T0, ? extends K> leftKeyFn,
+            @Nonnull DistributedFunction<? super T1, ? extends K> rightKeyFn,
+            @Nonnull DistributedFunction<? super T1, ? extends V1> rightProjectFn,
+            @Nonnull Comparator<? super K> keyComparator,
+            @Nonnull DistributedBiFunction<? super T0, ? super V1, ? extends R> mapToOutputFn,
+            @Nonnull SpillSettings spillSettings
+    ) {
+        this.leftKeyFn = leftKeyFn;
+        this.rightKeyFn = rightKeyFn;
+        this.rightProjectFn = rightProjectFn;
+        this.keyComparator = keyComparator;
+        this.mapToOutputFn = mapToOutputFn;
+        this.spillSettings = spillSettings;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        primary = ExternalSorter.create(context, spillSettings, Entry.<K, T0>comparingByKey(keyComparator));
+        joined = ExternalSorter.create(context, spillSettings, Entry.<K, T1>comparingByKey(keyComparator));
+    }
+
+    @Override
+    public boolean isCooperative() {
+        return !spillSettings.isEnabled();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        T0 t0 = (T0) item;
+        K key = leftKeyFn.apply(t0);
+        if (key != null) {
+            uncheckRun(() -> primary.add(entry(key, t0)));
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess1(@Nonnull Object item) {
+        T1 t1 = (T1) item;
+        K key = rightKeyFn.apply(t1);
+        if (key != null) {
+            uncheckRun(() -> joined.add(entry(key, t1)));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        if (traverser == null) {
+            traverser = new MergeTraverser(uncheckCall(primary::sorted), uncheckCall(joined::sorted));
+        }
+        return emitFromTraverser(traverser);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (primary != null) {
+            primary.dispose();
+        }
+        if (joined != null) {
+            joined.dispose();
+        }
+    }
+
+    private final class MergeTraverser implements Traverser<R> {
+        private final Traverser<Entry<K, T0>> primaryItems;
+        private final Traverser<Entry<K, T1>> joinedItems;
+        // the projected joined items with the key of the last primary item
+        private final List<V1> group = new ArrayList<>();
+        private K groupKey;
+        private boolean hasGroup;
+        private Entry<K, T1> nextJoined;
+        private T0 currentPrimary;
+        private int groupIndex;
+
+        MergeTraverser(Traverser<Entry<K, T0>> primaryItems, Traverser<Entry<K, T1>> joinedItems) {
+            this.primaryItems = primaryItems;
+            this.joinedItems = joinedItems;
+            this.nextJoined = joinedItems.next();
+        }
+
+        @Override
+        public R next() {
+            while (true) {
+                while (currentPrimary != null && groupIndex < group.size()) {
+                    R result = mapToOutputFn.apply(currentPrimary, group.get(groupIndex++));
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                Entry<K, T0> e = primaryItems.next();
+                if (e == null) {
+                    currentPrimary = null;
+                    return null;
+                }
+                currentPrimary = e.getValue();
+                groupIndex = 0;
+                if (!hasGroup || keyComparator.compare(e.getKey(), groupKey) != 0) {
+                    loadGroup(e.getKey());
+                }
+            }
+        }
+
+        private void loadGroup(K key) {
+            group.clear();
+            groupKey = key;
+            hasGroup = true;
+            while (nextJoined != null && keyComparator.compare(nextJoined.getKey(), key) < 0) {
+                nextJoined = joinedItems.next();
+            }
+            while (nextJoined != null && keyComparator.compare(nextJoined.getKey(), key) == 0) {
+                group.add(rightProjectFn.apply(nextJoined.getValue()));
+                nextJoined = joinedItems.next();
+            }
+        }
+    }
+}
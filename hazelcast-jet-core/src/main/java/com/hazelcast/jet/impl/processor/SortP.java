@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Watermark;
+
+import javax.annotation.Nonnull;
+import java.util.Comparator;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+
+/**
+ * Sorts the entries of a range index and an item from {@link SortRouteP}
+ * by the range and then by the item and emits them on completion. Before
+ * the first entry of each range it emits a {@link Watermark} with the
+ * range index, telling {@link MergeSortedRangesP} that it will emit no
+ * more entries of the lower ranges.
+ * <p>
+ * The entries that don't fit into the memory are spilled to disk according
+ * to the {@linkplain
+ * com.hazelcast.jet.config.InstanceConfig#setSortSpillThreshold sort
+ * spill threshold}, the processor is then non-cooperative. The sort is
+ * stable.
+ *
+ * @param <T> type of the item
+ */
+public class SortP<T> extends AbstractProcessor {
+
+    private final Comparator<? super T> comparator;
+    private final SpillSettings spillSettings;
+    private ExternalSorter<Entry<Integer, T>> sorter;
+    private RangeTraverser traverser;
+
+    public SortP(@Nonnull Comparator<? super T> comparator) {
+        this(comparator, SpillSettings.NO_SPILLING);
+    }
+
+    public SortP(@Nonnull Comparator<? super T> comparator, @Nonnull SpillSettings spillSettings) {
+        this.comparator = comparator;
+        this.spillSettings = spillSettings;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        sorter = ExternalSorter.create(context, spillSettings,
+                Entry.<Integer, T>comparingByKey().thenComparing(Entry::getValue, comparator));
+    }
+
+    @Override
+    public boolean isCooperative() {
+        return !spillSettings.isEnabled();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        uncheckRun(() -> sorter.add((Entry<Integer, T>) item));
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        if (traverser == null) {
+            traverser = new RangeTraverser(uncheckCall(sorter::sorted));
+        }
+        return emitFromTraverser(traverser);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (sorter != null) {
+            sorter.dispose();
+        }
+    }
+
+    /**
+     * Returns the sorted entries with a watermark before each range.
+     */
+    private final class RangeTraverser implements Traverser<Object> {
+        private final Traverser<Entry<Integer, T>> sorted;
+        private int currentRange = -1;
+        private Entry<Integer, T> pending;
+
+        RangeTraverser(Traverser<Entry<Integer, T>> sorted) {
+            this.sorted = sorted;
+        }
+
+        @Override
+        public Object next() {
+            if (pending != null) {
+                Entry<Integer, T> result = pending;
+                pending = null;
+                return result;
+            }
+            Entry<Integer, T> e = sorted.next();
+            if (e == null || e.getKey() == currentRange) {
+                return e;
+            }
+            currentRange = e.getKey();
+            pending = e;
+            return new Watermark(currentRange);
+        }
+    }
+}
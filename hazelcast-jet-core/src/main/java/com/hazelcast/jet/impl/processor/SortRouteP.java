@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+
+import javax.annotation.Nonnull;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+
+/**
+ * Assigns the items from {@link SortSampleP} to the sort ranges. Receives
+ * the range boundaries from {@link SortBoundariesP} on ordinal 0 and the
+ * items on ordinal 1. The boundaries are known only after all the items
+ * were sampled, so the items received before them are buffered, spilling
+ * to disk if there are many. Each item is emitted as an entry of the range
+ * index and the item.
+ * <p>
+ * The processor is non-cooperative if the buffer can spill.
+ *
+ * @param <T> type of the item
+ */
+public class SortRouteP<T> extends AbstractProcessor {
+
+    private final Comparator<? super T> comparator;
+    private final SpillSettings spillSettings;
+    private ExternalSorter<T> buffer;
+    private List<T> boundaries;
+    private Traverser<Entry<Integer, T>> traverser;
+
+    public SortRouteP(@Nonnull Comparator<? super T> comparator) {
+        this(comparator, SpillSettings.NO_SPILLING);
+    }
+
+    public SortRouteP(@Nonnull Comparator<? super T> comparator, @Nonnull SpillSettings spillSettings) {
+        this.comparator = comparator;
+        this.spillSettings = spillSettings;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        // no comparator: the items are only buffered
+        buffer = ExternalSorter.create(context, spillSettings, null);
+    }
+
+    @Override
+    public boolean isCooperative() {
+        return !spillSettings.isEnabled();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        if (boundaries != null) {
+            throw new IllegalStateException("Received the sort boundaries more than once");
+        }
+        boundaries = (List<T>) item;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess1(@Nonnull Object item) {
+        T t = (T) item;
+        if (boundaries == null) {
+            uncheckRun(() -> buffer.add(t));
+            return true;
+        }
+        return tryEmit(entry(rangeOf(t), t));
+    }
+
+    @Override
+    public boolean complete() {
+        if (traverser == null) {
+            assert boundaries != null : "no boundaries received";
+            traverser = uncheckCall(buffer::sorted)
+                    .map(item -> entry(rangeOf(item), item));
+        }
+        return emitFromTraverser(traverser);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (buffer != null) {
+            buffer.dispose();
+        }
+    }
+
+    private int rangeOf(T item) {
+        int low = 0;
+        int high = boundaries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(boundaries.get(mid), item) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Watermark;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+
+/**
+ * The first vertex of a distributed sort. Passes its input through to
+ * ordinal 1, which must be a local edge to {@link SortRouteP}, and keeps
+ * a uniform reservoir sample of it. On completion it emits the sample to
+ * ordinal 0, for {@link SortBoundariesP}.
+ *
+ * @param <T> type of the item
+ */
+public class SortSampleP<T> extends AbstractProcessor {
+
+    /**
+     * The maximum number of items one processor contributes to the sample.
+     */
+    public static final int SAMPLE_SIZE = 1000;
+
+    private final List<T> sample = new ArrayList<>();
+    private long seen;
+    private Traverser<T> sampleTraverser;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        if (!tryEmit(1, item)) {
+            return false;
+        }
+        T t = (T) item;
+        seen++;
+        if (sample.size() < SAMPLE_SIZE) {
+            sample.add(t);
+        } else {
+            long i = ThreadLocalRandom.current().nextLong(seen);
+            if (i < SAMPLE_SIZE) {
+                sample.set((int) i, t);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
+        // the sort reorders the items, the watermarks don't apply to the output
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        if (sampleTraverser == null) {
+            sampleTraverser = traverseIterable(sample);
+        }
+        return emitFromTraverser(0, sampleTraverser);
+    }
+}
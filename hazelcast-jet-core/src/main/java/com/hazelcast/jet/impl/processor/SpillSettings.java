@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The spill threshold and directory of a processor, taken from the {@link
+ * InstanceConfig}. The {@linkplain #supplier processor supplier} reads
+ * them in its {@code init()} and passes them to the processor constructor,
+ * so that a processor which spills knows that it's non-cooperative before
+ * its own {@code init()}.
+ */
+public final class SpillSettings {
+
+    /**
+     * The settings of a processor that never spills, for example one
+     * created without a Jet instance.
+     */
+    public static final SpillSettings NO_SPILLING = new SpillSettings(0, null);
+
+    private final long threshold;
+    private final Path directory;
+
+    private SpillSettings(long threshold, @Nullable Path directory) {
+        this.threshold = threshold;
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the settings with the given threshold and the {@linkplain
+     * InstanceConfig#setSpillDirectory spill directory} of the config,
+     * the temporary directory if it isn't set.
+     */
+    @Nonnull
+    public static SpillSettings of(@Nonnull InstanceConfig config, long threshold) {
+        if (threshold <= 0) {
+            return NO_SPILLING;
+        }
+        String dir = config.getSpillDirectory();
+        return new SpillSettings(threshold, Paths.get(dir != null ? dir : System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Returns a supplier of processors created by {@code createFn} with the
+     * settings from the member's config, with the threshold returned by
+     * {@code thresholdFn}.
+     */
+    @Nonnull
+    public static ProcessorSupplier supplier(
+            @Nonnull DistributedToLongFunction<InstanceConfig> thresholdFn,
+            @Nonnull DistributedFunction<SpillSettings, ? extends Processor> createFn
+    ) {
+        return new SpillingProcessorSupplier(thresholdFn, createFn);
+    }
+
+    /**
+     * Returns whether the processor spills, it's then non-cooperative.
+     */
+    public boolean isEnabled() {
+        return threshold > 0;
+    }
+
+    /**
+     * Returns the number of items or groups kept in memory, 0 if spilling
+     * is disabled.
+     */
+    public long threshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the directory for the spilled files, {@code null} if
+     * spilling is disabled.
+     */
+    @Nullable
+    public Path directory() {
+        return directory;
+    }
+
+    private static final class SpillingProcessorSupplier implements ProcessorSupplier {
+
+        static final long serialVersionUID = 1L;
+
+        private final DistributedToLongFunction<InstanceConfig> thresholdFn;
+        private final DistributedFunction<SpillSettings, ? extends Processor> createFn;
+        private transient SpillSettings settings;
+
+        SpillingProcessorSupplier(
+                @Nonnull DistributedToLongFunction<InstanceConfig> thresholdFn,
+                @Nonnull DistributedFunction<SpillSettings, ? extends Processor> createFn
+        ) {
+            this.thresholdFn = thresholdFn;
+            this.createFn = createFn;
+        }
+
+        @Override
+        public void init(@Nonnull Context context) {
+            if (context.jetInstance() == null) {
+                // a test context without an instance
+                settings = NO_SPILLING;
+                return;
+            }
+            InstanceConfig config = context.jetInstance().getConfig().getInstanceConfig();
+            settings = of(config, thresholdFn.applyAsLong(config));
+        }
+
+        @Nonnull @Override
+        public Collection<? extends Processor> get(int count) {
+            return Stream.generate(() -> createFn.apply(settings))
+                         .limit(count)
+                         .collect(toList());
+        }
+    }
+}
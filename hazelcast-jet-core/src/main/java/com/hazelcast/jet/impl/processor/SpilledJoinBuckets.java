@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.nio.serialization.Data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+
+/**
+ * The items of a partitioned hash-join spilled to disk. Both the joined
+ * items and the primary stream items are split into {@value
+ * #BUCKET_COUNT} buckets by the hash of the serialized join key, each
+ * bucket of each stream goes to its own file. A primary item can only
+ * match a joined item from the bucket with the same index, so the buckets
+ * can be joined one at a time.
+ * <p>
+ * A joined item is written as {@code [int keyLength][key][int
+ * valueLength][value]}, a primary item as {@code [int length][item]}, all
+ * in the serialized form. A length of -1 stands for a {@code null} value.
+ * <p>
+ * The class is not thread-safe.
+ */
+final class SpilledJoinBuckets {
+
+    static final int BUCKET_COUNT = 64;
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 13;
+    private static final int NULL_LENGTH = -1;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int HASH_SHIFT = 16;
+
+    private final Path directory;
+    private final InternalSerializationService serializationService;
+    private final Path[] joinedFiles = new Path[BUCKET_COUNT];
+    private final Path[] primaryFiles = new Path[BUCKET_COUNT];
+    private final DataOutputStream[] joinedOuts = new DataOutputStream[BUCKET_COUNT];
+    private final DataOutputStream[] primaryOuts = new DataOutputStream[BUCKET_COUNT];
+    private DataInputStream openIn;
+
+    SpilledJoinBuckets(@Nonnull Path directory, @Nonnull InternalSerializationService serializationService) {
+        this.directory = directory;
+        this.serializationService = serializationService;
+    }
+
+    /**
+     * Writes an item of the joined stream to its bucket.
+     */
+    void addJoined(@Nonnull Object key, @Nullable Object value) throws IOException {
+        byte[] keyBytes = serializationService.toData(key).toByteArray();
+        int bucket = bucket(keyBytes);
+        if (joinedOuts[bucket] == null) {
+            joinedFiles[bucket] = Files.createTempFile(directory, "jet-join-", ".build");
+            joinedOuts[bucket] = newOutputStream(joinedFiles[bucket]);
+        }
+        DataOutputStream out = joinedOuts[bucket];
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        write(out, value);
+    }
+
+    /**
+     * Writes an item of the primary stream to the bucket of its key.
+     */
+    void addPrimary(@Nonnull Object key, @Nonnull Object item) throws IOException {
+        int bucket = bucket(serializationService.toData(key).toByteArray());
+        if (primaryOuts[bucket] == null) {
+            primaryFiles[bucket] = Files.createTempFile(directory, "jet-join-", ".probe");
+            primaryOuts[bucket] = newOutputStream(primaryFiles[bucket]);
+        }
+        write(primaryOuts[bucket], item);
+    }
+
+    /**
+     * Closes the files of the joined stream, must be called before {@link
+     * #loadJoined}.
+     */
+    void finishJoined() throws IOException {
+        closeAll(joinedOuts);
+    }
+
+    /**
+     * Closes the files of the primary stream, must be called before {@link
+     * #primaryItems}.
+     */
+    void finishPrimary() throws IOException {
+        closeAll(primaryOuts);
+    }
+
+    /**
+     * Reads the joined items of the bucket into a map.
+     *
+     * @throws IllegalStateException if there are two items with the same key
+     */
+    @Nonnull
+    Map<Object, Object> loadJoined(int bucket) throws IOException {
+        Map<Object, Object> map = new HashMap<>();
+        if (joinedFiles[bucket] == null) {
+            return map;
+        }
+        try (DataInputStream in = newInputStream(joinedFiles[bucket])) {
+            for (byte[] keyBytes; (keyBytes = readBytes(in)) != null; ) {
+                Object key = serializationService.toObject(new HeapData(keyBytes));
+                Object value = read(in);
+                Object previous = map.put(key, value);
+                if (previous != null) {
+                    throw new IllegalStateException(String.format("Duplicate values for key '%s': '%s' and '%s'",
+                            key, previous, value));
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns a traverser over the primary items of the bucket. Only one
+     * traverser can be in use at a time.
+     */
+    @Nonnull
+    Traverser<Object> primaryItems(int bucket) throws IOException {
+        if (primaryFiles[bucket] == null) {
+            return () -> null;
+        }
+        closeInput();
+        DataInputStream in = newInputStream(primaryFiles[bucket]);
+        openIn = in;
+        return () -> {
+            try {
+                Object item = read(in);
+                if (item == null) {
+                    closeInput();
+                }
+                return item;
+            } catch (IOException e) {
+                throw sneakyThrow(e);
+            }
+        };
+    }
+
+    /**
+     * Closes and deletes all files.
+     */
+    void dispose() throws IOException {
+        closeInput();
+        closeAll(joinedOuts);
+        closeAll(primaryOuts);
+        deleteAll(joinedFiles);
+        deleteAll(primaryFiles);
+    }
+
+    private void write(DataOutputStream out, Object object) throws IOException {
+        Data data = serializationService.toData(object);
+        if (data == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = data.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads an object written by {@link #write}. Returns null also at the
+     * end of the stream, which is fine for the primary items: they are never
+     * null.
+     */
+    private Object read(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? serializationService.toObject(new HeapData(bytes)) : null;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private void closeInput() throws IOException {
+        if (openIn != null) {
+            openIn.close();
+            openIn = null;
+        }
+    }
+
+    private static int bucket(byte[] keyBytes) {
+        int h = Arrays.hashCode(keyBytes) * HASH_MULTIPLIER;
+        return (h ^ (h >>> HASH_SHIFT)) & (BUCKET_COUNT - 1);
+    }
+
+    private static DataOutputStream newOutputStream(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), STREAM_BUFFER_SIZE));
+    }
+
+    private static DataInputStream newInputStream(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), STREAM_BUFFER_SIZE));
+    }
+
+    private static void closeAll(DataOutputStream[] outs) throws IOException {
+        for (int i = 0; i < outs.length; i++) {
+            if (outs[i] != null) {
+                outs[i].close();
+                outs[i] = null;
+            }
+        }
+    }
+
+    private static void deleteAll(Path[] files) throws IOException {
+        for (int i = 0; i < files.length; i++) {
+            if (files[i] != null) {
+                Files.deleteIfExists(files[i]);
+                files[i] = null;
+            }
+        }
+    }
+}
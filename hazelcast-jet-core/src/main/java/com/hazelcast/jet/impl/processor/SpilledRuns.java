@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.Traverser;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.Util.unmap;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Key-accumulator pairs spilled to disk in sorted runs. Each {@link #spill}
+ * writes one file with the pairs sorted by the serialized form of the key.
+ * {@link #merge} reads all the files at once and combines the accumulators
+ * of equal keys, so that each key is returned once.
+ * <p>
+ * A file is a sequence of {@code [int keyLength][key][int accLength][acc]}
+ * records, the keys and accumulators are in the serialized form. Files
+ * that fit into a {@code MappedByteBuffer} are memory-mapped for reading.
+ * <p>
+ * The class is not thread-safe.
+ *
+ * @param <K> type of the key
+ * @param <A> type of the accumulator
+ */
+public class SpilledRuns<K, A> {
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final Path directory;
+    private final InternalSerializationService serializationService;
+    private final List<Path> files = new ArrayList<>();
+    private final List<RunCursor> openCursors = new ArrayList<>();
+
+    public SpilledRuns(@Nonnull Path directory, @Nonnull InternalSerializationService serializationService) {
+        this.directory = directory;
+        this.serializationService = serializationService;
+    }
+
+    /**
+     * Returns the number of runs spilled so far.
+     */
+    public int runCount() {
+        return files.size();
+    }
+
+    /**
+     * Writes the contents of the map to a new run file and clears the map.
+     */
+    public void spill(@Nonnull Map<K, A> keyToAcc) throws IOException {
+        byte[][] keys = new byte[keyToAcc.size()][];
+        byte[][] accs = new byte[keyToAcc.size()][];
+        Integer[] order = new Integer[keys.length];
+        int i = 0;
+        for (Entry<K, A> e : keyToAcc.entrySet()) {
+            keys[i] = serializationService.toData(e.getKey()).toByteArray();
+            accs[i] = serializationService.toData(e.getValue()).toByteArray();
+            order[i] = i;
+            i++;
+        }
+        keyToAcc.clear();
+        Arrays.sort(order, Comparator.comparing(idx -> keys[idx], SpilledRuns::compare));
+
+        Path file = Files.createTempFile(directory, "jet-spill-", ".run");
+        files.add(file);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), STREAM_BUFFER_SIZE))) {
+            for (int idx : order) {
+                out.writeInt(keys[idx].length);
+                out.write(keys[idx]);
+                out.writeInt(accs[idx].length);
+                out.write(accs[idx]);
+            }
+        }
+    }
+
+    /**
+     * Returns a traverser over the entries of all runs in the order of the
+     * serialized keys. The accumulators of equal keys are combined into the
+     * one from the earliest run using {@code combineFn}. No more runs can be
+     * spilled after this call.
+     */
+    @Nonnull
+    public Traverser<Entry<K, A>> merge(@Nonnull BiConsumer<? super A, ? super A> combineFn) throws IOException {
+        PriorityQueue<RunCursor> cursors = new PriorityQueue<>(Math.max(1, files.size()),
+                Comparator.<RunCursor, byte[]>comparing(c -> c.key, SpilledRuns::compare)
+                        .thenComparingInt(c -> c.runIndex));
+        for (int i = 0; i < files.size(); i++) {
+            RunCursor cursor = new RunCursor(files.get(i), i);
+            openCursors.add(cursor);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return () -> {
+            RunCursor first = cursors.poll();
+            if (first == null) {
+                return null;
+            }
+            byte[] key = first.key;
+            A acc = serializationService.toObject(new HeapData(first.acc));
+            advance(cursors, first);
+            for (RunCursor c; (c = cursors.peek()) != null && Arrays.equals(c.key, key); ) {
+                cursors.poll();
+                combineFn.accept(acc, serializationService.<A>toObject(new HeapData(c.acc)));
+                advance(cursors, c);
+            }
+            return entry(serializationService.toObject(new HeapData(key)), acc);
+        };
+    }
+
+    /**
+     * Unmaps and deletes the run files.
+     */
+    public void dispose() throws IOException {
+        for (RunCursor cursor : openCursors) {
+            cursor.close();
+        }
+        openCursors.clear();
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        files.clear();
+    }
+
+    private static void advance(PriorityQueue<RunCursor> cursors, RunCursor cursor) {
+        try {
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    private static int compare(byte[] left, byte[] right) {
+        int len = Math.min(left.length, right.length);
+        for (int i = 0; i < len; i++) {
+            int diff = (left[i] & BYTE_MASK) - (right[i] & BYTE_MASK);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return left.length - right.length;
+    }
+
+    /**
+     * Reads the records of a run file one by one, either from a mapped
+     * buffer or, if the file is too large to be mapped, from a stream.
+     */
+    private static final class RunCursor {
+        private final int runIndex;
+        private final MappedByteBuffer buffer;
+        private final DataInputStream stream;
+        private byte[] key;
+        private byte[] acc;
+
+        RunCursor(Path file, int runIndex) throws IOException {
+            this.runIndex = runIndex;
+            MappedByteBuffer mapped = null;
+            try (FileChannel channel = FileChannel.open(file, READ)) {
+                long size = channel.size();
+                if (size <= Integer.MAX_VALUE) {
+                    // the mapping stays valid after the channel is closed
+                    mapped = channel.map(READ_ONLY, 0, size);
+                }
+            }
+            this.buffer = mapped;
+            this.stream = mapped == null
+                    ? new DataInputStream(new BufferedInputStream(Files.newInputStream(file), STREAM_BUFFER_SIZE))
+                    : null;
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @return false if there are no more records
+         */
+        boolean advance() throws IOException {
+            if (buffer != null) {
+                if (!buffer.hasRemaining()) {
+                    key = null;
+                    acc = null;
+                    return false;
+                }
+                key = new byte[buffer.getInt()];
+                buffer.get(key);
+                acc = new byte[buffer.getInt()];
+                buffer.get(acc);
+                return true;
+            }
+            int keyLength;
+            try {
+                keyLength = stream.readInt();
+            } catch (EOFException e) {
+                key = null;
+                acc = null;
+                return false;
+            }
+            key = new byte[keyLength];
+            stream.readFully(key);
+            acc = new byte[stream.readInt()];
+            stream.readFully(acc);
+            return true;
+        }
+
+        void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+            unmap(buffer);
+        }
+    }
+}
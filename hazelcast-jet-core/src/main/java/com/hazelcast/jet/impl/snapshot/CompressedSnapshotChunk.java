@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.util.Lz4Codec;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A snapshot chunk compressed with the {@link Lz4Codec}. It's stored in
+ * place of the {@code byte[]} chunk. All chunks of one snapshot writer are
+ * compressed with the same dictionary, taken from the first chunk the
+ * writer compressed. The dictionaries are stored in the {@link
+ * com.hazelcast.jet.impl.SnapshotValidationRecord} of the snapshot under
+ * the {@linkplain #dictionaryKey dictionary key}.
+ */
+public final class CompressedSnapshotChunk implements IdentifiedDataSerializable {
+
+    private int writerIndex;
+    private int uncompressedLength;
+    private byte[] compressed;
+
+    public CompressedSnapshotChunk() {
+    }
+
+    /**
+     * @param writerIndex the index of the member that wrote the chunk, it
+     *                    identifies the dictionary
+     */
+    public CompressedSnapshotChunk(int writerIndex, int uncompressedLength, @Nonnull byte[] compressed) {
+        this.writerIndex = writerIndex;
+        this.uncompressedLength = uncompressedLength;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Returns the key of the dictionary of the writer with the given index
+     * for the given vertex.
+     */
+    @Nonnull
+    public static String dictionaryKey(@Nonnull String vertexName, int writerIndex) {
+        return vertexName + '/' + writerIndex;
+    }
+
+    /**
+     * Returns the length of the compressed data.
+     */
+    public int compressedLength() {
+        return compressed.length;
+    }
+
+    /**
+     * Returns the uncompressed chunk, the contents of the original {@code
+     * byte[]}.
+     *
+     * @param vertexName the vertex of the chunk
+     * @param dictionaries the dictionaries of the snapshot
+     */
+    @Nonnull
+    public byte[] decompress(@Nonnull String vertexName, @Nonnull Map<String, byte[]> dictionaries) {
+        byte[] dictionary = dictionaries.get(dictionaryKey(vertexName, writerIndex));
+        if (dictionary == null) {
+            throw new JetException("Dictionary of a compressed snapshot chunk not found, vertex=" + vertexName
+                    + ", writer=" + writerIndex);
+        }
+        byte[] dest = Arrays.copyOf(dictionary, dictionary.length + uncompressedLength);
+        int length = Lz4Codec.decompress(compressed, 0, compressed.length, dest, 0, dictionary.length,
+                uncompressedLength);
+        if (length != uncompressedLength) {
+            throw new JetException("Corrupted compressed snapshot chunk, expected " + uncompressedLength
+                    + " bytes, but got " + length);
+        }
+        return Arrays.copyOfRange(dest, dictionary.length, dest.length);
+    }
+
+    /**
+     * Writes the dictionaries, see {@link #readDictionaries}.
+     */
+    public static void writeDictionaries(@Nonnull ObjectDataOutput out, @Nonnull Map<String, byte[]> dictionaries)
+            throws IOException {
+        out.writeInt(dictionaries.size());
+        for (Entry<String, byte[]> e : dictionaries.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeByteArray(e.getValue());
+        }
+    }
+
+    /**
+     * Reads the dictionaries written by {@link #writeDictionaries}.
+     */
+    @Nonnull
+    public static Map<String, byte[]> readDictionaries(@Nonnull ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        Map<String, byte[]> dictionaries = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            dictionaries.put(in.readUTF(), in.readByteArray());
+        }
+        return dictionaries;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.COMPRESSED_SNAPSHOT_CHUNK;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(writerIndex);
+        out.writeInt(uncompressedLength);
+        out.writeByteArray(compressed);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        writerIndex = in.readInt();
+        uncompressedLength = in.readInt();
+        compressed = in.readByteArray();
+    }
+}
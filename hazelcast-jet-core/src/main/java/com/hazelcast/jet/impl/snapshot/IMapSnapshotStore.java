@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.SnapshotValidationRecord;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Predicate;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores the snapshot chunks in IMaps, with the backups configured for
+ * the map. They are read by {@link ReadSnapshotMapP}.
+ */
+public class IMapSnapshotStore implements SnapshotStore {
+
+    private final HazelcastInstance instance;
+
+    public IMapSnapshotStore(@Nonnull HazelcastInstance instance) {
+        this.instance = instance;
+    }
+
+    @Nonnull @Override
+    public CompletableFuture<Void> putAsync(@Nonnull String name, @Nonnull SnapshotDataKey key, @Nonnull Data chunk) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        // we put a Data instance to the map directly to avoid the serialization of the byte array
+        IMap<SnapshotDataKey, Object> map = instance.getMap(name);
+        map.putAsync(key, chunk).andThen(new ExecutionCallback<Object>() {
+            @Override
+            public void onResponse(Object response) {
+                assert response == null : "put operation overwrote a previous value: " + response;
+                future.complete(null);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void clear(@Nonnull String name) {
+        instance.getMap(name).clear();
+    }
+
+    @Override
+    public void destroy(@Nonnull String name) {
+        instance.getMap(name).destroy();
+    }
+
+    @Override
+    public void removeAll(@Nonnull String name, @Nonnull Predicate<SnapshotDataKey, Object> predicate) {
+        instance.<SnapshotDataKey, Object>getMap(name).removeAll(predicate);
+    }
+
+    @Override
+    public boolean isQueryable() {
+        return true;
+    }
+
+    /**
+     * Does nothing, the master counts the chunks in the map when it
+     * validates the snapshot.
+     */
+    @Override
+    public void validateChunkCount(
+            @Nonnull String name, @Nonnull SnapshotValidationRecord validationRecord, @Nonnull String jobIdString
+    ) {
+    }
+
+    @Nonnull @Override
+    public ProcessorMetaSupplier readP(@Nonnull String name) {
+        return ProcessorMetaSupplier.of((DistributedSupplier<Processor>) () -> new ReadSnapshotMapP(name), 1);
+    }
+}
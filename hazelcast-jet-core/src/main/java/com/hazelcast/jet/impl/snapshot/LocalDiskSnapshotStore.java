@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.Member;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.SnapshotValidationRecord;
+import com.hazelcast.jet.impl.operation.ClearSnapshotStoreOperation;
+import com.hazelcast.jet.impl.operation.CountSnapshotChunksOperation;
+import com.hazelcast.jet.impl.operation.ReplicateSnapshotChunkOperation;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.InternalCompletableFuture;
+import com.hazelcast.spi.NodeEngine;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.hazelcast.cluster.memberselector.MemberSelectors.DATA_MEMBER_SELECTOR;
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.callbackOf;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Stores the snapshot chunks in files on the members, outside of the heap.
+ * Each member writes the chunks of its processors to append-only segment
+ * files, memory-mapped for writing, in a directory for the snapshot data
+ * map name. The files are written on the {@linkplain
+ * JetService#SNAPSHOT_STORE_EXECUTOR_NAME snapshot store executor}, not on
+ * the tasklet thread. The chunk is then asynchronously replicated to the
+ * {@linkplain com.hazelcast.jet.config.InstanceConfig#setBackupCount
+ * backup count} members that follow the writer in the member list; the chunk is stored
+ * when all of them confirm it. Each member keeps a list of the members
+ * with the copies of the writer's chunks next to them.
+ * <p>
+ * A restore reads the files on each member. A member emits the chunks it
+ * wrote and the chunks of a member that's not in the cluster anymore, if
+ * it's the first member in the list of the copies that still is. Before
+ * the restore, the master counts the chunks the members can read and
+ * fails the restore if some are lost, because a member and all members
+ * with its copies left the cluster.
+ * <p>
+ * The files of a member are deleted when the member shuts down, a member
+ * that restarts gets a new UUID and its old chunks aren't readable anyway.
+ */
+public class LocalDiskSnapshotStore implements SnapshotStore {
+
+    /**
+     * The capacity of a segment file. A chunk larger than that gets a file
+     * of its own.
+     */
+    static final int SEGMENT_SIZE = 1 << 24;
+
+    static final String SEGMENT_SUFFIX = ".segment";
+    static final String REPLICAS_SUFFIX = ".replicas";
+
+    private static final long CLEAR_TIMEOUT_SECONDS = 30;
+
+    private final NodeEngine nodeEngine;
+    private final ILogger logger;
+    private final Path directory;
+    private final int backupCount;
+    private final IMapSnapshotStore validationRecordStore;
+    private final Executor executor;
+    // key is the name and the writer UUID
+    private final ConcurrentMap<Entry<String, String>, Writer> writers = new ConcurrentHashMap<>();
+
+    /**
+     * @param baseDirectory the configured snapshot directory, the member
+     *        uses a subdirectory named after its UUID
+     */
+    public LocalDiskSnapshotStore(@Nonnull NodeEngine nodeEngine, @Nonnull String baseDirectory, int backupCount) {
+        this.nodeEngine = nodeEngine;
+        this.logger = nodeEngine.getLogger(getClass());
+        this.directory = Paths.get(baseDirectory, nodeEngine.getLocalMember().getUuid());
+        this.backupCount = backupCount;
+        this.validationRecordStore = new IMapSnapshotStore(nodeEngine.getHazelcastInstance());
+        this.executor = nodeEngine.getExecutionService().getExecutor(JetService.SNAPSHOT_STORE_EXECUTOR_NAME);
+    }
+
+    @Nonnull @Override
+    public CompletableFuture<Void> putAsync(@Nonnull String name, @Nonnull SnapshotDataKey key, @Nonnull Data chunk) {
+        byte[] keyBytes = nodeEngine.toData(key).toByteArray();
+        byte[] chunkBytes = chunk.toByteArray();
+        List<Member> replicas = replicas();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> store(name, replicas, keyBytes, chunkBytes, future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Appends the chunk to the local files and replicates it, completes the
+     * future when all replicas have it.
+     */
+    private void store(
+            String name, List<Member> replicas, byte[] key, byte[] chunk, CompletableFuture<Void> future
+    ) {
+        List<String> replicaUuids = replicas.stream().map(Member::getUuid).collect(toList());
+        String localUuid = nodeEngine.getLocalMember().getUuid();
+        try {
+            append(name, localUuid, replicaUuids, key, chunk);
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        if (replicas.size() == 1) {
+            future.complete(null);
+            return;
+        }
+        AtomicInteger pendingReplicas = new AtomicInteger(replicas.size() - 1);
+        ExecutionCallback<Object> callback = callbackOf(
+                response -> {
+                    if (pendingReplicas.decrementAndGet() == 0) {
+                        future.complete(null);
+                    }
+                },
+                future::completeExceptionally);
+        for (Member member : replicas.subList(1, replicas.size())) {
+            ReplicateSnapshotChunkOperation op =
+                    new ReplicateSnapshotChunkOperation(name, localUuid, replicaUuids, key, chunk);
+            nodeEngine.getOperationService()
+                      .invokeOnTarget(JetService.SERVICE_NAME, op, member.getAddress())
+                      .andThen(callback);
+        }
+    }
+
+    /**
+     * Appends a chunk to the files of the writer, called for the local
+     * member's chunks and for the copies of other members' chunks.
+     *
+     * @param replicaUuids the writer and the members with the copies of its
+     *                     chunks
+     */
+    public void append(
+            @Nonnull String name, @Nonnull String writerUuid, @Nonnull List<String> replicaUuids,
+            @Nonnull byte[] key, @Nonnull byte[] chunk
+    ) throws IOException {
+        Writer writer = writers.computeIfAbsent(entry(name, writerUuid),
+                x -> new Writer(storeDirectory(name), writerUuid));
+        writer.append(replicaUuids, key, chunk);
+    }
+
+    @Override
+    public void clear(@Nonnull String name) {
+        validationRecordStore.clear(name);
+        clearOnAllMembers(name);
+    }
+
+    @Override
+    public void destroy(@Nonnull String name) {
+        validationRecordStore.destroy(name);
+        clearOnAllMembers(name);
+    }
+
+    private void clearOnAllMembers(String name) {
+        List<InternalCompletableFuture<Object>> futures = new ArrayList<>();
+        for (Member member : nodeEngine.getClusterService().getMembers(DATA_MEMBER_SELECTOR)) {
+            futures.add(nodeEngine.getOperationService().invokeOnTarget(JetService.SERVICE_NAME,
+                    new ClearSnapshotStoreOperation(name), member.getAddress()));
+        }
+        // wait, so that the files aren't deleted after the next snapshot starts writing them
+        for (InternalCompletableFuture<Object> future : futures) {
+            try {
+                future.get(CLEAR_TIMEOUT_SECONDS, SECONDS);
+            } catch (Exception e) {
+                // the files of a member that left are deleted when it shuts down
+                logger.warning("Failed to clear snapshot store '" + name + "' on a member", e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the local files stored under the name.
+     */
+    public void clearLocal(@Nonnull String name) {
+        writers.entrySet().removeIf(e -> {
+            if (!e.getKey().getKey().equals(name)) {
+                return false;
+            }
+            e.getValue().close();
+            return true;
+        });
+        deleteRecursively(storeDirectory(name));
+    }
+
+    /**
+     * Does nothing, the files are append-only. The restore ignores the
+     * chunks of the failed and the replaced incremental snapshots.
+     */
+    @Override
+    public void removeAll(@Nonnull String name, @Nonnull Predicate<SnapshotDataKey, Object> predicate) {
+    }
+
+    @Override
+    public boolean isQueryable() {
+        return false;
+    }
+
+    @Override
+    public void validateChunkCount(
+            @Nonnull String name, @Nonnull SnapshotValidationRecord validationRecord, @Nonnull String jobIdString
+    ) {
+        List<InternalCompletableFuture<Long>> futures = new ArrayList<>();
+        for (Member member : nodeEngine.getClusterService().getMembers(DATA_MEMBER_SELECTOR)) {
+            futures.add(nodeEngine.getOperationService().invokeOnTarget(JetService.SERVICE_NAME,
+                    new CountSnapshotChunksOperation(name, validationRecord.snapshotId()), member.getAddress()));
+        }
+        long numChunks = 0;
+        for (InternalCompletableFuture<Long> future : futures) {
+            numChunks += future.join();
+        }
+        if (numChunks != validationRecord.numChunks()) {
+            throw new JetException("State for " + jobIdString + " in '" + name + "' is incomplete: it should have "
+                    + validationRecord.numChunks() + " chunks, but the members can read " + numChunks
+                    + ". A member that wrote the chunks and all members with their copies left the cluster");
+        }
+    }
+
+    @Nonnull @Override
+    public ProcessorMetaSupplier readP(@Nonnull String name) {
+        return ProcessorMetaSupplier.of((DistributedSupplier<Processor>) () -> new ReadLocalSnapshotP(name));
+    }
+
+    /**
+     * Returns a traverser over the records of the chunks this member should
+     * emit when restoring from the snapshot stored under the name.
+     */
+    @Nonnull
+    Traverser<Entry<byte[], byte[]>> localRecords(@Nonnull String name) throws IOException {
+        return traverseIterable(localSegments(name)).flatMap(segment -> {
+            try {
+                return SnapshotSegment.records(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of the chunks of the snapshot with the given ID
+     * this member emits when restoring from the snapshot stored under the
+     * name. Reads only the keys of the records.
+     */
+    public long countLocalChunks(@Nonnull String name, long snapshotId) throws IOException {
+        long numChunks = 0;
+        for (Path segment : localSegments(name)) {
+            Traverser<byte[]> keys = SnapshotSegment.keys(segment);
+            byte[] key;
+            while ((key = keys.next()) != null) {
+                SnapshotDataKey dataKey = nodeEngine.toObject(new HeapData(key));
+                if (dataKey.snapshotId() == snapshotId) {
+                    numChunks++;
+                }
+            }
+        }
+        return numChunks;
+    }
+
+    /**
+     * Returns the segment files with the chunks this member emits when
+     * restoring from the snapshot stored under the name.
+     */
+    private List<Path> localSegments(String name) throws IOException {
+        Path storeDirectory = storeDirectory(name);
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(storeDirectory)) {
+            return segments;
+        }
+        List<String> liveUuids = nodeEngine.getClusterService().getMembers(DATA_MEMBER_SELECTOR).stream()
+                                           .map(Member::getUuid)
+                                           .collect(toList());
+        String localUuid = nodeEngine.getLocalMember().getUuid();
+        try (Stream<Path> replicaFiles = Files.list(storeDirectory)) {
+            for (Path replicaFile : replicaFiles.filter(p -> p.toString().endsWith(REPLICAS_SUFFIX)).collect(toList())) {
+                String fileName = replicaFile.getFileName().toString();
+                String writerUuid = fileName.substring(0, fileName.length() - REPLICAS_SUFFIX.length());
+                List<String> replicaUuids = Files.readAllLines(replicaFile, UTF_8);
+                if (localUuid.equals(readerOf(writerUuid, replicaUuids, liveUuids))) {
+                    segments.addAll(segments(storeDirectory, writerUuid));
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Returns the UUID of the member that emits the chunks of the writer:
+     * the writer itself, if it's in the cluster, or the first member with
+     * the copies that's in the cluster.
+     */
+    @Nullable
+    static String readerOf(String writerUuid, List<String> replicaUuids, Collection<String> liveUuids) {
+        if (liveUuids.contains(writerUuid)) {
+            return writerUuid;
+        }
+        return replicaUuids.stream().filter(liveUuids::contains).findFirst().orElse(null);
+    }
+
+    private static List<Path> segments(Path storeDirectory, String writerUuid) throws IOException {
+        String prefix = writerUuid + '-';
+        try (Stream<Path> files = Files.list(storeDirectory)) {
+            return files.filter(p -> {
+                            String fileName = p.getFileName().toString();
+                            return fileName.startsWith(prefix) && fileName.endsWith(SEGMENT_SUFFIX);
+                        })
+                        .sorted(Comparator.comparingInt(p -> segmentIndex(p, prefix)))
+                        .collect(toList());
+        }
+    }
+
+    private static int segmentIndex(Path segment, String prefix) {
+        String fileName = segment.getFileName().toString();
+        return Integer.parseInt(fileName.substring(prefix.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Returns the local member followed by the members that keep the copies
+     * of its chunks.
+     */
+    private List<Member> replicas() {
+        List<Member> members = new ArrayList<>(nodeEngine.getClusterService().getMembers(DATA_MEMBER_SELECTOR));
+        int localIndex = members.indexOf(nodeEngine.getLocalMember());
+        List<Member> replicas = new ArrayList<>();
+        for (int i = 0; i <= Math.min(backupCount, members.size() - 1); i++) {
+            replicas.add(members.get((localIndex + i) % members.size()));
+        }
+        return replicas;
+    }
+
+    private Path storeDirectory(String name) {
+        return directory.resolve(name);
+    }
+
+    /**
+     * Deletes the files of this member.
+     */
+    public void shutdown() {
+        writers.values().forEach(Writer::close);
+        writers.clear();
+        deleteRecursively(directory);
+    }
+
+    private void deleteRecursively(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(toList())) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to delete " + path, e);
+        }
+    }
+
+    /**
+     * Appends the chunks of one writer under one name to its segment files.
+     */
+    private final class Writer {
+        private final Path storeDirectory;
+        private final String writerUuid;
+        private List<String> replicaUuids;
+        private SnapshotSegment segment;
+        private int nextSegmentIndex;
+
+        Writer(Path storeDirectory, String writerUuid) {
+            this.storeDirectory = storeDirectory;
+            this.writerUuid = writerUuid;
+        }
+
+        synchronized void append(List<String> replicaUuids, byte[] key, byte[] chunk) throws IOException {
+            if (!replicaUuids.equals(this.replicaUuids)) {
+                // the members changed after a restart, the old chunks belong to older snapshots
+                Files.createDirectories(storeDirectory);
+                Files.write(storeDirectory.resolve(writerUuid + REPLICAS_SUFFIX), replicaUuids, UTF_8);
+                this.replicaUuids = replicaUuids;
+            }
+            if (segment == null || !segment.append(key, chunk)) {
+                closeSegment();
+                int capacity = Math.max(SEGMENT_SIZE, SnapshotSegment.recordSize(key, chunk));
+                segment = SnapshotSegment.create(
+                        storeDirectory.resolve(writerUuid + '-' + nextSegmentIndex++ + SEGMENT_SUFFIX), capacity);
+                boolean appended = segment.append(key, chunk);
+                assert appended : "chunk doesn't fit into a new segment";
+            }
+        }
+
+        synchronized void close() {
+            closeSegment();
+        }
+
+        private void closeSegment() {
+            if (segment == null) {
+                return;
+            }
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close a snapshot segment in " + storeDirectory, e);
+            }
+            segment = null;
+        }
+    }
+}
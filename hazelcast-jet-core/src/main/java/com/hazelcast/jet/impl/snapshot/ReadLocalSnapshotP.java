@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.spi.NodeEngine;
+
+import javax.annotation.Nonnull;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * Reads the snapshot chunks stored by the {@link LocalDiskSnapshotStore}
+ * on the local member. The processors on a member split the chunks by
+ * their partition key.
+ */
+public final class ReadLocalSnapshotP extends AbstractProcessor {
+
+    private final String name;
+    private InternalSerializationService serializationService;
+    private Traverser<Entry<SnapshotDataKey, Object>> traverser;
+
+    ReadLocalSnapshotP(@Nonnull String name) {
+        this.name = name;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) throws Exception {
+        HazelcastInstanceImpl instance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        NodeEngine nodeEngine = instance.node.nodeEngine;
+        serializationService = instance.getSerializationService();
+        LocalDiskSnapshotStore store = nodeEngine.<JetService>getService(JetService.SERVICE_NAME).localSnapshotStore();
+        if (store == null) {
+            throw new JetException("Snapshot directory not configured on member " + nodeEngine.getThisAddress()
+                    + ", can't read snapshot '" + name + '\'');
+        }
+        int localIndex = context.localProcessorIndex();
+        int localParallelism = context.localParallelism();
+        // the values are deserialized only for the chunks of this processor
+        traverser = store.localRecords(name)
+                         .map(record -> entry(
+                                 (SnapshotDataKey) serializationService.toObject(new HeapData(record.getKey())),
+                                 record.getValue()))
+                         .filter(e -> Math.floorMod(e.getKey().partitionKey(), localParallelism) == localIndex)
+                         .map(e -> entry(e.getKey(), serializationService.toObject(new HeapData(e.getValue()))));
+    }
+
+    @Override
+    public boolean complete() {
+        return emitFromTraverser(traverser);
+    }
+
+    @Override
+    public boolean isCooperative() {
+        return false;
+    }
+}
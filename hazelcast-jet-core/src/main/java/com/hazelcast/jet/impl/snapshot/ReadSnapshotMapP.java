@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.core.Partition;
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.RestartableException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.map.impl.proxy.MapProxyImpl;
+import com.hazelcast.spi.NodeEngine;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+
+/**
+ * Reads the snapshot chunks stored in an IMap by the {@link
+ * IMapSnapshotStore} from the partitions owned by the local member.
+ * <p>
+ * The chunks are prefetched by up to {@value #PREFETCH_PARALLELISM} fetches
+ * running at the same time on the {@linkplain
+ * JetService#SNAPSHOT_FETCH_EXECUTOR_NAME snapshot fetch executor}, each
+ * fetch reads up to {@value #FETCH_SIZE} chunks of one partition. A fetch
+ * is started only if the buffer has room for its chunks, so the fetches
+ * never wait for the processor and the buffer holds at most {@value
+ * #BUFFER_CAPACITY} chunks. The processor emits the chunks in the order
+ * the fetches completed and doesn't block the cooperative thread.
+ */
+public final class ReadSnapshotMapP extends AbstractProcessor {
+
+    private static final int PREFETCH_PARALLELISM = 4;
+    // the chunks are large, fetch only a few of them at a time
+    private static final int FETCH_SIZE = 16;
+    private static final int BUFFER_CAPACITY = PREFETCH_PARALLELISM * FETCH_SIZE;
+
+    @Probe
+    private final AtomicLong fetchedChunks = new AtomicLong();
+
+    private final String mapName;
+    private final Queue<PartitionReader> idleReaders = new ArrayDeque<>();
+    private final List<CompletableFuture<PartitionReader>> fetches = new ArrayList<>(PREFETCH_PARALLELISM);
+    private final Queue<Entry<Object, Object>> buffer = new ArrayDeque<>(BUFFER_CAPACITY);
+    private final Traverser<Entry<Object, Object>> bufferTraverser = buffer::poll;
+    private MapProxyImpl<Object, Object> map;
+    private ExecutorService fetchExecutor;
+    private BooleanSupplier migrationWatcher;
+
+    ReadSnapshotMapP(@Nonnull String mapName) {
+        this.mapName = mapName;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void init(@Nonnull Context context) {
+        HazelcastInstanceImpl instance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        NodeEngine nodeEngine = instance.node.nodeEngine;
+        JetService jetService = nodeEngine.getService(JetService.SERVICE_NAME);
+        migrationWatcher = jetService.getSharedMigrationWatcher().createWatcher();
+        for (Partition partition : instance.getPartitionService().getPartitions()) {
+            if (partition.getOwner() != null && partition.getOwner().localMember()
+                    && partition.getPartitionId() % context.localParallelism() == context.localProcessorIndex()) {
+                idleReaders.add(new PartitionReader(partition.getPartitionId()));
+            }
+        }
+        map = (MapProxyImpl<Object, Object>) instance.getMap(mapName);
+        fetchExecutor = nodeEngine.getExecutionService().getExecutor(JetService.SNAPSHOT_FETCH_EXECUTOR_NAME);
+    }
+
+    @Override
+    public boolean complete() {
+        collectFetches();
+        startFetches();
+        if (!emitFromTraverser(bufferTraverser) || !fetches.isEmpty() || !idleReaders.isEmpty()) {
+            return false;
+        }
+        if (migrationWatcher.getAsBoolean()) {
+            throw new RestartableException("Partition migration detected");
+        }
+        return true;
+    }
+
+    /**
+     * Moves the chunks of the completed fetches to the buffer.
+     */
+    private void collectFetches() {
+        for (Iterator<CompletableFuture<PartitionReader>> it = fetches.iterator(); it.hasNext(); ) {
+            CompletableFuture<PartitionReader> fetch = it.next();
+            if (!fetch.isDone()) {
+                continue;
+            }
+            it.remove();
+            PartitionReader reader;
+            try {
+                reader = fetch.join();
+            } catch (CompletionException e) {
+                throw sneakyThrow(peel(e));
+            }
+            buffer.addAll(reader.fetched);
+            reader.fetched.clear();
+            if (!reader.isDone()) {
+                idleReaders.add(reader);
+            }
+        }
+    }
+
+    /**
+     * Starts fetches of the idle partitions, as long as the buffer will
+     * have room for their chunks.
+     */
+    private void startFetches() {
+        while (fetches.size() < PREFETCH_PARALLELISM && !idleReaders.isEmpty()
+                && buffer.size() + (fetches.size() + 1) * FETCH_SIZE <= BUFFER_CAPACITY) {
+            PartitionReader reader = idleReaders.poll();
+            fetches.add(CompletableFuture.supplyAsync(reader::fetch, fetchExecutor));
+        }
+    }
+
+    /**
+     * Reads the chunks of one partition. Used by one fetch at a time.
+     */
+    private final class PartitionReader {
+        final List<Entry<Object, Object>> fetched = new ArrayList<>(FETCH_SIZE);
+        private final int partitionId;
+        private Iterator<Entry<Object, Object>> iterator;
+
+        PartitionReader(int partitionId) {
+            this.partitionId = partitionId;
+        }
+
+        PartitionReader fetch() {
+            if (iterator == null) {
+                iterator = map.iterator(FETCH_SIZE, partitionId, true);
+            }
+            while (fetched.size() < FETCH_SIZE && iterator.hasNext()) {
+                fetched.add(iterator.next());
+            }
+            fetchedChunks.addAndGet(fetched.size());
+            return this;
+        }
+
+        boolean isDone() {
+            return iterator != null && !iterator.hasNext();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.unmap;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An append-only file of records, each with a key and a value, written
+ * through a memory mapping. A record is:<ul>
+ *     <li>the length of the key, an int
+ *     <li>the length of the value, an int
+ *     <li>the CRC32 checksum of the key and the value, an int
+ *     <li>the key and the value bytes
+ * </ul>
+ * The file is created with its full capacity and zero-filled, a key
+ * length of zero marks the end of the records.
+ */
+final class SnapshotSegment implements Closeable {
+
+    static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+
+    private SnapshotSegment(FileChannel channel, MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a new segment file with the given capacity.
+     */
+    @Nonnull
+    static SnapshotSegment create(@Nonnull Path path, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, CREATE_NEW, READ, WRITE);
+        try {
+            return new SnapshotSegment(channel, channel.map(MapMode.READ_WRITE, 0, capacity));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the size of the record with the given key and value.
+     */
+    static int recordSize(@Nonnull byte[] key, @Nonnull byte[] value) {
+        return HEADER_SIZE + key.length + value.length;
+    }
+
+    /**
+     * Appends the record. Returns false if the record doesn't fit into the
+     * remaining capacity.
+     */
+    boolean append(@Nonnull byte[] key, @Nonnull byte[] value) {
+        assert key.length > 0 : "empty key";
+        if (buffer.remaining() < recordSize(key, value)) {
+            return false;
+        }
+        crc.reset();
+        crc.update(key, 0, key.length);
+        crc.update(value, 0, value.length);
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.put(key);
+        buffer.put(value);
+        // the key length goes last, it makes the record visible to a reader of the mapping
+        buffer.putInt(start + Integer.BYTES, value.length);
+        buffer.putInt(start + 2 * Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(start, key.length);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        unmap(buffer);
+        channel.close();
+    }
+
+    /**
+     * Returns a traverser over the records in the segment file as entries
+     * of the key and the value, read from a read-only mapping of the file.
+     * The mapping is released when the traverser is exhausted.
+     *
+     * @throws JetException from the traverser, if a record is corrupted
+     */
+    @Nonnull
+    static Traverser<Entry<byte[], byte[]>> records(@Nonnull Path path) throws IOException {
+        RecordReader reader = new RecordReader(path);
+        CRC32 crc = new CRC32();
+        return () -> {
+            if (!reader.next()) {
+                return null;
+            }
+            byte[] key = reader.key();
+            byte[] value = new byte[reader.valueLength];
+            reader.buffer.get(value);
+            crc.reset();
+            crc.update(key, 0, key.length);
+            crc.update(value, 0, value.length);
+            if ((int) crc.getValue() != reader.checksum) {
+                throw new JetException("Checksum mismatch in snapshot segment " + path);
+            }
+            return entry(key, value);
+        };
+    }
+
+    /**
+     * Returns a traverser over the keys of the records in the segment file.
+     * The values are skipped and the checksums aren't verified, that's left
+     * to the {@link #records} traverser that reads the chunks. The mapping
+     * is released when the traverser is exhausted.
+     *
+     * @throws JetException from the traverser, if a record is corrupted
+     */
+    @Nonnull
+    static Traverser<byte[]> keys(@Nonnull Path path) throws IOException {
+        RecordReader reader = new RecordReader(path);
+        return () -> {
+            if (!reader.next()) {
+                return null;
+            }
+            byte[] key = reader.key();
+            reader.buffer.position(reader.buffer.position() + reader.valueLength);
+            return key;
+        };
+    }
+
+    /**
+     * Reads the record headers from a read-only mapping of a segment file.
+     */
+    private static final class RecordReader {
+        private final Path path;
+        private MappedByteBuffer buffer;
+        private int keyLength;
+        private int valueLength;
+        private int checksum;
+
+        RecordReader(Path path) throws IOException {
+            this.path = path;
+            try (FileChannel channel = FileChannel.open(path, READ)) {
+                buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        /**
+         * Reads the header of the next record. Returns false and releases
+         * the mapping, if there are no more records.
+         */
+        boolean next() {
+            if (buffer == null) {
+                return false;
+            }
+            keyLength = buffer.remaining() < HEADER_SIZE ? 0 : buffer.getInt();
+            if (keyLength == 0) {
+                unmap(buffer);
+                buffer = null;
+                return false;
+            }
+            valueLength = buffer.getInt();
+            checksum = buffer.getInt();
+            if (keyLength < 0 || valueLength < 0 || buffer.remaining() < keyLength + valueLength) {
+                throw new JetException("Corrupted record in snapshot segment " + path);
+            }
+            return true;
+        }
+
+        byte[] key() {
+            byte[] key = new byte[keyLength];
+            buffer.get(key);
+            return key;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.impl.SnapshotValidationRecord;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Predicate;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage of the snapshot chunks. The chunks of one snapshot data map (see
+ * {@link com.hazelcast.jet.impl.JobRepository#snapshotDataMapName}) are
+ * stored under the name of the map. The {@link
+ * com.hazelcast.jet.impl.SnapshotValidationRecord} is always stored in the
+ * IMap with that name, regardless of the store.
+ * <p>
+ * The {@link IMapSnapshotStore} keeps the chunks in the IMap itself. The
+ * {@link LocalDiskSnapshotStore} keeps them in files on the members, it's
+ * used if the {@linkplain
+ * com.hazelcast.jet.config.InstanceConfig#setSnapshotDirectory snapshot
+ * directory} is configured. Exported snapshots are always stored in IMaps.
+ */
+public interface SnapshotStore {
+
+    /**
+     * Stores the chunk. Called on the member that took the snapshot, from
+     * the tasklet thread, so it must not block.
+     *
+     * @return a future completed when the chunk and its backups are stored
+     */
+    @Nonnull
+    CompletableFuture<Void> putAsync(@Nonnull String name, @Nonnull SnapshotDataKey key, @Nonnull Data chunk);
+
+    /**
+     * Deletes all chunks stored under the name. Called on the master.
+     */
+    void clear(@Nonnull String name);
+
+    /**
+     * Deletes all chunks stored under the name and releases the resources
+     * used for it. Called on the master.
+     */
+    void destroy(@Nonnull String name);
+
+    /**
+     * Deletes the chunks matching the predicate, if the store {@linkplain
+     * #isQueryable() is queryable}. Otherwise it does nothing, the chunks
+     * are then deleted when the name is cleared and the restore must
+     * ignore them. Called on the master.
+     */
+    void removeAll(@Nonnull String name, @Nonnull Predicate<SnapshotDataKey, Object> predicate);
+
+    /**
+     * Returns true, if the chunks are stored in the IMap with the name and
+     * the master can count and query them. The snapshot validation counts
+     * the chunks and the incremental snapshots are taken only with a
+     * queryable store.
+     */
+    boolean isQueryable();
+
+    /**
+     * Checks that the chunks stored under the name can be read, so that the
+     * snapshot in the validation record can be restored. Called on the
+     * master before the restore.
+     *
+     * @throws com.hazelcast.jet.JetException if some chunks are lost
+     */
+    void validateChunkCount(
+            @Nonnull String name, @Nonnull SnapshotValidationRecord validationRecord, @Nonnull String jobIdString);
+
+    /**
+     * Returns the supplier of the source processors that read the chunks
+     * stored under the name to restore a snapshot. They emit {@code
+     * Map.Entry<SnapshotDataKey, Object>} items, where the value is either a
+     * {@code byte[]} or a {@link CompressedSnapshotChunk}, and each chunk is
+     * emitted once in the cluster.
+     */
+    @Nonnull
+    ProcessorMetaSupplier readP(@Nonnull String name);
+}
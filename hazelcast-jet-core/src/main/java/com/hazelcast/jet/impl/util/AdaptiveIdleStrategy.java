@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.util.concurrent.IdleStrategy;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * An idle strategy that adapts to the observed load. It keeps a moving
+ * average of the ratio of loop iterations that made progress (the "hit
+ * rate"). The higher the hit rate, the longer it spins and yields before it
+ * starts parking and the shorter the maximum park time. With a hit rate
+ * close to zero it behaves like a backoff strategy with a long maximum park
+ * time, saving CPU on idle jobs.
+ * <p>
+ * The instance is stateful and must be used by a single thread.
+ */
+public final class AdaptiveIdleStrategy implements IdleStrategy {
+
+    private static final int MAX_SPINS = 1_000;
+    private static final int MAX_YIELDS = 100;
+    private static final long MIN_PARK_NANOS = MICROSECONDS.toNanos(1);
+    private static final long MAX_PARK_NANOS_LOW_LOAD = MILLISECONDS.toNanos(10);
+    private static final long MAX_PARK_NANOS_HIGH_LOAD = MICROSECONDS.toNanos(50);
+    // weight of the most recent iteration in the moving average
+    private static final double ALPHA = 1.0 / 256;
+    private static final int MAX_SHIFT = 30;
+
+    private double hitRate;
+
+    /**
+     * Records the outcome of one loop iteration. Must be called once per
+     * iteration, regardless of whether it made progress.
+     */
+    public void iterationDone(boolean madeProgress) {
+        hitRate += ALPHA * ((madeProgress ? 1 : 0) - hitRate);
+    }
+
+    /**
+     * Returns the current moving average of the ratio of iterations that made
+     * progress.
+     */
+    public double hitRate() {
+        return hitRate;
+    }
+
+    @Override
+    public boolean idle(long n) {
+        long spins = (long) (hitRate * MAX_SPINS);
+        if (n <= spins) {
+            return false;
+        }
+        long yields = (long) (hitRate * MAX_YIELDS);
+        if (n <= spins + yields) {
+            Thread.yield();
+            return false;
+        }
+        long maxParkNanos = (long) (MAX_PARK_NANOS_LOW_LOAD
+                - hitRate * (MAX_PARK_NANOS_LOW_LOAD - MAX_PARK_NANOS_HIGH_LOAD));
+        long shift = Math.min(n - spins - yields - 1, MAX_SHIFT);
+        long parkNanos = Math.min(MIN_PARK_NANOS << shift, maxParkNanos);
+        LockSupport.parkNanos(parkNanos);
+        return parkNanos == maxParkNanos;
+    }
+}
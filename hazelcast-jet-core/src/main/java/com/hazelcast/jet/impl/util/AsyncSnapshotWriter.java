@@ -19,6 +19,7 @@ package com.hazelcast.jet.impl.util;
 import com.hazelcast.nio.serialization.Data;
 
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
 import java.util.Map.Entry;
 
 public interface AsyncSnapshotWriter {
@@ -40,7 +41,24 @@ public interface AsyncSnapshotWriter {
 
     boolean isEmpty();
 
+    /**
+     * Returns the size of the written chunks before compression.
+     */
     long getTotalPayloadBytes();
+
+    /**
+     * Returns the size of the written chunks after compression. The chunks
+     * that weren't compressed are counted with their full size.
+     */
+    long getTotalCompressedPayloadBytes();
+
     long getTotalKeys();
     long getTotalChunks();
+
+    /**
+     * Returns the key and the dictionary of the compressed chunks, or {@code
+     * null}, if the writer didn't compress any chunk.
+     */
+    @Nullable
+    Entry<String, byte[]> getDictionary();
 }
@@ -16,16 +16,15 @@
 
 package com.hazelcast.jet.impl.util;
 
-import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.HazelcastInstanceNotActiveException;
-import com.hazelcast.core.ICompletableFuture;
-import com.hazelcast.core.IMap;
 import com.hazelcast.core.PartitionAware;
 import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.internal.serialization.impl.SerializationConstants;
 import com.hazelcast.jet.impl.JetService;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk;
+import com.hazelcast.jet.impl.snapshot.SnapshotStore;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.ObjectDataInput;
@@ -34,6 +33,7 @@ import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.partition.IPartitionService;
+import com.hazelcast.spi.serialization.SerializationService;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
@@ -43,14 +43,29 @@ import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
+import static com.hazelcast.jet.Util.entry;
+
 public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
 
     public static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
 
+    /**
+     * The maximum size of the dictionary for the compressed chunks.
+     */
+    static final int DICTIONARY_SIZE = 8 * 1024;
+
+    /**
+     * A chunk is stored compressed only if the compression saves at least
+     * 1/MIN_SAVING of its size.
+     */
+    private static final int MIN_SAVING = 8;
+
     final int usableChunkSize; // this includes the serialization header for byte[], but not the terminator
     final byte[] serializedByteArrayHeader = new byte[3 * Bits.INT_SIZE_IN_BYTES];
     final byte[] valueTerminator;
@@ -62,12 +77,21 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     private final int[] partitionKeys;
     private int partitionSequence;
     private final ILogger logger;
-    private final NodeEngine nodeEngine;
     private final boolean useBigEndian;
     private final SnapshotContext snapshotContext;
     private final String vertexName;
+    private final int memberIndex;
     private final int memberCount;
-    private IMap currentMap;
+    private final SerializationService serializationService;
+    // null, if the compression is disabled
+    private final Lz4Codec compressor;
+    private final JetService jetService;
+    // the dictionary followed by the chunk being compressed
+    private byte[] compressionInput;
+    private byte[] compressionOutput;
+    private byte[] dictionary;
+    private SnapshotStore currentStore;
+    private String currentMapName;
     private long currentSnapshotId;
     private final AtomicReference<Throwable> firstError = new AtomicReference<>();
     private final AtomicInteger numActiveFlushes = new AtomicInteger();
@@ -76,38 +100,43 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     private long totalKeys;
     private long totalChunks;
     private long totalPayloadBytes;
+    private long totalCompressedPayloadBytes;
 
-    private final ExecutionCallback<Object> callback = new ExecutionCallback<Object>() {
-        @Override
-        public void onResponse(Object response) {
-            assert response == null : "put operation overwrote a previous value: " + response;
-            numActiveFlushes.decrementAndGet();
-            numConcurrentAsyncOps.decrementAndGet();
-        }
-
-        @Override
-        public void onFailure(Throwable t) {
+    private final BiConsumer<Void, Throwable> callback = (response, t) -> {
+        if (t != null) {
             logger.severe("Error writing to snapshot map", t);
             firstError.compareAndSet(null, t);
-            numActiveFlushes.decrementAndGet();
-            numConcurrentAsyncOps.decrementAndGet();
         }
+        numActiveFlushes.decrementAndGet();
+        numConcurrentAsyncOps.decrementAndGet();
     };
 
+    /**
+     * @param compress whether to compress the chunks of the snapshots that
+     *                 aren't incremental, see {@link CompressedSnapshotChunk}
+     */
     public AsyncSnapshotWriterImpl(NodeEngine nodeEngine, SnapshotContext snapshotContext, String vertexName,
-                                   int memberIndex, int memberCount) {
-        this(DEFAULT_CHUNK_SIZE, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount);
+                                   int memberIndex, int memberCount, boolean compress) {
+        this(DEFAULT_CHUNK_SIZE, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount, compress);
     }
 
     // for test
     AsyncSnapshotWriterImpl(int chunkSize, NodeEngine nodeEngine, SnapshotContext snapshotContext,
                             String vertexName, int memberIndex, int memberCount) {
-        this.nodeEngine = nodeEngine;
+        this(chunkSize, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount, false);
+    }
+
+    // for test
+    AsyncSnapshotWriterImpl(int chunkSize, NodeEngine nodeEngine, SnapshotContext snapshotContext,
+                            String vertexName, int memberIndex, int memberCount, boolean compress) {
         this.partitionService = nodeEngine.getPartitionService();
         this.logger = nodeEngine.getLogger(getClass());
         this.snapshotContext = snapshotContext;
         this.vertexName = vertexName;
+        this.memberIndex = memberIndex;
         this.memberCount = memberCount;
+        this.serializationService = nodeEngine.getSerializationService();
+        this.compressor = compress ? new Lz4Codec() : null;
         currentSnapshotId = snapshotContext.currentSnapshotId();
 
         useBigEndian = !nodeEngine.getHazelcastInstance().getConfig().getSerializationConfig().isUseNativeByteOrder()
@@ -122,7 +151,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             buffers[i].write(serializedByteArrayHeader, 0, serializedByteArrayHeader.length);
         }
 
-        JetService jetService = nodeEngine.getService(JetService.SERVICE_NAME);
+        jetService = nodeEngine.getService(JetService.SERVICE_NAME);
         this.partitionKeys = jetService.getSharedPartitionKeys();
         this.partitionSequence = memberIndex;
 
@@ -227,15 +256,16 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return false;
         }
         try {
-            // we put a Data instance to the map directly to avoid the serialization of the byte array
             Data data = dataSupplier.get();
             totalPayloadBytes += data.dataSize();
+            data = compress(data);
+            totalCompressedPayloadBytes += data.dataSize();
             totalChunks++;
-            ICompletableFuture<Object> future = currentMap.putAsync(
+            CompletableFuture<Void> future = currentStore.putAsync(currentMapName,
                     new SnapshotDataKey(partitionKeys[partitionId], currentSnapshotId, vertexName, partitionSequence),
                     data);
             partitionSequence += memberCount;
-            future.andThen(callback);
+            future.whenComplete(callback);
             numActiveFlushes.incrementAndGet();
         } catch (HazelcastInstanceNotActiveException ignored) {
             return false;
@@ -243,13 +273,46 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         return true;
     }
 
+    /**
+     * Returns the chunk compressed into a {@link CompressedSnapshotChunk}, or
+     * the original chunk, if the compression is disabled, the snapshot is
+     * incremental or the compression doesn't save enough. The dictionary is
+     * taken from the start of the first chunk and then used for all chunks
+     * of the writer.
+     */
+    private Data compress(Data chunk) {
+        if (compressor == null || snapshotContext.isIncrementalSnapshot()) {
+            return chunk;
+        }
+        byte[] bytes = chunk.toByteArray();
+        int offset = serializedByteArrayHeader.length;
+        int length = bytes.length - offset;
+        if (dictionary == null) {
+            dictionary = Arrays.copyOfRange(bytes, offset, offset + Math.min(length, DICTIONARY_SIZE));
+        }
+        if (compressionInput == null || compressionInput.length < dictionary.length + length) {
+            compressionInput = new byte[dictionary.length + Math.max(length, usableChunkSize)];
+            System.arraycopy(dictionary, 0, compressionInput, 0, dictionary.length);
+            compressionOutput = new byte[Lz4Codec.maxCompressedLength(compressionInput.length - dictionary.length)];
+        }
+        System.arraycopy(bytes, offset, compressionInput, dictionary.length, length);
+        int compressedLength = compressor.compress(
+                compressionInput, 0, dictionary.length, length, compressionOutput, 0);
+        if (compressedLength > length - length / MIN_SAVING) {
+            return chunk;
+        }
+        return serializationService.toData(new CompressedSnapshotChunk(
+                memberIndex, length, Arrays.copyOf(compressionOutput, compressedLength)));
+    }
+
     private boolean initCurrentMap() {
-        if (currentMap == null) {
+        if (currentMapName == null) {
             String mapName = snapshotContext.currentMapName();
             if (mapName == null) {
                 return false;
             }
-            currentMap = nodeEngine.getHazelcastInstance().getMap(mapName);
+            currentMapName = mapName;
+            currentStore = jetService.snapshotStore(mapName);
             this.currentSnapshotId = snapshotContext.currentSnapshotId();
         }
         return true;
@@ -276,17 +339,18 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         }
 
         // we're done
-        currentMap = null;
+        currentMapName = null;
+        currentStore = null;
         if (logger.isFineEnabled()) {
-            logger.fine(String.format("Stats for %s: keys=%,d, chunks=%,d, bytes=%,d",
-                    vertexName, totalKeys, totalChunks, totalPayloadBytes));
+            logger.fine(String.format("Stats for %s: keys=%,d, chunks=%,d, bytes=%,d, compressed bytes=%,d",
+                    vertexName, totalKeys, totalChunks, totalPayloadBytes, totalCompressedPayloadBytes));
         }
         return true;
     }
 
     @Override
     public void resetStats() {
-        totalKeys = totalChunks = totalPayloadBytes = 0;
+        totalKeys = totalChunks = totalPayloadBytes = totalCompressedPayloadBytes = 0;
     }
 
     @Override
@@ -338,6 +402,19 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return vertexName;
         }
 
+        public int partitionKey() {
+            return partitionKey;
+        }
+
+        /**
+         * Returns the sequence of the chunk within the snapshot of the vertex.
+         * Negative values are used by the chunks written when the incremental
+         * snapshots are compacted.
+         */
+        public int sequence() {
+            return sequence;
+        }
+
         @Override
         public String toString() {
             return "SnapshotDataKey{" +
@@ -420,6 +497,41 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         }
     }
 
+    /**
+     * The value saved to an incremental snapshot for a key that was removed
+     * from the processor's state since the previous snapshot. It's never
+     * passed to {@code restoreFromSnapshot()}.
+     */
+    public static final class SnapshotTombstone implements IdentifiedDataSerializable {
+
+        public static final IdentifiedDataSerializable INSTANCE = new SnapshotTombstone();
+
+        private SnapshotTombstone() { }
+
+        @Override
+        public int getFactoryId() {
+            return JetInitDataSerializerHook.FACTORY_ID;
+        }
+
+        @Override
+        public int getId() {
+            return JetInitDataSerializerHook.ASYNC_SNAPSHOT_WRITER_SNAPSHOT_TOMBSTONE;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) {
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) {
+        }
+
+        @Override
+        public String toString() {
+            return "SnapshotTombstone";
+        }
+    }
+
     /**
      * Non-synchronized variant of {@code java.io.ByteArrayOutputStream} with capacity limit.
      */
@@ -486,6 +598,11 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         return totalPayloadBytes;
     }
 
+    @Override
+    public long getTotalCompressedPayloadBytes() {
+        return totalCompressedPayloadBytes;
+    }
+
     @Override
     public long getTotalKeys() {
         return totalKeys;
@@ -495,4 +612,10 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     public long getTotalChunks() {
         return totalChunks;
     }
+
+    @Override
+    public Entry<String, byte[]> getDictionary() {
+        return dictionary == null ? null
+                : entry(CompressedSnapshotChunk.dictionaryKey(vertexName, memberIndex), dictionary);
+    }
 }
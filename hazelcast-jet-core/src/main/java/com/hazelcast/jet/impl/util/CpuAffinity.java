@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Pins threads to CPUs on Linux without native code. The thread finds its
+ * kernel thread ID through {@code /proc/thread-self} and the affinity is
+ * set by the {@code taskset} utility, which must be on the {@code PATH}.
+ * A process is started once per pinned thread, when the thread starts.
+ * The CPU topology is read from {@code /sys/devices/system/cpu}.
+ */
+public final class CpuAffinity {
+
+    private static final Path THREAD_SELF = Paths.get("/proc/thread-self");
+    private static final String TASKSET = "taskset";
+    private static final String CPU_TOPOLOGY = "/sys/devices/system/cpu/cpu%d/topology/physical_package_id";
+
+    private CpuAffinity() {
+    }
+
+    /**
+     * Returns the ID of the physical package (socket) the CPU belongs to, or
+     * 0 if the topology can't be determined.
+     */
+    public static int socketOf(int cpu) {
+        try {
+            Path path = Paths.get(String.format(CPU_TOPOLOGY, cpu));
+            return Integer.parseInt(new String(Files.readAllBytes(path), UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns whether the {@code taskset} utility is an executable file in
+     * one of the directories on the {@code PATH}.
+     */
+    public static boolean isTasksetAvailable() {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            try {
+                if (!dir.isEmpty() && Files.isExecutable(Paths.get(dir, TASKSET))) {
+                    return true;
+                }
+            } catch (InvalidPathException ignored) {
+                // not a directory we can look into
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pins the current thread to the given CPU.
+     *
+     * @return true if successful, false if the platform doesn't support it
+     */
+    public static boolean pinCurrentThread(int cpu) {
+        try {
+            // the link points to "<pid>/task/<tid>"
+            Path link = Files.readSymbolicLink(THREAD_SELF);
+            String tid = link.getFileName().toString();
+            Process taskset = new ProcessBuilder(TASKSET, "-p", "-c", String.valueOf(cpu), tid)
+                    .redirectErrorStream(true)
+                    .start();
+            drain(taskset);
+            return taskset.waitFor() == 0;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void drain(Process process) throws IOException {
+        byte[] buf = new byte[256];
+        while (process.getInputStream().read(buf) >= 0) {
+            // discard the output
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import java.util.Arrays;
+
+/**
+ * A pure-Java compressor producing the LZ4 block format. It trades
+ * compression ratio for speed: it only looks for matches of 4-byte
+ * sequences using a single-entry hash table and skips faster through data
+ * that doesn't compress.
+ * <p>
+ * The compressor keeps its hash table between calls to avoid allocation,
+ * so an instance must be used by a single thread. {@link #decompress} is
+ * stateless.
+ */
+public final class Lz4Codec {
+
+    private static final int MIN_MATCH = 4;
+    private static final int HASH_LOG = 12;
+    private static final int MAX_OFFSET = 0xFFFF;
+    // the LZ4 format requires the last 5 bytes to be literals and the last
+    // match to start at least 12 bytes before the end of the block
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int RUN_MASK = 0xF;
+    private static final int BYTE_MASK = 0xFF;
+    // after 2^SKIP_TRIGGER bytes without a match we start skipping bytes
+    private static final int SKIP_TRIGGER = 6;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    /**
+     * Returns the maximum size of the compressed form of {@code length}
+     * bytes. The destination array passed to {@link #compress} must have at
+     * least this many bytes available.
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses {@code srcLen} bytes from {@code src} starting at {@code
+     * srcOff} into {@code dest} starting at {@code destOff}.
+     *
+     * @return the number of bytes written to {@code dest}
+     */
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff) {
+        return compress(src, srcOff, srcOff, srcLen, dest, destOff);
+    }
+
+    /**
+     * Compresses {@code srcLen} bytes from {@code src} starting at {@code
+     * srcOff} into {@code dest} starting at {@code destOff}, using the bytes
+     * from {@code dictOff} to {@code srcOff} as a dictionary: the matches
+     * can refer to them as if they preceded the input. Only the last 64 kB
+     * of the dictionary are used. The block must be decompressed with the
+     * same dictionary, see {@link #decompress(byte[], int, int, byte[], int,
+     * int, int)}.
+     *
+     * @return the number of bytes written to {@code dest}
+     */
+    public int compress(byte[] src, int dictOff, int srcOff, int srcLen, byte[] dest, int destOff) {
+        final int srcEnd = srcOff + srcLen;
+        final int matchLimit = srcEnd - LAST_LITERALS;
+        final int mfLimit = srcEnd - MF_LIMIT;
+        int anchor = srcOff;
+        int dp = destOff;
+        if (srcLen > MF_LIMIT) {
+            Arrays.fill(hashTable, -1);
+            dictOff = Math.max(dictOff, srcOff - MAX_OFFSET);
+            for (int p = dictOff; p + MIN_MATCH <= srcOff; p++) {
+                hashTable[hash(readInt(src, p))] = p;
+            }
+            int sp = srcOff;
+            while (sp < mfLimit) {
+                final int seq = readInt(src, sp);
+                final int h = hash(seq);
+                int ref = hashTable[h];
+                hashTable[h] = sp;
+                if (ref < 0 || sp - ref > MAX_OFFSET || readInt(src, ref) != seq) {
+                    sp += 1 + ((sp - anchor) >>> SKIP_TRIGGER);
+                    continue;
+                }
+                while (sp > anchor && ref > dictOff && src[sp - 1] == src[ref - 1]) {
+                    sp--;
+                    ref--;
+                }
+                int matchLen = MIN_MATCH;
+                while (sp + matchLen < matchLimit && src[sp + matchLen] == src[ref + matchLen]) {
+                    matchLen++;
+                }
+                dp = writeSequence(src, anchor, sp - anchor, sp - ref, matchLen, dest, dp);
+                sp += matchLen;
+                anchor = sp;
+            }
+        }
+        // the last sequence has only literals
+        final int litLen = srcEnd - anchor;
+        final int token = dp++;
+        dest[token] = (byte) (Math.min(litLen, RUN_MASK) << 4);
+        if (litLen >= RUN_MASK) {
+            dp = writeLength(litLen - RUN_MASK, dest, dp);
+        }
+        System.arraycopy(src, anchor, dest, dp, litLen);
+        return dp + litLen - destOff;
+    }
+
+    /**
+     * Decompresses a block created by {@link #compress} from {@code src} into
+     * {@code dest}.
+     *
+     * @param destLen the space available in {@code dest}
+     * @return the number of bytes written to {@code dest}
+     * @throws IllegalArgumentException if the input is malformed or the
+     *      output doesn't fit into {@code destLen} bytes
+     */
+    public static int decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen) {
+        return decompress(src, srcOff, srcLen, dest, destOff, destOff, destLen);
+    }
+
+    /**
+     * Decompresses a block created by {@link #compress(byte[], int, int, int,
+     * byte[], int)} from {@code src} into {@code dest}. The dictionary used
+     * for the compression must be in {@code dest} from {@code dictOff} to
+     * {@code destOff}.
+     *
+     * @param destLen the space available in {@code dest} after {@code destOff}
+     * @return the number of bytes written to {@code dest}
+     * @throws IllegalArgumentException if the input is malformed or the
+     *      output doesn't fit into {@code destLen} bytes
+     */
+    public static int decompress(
+            byte[] src, int srcOff, int srcLen, byte[] dest, int dictOff, int destOff, int destLen
+    ) {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int sp = srcOff;
+        int dp = destOff;
+        try {
+            while (true) {
+                final int token = src[sp++] & BYTE_MASK;
+                int litLen = token >>> 4;
+                if (litLen == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sp++] & BYTE_MASK;
+                        litLen += b;
+                    } while (b == BYTE_MASK);
+                }
+                if (litLen > srcEnd - sp || litLen > destEnd - dp) {
+                    throw malformed(sp);
+                }
+                System.arraycopy(src, sp, dest, dp, litLen);
+                sp += litLen;
+                dp += litLen;
+                if (sp == srcEnd) {
+                    return dp - destOff;
+                }
+                final int offset = (src[sp++] & BYTE_MASK) | (src[sp++] & BYTE_MASK) << 8;
+                int matchLen = token & RUN_MASK;
+                if (matchLen == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sp++] & BYTE_MASK;
+                        matchLen += b;
+                    } while (b == BYTE_MASK);
+                }
+                matchLen += MIN_MATCH;
+                final int ref = dp - offset;
+                if (offset == 0 || ref < dictOff || matchLen > destEnd - dp) {
+                    throw malformed(sp);
+                }
+                if (offset >= matchLen) {
+                    System.arraycopy(dest, ref, dest, dp, matchLen);
+                } else {
+                    // overlapping match, repeats the last offset bytes
+                    for (int i = 0; i < matchLen; i++) {
+                        dest[dp + i] = dest[ref + i];
+                    }
+                }
+                dp += matchLen;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw malformed(sp);
+        }
+    }
+
+    private static int writeSequence(
+            byte[] src, int litOff, int litLen, int offset, int matchLen, byte[] dest, int dp
+    ) {
+        final int token = dp++;
+        final int matchLenCode = matchLen - MIN_MATCH;
+        dest[token] = (byte) (Math.min(litLen, RUN_MASK) << 4 | Math.min(matchLenCode, RUN_MASK));
+        if (litLen >= RUN_MASK) {
+            dp = writeLength(litLen - RUN_MASK, dest, dp);
+        }
+        System.arraycopy(src, litOff, dest, dp, litLen);
+        dp += litLen;
+        dest[dp++] = (byte) offset;
+        dest[dp++] = (byte) (offset >>> 8);
+        if (matchLenCode >= RUN_MASK) {
+            dp = writeLength(matchLenCode - RUN_MASK, dest, dp);
+        }
+        return dp;
+    }
+
+    private static int writeLength(int length, byte[] dest, int dp) {
+        for (; length >= BYTE_MASK; length -= BYTE_MASK) {
+            dest[dp++] = (byte) BYTE_MASK;
+        }
+        dest[dp++] = (byte) length;
+        return dp;
+    }
+
+    private static int readInt(byte[] buf, int pos) {
+        return (buf[pos] & BYTE_MASK)
+                | (buf[pos + 1] & BYTE_MASK) << 8
+                | (buf[pos + 2] & BYTE_MASK) << 16
+                | (buf[pos + 3] & BYTE_MASK) << 24;
+    }
+
+    private static int hash(int seq) {
+        return (seq * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+
+    private static IllegalArgumentException malformed(int position) {
+        return new IllegalArgumentException("Malformed LZ4 input near position " + position);
+    }
+}
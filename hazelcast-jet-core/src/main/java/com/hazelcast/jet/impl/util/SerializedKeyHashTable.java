@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.impl.util.Util.freeDirectBuffer;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+import static com.hazelcast.util.QuickMath.nextPowerOfTwo;
+
+/**
+ * An open-addressing hash table in off-heap memory, mapping keys in the
+ * serialized form to values of a fixed size. Neither the keys nor the
+ * values are Java objects, so the table doesn't add to the heap size and
+ * the garbage collector doesn't need to scan it.
+ * <p>
+ * The table is an array of slots in a direct buffer, the slot consists of
+ * the key's hash, its length and its address and is followed by the value.
+ * Collisions are resolved by linear probing. The keys are copied to
+ * direct buffers of {@value #PAGE_SIZE} bytes, a key larger than that gets
+ * its own buffer. The memory is released when the table is garbage
+ * collected.
+ * <p>
+ * The value of a new key is initialized with the bytes passed to the
+ * constructor. The caller reads and writes the values directly in {@link
+ * #values()} at the offset returned by {@link #valueOffset}. Entries can't
+ * be removed individually. The class is not thread-safe.
+ */
+public final class SerializedKeyHashTable {
+
+    static final int PAGE_SIZE = 1 << 20;
+
+    private static final int HASH_OFFSET = 0;
+    private static final int KEY_LENGTH_OFFSET = INT_SIZE_IN_BYTES;
+    private static final int KEY_ADDRESS_OFFSET = 2 * INT_SIZE_IN_BYTES;
+    private static final int SLOT_HEADER_SIZE = KEY_ADDRESS_OFFSET + LONG_SIZE_IN_BYTES;
+    private static final int MIN_CAPACITY = 16;
+    private static final double LOAD_FACTOR = 0.6;
+    private static final int PAGE_SHIFT = 32;
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+    // 0 means an empty slot, a key whose hash is 0 uses this hash instead
+    private static final int ZERO_HASH_REPLACEMENT = 1;
+    private static final int HASH_SEED = 0x9747b28c;
+    private static final int MIX_MULTIPLIER = 0x85ebca6b;
+    private static final int MIX_SHIFT = 16;
+
+    private final int valueSize;
+    private final int slotSize;
+    private final byte[] initialValue;
+    private final List<ByteBuffer> keyPages = new ArrayList<>();
+
+    private ByteBuffer slots;
+    private int capacity;
+    private int size;
+    private int resizeThreshold;
+    // the page new keys are appended to
+    private int currentPage = -1;
+
+    /**
+     * @param initialValue the value of a newly inserted key, its length is the
+     *                     size of all values
+     * @param expectedSize the number of keys to size the table for
+     */
+    public SerializedKeyHashTable(@Nonnull byte[] initialValue, int expectedSize) {
+        this.initialValue = initialValue.clone();
+        this.valueSize = initialValue.length;
+        // align the values to 8 bytes
+        this.slotSize = (SLOT_HEADER_SIZE + valueSize + LONG_SIZE_IN_BYTES - 1) & -LONG_SIZE_IN_BYTES;
+        allocateSlots(nextPowerOfTwo(Math.max(MIN_CAPACITY, (int) (expectedSize / LOAD_FACTOR))));
+    }
+
+    /**
+     * Returns the number of keys in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots. The valid slot indices are from 0 to
+     * {@code capacity() - 1}, use {@link #isOccupied} to find the slots with
+     * keys. The capacity changes when a key is inserted.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the slot of the key, inserting the key with the initial value
+     * if it's absent. The slots of other keys can change when a key is
+     * inserted.
+     */
+    public int findOrInsert(@Nonnull byte[] key) {
+        int hash = hash(key);
+        int mask = capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int slotOffset = slot * slotSize;
+            int slotHash = slots.getInt(slotOffset + HASH_OFFSET);
+            if (slotHash == 0) {
+                if (size >= resizeThreshold) {
+                    resize();
+                    return findOrInsert(key);
+                }
+                insert(slotOffset, hash, key);
+                return slot;
+            }
+            if (slotHash == hash && keyEquals(slotOffset, key)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of the key or -1 if it's absent.
+     */
+    public int find(@Nonnull byte[] key) {
+        int hash = hash(key);
+        int mask = capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int slotOffset = slot * slotSize;
+            int slotHash = slots.getInt(slotOffset + HASH_OFFSET);
+            if (slotHash == 0) {
+                return -1;
+            }
+            if (slotHash == hash && keyEquals(slotOffset, key)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Tells whether the slot contains a key.
+     */
+    public boolean isOccupied(int slot) {
+        return slots.getInt(slot * slotSize + HASH_OFFSET) != 0;
+    }
+
+    /**
+     * Returns a copy of the key in the given occupied slot.
+     */
+    @Nonnull
+    public byte[] key(int slot) {
+        int slotOffset = slot * slotSize;
+        byte[] key = new byte[slots.getInt(slotOffset + KEY_LENGTH_OFFSET)];
+        long address = slots.getLong(slotOffset + KEY_ADDRESS_OFFSET);
+        ByteBuffer page = keyPages.get((int) (address >>> PAGE_SHIFT)).duplicate();
+        page.position((int) (address & OFFSET_MASK));
+        page.get(key);
+        return key;
+    }
+
+    /**
+     * Returns the buffer holding the values. The buffer changes when a key
+     * is inserted.
+     */
+    @Nonnull
+    public ByteBuffer values() {
+        return slots;
+    }
+
+    /**
+     * Returns the offset of the value of the given slot in {@link #values()}.
+     */
+    public int valueOffset(int slot) {
+        return slot * slotSize + SLOT_HEADER_SIZE;
+    }
+
+    /**
+     * Removes all keys and releases the memory of the keys.
+     */
+    public void clear() {
+        dispose();
+        allocateSlots(MIN_CAPACITY);
+    }
+
+    /**
+     * Releases the native memory of the table right away. The table must not
+     * be used after this call, except for {@link #clear()}.
+     */
+    public void dispose() {
+        for (ByteBuffer page : keyPages) {
+            freeDirectBuffer(page);
+        }
+        keyPages.clear();
+        currentPage = -1;
+        size = 0;
+        freeDirectBuffer(slots);
+        slots = null;
+        capacity = 0;
+        resizeThreshold = 0;
+    }
+
+    private void insert(int slotOffset, int hash, byte[] key) {
+        slots.putInt(slotOffset + HASH_OFFSET, hash);
+        slots.putInt(slotOffset + KEY_LENGTH_OFFSET, key.length);
+        slots.putLong(slotOffset + KEY_ADDRESS_OFFSET, storeKey(key));
+        int valueOffset = slotOffset + SLOT_HEADER_SIZE;
+        for (int i = 0; i < valueSize; i++) {
+            slots.put(valueOffset + i, initialValue[i]);
+        }
+        size++;
+    }
+
+    private long storeKey(byte[] key) {
+        ByteBuffer page = currentPage >= 0 ? keyPages.get(currentPage) : null;
+        if (page == null || page.remaining() < key.length) {
+            page = ByteBuffer.allocateDirect(Math.max(PAGE_SIZE, key.length));
+            keyPages.add(page);
+            currentPage = keyPages.size() - 1;
+        }
+        long address = (long) currentPage << PAGE_SHIFT | page.position();
+        page.put(key);
+        return address;
+    }
+
+    private boolean keyEquals(int slotOffset, byte[] key) {
+        if (slots.getInt(slotOffset + KEY_LENGTH_OFFSET) != key.length) {
+            return false;
+        }
+        long address = slots.getLong(slotOffset + KEY_ADDRESS_OFFSET);
+        ByteBuffer page = keyPages.get((int) (address >>> PAGE_SHIFT));
+        int offset = (int) (address & OFFSET_MASK);
+        for (int i = 0; i < key.length; i++) {
+            if (page.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void resize() {
+        if ((long) capacity * 2 * slotSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("SerializedKeyHashTable can't grow beyond " + size + " keys");
+        }
+        ByteBuffer oldSlots = slots;
+        int oldCapacity = capacity;
+        allocateSlots(capacity * 2);
+        int mask = capacity - 1;
+        byte[] slotBytes = new byte[slotSize];
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            int oldOffset = oldSlot * slotSize;
+            int hash = oldSlots.getInt(oldOffset + HASH_OFFSET);
+            if (hash == 0) {
+                continue;
+            }
+            int slot = hash & mask;
+            while (slots.getInt(slot * slotSize + HASH_OFFSET) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            oldSlots.position(oldOffset);
+            oldSlots.get(slotBytes);
+            slots.position(slot * slotSize);
+            slots.put(slotBytes);
+        }
+        slots.clear();
+        freeDirectBuffer(oldSlots);
+    }
+
+    private void allocateSlots(int newCapacity) {
+        slots = ByteBuffer.allocateDirect(newCapacity * slotSize).order(ByteOrder.nativeOrder());
+        capacity = newCapacity;
+        resizeThreshold = (int) (newCapacity * LOAD_FACTOR);
+    }
+
+    private static int hash(byte[] key) {
+        int h = HASH_SEED;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        h *= MIX_MULTIPLIER;
+        h ^= h >>> MIX_SHIFT;
+        return h != 0 ? h : ZERO_HASH_REPLACEMENT;
+    }
+}
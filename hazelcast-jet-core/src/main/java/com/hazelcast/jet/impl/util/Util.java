@@ -46,6 +46,7 @@ import com.hazelcast.spi.impl.NodeEngineImpl;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -55,6 +56,10 @@ import java.io.NotSerializableException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.time.Instant;
@@ -489,6 +494,50 @@ public final class Util {
         counters.lazySet(index, counters.get(index) + addend);
     }
 
+    /**
+     * Releases the memory mapping of the buffer right away instead of when
+     * the buffer is garbage-collected, so that the mapped file doesn't hold
+     * the address space and the disk space after it was deleted. The buffer
+     * must not be used after this call. If the JVM doesn't allow unmapping,
+     * the mapping is released by the garbage collector.
+     */
+    public static void unmap(@Nullable MappedByteBuffer buffer) {
+        freeDirectBuffer(buffer);
+    }
+
+    /**
+     * Releases the native memory of a buffer allocated with {@link
+     * ByteBuffer#allocateDirect} right away instead of when the buffer is
+     * garbage-collected. The buffer must not be used after this call and it
+     * must not be a slice or a duplicate of another buffer. Does nothing for
+     * a heap buffer.
+     */
+    public static void freeDirectBuffer(@Nullable ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+        try {
+            // JDK 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (Exception ignored) {
+            // not available, try the JDK 8 way
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception ignored) {
+            // leave it to the garbage collector
+        }
+    }
+
     /**
      * Adds items of the collection. Faster than {@code
      * collection.stream().mapToInt(toIntF).sum()} and equal to plain old loop
@@ -30,6 +30,7 @@ import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedBiPredicate;
+import com.hazelcast.jet.function.DistributedComparator;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedPredicate;
 import com.hazelcast.jet.function.DistributedSupplier;
@@ -183,6 +184,60 @@ public interface BatchStage<T> extends GeneralStage<T> {
         return new HashJoinBuilder<>(this);
     }
 
+    /**
+     * Attaches a stage that emits all the items from this stage ordered by
+     * the given comparator. The sort is distributed: a sample of the items
+     * determines ranges of roughly equal size, each range is sorted on a
+     * different member and a single processor emits the sorted ranges in
+     * order as they arrive. Items that don't fit into the memory are spilled
+     * to disk, see {@link
+     * com.hazelcast.jet.config.InstanceConfig#setSortSpillThreshold
+     * InstanceConfig.setSortSpillThreshold()}.
+     * <p>
+     * The stage emits the items in the sort order, but the order is only
+     * preserved by a downstream stage with local parallelism of 1, such as
+     * most sinks. Equal items may come in any order.
+     *
+     * @param comparator the sort order
+     * @return the newly attached stage
+     */
+    @Nonnull
+    BatchStage<T> sort(@Nonnull DistributedComparator<? super T> comparator);
+
+    /**
+     * Attaches to both this and the supplied stage a sort-merge join stage.
+     * Unlike {@link #hashJoin hashJoin()}, it doesn't keep the items of the
+     * joined stage in memory: both inputs are partitioned by the join key,
+     * sorted by it using the given comparator and merged. Only the joined
+     * items with the same key must fit into the memory, the rest is spilled
+     * to disk in the same way as in {@link #sort sort()}. Use it to join two
+     * large data sets. The comparator must consider two keys equal exactly
+     * when they are {@code equals()}. The items with a {@code null} key
+     * don't match any item.
+     * <p>
+     * This is an inner join: the primary items without a matching joined
+     * item are dropped. A primary item that matches several joined items is
+     * joined with each of them. The strategy and off-heap settings of the
+     * join clause don't apply to this join.
+     *
+     * @param stage1        the stage to join with
+     * @param joinClause    specifies how to join the two streams
+     * @param keyComparator the order of the join keys
+     * @param mapToOutputFn function to map the joined items to the output value
+     * @param <K>           the type of the join key
+     * @param <T1_IN>       the type of {@code stage1} items
+     * @param <T1>          the result type of projection on {@code stage1} items
+     * @param <R>           the resulting output type
+     * @return the newly attached stage
+     */
+    @Nonnull
+    <K, T1_IN, T1, R> BatchStage<R> sortMergeJoin(
+            @Nonnull BatchStage<T1_IN> stage1,
+            @Nonnull JoinClause<K, ? super T, ? super T1_IN, ? extends T1> joinClause,
+            @Nonnull DistributedComparator<? super K> keyComparator,
+            @Nonnull DistributedBiFunction<T, T1, R> mapToOutputFn
+    );
+
     /**
      * Attaches a stage that performs the given aggregate operation over all
      * the items it receives. The aggregating stage emits a single item.
@@ -18,9 +18,12 @@ package com.hazelcast.jet.pipeline;
 
 import com.hazelcast.jet.function.DistributedFunction;
 
+import javax.annotation.Nonnull;
 import java.util.Map.Entry;
 
 import static com.hazelcast.jet.impl.util.Util.checkSerializable;
+import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkNotNull;
 
 /**
  * Specifies how to join an enriching stream to the primary stream in a
@@ -42,6 +45,13 @@ import static com.hazelcast.jet.impl.util.Util.checkSerializable;
  *  contain just the values. In this case the projection function should be
  *  {@code Entry::getValue}. There is direct support for this case with the
  *  method {@link #joinMapEntries(DistributedFunction)}.
+ * <p>
+ * By default, Jet collects the entire enriching stream into a hashtable
+ * and sends a copy of it to each member. Use {@link #offHeap()} to keep
+ * the table outside of the Java heap in the serialized form and {@link
+ * #partitioned()} when the enriching stream is too large to be copied to
+ * each member. If you {@linkplain #estimatedSize(long) estimate} the size
+ * of the enriching stream, Jet picks the strategy itself.
  *
  * @param <K> the type of the join key
  * @param <T0> the type of the left-hand stream item
@@ -49,14 +59,35 @@ import static com.hazelcast.jet.impl.util.Util.checkSerializable;
  * @param <T1_OUT> the result type of the right-hand projection function
  */
 public final class JoinClause<K, T0, T1, T1_OUT> {
+
+    /**
+     * The {@linkplain #estimatedSize(long) estimated size} of the enriching
+     * stream from which the {@link JoinStrategy#AUTO AUTO} strategy picks a
+     * partitioned join.
+     */
+    public static final long AUTO_PARTITIONED_MIN_SIZE = 10_000_000L;
     private final DistributedFunction<? super T0, ? extends K> leftKeyFn;
     private final DistributedFunction<? super T1, ? extends K> rightKeyFn;
     private final DistributedFunction<? super T1, ? extends T1_OUT> rightProjectFn;
+    private final boolean offHeap;
+    private final JoinStrategy strategy;
+    private final long estimatedSize;
 
     private JoinClause(
             DistributedFunction<? super T0, ? extends K> leftKeyFn,
             DistributedFunction<? super T1, ? extends K> rightKeyFn,
             DistributedFunction<? super T1, ? extends T1_OUT> rightProjectFn
+    ) {
+        this(leftKeyFn, rightKeyFn, rightProjectFn, false, JoinStrategy.AUTO, 0);
+    }
+
+    private JoinClause(
+            DistributedFunction<? super T0, ? extends K> leftKeyFn,
+            DistributedFunction<? super T1, ? extends K> rightKeyFn,
+            DistributedFunction<? super T1, ? extends T1_OUT> rightProjectFn,
+            boolean offHeap,
+            JoinStrategy strategy,
+            long estimatedSize
     ) {
         checkSerializable(leftKeyFn, "leftKeyFn");
         checkSerializable(rightKeyFn, "rightKeyFn");
@@ -64,6 +95,9 @@ public final class JoinClause<K, T0, T1, T1_OUT> {
         this.leftKeyFn = leftKeyFn;
         this.rightKeyFn = rightKeyFn;
         this.rightProjectFn = rightProjectFn;
+        this.offHeap = offHeap;
+        this.strategy = strategy;
+        this.estimatedSize = estimatedSize;
     }
 
     /**
@@ -101,7 +135,59 @@ public final class JoinClause<K, T0, T1, T1_OUT> {
     public <T1_NEW_OUT> JoinClause<K, T0, T1, T1_NEW_OUT> projecting(
             DistributedFunction<? super T1, ? extends T1_NEW_OUT> rightProjectFn
     ) {
-        return new JoinClause<>(this.leftKeyFn, this.rightKeyFn, rightProjectFn);
+        return new JoinClause<>(this.leftKeyFn, this.rightKeyFn, rightProjectFn, offHeap, strategy, estimatedSize);
+    }
+
+    /**
+     * Returns a copy of this join clause, but with the lookup table kept in
+     * off-heap memory. The keys and the projected items are stored in the
+     * serialized form and only the matching item is deserialized for each
+     * primary stream item. The keys are compared in the serialized form, so
+     * the left-hand and the right-hand keys must be of the same type.
+     * <p>
+     * The table takes less memory and doesn't burden the garbage collector,
+     * but each lookup is slower because it serializes the key and
+     * deserializes the result.
+     */
+    public JoinClause<K, T0, T1, T1_OUT> offHeap() {
+        return new JoinClause<>(leftKeyFn, rightKeyFn, rightProjectFn, true, strategy, estimatedSize);
+    }
+
+    /**
+     * Returns a copy of this join clause, but with a partitioned join
+     * strategy. Instead of sending the whole enriching stream to each member,
+     * Jet partitions both streams by the join key and joins each partition
+     * on the member that owns it. Each member then holds only its share of
+     * the enriching stream, but the primary stream must be sent over the
+     * network. The left-hand and the right-hand keys must be of the same
+     * type.
+     * <p>
+     * A partitioned clause must be the only clause of the hash-join.
+     * <p>
+     * This is a shorthand for {@code strategy(JoinStrategy.PARTITIONED)}.
+     */
+    public JoinClause<K, T0, T1, T1_OUT> partitioned() {
+        return strategy(JoinStrategy.PARTITIONED);
+    }
+
+    /**
+     * Returns a copy of this join clause, but with the given join strategy.
+     * The default is {@link JoinStrategy#AUTO}.
+     */
+    public JoinClause<K, T0, T1, T1_OUT> strategy(@Nonnull JoinStrategy strategy) {
+        checkNotNull(strategy, "strategy");
+        return new JoinClause<>(leftKeyFn, rightKeyFn, rightProjectFn, offHeap, strategy, estimatedSize);
+    }
+
+    /**
+     * Returns a copy of this join clause, but with the given estimate of the
+     * number of items in the enriching stream. With the {@link
+     * JoinStrategy#AUTO AUTO} strategy, Jet uses it to decide whether to
+     * partition the join. The default is 0, which means the size is unknown.
+     */
+    public JoinClause<K, T0, T1, T1_OUT> estimatedSize(long itemCount) {
+        checkNotNegative(itemCount, "itemCount must not be negative");
+        return new JoinClause<>(leftKeyFn, rightKeyFn, rightProjectFn, offHeap, strategy, itemCount);
     }
 
     /**
@@ -124,4 +210,27 @@ public final class JoinClause<K, T0, T1, T1_OUT> {
     public DistributedFunction<? super T1, ? extends T1_OUT> rightProjectFn() {
         return rightProjectFn;
     }
+
+    /**
+     * Tells whether the lookup table is kept off-heap, see {@link #offHeap()}.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the join strategy, see {@link #strategy(JoinStrategy)}.
+     */
+    @Nonnull
+    public JoinStrategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the estimated size of the enriching stream or 0, if it's
+     * unknown. See {@link #estimatedSize(long)}.
+     */
+    public long estimatedSize() {
+        return estimatedSize;
+    }
 }
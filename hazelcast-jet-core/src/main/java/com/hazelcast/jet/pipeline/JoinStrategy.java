@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.pipeline;
+
+/**
+ * Specifies how a {@link BatchStage#hashJoin hash-join} distributes the
+ * joined stream. Set it with {@link JoinClause#strategy(JoinStrategy)}.
+ */
+public enum JoinStrategy {
+
+    /**
+     * Jet picks the strategy: {@link #PARTITIONED} if the hash-join has a
+     * single clause and its {@linkplain JoinClause#estimatedSize(long)
+     * estimated size} is at least {@link
+     * JoinClause#AUTO_PARTITIONED_MIN_SIZE}, {@link #BROADCAST} otherwise.
+     */
+    AUTO,
+
+    /**
+     * Each member collects the entire joined stream into a lookup table and
+     * joins its share of the primary stream. Works well when the joined
+     * stream is small.
+     */
+    BROADCAST,
+
+    /**
+     * Jet partitions both streams by the join key and joins each partition
+     * on the member that owns it. Each member holds only its share of the
+     * joined stream, so it can be as large as the primary stream. The
+     * hash-join must have a single clause.
+     */
+    PARTITIONED
+}
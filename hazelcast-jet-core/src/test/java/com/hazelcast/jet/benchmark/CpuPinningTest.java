@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.benchmark;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.NightlyTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.processor.Processors.mapP;
+import static com.hazelcast.jet.core.processor.Processors.noopP;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the throughput of a DAG of vertices connected with isolated
+ * edges, with the cooperative threads pinned to CPUs and without pinning.
+ * Also reports the cross-socket traffic as the growth of the {@code
+ * other_node} counters in {@code /sys/devices/system/node/node*}{@code
+ * /numastat}: the number of pages allocated on a NUMA node by a process
+ * running on another node. On a single-socket machine or outside Linux the
+ * traffic is reported as zero.
+ */
+@Category(NightlyTest.class)
+@RunWith(HazelcastSerialClassRunner.class)
+public class CpuPinningTest extends JetTestSupport {
+
+    private static final int THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final long ITEMS_PER_PROCESSOR = 5_000_000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    public void isolatedPipeline() {
+        measure(null);
+        measure("0-" + (THREAD_COUNT - 1));
+    }
+
+    private void measure(String cpus) {
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig()
+              .setCooperativeThreadCount(THREAD_COUNT)
+              .setCooperativeThreadCpus(cpus);
+        JetInstance jet = createJetMember(config);
+        try {
+            DAG dag = new DAG();
+            Vertex source = dag.newVertex("source", GenerateP::new);
+            Vertex map = dag.newVertex("map", mapP((Long l) -> l + 1));
+            Vertex sink = dag.newVertex("sink", noopP());
+            dag.edge(between(source, map).isolated())
+               .edge(between(map, sink).isolated());
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                jet.newJob(dag).join();
+            }
+            long otherNodeStart = otherNodePages();
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                jet.newJob(dag).join();
+            }
+            long elapsed = System.nanoTime() - start;
+            long otherNodePages = otherNodePages() - otherNodeStart;
+            long totalItems = MEASURED_ROUNDS * THREAD_COUNT * ITEMS_PER_PROCESSOR;
+            System.out.printf("%s: %,.0f items/s, %,d pages allocated across sockets%n",
+                    cpus == null ? "Not pinned" : "Pinned to CPUs " + cpus,
+                    totalItems / (elapsed / (double) SECONDS.toNanos(1)), otherNodePages);
+        } finally {
+            jet.shutdown();
+        }
+    }
+
+    private static long otherNodePages() {
+        long total = 0;
+        try (DirectoryStream<Path> nodes = Files.newDirectoryStream(Paths.get("/sys/devices/system/node"), "node*")) {
+            for (Path node : nodes) {
+                for (String line : Files.readAllLines(node.resolve("numastat"))) {
+                    if (line.startsWith("other_node ")) {
+                        total += Long.parseLong(line.substring("other_node ".length()).trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        return total;
+    }
+
+    private static final class GenerateP extends AbstractProcessor {
+        private long next;
+
+        @Override
+        public boolean complete() {
+            while (next < ITEMS_PER_PROCESSOR) {
+                if (!tryEmit(next)) {
+                    return false;
+                }
+                next++;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.benchmark;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.NightlyTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import javax.annotation.Nonnull;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the throughput of a DAG where the load of the tasklets is
+ * skewed: the heavy processors are all assigned to the same cooperative
+ * threads, while other threads are idle. Runs the DAG with the default
+ * round-robin placement, with work stealing and with load balancing.
+ */
+@Category(NightlyTest.class)
+@RunWith(HazelcastSerialClassRunner.class)
+public class WorkStealingTest extends JetTestSupport {
+
+    private static final int THREAD_COUNT = 4;
+    private static final int WORK_UNITS_PER_HEAVY_PROCESSOR = 20_000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    public void skewedLoad() {
+        double roundRobin = measure(false, false);
+        double withStealing = measure(true, false);
+        double withLoadBalancing = measure(false, true);
+        System.out.printf("Throughput with round-robin placement: %,.0f units/s%n", roundRobin);
+        System.out.printf("Throughput with work stealing:         %,.0f units/s%n", withStealing);
+        System.out.printf("Throughput with load balancing:        %,.0f units/s%n", withLoadBalancing);
+    }
+
+    private double measure(boolean workStealingEnabled, boolean loadBalancingEnabled) {
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig()
+              .setCooperativeThreadCount(THREAD_COUNT)
+              .setWorkStealingEnabled(workStealingEnabled)
+              .setTaskletLoadBalancingEnabled(loadBalancingEnabled);
+        JetInstance jet = createJetMember(config);
+        try {
+            DAG dag = new DAG();
+            // The tasklets are assigned to threads round-robin: processors with
+            // index i and i + THREAD_COUNT share a thread. Make half of the
+            // threads carry two heavy processors and leave the other half idle.
+            dag.newVertex("skewed", SkewedP::new).localParallelism(2 * THREAD_COUNT);
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                jet.newJob(dag).join();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                jet.newJob(dag).join();
+            }
+            long elapsed = System.nanoTime() - start;
+            long totalUnits = (long) MEASURED_ROUNDS * THREAD_COUNT * WORK_UNITS_PER_HEAVY_PROCESSOR;
+            return totalUnits / (elapsed / (double) SECONDS.toNanos(1));
+        } finally {
+            jet.shutdown();
+        }
+    }
+
+    private static final class SkewedP extends AbstractProcessor {
+        private int remaining;
+        private long sink;
+
+        @Override
+        protected void init(@Nonnull Context context) {
+            boolean heavy = context.globalProcessorIndex() % THREAD_COUNT < THREAD_COUNT / 2;
+            remaining = heavy ? WORK_UNITS_PER_HEAVY_PROCESSOR : 0;
+        }
+
+        @Override
+        public boolean complete() {
+            for (int i = 0; i < 100 && remaining > 0; i++, remaining--) {
+                sink += burnCpu(sink);
+            }
+            return remaining == 0;
+        }
+
+        private static long burnCpu(long seed) {
+            long x = seed;
+            for (int i = 0; i < 1_000; i++) {
+                x = x * 6364136223846793005L + 1442695040888963407L;
+            }
+            return x;
+        }
+    }
+}
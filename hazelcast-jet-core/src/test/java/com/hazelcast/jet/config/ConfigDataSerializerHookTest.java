@@ -51,6 +51,7 @@ public class ConfigDataSerializerHookTest {
                         .setInitialSnapshotName("init-snapshot-name")
                         .setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE)
                         .setSplitBrainProtection(false)
+                        .setIdleStrategy(IdleStrategyType.BUSY_SPIN)
         );
     }
 
@@ -22,6 +22,9 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 
@@ -99,4 +102,49 @@ public class InstanceConfigTest {
         // Then
         assertTrue(config.isLosslessRestartEnabled());
     }
+
+    @Test
+    public void when_noCooperativeThreadCpus_then_emptyCpuList() {
+        // When
+        InstanceConfig instanceConfig = new InstanceConfig();
+
+        // Then
+        assertEquals(emptyList(), instanceConfig.getCooperativeThreadCpuList());
+    }
+
+    @Test
+    public void when_singleCpu_then_parsed() {
+        // When
+        InstanceConfig instanceConfig = new InstanceConfig().setCooperativeThreadCpus("3");
+
+        // Then
+        assertEquals(singletonList(3), instanceConfig.getCooperativeThreadCpuList());
+    }
+
+    @Test
+    public void when_rangesAndSingleCpus_then_parsed() {
+        // When
+        InstanceConfig instanceConfig = new InstanceConfig().setCooperativeThreadCpus("0-3,8, 10-11");
+
+        // Then
+        assertEquals(asList(0, 1, 2, 3, 8, 10, 11), instanceConfig.getCooperativeThreadCpuList());
+    }
+
+    @Test
+    public void when_reversedCpuRange_then_fails() {
+        expectedException.expect(IllegalArgumentException.class);
+        new InstanceConfig().setCooperativeThreadCpus("3-1");
+    }
+
+    @Test
+    public void when_cpuNotNumber_then_fails() {
+        expectedException.expect(IllegalArgumentException.class);
+        new InstanceConfig().setCooperativeThreadCpus("0-a");
+    }
+
+    @Test
+    public void when_tooManyCpuRangeBounds_then_fails() {
+        expectedException.expect(IllegalArgumentException.class);
+        new InstanceConfig().setCooperativeThreadCpus("0-1-2");
+    }
 }
@@ -92,6 +92,16 @@ public class JobConfigTest extends JetTestSupport {
         assertEquals(50, config.getSnapshotIntervalMillis());
     }
 
+    @Test
+    public void when_setIdleStrategy_thenReturnsIdleStrategy() {
+        // When
+        JobConfig config = new JobConfig();
+        config.setIdleStrategy(IdleStrategyType.BUSY_SPIN);
+
+        // Then
+        assertEquals(IdleStrategyType.BUSY_SPIN, config.getIdleStrategy());
+    }
+
     @Test
     public void when_addClass_thenReturnsResourceConfig() {
         // When
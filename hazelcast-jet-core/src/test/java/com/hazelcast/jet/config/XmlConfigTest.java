@@ -191,6 +191,9 @@ public class XmlConfigTest {
         assertEquals("queueSize", 999, edgeConfig.getQueueSize());
         assertEquals("packetSizeLimit", 997, edgeConfig.getPacketSizeLimit());
         assertEquals("receiveWindowMultiplier", 996, edgeConfig.getReceiveWindowMultiplier());
+        assertTrue("packetCompressionEnabled", edgeConfig.isPacketCompressionEnabled());
+        assertTrue("columnarEncodingEnabled", edgeConfig.isColumnarEncodingEnabled());
+        assertTrue("adaptiveFlowControlEnabled", edgeConfig.isAdaptiveFlowControlEnabled());
     }
 
     private static void assertConfig(JetConfig jetConfig) {
@@ -199,6 +202,17 @@ public class XmlConfigTest {
         assertEquals("flowControlMs", 50, jetConfig.getInstanceConfig().getFlowControlPeriodMs());
         assertEquals("scaleUpDelayMillis", 1234, jetConfig.getInstanceConfig().getScaleUpDelayMillis());
         assertTrue("losslessRestartEnabled", jetConfig.getInstanceConfig().isLosslessRestartEnabled());
+        assertTrue("workStealingEnabled", jetConfig.getInstanceConfig().isWorkStealingEnabled());
+        assertTrue("taskletLoadBalancingEnabled", jetConfig.getInstanceConfig().isTaskletLoadBalancingEnabled());
+        assertEquals("idleStrategy", IdleStrategyType.ADAPTIVE, jetConfig.getInstanceConfig().getIdleStrategy());
+        assertTrue("virtualThreadsEnabled", jetConfig.getInstanceConfig().isVirtualThreadsEnabled());
+        assertEquals("cooperativeThreadCpus", "0-3,8", jetConfig.getInstanceConfig().getCooperativeThreadCpus());
+        assertTrue("packetMultiplexingEnabled", jetConfig.getInstanceConfig().isPacketMultiplexingEnabled());
+        assertEquals("groupingSpillThreshold", 1_000_000, jetConfig.getInstanceConfig().getGroupingSpillThreshold());
+        assertEquals("spillDirectory", "/tmp/jet-spill", jetConfig.getInstanceConfig().getSpillDirectory());
+        assertEquals("joinSpillThreshold", 500_000, jetConfig.getInstanceConfig().getJoinSpillThreshold());
+        assertEquals("sortSpillThreshold", 2_000_000, jetConfig.getInstanceConfig().getSortSpillThreshold());
+        assertEquals("snapshotDirectory", "/tmp/jet-snapshots", jetConfig.getInstanceConfig().getSnapshotDirectory());
 
         assertEquals("value1", jetConfig.getProperties().getProperty("property1"));
         assertEquals("value2", jetConfig.getProperties().getProperty("property2"));
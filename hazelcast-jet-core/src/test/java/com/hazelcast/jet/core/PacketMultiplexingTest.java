@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.core;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.TestProcessors.ListSource;
+import com.hazelcast.jet.core.processor.SinkProcessors;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.TestUtil.executeAndPeel;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PacketMultiplexingTest extends JetTestSupport {
+
+    private static final int MEMBER_COUNT = 2;
+    private static final int ITEM_COUNT = 10_000;
+
+    private JetInstance instance;
+
+    @Before
+    public void before() {
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setPacketMultiplexingEnabled(true);
+        instance = createJetMembers(config, MEMBER_COUNT)[0];
+    }
+
+    @Test
+    public void when_multipleDistributedEdges_then_allItemsDelivered() throws Throwable {
+        // Given
+        List<Integer> items = range(0, ITEM_COUNT).boxed().collect(toList());
+        DAG dag = new DAG();
+        Vertex source1 = dag.newVertex("source1", () -> new ListSource(items)).localParallelism(1);
+        Vertex source2 = dag.newVertex("source2", () -> new ListSource(items)).localParallelism(1);
+        Vertex sink1 = dag.newVertex("sink1", SinkProcessors.writeListP("sink1"));
+        Vertex sink2 = dag.newVertex("sink2", SinkProcessors.writeListP("sink2"));
+        // both edges send to the other member through the same multiplexer
+        dag.edge(between(source1, sink1).partitioned(wholeItem()).distributed())
+           .edge(between(source2, sink2).partitioned(wholeItem()).distributed());
+
+        // When
+        executeAndPeel(instance.newJob(dag));
+
+        // Then
+        List<Integer> expected = items.stream()
+                                      .flatMap(i -> Stream.generate(() -> i).limit(MEMBER_COUNT))
+                                      .collect(toList());
+        assertEquals(expected, sortedList("sink1"));
+        assertEquals(expected, sortedList("sink2"));
+    }
+
+    private List<Integer> sortedList(String name) {
+        return instance.getHazelcastInstance().<Integer>getList(name).stream().sorted().collect(toList());
+    }
+}
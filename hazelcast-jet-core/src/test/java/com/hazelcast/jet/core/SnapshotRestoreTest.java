@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.core;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.JobRestartWithSnapshotTest.SequencesInPartitionsGeneratorP;
+import com.hazelcast.jet.core.processor.Processors;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.JobExecutionRecord;
+import com.hazelcast.jet.impl.JobRepository;
+import com.hazelcast.jet.impl.SnapshotValidationRecord;
+import com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.TestUtil.throttle;
+import static com.hazelcast.jet.core.processor.SinkProcessors.writeMapP;
+import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that restarted jobs restore their state with exactly-once results.
+ */
+@RunWith(HazelcastSerialClassRunner.class)
+public class SnapshotRestoreTest extends JetTestSupport {
+
+    // the state of each processor is written in a chunk per partition, so
+    // there are many more chunks than the restoring processors buffer
+    private static final int NUM_KEYS = 2000;
+    private static final int ELEMENTS_PER_KEY = 10;
+    private static final int ITEMS_PER_SECOND = 1000;
+
+    // the incremental snapshot tests update the hot keys only after the
+    // cold ones, so that the deltas stay small compared to the full snapshot
+    private static final int NUM_HOT_KEYS = 6;
+    private static final int COLD_KEYS_PER_HOT_KEY = 300;
+    private static final int ELEMENTS_PER_HOT_KEY = 10_000;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void when_manyChunksAndOneCooperativeThread_then_restored() {
+        // Given
+        JetConfig config = new JetConfig();
+        // fewer threads than the prefetch and parse tasks of the restoring processors
+        config.getInstanceConfig().setCooperativeThreadCount(1);
+        JetInstance[] instances = createJetMembers(config, 3);
+        Job job = instances[0].newJob(rollingCountDag(), snapshottingJobConfig());
+        waitForFirstSnapshot(new JobRepository(instances[0]), job.getId(), 10);
+
+        // When
+        job.restart();
+
+        // Then
+        job.join();
+        assertCounts(instances[0]);
+    }
+
+    @Test
+    public void when_snapshotDirectoryAndRestart_then_restoredFromDisk() throws IOException {
+        // Given
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setSnapshotDirectory(createTempDirectory().toString());
+        JetInstance[] instances = createJetMembers(config, 3);
+        Job job = instances[0].newJob(rollingCountDag(), snapshottingJobConfig());
+        waitForFirstSnapshot(new JobRepository(instances[0]), job.getId(), 10);
+
+        // When
+        job.restart();
+
+        // Then
+        job.join();
+        assertCounts(instances[0]);
+    }
+
+    @Test
+    public void when_snapshotDirectoryAndWriterLeaves_then_restoredFromReplica() throws IOException {
+        // Given
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setSnapshotDirectory(createTempDirectory().toString());
+        config.getInstanceConfig().setBackupCount(1);
+        JetInstance[] instances = createJetMembers(config, 3);
+        Job job = instances[0].newJob(rollingCountDag(), snapshottingJobConfig());
+        waitForFirstSnapshot(new JobRepository(instances[0]), job.getId(), 10);
+
+        // When
+        // the files of the member are deleted, its chunks are read from the next member
+        terminateInstance(instances[2]);
+
+        // Then
+        job.join();
+        assertCounts(instances[0]);
+    }
+
+    @Test
+    public void when_snapshotDirectoryAndWriterLeavesWithoutReplicas_then_restoreFails() throws IOException {
+        // Given
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setSnapshotDirectory(createTempDirectory().toString());
+        config.getInstanceConfig().setBackupCount(0);
+        JetInstance[] instances = createJetMembers(config, 3);
+        Job job = instances[0].newJob(rollingCountDag(), snapshottingJobConfig());
+        waitForFirstSnapshot(new JobRepository(instances[0]), job.getId(), 10);
+
+        // When
+        terminateInstance(instances[2]);
+
+        // Then
+        exception.expectMessage("is incomplete");
+        job.join();
+    }
+
+    @Test
+    public void when_incrementalSnapshotsAndRestart_then_restoredFromBaseAndDeltas() {
+        // Given
+        JetInstance[] instances = createJetMembers(new JetConfig(), 3);
+        Job job = instances[0].newJob(hotKeysCountDag(), snapshottingJobConfig().setIncrementalSnapshots(true));
+        JobRepository jobRepository = new JobRepository(instances[0]);
+        assertTrueEventually(() -> {
+            JobExecutionRecord record = jobRepository.getJobExecutionRecord(job.getId());
+            assertTrue("no incremental snapshots", record != null && record.baseSnapshotId() >= 0
+                    && record.snapshotId() - record.baseSnapshotId() >= 2);
+        }, 30);
+
+        // When
+        job.restart();
+
+        // Then
+        job.join();
+        assertHotKeysCounts(instances[0]);
+    }
+
+    @Test
+    public void when_incrementalSnapshotsCompactedAndRestart_then_restoredFromBaseAndCompactedDeltas() {
+        // Given
+        JetInstance[] instances = createJetMembers(new JetConfig(), 3);
+        Job job = instances[0].newJob(hotKeysCountDag(), snapshottingJobConfig().setIncrementalSnapshots(true));
+        JobRepository jobRepository = new JobRepository(instances[0]);
+        assertTrueEventually(() -> {
+            JobExecutionRecord record = jobRepository.getJobExecutionRecord(job.getId());
+            assertTrue("no compacted snapshots", record != null && record.compactedSnapshotId() >= 0
+                    && record.snapshotId() > record.compactedSnapshotId());
+        }, 30);
+
+        // When
+        job.restart();
+
+        // Then
+        job.join();
+        assertHotKeysCounts(instances[0]);
+    }
+
+    @Test
+    public void when_nonBlockingSnapshotAlignmentUnderBackpressureAndRestart_then_exactlyOnce() {
+        // Given
+        JetInstance[] instances = createJetMembers(new JetConfig(), 3);
+        Job job = instances[0].newJob(backpressuredRollingCountDag(),
+                snapshottingJobConfig().setNonBlockingSnapshotAlignment(true));
+        waitForFirstSnapshot(new JobRepository(instances[0]), job.getId(), 10);
+
+        // When
+        job.restart();
+
+        // Then
+        job.join();
+        assertCounts(instances[0]);
+    }
+
+    @Test
+    public void when_compressedSnapshotsAndRestart_then_restoredFromCompressedChunks() {
+        // Given
+        JetInstance[] instances = createJetMembers(new JetConfig(), 3);
+        Job job = instances[0].newJob(rollingCountDag(), snapshottingJobConfig().setSnapshotCompressionEnabled(true));
+        JobRepository jobRepository = new JobRepository(instances[0]);
+        assertTrueEventually(() -> {
+            JobExecutionRecord record = jobRepository.getJobExecutionRecord(job.getId());
+            assertTrue("no snapshot", record != null && record.snapshotId() >= 0);
+            IMap<Object, Object> snapshotMap =
+                    instances[0].getMap(JobRepository.snapshotDataMapName(job.getId(), record.dataMapIndex()));
+            SnapshotValidationRecord validationRecord =
+                    (SnapshotValidationRecord) snapshotMap.get(SnapshotValidationRecord.KEY);
+            assertTrue("no dictionaries", validationRecord != null && !validationRecord.dictionaries().isEmpty());
+            assertTrue("no compressed chunks",
+                    snapshotMap.values().stream().anyMatch(v -> v instanceof CompressedSnapshotChunk));
+        }, 10);
+
+        // When
+        // the restored state is decompressed using the dictionaries of the validation record
+        job.restart();
+
+        // Then
+        job.join();
+        assertCounts(instances[0]);
+    }
+
+    static JobConfig snapshottingJobConfig() {
+        return new JobConfig()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setSnapshotIntervalMillis(200);
+    }
+
+    /**
+     * Returns a DAG that counts {@value #ELEMENTS_PER_KEY} items for each of
+     * the {@value #NUM_KEYS} keys into the "result" map. The source fails
+     * if the job completes without restoring from a snapshot.
+     */
+    static DAG rollingCountDag() {
+        DAG dag = new DAG();
+        DistributedSupplier<Processor> sup = () ->
+                new SequencesInPartitionsGeneratorP(NUM_KEYS, ELEMENTS_PER_KEY, true);
+        Vertex generator = dag.newVertex("generator", throttle(sup, ITEMS_PER_SECOND))
+                              .localParallelism(1);
+        Vertex count = dag.newVertex("count", Processors.<Entry<Integer, Integer>, Integer, LongAccumulator, Long,
+                Entry<Integer, Long>>rollingAggregateP(entryKey(), counting(), (item, key, c) -> entry(key, c)));
+        Vertex sink = dag.newVertex("sink", writeMapP("result"));
+        dag.edge(between(generator, count).distributed().partitioned(entryKey()))
+           .edge(between(count, sink));
+        return dag;
+    }
+
+    /**
+     * Returns the same DAG as {@link #rollingCountDag()}, but the source
+     * isn't throttled and the counting is, so that the input queues of the
+     * counting processors are full.
+     */
+    static DAG backpressuredRollingCountDag() {
+        DAG dag = new DAG();
+        DistributedSupplier<Processor> sup = () ->
+                new SequencesInPartitionsGeneratorP(NUM_KEYS, ELEMENTS_PER_KEY, true);
+        Vertex generator = dag.newVertex("generator", sup).localParallelism(1);
+        Vertex count = dag.newVertex("count", throttle(Processors.<Entry<Integer, Integer>, Integer, LongAccumulator,
+                Long, Entry<Integer, Long>>rollingAggregateP(entryKey(), counting(), (item, key, c) -> entry(key, c)),
+                ITEMS_PER_SECOND))
+                          .localParallelism(1);
+        Vertex sink = dag.newVertex("sink", writeMapP("result"));
+        dag.edge(between(generator, count).distributed().partitioned(entryKey()))
+           .edge(between(count, sink));
+        return dag;
+    }
+
+    /**
+     * Returns a DAG that counts {@value #ELEMENTS_PER_HOT_KEY} items for
+     * each of the {@value #NUM_HOT_KEYS} hot keys into the "result" map. The
+     * first {@value #COLD_KEYS_PER_HOT_KEY} items of each hot key are
+     * counted under a distinct cold key instead. The source fails if the job
+     * completes without restoring from a snapshot.
+     */
+    static DAG hotKeysCountDag() {
+        DAG dag = new DAG();
+        DistributedSupplier<Processor> sup = () ->
+                new SequencesInPartitionsGeneratorP(NUM_HOT_KEYS, ELEMENTS_PER_HOT_KEY, true);
+        DistributedFunction<Entry<Integer, Integer>, Integer> keyFn = e -> e.getValue() < COLD_KEYS_PER_HOT_KEY
+                ? NUM_HOT_KEYS + e.getKey() * COLD_KEYS_PER_HOT_KEY + e.getValue()
+                : e.getKey();
+        Vertex generator = dag.newVertex("generator", throttle(sup, ITEMS_PER_SECOND))
+                              .localParallelism(1);
+        Vertex count = dag.newVertex("count", Processors.<Entry<Integer, Integer>, Integer, LongAccumulator, Long,
+                Entry<Integer, Long>>rollingAggregateP(keyFn, counting(), (item, key, c) -> entry(key, c)));
+        Vertex sink = dag.newVertex("sink", writeMapP("result"));
+        dag.edge(between(generator, count).distributed().partitioned(keyFn))
+           .edge(between(count, sink));
+        return dag;
+    }
+
+    static void assertHotKeysCounts(JetInstance instance) {
+        IMap<Integer, Long> result = instance.getMap("result");
+        int numColdKeys = NUM_HOT_KEYS * COLD_KEYS_PER_HOT_KEY;
+        assertEquals(NUM_HOT_KEYS + numColdKeys, result.size());
+        for (int i = 0; i < NUM_HOT_KEYS; i++) {
+            assertEquals("count for hot key " + i, ELEMENTS_PER_HOT_KEY - COLD_KEYS_PER_HOT_KEY, (long) result.get(i));
+        }
+        for (int i = NUM_HOT_KEYS; i < NUM_HOT_KEYS + numColdKeys; i++) {
+            assertEquals("count for cold key " + i, 1L, (long) result.get(i));
+        }
+    }
+
+    static void assertCounts(JetInstance instance) {
+        IMap<Integer, Long> result = instance.getMap("result");
+        assertEquals(NUM_KEYS, result.size());
+        for (int i = 0; i < NUM_KEYS; i++) {
+            assertEquals("count for key " + i, ELEMENTS_PER_KEY, (long) result.get(i));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotTombstone;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.createObjectDataOutput;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class ExplodeSnapshotPTest extends JetTestSupport {
+
+    private static final long SNAPSHOT_ID = 1;
+    private static final int NUM_CHUNKS = 200;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private JetInstance instance;
+    private NodeEngine nodeEngine;
+    private ExplodeSnapshotP processor;
+    private TestOutbox outbox;
+
+    @Before
+    public void setup() {
+        instance = createJetMember();
+        nodeEngine = getNodeEngineImpl(instance);
+        processor = new ExplodeSnapshotP(singletonMap("v", 0), SNAPSHOT_ID, SNAPSHOT_ID, -1, emptyMap());
+        outbox = new TestOutbox(1);
+        processor.init(outbox, new TestProcessorContext().setJetInstance(instance));
+    }
+
+    @Test
+    public void when_chunksParsedInParallel_then_emittedInReceiveOrder() throws Exception {
+        // Given
+        // the chunks have different sizes so that they take different time to parse
+        TestInbox inbox = new TestInbox();
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < NUM_CHUNKS; i++) {
+            List<Object> keysAndValues = new ArrayList<>();
+            for (int j = 0; j < i % 7 * 100 + 1; j++) {
+                int key = i * 1000 + j;
+                keysAndValues.add(key);
+                keysAndValues.add("v" + key);
+                expected.add(entry(key, "v" + key));
+            }
+            inbox.add(entry(new SnapshotDataKey(i, SNAPSHOT_ID, "v", 0), chunk(keysAndValues)));
+        }
+
+        // When
+        List<Object> actual = run(inbox);
+
+        // Then
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void when_deltas_then_replacedBaseEntriesSkippedAndDeltasEmittedInComplete() throws Exception {
+        // Given
+        processor = new ExplodeSnapshotP(singletonMap("v", 0), SNAPSHOT_ID, SNAPSHOT_ID + 2, -1, emptyMap());
+        processor.init(outbox, new TestProcessorContext().setJetInstance(instance));
+        TestInbox deltaInbox = new TestInbox();
+        deltaInbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID + 1, "v", 0),
+                chunk(asList("a", "a2", "b", SnapshotTombstone.INSTANCE))));
+        deltaInbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID + 2, "v", 0), chunk(asList("a", "a3", "c", "c3"))));
+        // a chunk of a failed incremental snapshot taken after the last one
+        deltaInbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID + 3, "v", 0), chunk(asList("d", "d4"))));
+        TestInbox inbox = new TestInbox();
+        inbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID, "v", 0),
+                chunk(asList("a", "a1", "b", "b1", "d", "d1"))));
+
+        // When
+        processor.process(1, deltaInbox);
+        List<Object> fromBase = new ArrayList<>();
+        while (!inbox.isEmpty()) {
+            processor.process(0, inbox);
+        }
+        // the base chunk is emitted when parsed, before complete()
+        while (fromBase.isEmpty()) {
+            processor.tryProcess();
+            outbox.drainQueueAndReset(0, fromBase, false);
+        }
+        List<Object> fromComplete = run(new TestInbox());
+
+        // Then
+        assertEquals(singletonList(entry("d", "d1")), fromBase);
+        assertEquals(new HashSet<>(asList(entry("a", "a3"), entry("c", "c3"))), new HashSet<>(fromComplete));
+    }
+
+    @Test
+    public void when_compactedDeltas_then_replacedDeltasIgnored() throws Exception {
+        // Given
+        long compactedSnapshotId = SNAPSHOT_ID + 2;
+        processor = new ExplodeSnapshotP(singletonMap("v", 0), SNAPSHOT_ID, SNAPSHOT_ID + 3, compactedSnapshotId,
+                emptyMap());
+        processor.init(outbox, new TestProcessorContext().setJetInstance(instance));
+        TestInbox deltaInbox = new TestInbox();
+        // the chunks merged by the compaction, not removed yet
+        deltaInbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID + 1, "v", 0), chunk(asList("a", "a2"))));
+        deltaInbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID + 2, "v", 0), chunk(asList("b", "b3"))));
+        // the compacted chunk and an incremental snapshot taken after the compaction
+        deltaInbox.add(entry(new SnapshotDataKey(0, compactedSnapshotId, "v", -1),
+                chunk(asList("a", "a2", "b", "b3"))));
+        deltaInbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID + 3, "v", 0),
+                chunk(asList("b", SnapshotTombstone.INSTANCE))));
+        TestInbox inbox = new TestInbox();
+        inbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID, "v", 0), chunk(asList("a", "a1", "b", "b1"))));
+
+        // When
+        processor.process(1, deltaInbox);
+        List<Object> output = run(inbox);
+
+        // Then
+        assertEquals(singletonList(entry("a", "a2")), output);
+    }
+
+    @Test
+    public void when_chunksRestored_then_probesUpdated() throws Exception {
+        // Given
+        TestInbox inbox = new TestInbox();
+        long totalBytes = 0;
+        for (int i = 0; i < NUM_CHUNKS; i++) {
+            byte[] chunk = chunk(asList(i, i, -i, i));
+            totalBytes += chunk.length;
+            inbox.add(entry(new SnapshotDataKey(i, SNAPSHOT_ID, "v", 0), chunk));
+        }
+
+        // When
+        run(inbox);
+
+        // Then
+        assertEquals(NUM_CHUNKS, probeValue("restoredChunks"));
+        assertEquals(2 * NUM_CHUNKS, probeValue("restoredEntries"));
+        assertEquals(totalBytes, probeValue("restoredBytes"));
+        assertEquals(0, probeValue("numPendingChunksMetric"));
+        assertTrue(probeValue("restoreTimeMillis") >= 0);
+    }
+
+    @Test
+    public void when_chunkParsingFails_then_causeThrown() {
+        // Given
+        // no dictionary for the compressed chunk
+        TestInbox inbox = new TestInbox();
+        inbox.add(entry(new SnapshotDataKey(0, SNAPSHOT_ID, "v", 0), new CompressedSnapshotChunk(0, 1, new byte[1])));
+
+        // Then
+        exception.expect(JetException.class);
+        exception.expectMessage("Dictionary of a compressed snapshot chunk not found");
+
+        // When
+        run(inbox);
+    }
+
+    private List<Object> run(TestInbox inbox) {
+        List<Object> output = new ArrayList<>();
+        while (!inbox.isEmpty()) {
+            processor.process(0, inbox);
+            outbox.drainQueueAndReset(0, output, false);
+        }
+        boolean done;
+        do {
+            done = processor.complete();
+            outbox.drainQueueAndReset(0, output, false);
+        } while (!done);
+        return output;
+    }
+
+    private byte[] chunk(List<?> keysAndValues) throws IOException {
+        try (BufferObjectDataOutput out = createObjectDataOutput(nodeEngine)) {
+            for (Object o : keysAndValues) {
+                out.writeObject(o);
+            }
+            out.writeObject(SnapshotDataValueTerminator.INSTANCE);
+            return out.toByteArray();
+        }
+    }
+
+    private long probeValue(String fieldName) throws Exception {
+        Field field = ExplodeSnapshotP.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return ((Number) field.get(processor)).longValue();
+    }
+}
@@ -28,23 +28,38 @@ import com.hazelcast.jet.core.JetTestSupport;
 import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.core.TestProcessors;
 import com.hazelcast.jet.core.TestProcessors.NoOutputSourceP;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotTombstone;
 import com.hazelcast.jet.pipeline.Pipeline;
 import com.hazelcast.jet.pipeline.Sinks;
 import com.hazelcast.jet.pipeline.Sources;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
+import static com.hazelcast.jet.impl.JobExecutionRecord.NO_SNAPSHOT;
 import static com.hazelcast.jet.impl.JobRepository.RANDOM_IDS_MAP_NAME;
+import static com.hazelcast.jet.impl.JobRepository.snapshotDeltaMapName;
 import static com.hazelcast.jet.impl.util.JetGroupProperty.JOB_SCAN_PERIOD;
+import static com.hazelcast.jet.impl.util.Util.createObjectDataInput;
+import static com.hazelcast.jet.impl.util.Util.createObjectDataOutput;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -176,6 +191,77 @@ public class JobRepositoryTest extends JetTestSupport {
         client.shutdown();
     }
 
+    @Test
+    public void when_snapshotDeltasCompacted_then_latestValuePerKeyKept() throws IOException {
+        // Given
+        // the members merge the chunks with the job class loader
+        long jobId = uploadResourcesForNewJob();
+        jobRepository.putNewJobRecord(createJobRecord(jobId, createDAGData()));
+        NodeEngine nodeEngine = getNodeEngineImpl(instance.getHazelcastInstance());
+        IMap<SnapshotDataKey, byte[]> deltaMap = instance.getMap(snapshotDeltaMapName(jobId));
+        deltaMap.set(new SnapshotDataKey(1, 1, "v", 0), chunk(nodeEngine, "a", 1, "b", 1));
+        deltaMap.set(new SnapshotDataKey(1, 2, "v", 0), chunk(nodeEngine, "a", 2, "b", SnapshotTombstone.INSTANCE));
+        deltaMap.set(new SnapshotDataKey(1, 3, "v", 0), chunk(nodeEngine, "c", 3));
+
+        // When
+        int numChunks = jobRepository.compactSnapshotDeltas(nodeEngine, jobId, 0, NO_SNAPSHOT, 2);
+        jobRepository.removeCompactedSnapshotDeltas(jobId, 0, 2);
+
+        // Then
+        assertEquals(1, numChunks);
+        assertEquals(2, deltaMap.size());
+        assertEquals(asList("a", 2, "b", SnapshotTombstone.INSTANCE),
+                readChunk(nodeEngine, deltaMap.get(new SnapshotDataKey(1, 2, "v", -1))));
+        assertTrue(deltaMap.containsKey(new SnapshotDataKey(1, 3, "v", 0)));
+    }
+
+    @Test
+    public void when_snapshotDeltasInPartitionsOfManyMembers_then_allCompacted() throws IOException {
+        // Given
+        createJetMember();
+        long jobId = uploadResourcesForNewJob();
+        jobRepository.putNewJobRecord(createJobRecord(jobId, createDAGData()));
+        NodeEngine nodeEngine = getNodeEngineImpl(instance.getHazelcastInstance());
+        IMap<SnapshotDataKey, byte[]> deltaMap = instance.getMap(snapshotDeltaMapName(jobId));
+        int numPartitionKeys = 100;
+        for (int partitionKey = 0; partitionKey < numPartitionKeys; partitionKey++) {
+            deltaMap.set(new SnapshotDataKey(partitionKey, 1, "v", 0), chunk(nodeEngine, partitionKey, 1));
+            deltaMap.set(new SnapshotDataKey(partitionKey, 2, "v", 0), chunk(nodeEngine, partitionKey, 2));
+        }
+
+        // When
+        int numChunks = jobRepository.compactSnapshotDeltas(nodeEngine, jobId, 0, NO_SNAPSHOT, 2);
+        jobRepository.removeCompactedSnapshotDeltas(jobId, 0, 2);
+
+        // Then
+        assertEquals(numPartitionKeys, numChunks);
+        assertEquals(numPartitionKeys, deltaMap.size());
+        for (int partitionKey = 0; partitionKey < numPartitionKeys; partitionKey++) {
+            assertEquals(asList(partitionKey, 2),
+                    readChunk(nodeEngine, deltaMap.get(new SnapshotDataKey(partitionKey, 2, "v", -1))));
+        }
+    }
+
+    private static byte[] chunk(NodeEngine nodeEngine, Object... keysAndValues) throws IOException {
+        try (BufferObjectDataOutput out = createObjectDataOutput(nodeEngine)) {
+            for (Object o : keysAndValues) {
+                out.writeObject(o);
+            }
+            out.writeObject(SnapshotDataValueTerminator.INSTANCE);
+            return out.toByteArray();
+        }
+    }
+
+    private static List<Object> readChunk(NodeEngine nodeEngine, byte[] chunk) throws IOException {
+        List<Object> result = new ArrayList<>();
+        try (BufferObjectDataInput in = createObjectDataInput(nodeEngine, chunk)) {
+            for (Object o = in.readObject(); o != SnapshotDataValueTerminator.INSTANCE; o = in.readObject()) {
+                result.add(o);
+            }
+        }
+        return result;
+    }
+
     private long uploadResourcesForNewJob() {
         jobConfig.addClass(DummyClass.class);
         return jobRepository.uploadJobResources(jobConfig);
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class ColumnarBatchTest {
+
+    private final InternalSerializationService serService = new DefaultSerializationServiceBuilder().build();
+    private final ColumnarBatch.Writer writer = new ColumnarBatch.Writer(serService.createObjectDataOutput());
+    private final ColumnarBatch.Reader reader = new ColumnarBatch.Reader();
+
+    @Test
+    public void when_stringLongEntries_then_roundTrip() throws IOException {
+        assertRoundTrip(asList(entry("a", 1L), entry("b", 2L), entry("c", 3L)), asList(0, 270, -1));
+    }
+
+    @Test
+    public void when_tuples_then_roundTrip() throws IOException {
+        assertRoundTrip(asList(tuple2(1, "x"), tuple2(2, "y")), asList(5, 6));
+    }
+
+    @Test
+    public void when_objectColumn_then_roundTrip() throws IOException {
+        assertRoundTrip(asList(entry(1.5, null), entry("mixed", asList(1, 2))), asList(1, 2));
+    }
+
+    @Test
+    public void when_manyItems_then_roundTrip() throws IOException {
+        List<Object> items = new ArrayList<>();
+        List<Integer> partitionIds = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(entry("key" + i, (long) i));
+            partitionIds.add(i * 1000);
+        }
+        assertRoundTrip(items, partitionIds);
+    }
+
+    @Test
+    public void when_differentTypes_then_notAccepted() throws IOException {
+        // Given
+        BufferObjectDataOutput out = serService.createObjectDataOutput();
+
+        // When
+        assertTrue(writer.start(out, entry("a", 1L)));
+
+        // Then
+        assertTrue(writer.accepts(entry("b", 2L)));
+        assertFalse(writer.accepts(entry("b", 2)));
+        assertFalse(writer.accepts(entry(1, 2L)));
+        assertFalse(writer.accepts(entry("b", null)));
+        assertFalse(writer.accepts(tuple2("b", 2L)));
+        assertFalse(writer.accepts("b"));
+    }
+
+    @Test
+    public void when_notEntry_then_notStarted() throws IOException {
+        assertFalse(writer.start(serService.createObjectDataOutput(), "a"));
+    }
+
+    private void assertRoundTrip(List<Object> items, List<Integer> partitionIds) throws IOException {
+        // Given
+        BufferObjectDataOutput out = serService.createObjectDataOutput();
+        assertTrue(writer.start(out, items.get(0)));
+        int[] sizes = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            assertTrue(writer.accepts(items.get(i)));
+            sizes[i] = writer.add(out, items.get(i), partitionIds.get(i));
+        }
+        assertEquals(items.size(), writer.finish(out));
+
+        // When
+        BufferObjectDataInput in = serService.createObjectDataInput(out.toByteArray());
+        assertEquals(ColumnarBatch.LAYOUT_COLUMNS, in.readByte());
+        int count = reader.read(in);
+
+        // Then
+        assertEquals(items.size(), count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(sizes[i], reader.itemSize(i));
+            assertEquals((int) partitionIds.get(i), reader.partitionId(i));
+            Object item = reader.takeItem(i);
+            assertEquals(items.get(i), item);
+            assertEquals(items.get(i).getClass(), item.getClass());
+        }
+        assertEquals("bytes left in the input", 0, in.available());
+    }
+}
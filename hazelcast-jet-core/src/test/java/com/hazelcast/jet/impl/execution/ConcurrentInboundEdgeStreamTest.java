@@ -31,14 +31,19 @@ import org.junit.runner.RunWith;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map.Entry;
 
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.core.JetTestSupport.wm;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.WAS_ALREADY_DONE;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @Category(ParallelTest.class)
 @RunWith(HazelcastSerialClassRunner.class)
@@ -234,6 +239,28 @@ public class ConcurrentInboundEdgeStreamTest {
         drainAndAssert(MADE_PROGRESS, wm(1));
     }
 
+    @Test
+    public void when_nonBlockingBarrier_then_forwardedFromFirstQueueAndInFlightItemsRecorded() {
+        // Given
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, true, "cies", null, item -> 42);
+        List<Entry<Object, Integer>> inFlightItems = new ArrayList<>();
+
+        // When
+        add(q1, barrier(0));
+        add(q2, 1);
+        drainAndAssert(MADE_PROGRESS, barrier(0));
+        stream.recordInFlightItems(0, (item, partitionKey) -> inFlightItems.add(entry(item, partitionKey)));
+        add(q1, 2);
+        drainAndAssert(MADE_PROGRESS, 2, 1);
+        assertTrue(stream.isRecordingInFlightItems());
+        add(q2, barrier(0));
+        drainAndAssert(MADE_PROGRESS);
+
+        // Then
+        assertFalse(stream.isRecordingInFlightItems());
+        assertEquals(singletonList(entry(1, 42)), inFlightItems);
+    }
+
     private void drainAndAssert(ProgressState expectedState, Object... expectedItems) {
         List<Object> list = new ArrayList<>();
         assertEquals("progressState", expectedState, stream.drainTo(list::add));
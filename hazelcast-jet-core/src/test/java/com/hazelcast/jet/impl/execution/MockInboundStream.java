@@ -20,10 +20,12 @@ import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.util.function.Predicate;
 
+import javax.annotation.Nonnull;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
+import java.util.function.ObjIntConsumer;
 
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
@@ -38,6 +40,9 @@ public class MockInboundStream implements InboundEdgeStream {
     private final int chunkSize;
 
     private boolean done;
+    private boolean nonBlockingAlignment;
+    private long lastBarrierId = -1;
+    private ObjIntConsumer<Object> inFlightSink;
 
     MockInboundStream(int priority, List<?> mockData, int chunkSize) {
         this.priority = priority;
@@ -53,6 +58,15 @@ public class MockInboundStream implements InboundEdgeStream {
         this.ordinal = ordinal;
     }
 
+    /**
+     * Makes the stream use non-blocking snapshot alignment: the items
+     * drained after {@link #recordInFlightItems} and before the barrier are
+     * passed to the sink with their hash code as the partition key.
+     */
+    void setNonBlockingAlignment(boolean nonBlockingAlignment) {
+        this.nonBlockingAlignment = nonBlockingAlignment;
+    }
+
     @Override
     public ProgressState drainTo(Predicate<Object> dest) {
         if (done) {
@@ -66,13 +80,36 @@ public class MockInboundStream implements InboundEdgeStream {
             if (item == DONE_ITEM) {
                 done = true;
                 break;
-            } else if (!dest.test(item) || item instanceof SnapshotBarrier || item instanceof Watermark) {
+            } else if (!dest.test(item) || item instanceof Watermark) {
                 break;
+            } else if (item instanceof SnapshotBarrier) {
+                lastBarrierId = ((SnapshotBarrier) item).snapshotId();
+                inFlightSink = null;
+                break;
+            } else if (inFlightSink != null) {
+                inFlightSink.accept(item, item.hashCode());
             }
         }
         return done ? DONE : MADE_PROGRESS;
     }
 
+    @Override
+    public boolean isNonBlockingAlignment() {
+        return nonBlockingAlignment;
+    }
+
+    @Override
+    public void recordInFlightItems(long snapshotId, @Nonnull ObjIntConsumer<Object> sink) {
+        if (nonBlockingAlignment && snapshotId > lastBarrierId) {
+            inFlightSink = sink;
+        }
+    }
+
+    @Override
+    public boolean isRecordingInFlightItems() {
+        return inFlightSink != null && !done;
+    }
+
     @Override
     public boolean isDone() {
         return done;
@@ -16,6 +16,9 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotTombstone;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.spi.serialization.SerializationService;
 import com.hazelcast.test.HazelcastSerialClassRunner;
@@ -25,11 +28,16 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Predicate;
 
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -191,6 +199,58 @@ public class OutboxImplTest {
         assertTrue(outbox.offer(5));
     }
 
+    @Test
+    public void when_keyMissingInIncrementalSnapshot_then_tombstoneOffered() {
+        // Given
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        List<Object> snapshotItems = new ArrayList<>();
+        outbox = new OutboxImpl(new OutboundCollector[] {e -> DONE, e -> {
+            snapshotItems.add(e);
+            return DONE;
+        }}, true, new ProgressTracker(), serializationService, 128, new AtomicLongArray(2));
+        outbox.reset();
+        outbox.trackSnapshotKeys();
+        assertTrue(outbox.offerToSnapshot("a", 1));
+        assertTrue(outbox.offerToSnapshot("b", 1));
+        assertTrue(outbox.offerSnapshotTombstones(false));
+        snapshotItems.clear();
+
+        // When
+        assertTrue(outbox.offerToSnapshot("a", 2));
+        assertTrue(outbox.offerSnapshotTombstones(true));
+
+        // Then
+        assertEquals(asList(
+                entry(serializationService.toData("a"), serializationService.toData(2)),
+                entry(serializationService.toData("b"), serializationService.toData(SnapshotTombstone.INSTANCE))),
+                snapshotItems);
+    }
+
+    @Test
+    public void when_keyMissingInFullSnapshot_then_noTombstone() {
+        // Given
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        List<Object> snapshotItems = new ArrayList<>();
+        outbox = new OutboxImpl(new OutboundCollector[] {e -> DONE, e -> {
+            snapshotItems.add(e);
+            return DONE;
+        }}, true, new ProgressTracker(), serializationService, 128, new AtomicLongArray(2));
+        outbox.reset();
+        outbox.trackSnapshotKeys();
+        assertTrue(outbox.offerToSnapshot("a", 1));
+        assertTrue(outbox.offerToSnapshot("b", 1));
+        assertTrue(outbox.offerSnapshotTombstones(false));
+        snapshotItems.clear();
+
+        // When
+        assertTrue(outbox.offerToSnapshot("a", 2));
+        assertTrue(outbox.offerSnapshotTombstones(false));
+
+        // Then
+        assertEquals(asList(entry(serializationService.toData("a"), serializationService.toData(2))),
+                snapshotItems);
+    }
+
     private void do_when_offerDifferent_then_fail(Predicate<Object> offerF) {
         assertTrue(offerF.test(1));
         assertTrue(offerF.test(2));
@@ -50,6 +50,7 @@ import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -191,6 +192,160 @@ public class ProcessorTaskletTest_Snapshots {
         assertEquals(asList(ssEntry1.getValue(), ssEntry2.getValue(), barrier(0), DONE_ITEM), getSnapshotBufferValues());
     }
 
+    @Test
+    public void when_snapshotRestoreInputInSmallChunks_then_restoredInOneBatch() {
+        // Given
+        List<Object> restoredSnapshot = asList(entry("k1", "v1"), entry("k2", "v2"), entry("k3", "v3"), DONE_ITEM);
+        MockInboundStream instream1 = new MockInboundStream(Integer.MIN_VALUE, restoredSnapshot, 1);
+        MockInboundStream instream2 = new MockInboundStream(0, singletonList(DONE_ITEM), 1024);
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(new MockOutboundStream(0));
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        assertEquals(singletonList(3), processor.restoreBatchSizes);
+    }
+
+    @Test
+    public void when_nonBlockingBarrierFromFirstInput_then_snapshotSavedAndInFlightItemsRecorded() {
+        // Given
+        MockInboundStream instream1 = new MockInboundStream(0, asList(0, 1, barrier(0)), 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, emptyList(), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instream1.setNonBlockingAlignment(true);
+        instream2.setNonBlockingAlignment(true);
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        // the barrier is emitted without waiting for the second input, the
+        // snapshot queue gets it only after the in-flight items
+        assertEquals(asList(0, 1, barrier(0)), outstream1.getBuffer());
+        assertEquals(asList(0, 1), getSnapshotBufferValues());
+
+        // When
+        instream2.push(2, 3, barrier(0), 4);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, barrier(0), 2, 3, 4), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 2, 3, barrier(0)), getSnapshotBufferValues());
+        List<InFlightItemKey> inFlightKeys = getSnapshotBufferKeys()
+                .stream()
+                .filter(k -> k instanceof InFlightItemKey)
+                .map(k -> (InFlightItemKey) k)
+                .collect(toList());
+        assertEquals(2, inFlightKeys.size());
+        assertEquals(1, inFlightKeys.get(0).ordinal());
+        assertEquals(0, inFlightKeys.get(0).sequence());
+        assertEquals(Integer.valueOf(2), inFlightKeys.get(0).getPartitionKey());
+        assertEquals(1, inFlightKeys.get(1).ordinal());
+        assertEquals(1, inFlightKeys.get(1).sequence());
+    }
+
+    @Test
+    public void when_recordingInFlightItems_then_offeredToSnapshotBeforeBarrierReceived() {
+        // Given
+        MockInboundStream instream1 = new MockInboundStream(0, asList(0, barrier(0)), 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, emptyList(), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instream1.setNonBlockingAlignment(true);
+        instream2.setNonBlockingAlignment(true);
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // When
+        instream2.push(1, 2);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        // the in-flight items aren't buffered until the barrier comes on the second input
+        assertEquals(asList(0, barrier(0), 1, 2), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 2), getSnapshotBufferValues());
+    }
+
+    @Test
+    public void when_inputsCompleteWhileRecordingInFlightItems_then_inFlightItemsSavedBeforeDone() {
+        // Given
+        MockInboundStream instream1 = new MockInboundStream(0, asList(0, barrier(0)), 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, singletonList(1), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instream1.setNonBlockingAlignment(true);
+        instream2.setNonBlockingAlignment(true);
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+        callUntil(tasklet, NO_PROGRESS);
+        assertEquals(asList(0, barrier(0), 1), outstream1.getBuffer());
+        assertEquals(asList(0, 1), getSnapshotBufferValues());
+
+        // When
+        // the second input completes without delivering the barrier
+        instream1.push(DONE_ITEM);
+        instream2.push(DONE_ITEM);
+        callUntil(tasklet, DONE);
+
+        // Then
+        assertEquals(asList(0, barrier(0), 1, DONE_ITEM), outstream1.getBuffer());
+        assertEquals(asList(0, 1, barrier(0), DONE_ITEM), getSnapshotBufferValues());
+    }
+
+    @Test
+    public void when_snapshotWithInFlightItemsRestored_then_itemsProcessedInReceiveOrderAfterRestore() {
+        // Given
+        List<Object> restoredSnapshot = asList(
+                entry("k1", "v1"),
+                entry(new InFlightItemKey(0, 1, 0, 0), "c"),
+                entry(new InFlightItemKey(0, 0, 1, 1), "b"),
+                entry(new InFlightItemKey(0, 0, 0, 0), "a"),
+                DONE_ITEM);
+        MockInboundStream instream1 = new MockInboundStream(Integer.MIN_VALUE, restoredSnapshot, 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, singletonList(DONE_ITEM), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        // the in-flight items aren't passed to restoreFromSnapshot()
+        assertEquals(singletonList(1), processor.restoreBatchSizes);
+        assertEquals(asList("finishRestore", "a", "b", "c", DONE_ITEM), outstream1.getBuffer());
+        // the ordinals the in-flight items were received on
+        assertEquals(asList(0, 1, 0), processor.processedOrdinals);
+    }
+
+    @Test
+    public void when_inFlightItemKeysSorted_then_byProcessorIndexAndSequence() {
+        // Given
+        InFlightItemKey key1 = new InFlightItemKey(5, 0, 1, 0);
+        InFlightItemKey key2 = new InFlightItemKey(3, 0, 0, 1);
+        InFlightItemKey key3 = new InFlightItemKey(1, 1, 0, 0);
+        List<InFlightItemKey> keys = new ArrayList<>(asList(key3, key2, key1));
+
+        // When
+        keys.sort(InFlightItemKey.RECEIVE_ORDER);
+
+        // Then
+        assertEquals(asList(key1, key2, key3), keys);
+    }
+
     private ProcessorTasklet createTasklet(ProcessingGuarantee guarantee) {
         for (int i = 0; i < instreams.size(); i++) {
             instreams.get(i).setOrdinal(i);
@@ -209,6 +364,13 @@ public class ProcessorTaskletTest_Snapshots {
                                 .collect(Collectors.toList());
     }
 
+    private List<Object> getSnapshotBufferKeys() {
+        return snapshotCollector.getBuffer().stream()
+                                .filter(e -> e instanceof Map.Entry)
+                                .map(e -> serializationService.toObject(((Map.Entry) e).getKey()))
+                                .collect(Collectors.toList());
+    }
+
     private Object deserializeEntryValue(Entry e) {
         return serializationService.toObject(e.getValue());
     }
@@ -236,6 +398,8 @@ public class ProcessorTaskletTest_Snapshots {
         private Outbox outbox;
 
         private Queue<Map.Entry> snapshotQueue = new ArrayDeque<>();
+        private List<Integer> restoreBatchSizes = new ArrayList<>();
+        private List<Integer> processedOrdinals = new ArrayList<>();
 
         @Override
         public void init(@Nonnull Outbox outbox, @Nonnull Context context) {
@@ -244,6 +408,7 @@ public class ProcessorTaskletTest_Snapshots {
 
         @Override
         public void process(int ordinal, @Nonnull Inbox inbox) {
+            processedOrdinals.add(ordinal);
             for (Object item; (item = inbox.peek()) != null; ) {
                 if (!outbox.offer(item)) {
                     return;
@@ -287,9 +452,11 @@ public class ProcessorTaskletTest_Snapshots {
 
         @Override
         public void restoreFromSnapshot(@Nonnull Inbox inbox) {
-            for (Object o; (o = inbox.poll()) != null; ) {
+            int batchSize = 0;
+            for (Object o; (o = inbox.poll()) != null; batchSize++) {
                 snapshotQueue.offer((Entry) o);
             }
+            restoreBatchSizes.add(batchSize);
         }
 
         @Override
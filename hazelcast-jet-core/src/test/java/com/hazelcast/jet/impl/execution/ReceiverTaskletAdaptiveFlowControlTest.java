@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.instance.BuildInfoProvider;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.logging.LoggingServiceImpl;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.BANDWIDTH_FILTER_LENGTH;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.COMPRESSED_SEQ_UNIT_LOG2;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.INITIAL_RECEIVE_WINDOW_COMPRESSED;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.MIN_ADAPTIVE_RECEIVE_WINDOW_COMPRESSED;
+import static java.lang.Math.abs;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class ReceiverTaskletAdaptiveFlowControlTest {
+
+    private static final long START = SECONDS.toNanos(10);
+    private static final int FLOW_CONTROL_PERIOD_MS = 100;
+    private static final long ACK_PERIOD = MILLISECONDS.toNanos(FLOW_CONTROL_PERIOD_MS);
+    private static final long RTT = MILLISECONDS.toNanos(10);
+    private static final int ACKED_PER_ITER_COMPRESSED = 1000;
+
+    private ReceiverTasklet tasklet;
+    private int iter;
+
+    @Before
+    public void before() {
+        tasklet = new ReceiverTasklet(null, 3, FLOW_CONTROL_PERIOD_MS, true,
+                new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()),
+                new DefaultSerializationServiceBuilder().build(), "");
+    }
+
+    @Test
+    public void when_receiverIsBottleneck_then_rwinIsBandwidthDelayProduct() {
+        // Given
+        tasklet.recordRttSample(START, START - RTT);
+        tasklet.setNumWaitingInInbox(1);
+
+        // When
+        int rwin = runIterations(15, ACKED_PER_ITER_COMPRESSED);
+
+        // Then
+        // one period's worth of data in RTT + period
+        long expected = ACKED_PER_ITER_COMPRESSED * (RTT + ACK_PERIOD) / ACK_PERIOD;
+        assertTrue("rwin=" + rwin + ", expected=" + expected, abs(rwin - expected) <= 1);
+    }
+
+    @Test
+    public void when_receiverStarved_then_rwinGrowsAndDoesNotShrink() {
+        // Given
+        tasklet.recordRttSample(START, START - RTT);
+        tasklet.setNumWaitingInInbox(0);
+        int rwinAfterHighRate = runIterations(15, ACKED_PER_ITER_COMPRESSED);
+
+        // When
+        int rwinAfterLowRate = runIterations(15, 1);
+
+        // Then
+        assertTrue("rwin=" + rwinAfterHighRate,
+                rwinAfterHighRate >= 2 * ACKED_PER_ITER_COMPRESSED * (RTT + ACK_PERIOD) / ACK_PERIOD);
+        assertEquals(rwinAfterHighRate, rwinAfterLowRate);
+    }
+
+    @Test
+    public void when_rateDrops_then_bandwidthRememberedForFilterLength() {
+        // Given
+        tasklet.recordRttSample(START, START - RTT);
+        tasklet.setNumWaitingInInbox(1);
+        int rwinBefore = runIterations(15, ACKED_PER_ITER_COMPRESSED);
+
+        // When
+        int rwinWithinFilter = runIterations(BANDWIDTH_FILTER_LENGTH - 1, 0);
+        int rwinAfterFilter = runIterations(1, 0);
+
+        // Then
+        assertEquals(rwinBefore, rwinWithinFilter);
+        assertEquals(MIN_ADAPTIVE_RECEIVE_WINDOW_COMPRESSED, rwinAfterFilter);
+    }
+
+    @Test
+    public void when_noRttSample_then_rwinNotAdaptive() {
+        // Given
+        tasklet.setNumWaitingInInbox(0);
+
+        // When
+        int rwin = runIterations(5, 0);
+
+        // Then
+        assertEquals(INITIAL_RECEIVE_WINDOW_COMPRESSED, rwin);
+        assertEquals(-1, tasklet.minRttMicros());
+    }
+
+    @Test
+    public void when_rttSamples_then_minimumKeptUntilExpired() {
+        // When
+        tasklet.recordRttSample(START, START - 500_000);
+        tasklet.recordRttSample(START + 1000, START - 200_000);
+        tasklet.recordRttSample(START + 2000, START - 300_000);
+
+        // Then
+        assertEquals(201, tasklet.minRttMicros());
+
+        // When
+        tasklet.recordRttSample(START + SECONDS.toNanos(11), START + SECONDS.toNanos(11) - 400_000);
+
+        // Then
+        assertEquals(400, tasklet.minRttMicros());
+    }
+
+    /**
+     * Runs the given number of flow-control periods, acking the given amount
+     * of data in each, and returns the last receive window.
+     */
+    private int runIterations(int count, int ackedPerIterCompressed) {
+        int seqLimit = 0;
+        long acked = 0;
+        for (int i = 0; i < count; i++, iter++) {
+            acked = tasklet.ackItem((long) ackedPerIterCompressed << COMPRESSED_SEQ_UNIT_LOG2);
+            seqLimit = tasklet.updateAndGetSendSeqLimitCompressed(START + iter * ACK_PERIOD);
+        }
+        return seqLimit - ReceiverTasklet.compressSeq(acked);
+    }
+}
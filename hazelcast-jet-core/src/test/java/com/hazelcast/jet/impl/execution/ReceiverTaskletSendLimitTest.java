@@ -17,6 +17,7 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.instance.BuildInfoProvider;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
 import com.hazelcast.logging.LoggingServiceImpl;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import org.junit.Before;
@@ -45,8 +46,9 @@ public class ReceiverTaskletSendLimitTest {
 
     @Before
     public void before() {
-        tasklet = new ReceiverTasklet(null, RWIN_MULTIPLIER, FLOW_CONTROL_PERIOD_MS,
-                new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()), "");
+        tasklet = new ReceiverTasklet(null, RWIN_MULTIPLIER, FLOW_CONTROL_PERIOD_MS, false,
+                new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()),
+                new DefaultSerializationServiceBuilder().build(), "");
     }
 
     @Test
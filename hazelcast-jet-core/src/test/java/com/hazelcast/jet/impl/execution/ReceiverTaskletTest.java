@@ -18,22 +18,33 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.impl.util.Lz4Codec;
 import com.hazelcast.logging.LoggingService;
 import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
 import java.io.IOException;
 
+import static com.hazelcast.jet.impl.Networking.PAYLOAD_COMPRESSED;
+import static com.hazelcast.jet.impl.Networking.PAYLOAD_UNCOMPRESSED;
+import static com.hazelcast.jet.impl.Networking.STREAM_PACKET_HEADER_SIZE;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 
 @RunWith(HazelcastSerialClassRunner.class)
 public class ReceiverTaskletTest {
 
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
     private ReceiverTasklet t;
     private InternalSerializationService serService;
     private MockOutboundCollector collector;
@@ -41,8 +52,8 @@ public class ReceiverTaskletTest {
     @Before
     public void before() {
         collector = new MockOutboundCollector(2);
-        t = new ReceiverTasklet(collector, 3, 100, mock(LoggingService.class), "");
         serService = new DefaultSerializationServiceBuilder().build();
+        t = new ReceiverTasklet(collector, 3, 100, false, mock(LoggingService.class), serService, "");
     }
 
     @Test
@@ -52,13 +63,109 @@ public class ReceiverTaskletTest {
         assertEquals(asList(1, 2), collector.getBuffer());
     }
 
+    @Test
+    public void when_collectorFull_then_emitRemainingItemsLater() throws IOException {
+        // Given
+        pushObjects(1, 2, 3);
+        pushObjects(4);
+
+        // When
+        t.call();
+
+        // Then
+        assertEquals(asList(1, 2), collector.getBuffer());
+        collector.getBuffer().clear();
+        t.call();
+        assertEquals(asList(3, 4), collector.getBuffer());
+    }
+
+    @Test
+    public void when_receiveCompressedPacket_then_emitItems() throws IOException {
+        // Given
+        byte[] data = serializeObjects("a", "b");
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(data.length)];
+        int compressedLength = new Lz4Codec().compress(data, 0, data.length, compressed, 0);
+        BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.position(STREAM_PACKET_HEADER_SIZE);
+        out.writeByte(PAYLOAD_COMPRESSED);
+        out.writeInt(data.length);
+        out.write(compressed, 0, compressedLength);
+        t.receiveStreamPacket(out.toByteArray());
+        pushObjects("c");
+
+        // When
+        t.call();
+
+        // Then
+        assertEquals(asList("a", "b"), collector.getBuffer());
+        collector.getBuffer().clear();
+        t.call();
+        assertEquals(singletonList("c"), collector.getBuffer());
+    }
+
+    @Test
+    public void when_packetInRangeOfArray_then_readInPlace() throws IOException {
+        // Given
+        // a compressed packet in the middle of a multiplexed frame
+        byte[] data = serializeObjects("a", "b");
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(data.length)];
+        int compressedLength = new Lz4Codec().compress(data, 0, data.length, compressed, 0);
+        int packetOffset = 5;
+        BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.position(packetOffset + STREAM_PACKET_HEADER_SIZE);
+        out.writeByte(PAYLOAD_COMPRESSED);
+        out.writeInt(data.length);
+        out.write(compressed, 0, compressedLength);
+        int packetLength = out.position() - packetOffset;
+        // the next packet of the frame
+        out.write(new byte[] {1, 2, 3});
+
+        // When
+        t.receiveStreamPacket(out.toByteArray(), packetOffset, packetLength);
+        t.call();
+
+        // Then
+        assertEquals(asList("a", "b"), collector.getBuffer());
+    }
+
+    @Test
+    public void when_compressedPacketShorterThanHeaderLength_then_fail() throws IOException {
+        // Given
+        byte[] data = serializeObjects("a", "b");
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(data.length)];
+        int compressedLength = new Lz4Codec().compress(data, 0, data.length, compressed, 0);
+        BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.position(STREAM_PACKET_HEADER_SIZE);
+        out.writeByte(PAYLOAD_COMPRESSED);
+        out.writeInt(data.length + 1);
+        out.write(compressed, 0, compressedLength);
+        t.receiveStreamPacket(out.toByteArray());
+
+        // Then
+        exception.expect(JetException.class);
+        exception.expectMessage("Corrupted compressed packet");
+
+        // When
+        t.call();
+    }
+
     private void pushObjects(Object... objs) throws IOException {
         final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        // space for the stream packet header, which the tasklet skips
+        out.position(STREAM_PACKET_HEADER_SIZE);
+        out.writeByte(PAYLOAD_UNCOMPRESSED);
+        out.write(serializeObjects(objs));
+        t.receiveStreamPacket(out.toByteArray());
+    }
+
+    private byte[] serializeObjects(Object... objs) throws IOException {
+        final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.writeByte(ColumnarBatch.LAYOUT_ROWS);
         out.writeInt(objs.length);
         for (Object obj : objs) {
             out.writeObject(obj);
             out.writeInt(Math.abs(obj.hashCode())); // partition id
         }
-        t.receiveStreamPacket(serService.createObjectDataInput(out.toByteArray()));
+        return out.toByteArray();
     }
 }
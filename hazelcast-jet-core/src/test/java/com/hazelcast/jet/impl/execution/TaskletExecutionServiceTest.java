@@ -19,6 +19,7 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.impl.MetricsRegistryImpl;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.core.JetTestSupport;
 import com.hazelcast.jet.impl.exception.ShutdownInProgressException;
 import com.hazelcast.jet.impl.util.ProgressState;
@@ -36,6 +37,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
@@ -56,6 +58,8 @@ import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -69,12 +73,13 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
 
     private final CompletableFuture<Void> cancellationFuture = new CompletableFuture<>();
 
+    private NodeEngineImpl neMock;
     private TaskletExecutionService es;
     private ClassLoader classLoaderMock;
 
     @Before
     public void before() {
-        NodeEngineImpl neMock = mock(NodeEngineImpl.class);
+        neMock = mock(NodeEngineImpl.class);
         HazelcastInstance hzMock = mock(HazelcastInstance.class);
         LoggingService loggingService = mock(LoggingService.class);
         Mockito.when(hzMock.getName()).thenReturn("test-hz-instance");
@@ -138,6 +143,27 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         executeAndJoin(singletonList(t));
     }
 
+    @Test
+    public void when_blockingTasklet_then_initOnBlockingThread() {
+        // Given
+        final String[] initThreadName = {null};
+        final MockTasklet t = new MockTasklet() {
+            @Override
+            public void init() {
+                initThreadName[0] = Thread.currentThread().getName();
+                super.init();
+            }
+        };
+        t.isBlocking = true;
+
+        // When
+        executeAndJoin(singletonList(t));
+
+        // Then
+        t.assertDone();
+        assertTrue(initThreadName[0], initThreadName[0].contains(".blocking."));
+    }
+
     @Test(expected = CompletionException.class)
     public void when_nonBlockingAndCallFails_then_futureFails() {
         // Given
@@ -296,6 +322,69 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         // -- assertions are inside TaskletAssertingThreadLocal and will fail, if t1 and t2 are running on the same thread
     }
 
+    @Test
+    public void when_workStealingAndSkewedLoad_then_taskletMovedToIdleWorker() {
+        es.shutdown(false);
+        es = new TaskletExecutionService(neMock, new InstanceConfig()
+                .setCooperativeThreadCount(THREAD_COUNT)
+                .setWorkStealingEnabled(true));
+        assertSkewedLoadSpreadOut();
+    }
+
+    @Test
+    public void when_loadBalancingAndSkewedLoad_then_taskletMovedToLeastLoadedWorker() {
+        es.shutdown(false);
+        es = new TaskletExecutionService(neMock, new InstanceConfig()
+                .setCooperativeThreadCount(THREAD_COUNT)
+                .setTaskletLoadBalancingEnabled(true));
+        assertSkewedLoadSpreadOut();
+    }
+
+    @Test
+    public void when_virtualThreadsAndBlockingTasks_then_executed() {
+        // Given
+        es.shutdown(false);
+        es = new TaskletExecutionService(neMock, new InstanceConfig()
+                .setCooperativeThreadCount(THREAD_COUNT)
+                .setVirtualThreadsEnabled(true));
+        final List<MockTasklet> tasklets =
+                Stream.generate(() -> new MockTasklet().blocking().callsBeforeDone(10))
+                      .limit(100)
+                      .collect(toList());
+
+        // When
+        executeAndJoin(tasklets);
+
+        // Then
+        tasklets.forEach(MockTasklet::assertDone);
+    }
+
+    private void assertSkewedLoadSpreadOut() {
+        // Given
+        // tasklets are assigned round-robin: the two busy ones end up on the same worker
+        BusyTasklet busy1 = new BusyTasklet();
+        BusyTasklet busy2 = new BusyTasklet();
+        List<Tasklet> tasklets = new ArrayList<>();
+        tasklets.add(busy1);
+        for (int i = 1; i < THREAD_COUNT; i++) {
+            tasklets.add(new MockTasklet().callsBeforeDone(0));
+        }
+        tasklets.add(busy2);
+
+        // When
+        CompletableFuture<Void> f = es.beginExecute(tasklets, cancellationFuture, classLoaderMock);
+
+        // Then
+        assertTrueEventually(() -> {
+            assertNotNull(busy1.lastThread);
+            assertNotNull(busy2.lastThread);
+            assertNotSame(busy1.lastThread, busy2.lastThread);
+        });
+        busy1.isDone = true;
+        busy2.isDone = true;
+        f.join();
+    }
+
     @Test
     public void when_tryCompleteOnReturnedFuture_then_fails() {
         // Given
@@ -441,6 +530,19 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         }
     }
 
+    private static class BusyTasklet implements Tasklet {
+
+        volatile Thread lastThread;
+        volatile boolean isDone;
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            lastThread = Thread.currentThread();
+            return isDone ? DONE : MADE_PROGRESS;
+        }
+    }
+
     private static class TaskletAssertingThreadLocal implements Tasklet {
 
         private static ThreadLocal<Integer> threadLocal = ThreadLocal.withInitial(() -> 0);
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class WakeupSignalTest extends HazelcastTestSupport {
+
+    @Test
+    public void when_targetParked_then_wakeUpUnparksIt() throws Exception {
+        // Given
+        WakeupSignal signal = new WakeupSignal();
+        WakeupSignal.Target target = new WakeupSignal.Target();
+        signal.setTarget(target);
+        CountDownLatch parking = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            target.parking();
+            parking.countDown();
+            // park without a timeout, only the signal can wake us up
+            while (!Thread.interrupted()) {
+                LockSupport.park();
+                // the signal clears the flag when it unparks us
+                if (!target.isParked()) {
+                    break;
+                }
+            }
+            target.unparked();
+        });
+        target.setThread(worker);
+        worker.start();
+        parking.await();
+
+        // When
+        signal.wakeUp();
+
+        // Then
+        worker.join(ASSERT_TRUE_EVENTUALLY_TIMEOUT * 1000L);
+        assertFalse("worker wasn't woken up", worker.isAlive());
+    }
+
+    @Test
+    public void when_wakeUpBeforeParking_then_parkingSkippedOnce() {
+        // Given
+        WakeupSignal signal = new WakeupSignal();
+        WakeupSignal.Target target = new WakeupSignal.Target();
+        signal.setTarget(target);
+
+        // When
+        // the producer adds an item after the worker checked its input
+        signal.wakeUp();
+
+        // Then
+        assertFalse(target.parking());
+        assertFalse(target.isParked());
+        assertTrue(target.parking());
+        target.unparked();
+    }
+
+    @Test
+    public void when_itemAddedAfterWorkerCheckedInput_then_workerDoesNotPark() throws Exception {
+        // Given
+        WakeupSignal signal = new WakeupSignal();
+        WakeupSignal.Target target = new WakeupSignal.Target();
+        signal.setTarget(target);
+        AtomicBoolean hasItem = new AtomicBoolean();
+        AtomicBoolean itemSeen = new AtomicBoolean();
+        CountDownLatch inputChecked = new CountDownLatch(1);
+        CountDownLatch itemAdded = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            // the worker finds no input...
+            if (!hasItem.get()) {
+                inputChecked.countDown();
+                // ...and the producer adds an item before the worker announces parking
+                awaitQuietly(itemAdded);
+                if (target.parking()) {
+                    // park without a timeout, only the signal can wake us up
+                    while (target.isParked() && !Thread.currentThread().isInterrupted()) {
+                        LockSupport.park();
+                    }
+                    target.unparked();
+                }
+            }
+            itemSeen.set(hasItem.get());
+        });
+        target.setThread(worker);
+        worker.start();
+        inputChecked.await();
+
+        // When
+        hasItem.set(true);
+        signal.wakeUp();
+        itemAdded.countDown();
+
+        // Then
+        worker.join(ASSERT_TRUE_EVENTUALLY_TIMEOUT * 1000L);
+        boolean alive = worker.isAlive();
+        worker.interrupt();
+        assertFalse("the wake-up was lost, the worker stayed parked", alive);
+        assertTrue(itemSeen.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class DeadlineIndexTest {
+
+    @Test
+    public void when_polled_then_entriesBeforeLimitInDeadlineOrder() {
+        // Given
+        DeadlineIndex<String> index = new DeadlineIndex<>(4);
+        index.add("c", 30);
+        index.add("a", 10);
+        index.add("b", 11);
+        index.add("a", 25);
+
+        // When
+        List<String> polled = new ArrayList<>();
+        while (index.poll(26)) {
+            polled.add(index.polledKey() + index.polledDeadline());
+        }
+
+        // Then
+        assertEquals(asList("a10", "b11", "a25"), polled);
+        assertEquals(1, index.size());
+        assertTrue(index.poll(31));
+        assertEquals("c", index.polledKey());
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void when_addedBelowPolledBucket_then_polledNext() {
+        // Given
+        DeadlineIndex<String> index = new DeadlineIndex<>(16);
+        index.add("a", 20);
+        index.add("b", 30);
+        assertTrue(index.poll(21));
+
+        // When
+        index.add("c", 18);
+
+        // Then
+        assertTrue(index.poll(21));
+        assertEquals("c", index.polledKey());
+        assertFalse(index.poll(21));
+    }
+
+    @Test
+    public void when_randomAddsAndPolls_then_sameAsPriorityQueue() {
+        Random random = new Random(1);
+        DeadlineIndex<Integer> index = new DeadlineIndex<>(64);
+        PriorityQueue<Long> expected = new PriorityQueue<>();
+        long limit = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (random.nextInt(3) > 0) {
+                long deadline = limit + random.nextInt(2000) - 100;
+                index.add(i, deadline);
+                expected.add(deadline);
+                continue;
+            }
+            limit += random.nextInt(50);
+            while (index.poll(limit)) {
+                assertEquals(expected.poll(), Long.valueOf(index.polledDeadline()));
+            }
+            assertTrue(expected.isEmpty() || expected.peek() >= limit);
+            assertEquals(expected.size(), index.size());
+        }
+    }
+}
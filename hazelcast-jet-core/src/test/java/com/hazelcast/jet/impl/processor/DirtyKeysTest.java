@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.SlidingWindowPolicy;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.datamodel.WindowResult;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotTombstone;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.ToLongFunction;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.tumblingWinPolicy;
+import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the processors tracking their {@link DirtyKeys} save only the
+ * changed keys to an incremental snapshot.
+ */
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(ParallelTest.class)
+public class DirtyKeysTest {
+
+    private final TestOutbox outbox = new TestOutbox(new int[] {128}, 128);
+    private boolean incremental;
+    private final ProcCtx context = new ProcCtx(null, 1, 1, new JobConfig().setIncrementalSnapshots(true),
+            Logger.getLogger(DirtyKeysTest.class), "v", 0, 0, EXACTLY_ONCE, 1, 0, 1, null) {
+        @Override
+        public boolean isIncrementalSnapshot() {
+            return incremental;
+        }
+    };
+
+    @Test
+    public void when_rollingAggregate_then_incrementalSnapshotHasChangedKeys() throws Exception {
+        // Given
+        RollingAggregateP<Entry<String, Long>, String, ?, Long, ?> p =
+                new RollingAggregateP<>(entryKey(), counting(), (item, key, result) -> entry(key, result));
+        p.init(outbox, context);
+        process(p, entry("a", 1L), entry("b", 1L));
+        assertEquals(asList("a", "b"), sorted(saveToSnapshot(p, false).keySet()));
+
+        // When
+        process(p, entry("b", 2L));
+        Map<Object, Object> delta = saveToSnapshot(p, true);
+
+        // Then
+        assertEquals(singletonList("b"), sorted(delta.keySet()));
+        assertEquals(2L, delta.get("b"));
+    }
+
+    @Test
+    public void when_sessionClosed_then_incrementalSnapshotHasTombstone() throws Exception {
+        // Given
+        SessionWindowP<String, ?, Long, WindowResult<String, Long>> p = new SessionWindowP<>(10, 0,
+                singletonList((ToLongFunction<Entry<String, Long>>) Entry::getValue), singletonList(entryKey()),
+                counting(), WindowResult::new);
+        p.init(outbox, context);
+        process(p, entry("a", 1L), entry("b", 1L), entry("c", 1L));
+        assertEquals(asList("a", "b", "c"), sorted(saveToSnapshot(p, false).keySet()));
+
+        // When
+        // "a" is closed, "b" has a new window
+        process(p, entry("b", 20L));
+        assertTrue(p.tryProcessWatermark(new Watermark(15)));
+        Map<Object, Object> delta = saveToSnapshot(p, true);
+
+        // Then
+        assertEquals(asList("a", "b", "c"), sorted(delta.keySet()));
+        assertSame(SnapshotTombstone.INSTANCE, delta.get("a"));
+        assertNotEquals(SnapshotTombstone.INSTANCE, delta.get("b"));
+        assertSame(SnapshotTombstone.INSTANCE, delta.get("c"));
+    }
+
+    @Test
+    public void when_slidingWindow_then_incrementalSnapshotHasChangedFrames() throws Exception {
+        // Given
+        SlidingWindowPolicy winPolicy = tumblingWinPolicy(10);
+        SlidingWindowP<String, ?, Long, WindowResult<String, Long>> p = new SlidingWindowP<>(
+                singletonList(entryKey()),
+                singletonList((ToLongFunction<Entry<String, Long>>) e -> winPolicy.floorFrameTs(e.getValue())),
+                winPolicy, 0, counting(), WindowResult::new, true);
+        p.init(outbox, context);
+        process(p, entry("a", 1L), entry("b", 11L));
+        assertEquals(asList("a", "b"), sorted(saveToSnapshot(p, false).keySet()));
+
+        // When
+        process(p, entry("c", 12L));
+        Map<Object, Object> delta = saveToSnapshot(p, true);
+
+        // Then
+        // the whole changed frame is saved
+        assertEquals(asList("b", "c"), sorted(delta.keySet()));
+    }
+
+    private void process(Processor p, Object... items) {
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(asList(items));
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+        outbox.drainQueueAndReset(0, new ArrayList<>(), false);
+    }
+
+    /**
+     * Saves the processor's state and returns the saved keys, without the
+     * broadcast keys, with their values.
+     */
+    private Map<Object, Object> saveToSnapshot(Processor p, boolean isIncremental) {
+        incremental = isIncremental;
+        assertTrue(p.saveToSnapshot());
+        List<Entry<Object, Object>> entries = new ArrayList<>();
+        outbox.drainSnapshotQueueAndReset(entries, false);
+        Map<Object, Object> result = new HashMap<>();
+        for (Entry<Object, Object> e : entries) {
+            Object key = e.getKey();
+            if (key instanceof BroadcastKey) {
+                continue;
+            }
+            result.put(key instanceof SnapshotKey ? ((SnapshotKey) key).key : key, e.getValue());
+        }
+        return result;
+    }
+
+    private static List<Object> sorted(Iterable<Object> keys) {
+        List<Object> result = new ArrayList<>();
+        keys.forEach(result::add);
+        result.sort(null);
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.function.DistributedComparator;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static com.hazelcast.jet.function.DistributedFunction.identity;
+import static java.util.Arrays.asList;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class DistributedSortPTest {
+
+    @Test
+    public void when_sortP_then_watermarkBeforeEachRange() {
+        verifyProcessor(() -> new SortP<String>(DistributedComparator.naturalOrder()))
+                .disableSnapshots()
+                .input(asList(entry(1, "b"), entry(2, "x"), entry(0, "z"), entry(1, "a")))
+                .expectOutput(asList(
+                        new Watermark(0), entry(0, "z"),
+                        new Watermark(1), entry(1, "a"), entry(1, "b"),
+                        new Watermark(2), entry(2, "x")));
+    }
+
+    @Test
+    public void when_mergeSortedRanges_then_rangesBeforeWatermarkEmitted() {
+        verifyProcessor(MergeSortedRangesP::new)
+                .disableSnapshots()
+                .input(asList(entry(2, "c1"), entry(0, "a1"), entry(0, "a2"), new Watermark(1),
+                        entry(1, "b1"), entry(2, "c2"), new Watermark(2)))
+                .expectOutput(asList("a1", "a2", "b1", "c1", "c2"));
+    }
+
+    @Test
+    public void when_sortMergeJoinWithNullKeys_then_nullKeysDropped() {
+        DistributedFunction<String, String> keyFn = s -> s.isEmpty() ? null : s.substring(0, 1);
+        verifyProcessor(() -> new SortMergeJoinP<String, String, String, String, String>(
+                keyFn, keyFn, identity(), DistributedComparator.naturalOrder(), (l, r) -> l + '|' + r))
+                .disableSnapshots()
+                .inputs(asList(
+                        asList("b1", "", "a1", "a2"),
+                        asList("c-x", "a-x", "", "a-y")))
+                .expectOutput(asList("a1|a-x", "a1|a-y", "a2|a-x", "a2|a-y"));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.hazelcast.jet.Util.entry;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class ExternalSorterTest {
+
+    private final InternalSerializationService serializationService =
+            new DefaultSerializationServiceBuilder().build();
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jet-sort-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void when_spilled_then_sortedAndFilesDeleted() throws IOException {
+        // Given
+        ExternalSorter<Integer> sorter = new ExternalSorter<>(Comparator.naturalOrder(), 100, directory,
+                serializationService);
+        List<Integer> input = IntStream.range(0, 1050).boxed().collect(toList());
+        Collections.shuffle(input);
+
+        // When
+        for (Integer i : input) {
+            sorter.add(i);
+        }
+
+        // Then
+        assertEquals(10, sorter.runCount());
+        assertEquals(1050, sorter.size());
+        assertEquals(IntStream.range(0, 1050).boxed().collect(toList()), drain(sorter.sorted()));
+        sorter.dispose();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals("run files not deleted", 0, files.count());
+        }
+    }
+
+    @Test
+    public void when_equalItems_then_orderOfAdditionKept() throws IOException {
+        // Given
+        ExternalSorter<Entry<Integer, Integer>> sorter = new ExternalSorter<>(
+                Entry.<Integer, Integer>comparingByKey(), 3, directory, serializationService);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            sorter.add(entry(i % 2, i));
+        }
+
+        // Then
+        List<Integer> values = drain(sorter.sorted()).stream().map(Entry::getValue).collect(toList());
+        assertEquals(asList(0, 2, 4, 6, 8, 1, 3, 5, 7, 9), values);
+        sorter.dispose();
+    }
+
+    @Test
+    public void when_noComparator_then_orderOfAddition() throws IOException {
+        // Given
+        ExternalSorter<String> sorter = new ExternalSorter<>(null, 2, directory, serializationService);
+
+        // When
+        sorter.add("c");
+        sorter.add("a");
+        sorter.add("b");
+
+        // Then
+        assertEquals(asList("c", "a", "b"), drain(sorter.sorted()));
+        sorter.dispose();
+    }
+
+    private static <T> List<T> drain(Traverser<T> traverser) {
+        List<T> result = new ArrayList<>();
+        for (T t = traverser.next(); t != null; t = traverser.next()) {
+            result.add(t);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.test.TestSupport;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.accumulator.FixedSizeAccumulatorCodec.longAccumulator;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.processor.Processors.aggregateByKeyP;
+import static com.hazelcast.jet.core.processor.Processors.rollingAggregateP;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class OffHeapAccumulatorTableTest extends JetTestSupport {
+
+    private static final AggregateOperation1<Object, LongAccumulator, Long> COUNTING =
+            counting().withFixedSizeCodec(longAccumulator());
+
+    private JetInstance instance;
+
+    @Before
+    public void setUp() {
+        instance = createJetMember();
+    }
+
+    @Test
+    public void when_groupWithFixedSizeCodec_then_aggregatedOffHeap() {
+        TestSupport
+                .verifyProcessor(aggregateByKeyP(singletonList(wholeItem()), COUNTING, Util::entry))
+                .jetInstance(instance)
+                .disableSnapshots()
+                .input(asList("a", "b", "a", "c", "a"))
+                .outputChecker(TestSupport.SAME_ITEMS_ANY_ORDER)
+                .expectOutput(asList(entry("a", 3L), entry("b", 1L), entry("c", 1L)));
+    }
+
+    @Test
+    public void when_rollingAggregateWithFixedSizeCodec_then_aggregatedAndRestoredOffHeap() {
+        TestSupport
+                .verifyProcessor(rollingAggregateP(wholeItem(), COUNTING, (item, key, count) -> entry(key, count)))
+                .jetInstance(instance)
+                .input(asList("a", "b", "a", "a"))
+                .expectOutput(asList(entry("a", 1L), entry("b", 1L), entry("a", 2L), entry("a", 3L)));
+    }
+}
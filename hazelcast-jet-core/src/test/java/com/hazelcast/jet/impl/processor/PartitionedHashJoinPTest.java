@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.core.IList;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.pipeline.BatchStage;
+import com.hazelcast.jet.pipeline.JoinClause;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.Sinks;
+import com.hazelcast.jet.pipeline.Sources;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.stream.Stream;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PartitionedHashJoinPTest extends JetTestSupport {
+
+    private static final int ITEM_COUNT = 1000;
+
+    private Path spillDirectory;
+    private JetInstance instance;
+
+    @Before
+    public void setUp() throws Exception {
+        spillDirectory = Files.createTempDirectory("jet-join-test");
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig()
+              .setJoinSpillThreshold(10)
+              .setSpillDirectory(spillDirectory.toString());
+        instance = createJetMember(config);
+    }
+
+    @Test
+    public void when_joinedStreamExceedsThreshold_then_spilledAndJoined() throws Exception {
+        // Given
+        IList<Integer> primary = instance.getList("primary");
+        IList<Entry<Integer, String>> joined = instance.getList("joined");
+        List<Entry<Integer, String>> expected = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            primary.add(i);
+            joined.add(entry(i, "value-" + i));
+            expected.add(entry(i, "value-" + i));
+        }
+        primary.add(-1);
+        expected.add(entry(-1, null));
+
+        // When
+        Pipeline p = Pipeline.create();
+        BatchStage<Entry<Integer, String>> joinedStage = p.drawFrom(Sources.list("joined"));
+        p.drawFrom(Sources.<Integer>list("primary"))
+         .hashJoin(joinedStage,
+                 JoinClause.<Integer, Integer, String>joinMapEntries(wholeItem()).partitioned(),
+                 (i, value) -> entry(i, value))
+         .drainTo(Sinks.list("sink"));
+        instance.newJob(p).join();
+
+        // Then
+        List<Entry<Integer, String>> actual = instance.<Entry<Integer, String>>getList("sink").stream()
+                .sorted(comparing(Entry::getKey))
+                .collect(toList());
+        expected.sort(comparing(Entry::getKey));
+        assertEquals(expected, actual);
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals("spill files not deleted", 0, files.count());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.accumulator.DoubleAccumulator;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.LongLongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.core.test.TestSupport;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.averagingLong;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.aggregate.AggregateOperations.summingDouble;
+import static com.hazelcast.jet.aggregate.AggregateOperations.summingLong;
+import static com.hazelcast.jet.core.processor.Processors.aggregateByKeyP;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PrimitiveAccumulatorTableTest {
+
+    @Test
+    public void when_countingManyKeys_then_countsPerKey() {
+        // Given
+        PrimitiveAccumulatorTable<Integer, LongAccumulator> table = PrimitiveAccumulatorTable.create(counting());
+        assertNotNull(table);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            table.accumulate(i % 1000, i);
+        }
+        table.accumulate(null, "x");
+
+        // Then
+        assertEquals(1001, table.size());
+        for (int id = 0; id < 1000; id++) {
+            assertEquals(Integer.valueOf(id), table.key(id));
+            assertEquals(new LongAccumulator(10), table.accumulator(id));
+        }
+        assertNull(table.key(1000));
+        assertEquals(new LongAccumulator(1), table.accumulator(1000));
+    }
+
+    @Test
+    public void when_averagingLong_then_countAndSum() {
+        // Given
+        PrimitiveAccumulatorTable<String, LongLongAccumulator> table =
+                PrimitiveAccumulatorTable.create(averagingLong((Long l) -> l));
+        assertNotNull(table);
+
+        // When
+        table.accumulate("a", 1L);
+        table.accumulate("b", 5L);
+        table.accumulate("a", 2L);
+
+        // Then
+        Entry<String, LongLongAccumulator> e = table.entries().next();
+        assertEquals("a", e.getKey());
+        assertEquals(new LongLongAccumulator(2, 3), e.getValue());
+    }
+
+    @Test
+    public void when_combinedIntoAccumulator_then_valuesAdded() {
+        // Given
+        PrimitiveAccumulatorTable<String, DoubleAccumulator> table =
+                PrimitiveAccumulatorTable.create(summingDouble((Double d) -> d));
+        assertNotNull(table);
+        table.accumulate("a", 1.5);
+        DoubleAccumulator acc = new DoubleAccumulator(1);
+
+        // When
+        table.combineInto(0, acc);
+
+        // Then
+        assertEquals(2.5, acc.export(), 0.0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void when_sumOverflows_then_exception() {
+        PrimitiveAccumulatorTable<String, LongAccumulator> table = PrimitiveAccumulatorTable.create(
+                summingLong((Long l) -> l));
+        assertNotNull(table);
+        table.accumulate("a", Long.MAX_VALUE);
+        table.accumulate("a", 1L);
+    }
+
+    @Test
+    public void when_createFnNotZero_then_notPrimitive() {
+        // Given
+        AggregateOperation1<Object, LongAccumulator, Long> aggrOp = AggregateOperation
+                .withCreate(() -> new LongAccumulator(1))
+                .andAccumulate(counting().accumulateFn())
+                .andExportFinish(LongAccumulator::get);
+
+        // When
+        PrimitiveAccumulatorTable<Object, LongAccumulator> table = PrimitiveAccumulatorTable.create(aggrOp);
+
+        // Then
+        assertNull(table);
+    }
+
+    @Test
+    public void when_groupWithCounting_then_aggregatedInPrimitiveTable() {
+        TestSupport
+                .verifyProcessor(aggregateByKeyP(singletonList(wholeItem()), counting(), Util::entry))
+                .disableSnapshots()
+                .input(asList("a", "b", "a", "c", "a"))
+                .expectOutput(asList(entry("a", 3L), entry("b", 1L), entry("c", 1L)));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SerializedLookupTableTest {
+
+    private static final InternalSerializationService SERIALIZATION_SERVICE =
+            new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void when_manyValues_then_eachFoundByKey() {
+        // Given
+        SerializedLookupTable<Integer, String> table = new SerializedLookupTable<>(SERIALIZATION_SERVICE);
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < SerializedLookupTable.PAGE_SIZE; i++) {
+            large.append('x');
+        }
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            table.put(i, "value-" + i);
+        }
+        table.put(-1, large.toString());
+        table.put(-2, null);
+
+        // Then
+        assertEquals(10_002, table.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("value-" + i, table.get(i));
+        }
+        assertEquals(large.toString(), table.get(-1));
+        assertNull(table.get(-2));
+        assertNull(table.get(10_000));
+        assertNull(table.get(null));
+    }
+
+    @Test
+    public void when_releasedBySomeUsers_then_stillReadable() {
+        // Given
+        SerializedLookupTable<String, String> table = new SerializedLookupTable<>(SERIALIZATION_SERVICE);
+        table.put("a", "1");
+
+        // When
+        table.release(3);
+        table.release(3);
+
+        // Then
+        assertEquals("1", table.get("a"));
+        table.release(3);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void when_duplicateKey_then_exception() {
+        SerializedLookupTable<String, String> table = new SerializedLookupTable<>(SERIALIZATION_SERVICE);
+        table.put("a", "1");
+        table.put("a", "2");
+    }
+}
@@ -188,6 +188,29 @@ public class SlidingWindowPTest {
                 ));
     }
 
+    @Test
+    public void when_manyWindowsSlide_then_eachWindowCombinesItsFrames() {
+        List<Object> input = new ArrayList<>();
+        List<Object> expectedOutput = new ArrayList<>();
+        for (long ts = 0; ts < 20; ts++) {
+            input.add(event(ts, ts + 1));
+        }
+        for (long winEnd = 0; winEnd < 23; winEnd++) {
+            input.add(wm(winEnd));
+            long sum = 0;
+            for (long ts = Math.max(0, winEnd - 3); ts <= Math.min(winEnd, 19); ts++) {
+                sum += ts + 1;
+            }
+            expectedOutput.add(outboxFrame(winEnd, sum));
+            expectedOutput.add(wm(winEnd));
+        }
+
+        verifyProcessor(supplier)
+                .disableCompleteCall()
+                .input(input)
+                .expectOutput(expectedOutput);
+    }
+
     @Test
     public void when_receiveDescendingTimestamps_then_emitAscending() {
         verifyProcessor(supplier)
@@ -16,8 +16,11 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.jet.core.TimestampKind;
 import com.hazelcast.jet.core.test.TestSupport;
 import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import com.hazelcast.test.annotation.ParallelTest;
 import org.junit.Rule;
@@ -27,12 +30,17 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
 import java.util.HashSet;
+import java.util.Map.Entry;
 import java.util.Set;
 
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
 import static com.hazelcast.jet.aggregate.AggregateOperations.toSet;
 import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
 import static com.hazelcast.jet.core.processor.Processors.combineToSlidingWindowP;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 
 @Category(ParallelTest.class)
 @RunWith(HazelcastParallelClassRunner.class)
@@ -60,6 +68,31 @@ public class SlidingWindowP_FrameCombiningTest {
                 ));
     }
 
+    @Test
+    public void when_primitiveAggregateOperation_then_combineFramesIntoSlidingWindow() {
+        DistributedFunction<?, Long> keyFn = t -> KEY;
+        DistributedToLongFunction<Entry<Long, String>> timestampFn = Entry::getKey;
+        TestSupport
+                .verifyProcessor(aggregateToSlidingWindowP(
+                        singletonList(keyFn),
+                        singletonList(timestampFn),
+                        TimestampKind.EVENT,
+                        slidingWinPolicy(8, 4),
+                        0L,
+                        counting(),
+                        TimestampedEntry::fromWindowResult))
+                .input(asList(
+                        entry(1L, "a"),
+                        entry(2L, "b"),
+                        entry(5L, "c")
+                ))
+                .expectOutput(asList(
+                        frame(4, 2L),
+                        frame(8, 3L),
+                        frame(12, 1L)
+                ));
+    }
+
     private <V> TimestampedEntry<Long, V> frame(long ts, V value) {
         return new TimestampedEntry<>(ts, KEY, value);
     }
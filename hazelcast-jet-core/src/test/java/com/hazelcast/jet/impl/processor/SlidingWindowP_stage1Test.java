@@ -83,6 +83,8 @@ public class SlidingWindowP_stage1Test {
         for (SlidingWindowP processor : suppliedProcessors) {
             assertTrue("map not empty after emitting everything: " + processor.tsToKeyToAcc,
                     processor.tsToKeyToAcc.isEmpty());
+            assertTrue("primitive frames not empty after emitting everything: " + processor.tsToPrimitiveFrame,
+                    processor.tsToPrimitiveFrame.isEmpty());
         }
     }
 
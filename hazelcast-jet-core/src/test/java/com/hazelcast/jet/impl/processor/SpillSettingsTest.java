@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.test.TestProcessorSupplierContext;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.toList;
+import static com.hazelcast.jet.core.processor.Processors.aggregateByKeyP;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class SpillSettingsTest extends JetTestSupport {
+
+    @Test
+    public void when_groupingSpillThresholdSet_then_groupPNonCooperativeBeforeInit() {
+        // Given
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setGroupingSpillThreshold(10);
+        JetInstance instance = createJetMember(config);
+
+        // When
+        Processor processor = groupP(instance);
+
+        // Then
+        assertFalse(processor.isCooperative());
+    }
+
+    @Test
+    public void when_groupingSpillThresholdNotSet_then_groupPCooperative() {
+        // Given
+        JetInstance instance = createJetMember();
+
+        // When
+        Processor processor = groupP(instance);
+
+        // Then
+        assertTrue(processor.isCooperative());
+    }
+
+    private static Processor groupP(JetInstance instance) {
+        DistributedFunction<String, String> keyFn = wholeItem();
+        ProcessorSupplier supplier = aggregateByKeyP(singletonList(keyFn), toList(), Util::entry);
+        supplier.init(new TestProcessorSupplierContext().setJetInstance(instance));
+        return supplier.get(1).iterator().next();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SpilledRunsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final InternalSerializationService serializationService =
+            new DefaultSerializationServiceBuilder().build();
+    private SpilledRuns<String, long[]> runs;
+
+    @Before
+    public void before() {
+        runs = new SpilledRuns<>(folder.getRoot().toPath(), serializationService);
+    }
+
+    @After
+    public void after() throws IOException {
+        runs.dispose();
+    }
+
+    @Test
+    public void when_keysInMultipleRuns_then_mergedAndCombined() throws IOException {
+        // Given
+        Map<String, long[]> expected = new HashMap<>();
+        for (int run = 0; run < 3; run++) {
+            Map<String, long[]> keyToAcc = new HashMap<>();
+            for (int i = run; i < 100; i += run + 1) {
+                keyToAcc.put("key" + i, new long[] {i});
+                expected.computeIfAbsent("key" + i, k -> new long[1])[0] += i;
+            }
+            runs.spill(keyToAcc);
+            assertEquals(0, keyToAcc.size());
+        }
+
+        // When
+        Traverser<Entry<String, long[]>> merged = runs.merge((acc1, acc2) -> acc1[0] += acc2[0]);
+
+        // Then
+        Map<String, Long> actual = new HashMap<>();
+        for (Entry<String, long[]> e; (e = merged.next()) != null; ) {
+            assertNull("duplicate key " + e.getKey(), actual.put(e.getKey(), e.getValue()[0]));
+        }
+        assertEquals(expected.size(), actual.size());
+        expected.forEach((key, acc) -> assertEquals(key, (Long) acc[0], actual.get(key)));
+    }
+
+    @Test
+    public void when_dispose_then_filesDeleted() throws IOException {
+        // Given
+        Map<String, long[]> keyToAcc = new HashMap<>();
+        keyToAcc.put("a", new long[] {1});
+        runs.spill(keyToAcc);
+        assertEquals(1, folder.getRoot().list().length);
+
+        // When
+        runs.dispose();
+
+        // Then
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void when_disposeAfterMerge_then_filesUnmappedAndDeleted() throws IOException {
+        // Given
+        Map<String, long[]> keyToAcc = new HashMap<>();
+        keyToAcc.put("a", new long[] {1});
+        runs.spill(keyToAcc);
+        keyToAcc.put("a", new long[] {2});
+        runs.spill(keyToAcc);
+        Traverser<Entry<String, long[]>> merged = runs.merge((acc1, acc2) -> acc1[0] += acc2[0]);
+        assertEquals(3, merged.next().getValue()[0]);
+
+        // When
+        runs.dispose();
+
+        // Then
+        assertEquals(0, folder.getRoot().list().length);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static com.hazelcast.jet.impl.snapshot.LocalDiskSnapshotStore.readerOf;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class LocalDiskSnapshotStoreTest {
+
+    private final List<String> replicas = asList("a", "b", "c");
+
+    @Test
+    public void when_writerLive_then_writerReads() {
+        assertEquals("a", readerOf("a", replicas, asList("c", "b", "a")));
+    }
+
+    @Test
+    public void when_writerGone_then_firstLiveReplicaReads() {
+        assertEquals("c", readerOf("a", replicas, asList("c", "d")));
+    }
+
+    @Test
+    public void when_allReplicasGone_then_noReader() {
+        assertNull(readerOf("a", replicas, asList("d", "e")));
+    }
+}
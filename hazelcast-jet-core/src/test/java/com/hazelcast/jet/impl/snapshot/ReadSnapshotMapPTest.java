@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.core.IMap;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class ReadSnapshotMapPTest extends JetTestSupport {
+
+    // more than the buffer of the processor holds
+    private static final int NUM_CHUNKS = 1000;
+    private static final String FAILING_MAP_NAME = "failing";
+
+    private static volatile boolean failWrites;
+
+    private JetInstance instance;
+    private ReadSnapshotMapP processor;
+    private TestOutbox outbox;
+
+    @Before
+    public void setup() {
+        JetConfig config = new JetConfig();
+        // the values are serialized when the entries are fetched
+        config.getHazelcastConfig().getMapConfig(FAILING_MAP_NAME).setInMemoryFormat(InMemoryFormat.OBJECT);
+        instance = createJetMember(config);
+        failWrites = false;
+    }
+
+    @After
+    public void after() {
+        failWrites = false;
+    }
+
+    @Test
+    public void when_moreChunksThanBuffer_then_allEmitted() throws Exception {
+        // Given
+        IMap<Integer, Integer> map = instance.getMap(randomMapName());
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < NUM_CHUNKS; i++) {
+            expected.put(i, -i);
+        }
+        map.putAll(expected);
+        init(map.getName(), 0, 1);
+
+        // When
+        Map<Object, Object> actual = new HashMap<>();
+        for (Object item : run()) {
+            Entry<?, ?> e = (Entry<?, ?>) item;
+            actual.put(e.getKey(), e.getValue());
+        }
+
+        // Then
+        assertEquals(expected, actual);
+        assertEquals(NUM_CHUNKS, probeValue("fetchedChunks"));
+    }
+
+    @Test
+    public void when_twoProcessors_then_eachReadsItsPartitions() {
+        // Given
+        IMap<Integer, Integer> map = instance.getMap(randomMapName());
+        for (int i = 0; i < NUM_CHUNKS; i++) {
+            map.put(i, i);
+        }
+
+        // When
+        init(map.getName(), 0, 2);
+        List<Object> output0 = run();
+        init(map.getName(), 1, 2);
+        List<Object> output1 = run();
+
+        // Then
+        assertEquals(NUM_CHUNKS, output0.size() + output1.size());
+        for (Object item : output0) {
+            int partitionId = instance.getHazelcastInstance().getPartitionService()
+                                      .getPartition(((Entry) item).getKey()).getPartitionId();
+            assertEquals(0, partitionId % 2);
+        }
+    }
+
+    @Test
+    public void when_fetchFails_then_completeFails() {
+        // Given
+        IMap<Integer, FailingValue> map = instance.getMap(FAILING_MAP_NAME);
+        for (int i = 0; i < NUM_CHUNKS; i++) {
+            map.put(i, new FailingValue());
+        }
+        failWrites = true;
+        init(FAILING_MAP_NAME, 0, 1);
+
+        // When
+        try {
+            run();
+            fail("complete() didn't fail");
+        } catch (Exception e) {
+            // Then
+            assertTrue("unexpected exception: " + e, e.toString().contains("mock failure"));
+        }
+    }
+
+    private void init(String mapName, int processorIndex, int localParallelism) {
+        processor = new ReadSnapshotMapP(mapName);
+        outbox = new TestOutbox(1);
+        processor.init(outbox, new TestProcessorContext()
+                .setJetInstance(instance)
+                .setLocalProcessorIndex(processorIndex)
+                .setGlobalProcessorIndex(processorIndex)
+                .setLocalParallelism(localParallelism)
+                .setTotalParallelism(localParallelism));
+    }
+
+    private List<Object> run() {
+        List<Object> output = new ArrayList<>();
+        boolean done;
+        do {
+            done = processor.complete();
+            outbox.drainQueueAndReset(0, output, false);
+        } while (!done);
+        return output;
+    }
+
+    private long probeValue(String fieldName) throws Exception {
+        Field field = ReadSnapshotMapP.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return ((Number) field.get(processor)).longValue();
+    }
+
+    public static final class FailingValue implements DataSerializable {
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            if (failWrites) {
+                throw new IOException("mock failure");
+            }
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) {
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.snapshot;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Map.Entry;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SnapshotSegmentTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void when_recordsAppended_then_readInOrder() throws IOException {
+        // Given
+        Path path = folder.getRoot().toPath().resolve("0.segment");
+        SnapshotSegment segment = SnapshotSegment.create(path, 1024);
+
+        // When
+        assertTrue(segment.append(bytes("k1"), bytes("value1")));
+        assertTrue(segment.append(bytes("k2"), new byte[0]));
+        segment.close();
+
+        // Then
+        Traverser<Entry<byte[], byte[]>> records = SnapshotSegment.records(path);
+        Entry<byte[], byte[]> record = records.next();
+        assertArrayEquals(bytes("k1"), record.getKey());
+        assertArrayEquals(bytes("value1"), record.getValue());
+        record = records.next();
+        assertArrayEquals(bytes("k2"), record.getKey());
+        assertArrayEquals(new byte[0], record.getValue());
+        assertNull(records.next());
+    }
+
+    @Test
+    public void when_recordDoesNotFit_then_notAppended() throws IOException {
+        // Given
+        Path path = folder.getRoot().toPath().resolve("0.segment");
+        byte[] key = bytes("key");
+        byte[] value = new byte[100];
+        SnapshotSegment segment = SnapshotSegment.create(path, SnapshotSegment.recordSize(key, value) + 10);
+        assertTrue(segment.append(key, value));
+
+        // When
+        boolean appended = segment.append(key, value);
+        segment.close();
+
+        // Then
+        assertFalse(appended);
+        Traverser<Entry<byte[], byte[]>> records = SnapshotSegment.records(path);
+        assertArrayEquals(key, records.next().getKey());
+        assertNull(records.next());
+    }
+
+    @Test
+    public void when_keysRead_then_valuesSkipped() throws IOException {
+        // Given
+        Path path = folder.getRoot().toPath().resolve("0.segment");
+        SnapshotSegment segment = SnapshotSegment.create(path, 1024);
+        segment.append(bytes("k1"), new byte[100]);
+        segment.append(bytes("k2"), bytes("value2"));
+        segment.close();
+
+        // When
+        Traverser<byte[]> keys = SnapshotSegment.keys(path);
+
+        // Then
+        assertArrayEquals(bytes("k1"), keys.next());
+        assertArrayEquals(bytes("k2"), keys.next());
+        assertNull(keys.next());
+        assertNull(keys.next());
+    }
+
+    @Test(expected = JetException.class)
+    public void when_recordCorrupted_then_exception() throws IOException {
+        // Given
+        Path path = folder.getRoot().toPath().resolve("0.segment");
+        SnapshotSegment segment = SnapshotSegment.create(path, 1024);
+        segment.append(bytes("key"), bytes("value"));
+        segment.close();
+
+        // When
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(SnapshotSegment.HEADER_SIZE);
+            file.write('x');
+        }
+
+        // Then
+        SnapshotSegment.records(path).next();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(UTF_8);
+    }
+}
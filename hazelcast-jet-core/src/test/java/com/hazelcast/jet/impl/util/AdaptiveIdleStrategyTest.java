@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class AdaptiveIdleStrategyTest {
+
+    private final AdaptiveIdleStrategy idler = new AdaptiveIdleStrategy();
+
+    @Test
+    public void when_alwaysProgress_then_hitRateApproachesOne() {
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            idler.iterationDone(true);
+        }
+
+        // Then
+        assertEquals(1.0, idler.hitRate(), 0.01);
+    }
+
+    @Test
+    public void when_highHitRate_then_spinsWithoutParking() {
+        // Given
+        for (int i = 0; i < 10_000; i++) {
+            idler.iterationDone(true);
+        }
+
+        // When
+        long start = System.nanoTime();
+        for (int n = 1; n <= 100; n++) {
+            assertFalse(idler.idle(n));
+        }
+
+        // Then
+        assertTrue("spinning took too long", System.nanoTime() - start < 100_000_000);
+    }
+
+    @Test
+    public void when_noProgress_then_reachesMaxPark() {
+        // Given
+        for (int i = 0; i < 10_000; i++) {
+            idler.iterationDone(false);
+        }
+
+        // When - Then
+        boolean maxReached = false;
+        for (int n = 1; n <= 64 && !maxReached; n++) {
+            maxReached = idler.idle(n);
+        }
+        assertTrue(maxReached);
+    }
+}
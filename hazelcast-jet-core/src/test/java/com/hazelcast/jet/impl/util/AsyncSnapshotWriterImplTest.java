@@ -28,6 +28,7 @@ import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.core.JetTestSupport;
 import com.hazelcast.jet.impl.JetService;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
+import com.hazelcast.jet.impl.snapshot.CompressedSnapshotChunk;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.CustomByteArrayOutputStream;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
@@ -55,11 +56,13 @@ import java.util.stream.Stream;
 
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static java.util.Collections.singletonMap;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Stream.generate;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -78,6 +81,7 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
     private InternalSerializationService serializationService;
     private InternalPartitionService partitionService;
     private SnapshotContext snapshotContext;
+    private NodeEngineImpl nodeEngine;
 
     @Before
     public void before() {
@@ -89,7 +93,7 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
               .setImplementation(new AlwaysFailingMapStore());
 
         JetInstance instance = createJetMember(jetConfig);
-        NodeEngineImpl nodeEngine = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).node.nodeEngine;
+        nodeEngine = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).node.nodeEngine;
         serializationService = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).getSerializationService();
         partitionService = nodeEngine.getPartitionService();
         snapshotContext = mock(SnapshotContext.class);
@@ -197,6 +201,35 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
         assertEquals(SnapshotDataValueTerminator.INSTANCE, in.readObject());
     }
 
+    @Test
+    public void when_compressionEnabled_then_chunkCompressedAndDecompressesCorrectly() throws IOException {
+        // Given
+        AsyncSnapshotWriterImpl compressingWriter =
+                new AsyncSnapshotWriterImpl(1024, nodeEngine, snapshotContext, "vertex2", 0, 1, true);
+        String key = "k";
+        String value = generate(() -> "abc").limit(200).collect(joining());
+
+        // When
+        assertTrue(compressingWriter.offer(entry(serialize(key), serialize(value))));
+        assertTrue(compressingWriter.flushAndResetMap());
+        assertTrueEventually(() -> assertFalse(uncheckCall(compressingWriter::hasPendingAsyncOps)));
+
+        // Then
+        assertTrue(compressingWriter.getTotalCompressedPayloadBytes() < compressingWriter.getTotalPayloadBytes() / 2);
+        Entry<String, byte[]> dictionary = compressingWriter.getDictionary();
+        assertNotNull(dictionary);
+        int partitionKey = compressingWriter.partitionKey(partitionService.getPartitionId(key));
+        IMap<SnapshotDataKey, Object> rawMap = nodeEngine.getHazelcastInstance().getMap("map1");
+        Object chunk = rawMap.get(new SnapshotDataKey(partitionKey, 1, "vertex2", 0));
+        assertInstanceOf(CompressedSnapshotChunk.class, chunk);
+        byte[] data = ((CompressedSnapshotChunk) chunk)
+                .decompress("vertex2", singletonMap(dictionary.getKey(), dictionary.getValue()));
+        BufferObjectDataInput in = serializationService.createObjectDataInput(data);
+        assertEquals(key, in.readObject());
+        assertEquals(value, in.readObject());
+        assertEquals(SnapshotDataValueTerminator.INSTANCE, in.readObject());
+    }
+
     @Test
     public void when_cannotAutoFlush_then_offerReturnsFalse() {
         // When
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class Lz4CodecTest {
+
+    private final Lz4Codec codec = new Lz4Codec();
+    private final Random random = new Random(42);
+
+    @Test
+    public void when_empty_then_roundTrips() {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    public void when_shorterThanMinMatch_then_roundTrips() {
+        assertRoundTrip(new byte[] {1, 2, 3, 1, 2, 3, 1, 2, 3});
+    }
+
+    @Test
+    public void when_randomData_then_roundTrips() {
+        byte[] data = new byte[100_000];
+        random.nextBytes(data);
+        assertRoundTrip(data);
+    }
+
+    @Test
+    public void when_repetitiveData_then_compressed() {
+        byte[] data = new byte[100_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 10);
+        }
+        int compressedLength = assertRoundTrip(data);
+        assertTrue("compressedLength=" + compressedLength, compressedLength < data.length / 100);
+    }
+
+    @Test
+    public void when_lowEntropyData_then_roundTrips() {
+        for (int i = 0; i < 1000; i++) {
+            byte[] data = new byte[random.nextInt(1000)];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) random.nextInt(4);
+            }
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void when_offsets_then_respected() {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 7);
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(900) + 10];
+        int compressedLength = codec.compress(data, 50, 900, compressed, 10);
+        byte[] decompressed = new byte[920];
+        assertEquals(900, Lz4Codec.decompress(compressed, 10, compressedLength, decompressed, 20, 900));
+        assertArrayEquals(Arrays.copyOfRange(data, 50, 950), Arrays.copyOfRange(decompressed, 20, 920));
+    }
+
+    @Test
+    public void when_dictionary_then_matchesReferToIt() {
+        // Given
+        byte[] dictionary = new byte[1000];
+        random.nextBytes(dictionary);
+        byte[] data = Arrays.copyOfRange(dictionary, 100, 600);
+        byte[] src = new byte[dictionary.length + data.length];
+        System.arraycopy(dictionary, 0, src, 0, dictionary.length);
+        System.arraycopy(data, 0, src, dictionary.length, data.length);
+
+        // When
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(data.length)];
+        int compressedLength = codec.compress(src, 0, dictionary.length, data.length, compressed, 0);
+
+        // Then
+        assertTrue("compressedLength=" + compressedLength, compressedLength < 50);
+        byte[] dest = Arrays.copyOf(dictionary, dictionary.length + data.length);
+        assertEquals(data.length, Lz4Codec.decompress(compressed, 0, compressedLength, dest, 0, dictionary.length,
+                data.length));
+        assertArrayEquals(data, Arrays.copyOfRange(dest, dictionary.length, dest.length));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_outputTooSmall_then_fails() {
+        byte[] data = new byte[1000];
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(data.length)];
+        int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+        Lz4Codec.decompress(compressed, 0, compressedLength, new byte[999], 0, 999);
+    }
+
+    private int assertRoundTrip(byte[] data) {
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(data.length)];
+        int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+        byte[] decompressed = new byte[data.length];
+        assertEquals(data.length,
+                Lz4Codec.decompress(compressed, 0, compressedLength, decompressed, 0, decompressed.length));
+        assertArrayEquals(data, decompressed);
+        return compressedLength;
+    }
+}
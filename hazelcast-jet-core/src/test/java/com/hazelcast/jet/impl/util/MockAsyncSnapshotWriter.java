@@ -83,6 +83,11 @@ public class MockAsyncSnapshotWriter implements AsyncSnapshotWriter {
         return 0;
     }
 
+    @Override
+    public long getTotalCompressedPayloadBytes() {
+        return 0;
+    }
+
     @Override
     public long getTotalKeys() {
         return 0;
@@ -92,4 +97,9 @@ public class MockAsyncSnapshotWriter implements AsyncSnapshotWriter {
     public long getTotalChunks() {
         return 0;
     }
+
+    @Override
+    public Entry<String, byte[]> getDictionary() {
+        return null;
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SerializedKeyHashTableTest {
+
+    private final SerializedKeyHashTable table = new SerializedKeyHashTable(new byte[Long.BYTES], 1);
+
+    @Test
+    public void when_insertNewKey_then_initialValue() {
+        // Given
+        SerializedKeyHashTable table = new SerializedKeyHashTable(new byte[] {1, 2, 3}, 1);
+
+        // When
+        int slot = table.findOrInsert(bytes("a"));
+
+        // Then
+        assertEquals(1, table.size());
+        assertEquals(1, table.values().get(table.valueOffset(slot)));
+        assertEquals(2, table.values().get(table.valueOffset(slot) + 1));
+        assertEquals(3, table.values().get(table.valueOffset(slot) + 2));
+        assertArrayEquals(bytes("a"), table.key(slot));
+    }
+
+    @Test
+    public void when_findExistingKey_then_sameSlot() {
+        // Given
+        int slot = table.findOrInsert(bytes("a"));
+        table.findOrInsert(bytes("b"));
+
+        // When - Then
+        assertEquals(slot, table.findOrInsert(bytes("a")));
+        assertEquals(slot, table.find(bytes("a")));
+        assertEquals(-1, table.find(bytes("c")));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void when_manyKeys_then_valuesSurviveResize() {
+        // Given
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            String key = "key" + random.nextInt(20_000);
+            int slot = table.findOrInsert(bytes(key));
+            int offset = table.valueOffset(slot);
+            table.values().putLong(offset, table.values().getLong(offset) + 1);
+            expected.merge(key, 1L, Long::sum);
+        }
+
+        // Then
+        assertEquals(expected.size(), table.size());
+        int count = 0;
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            if (table.isOccupied(slot)) {
+                count++;
+                String key = new String(table.key(slot), UTF_8);
+                assertEquals(key, expected.get(key), (Long) table.values().getLong(table.valueOffset(slot)));
+            }
+        }
+        assertEquals(expected.size(), count);
+    }
+
+    @Test
+    public void when_keyLargerThanPage_then_stored() {
+        // Given
+        byte[] largeKey = new byte[SerializedKeyHashTable.PAGE_SIZE + 1];
+        largeKey[largeKey.length - 1] = 1;
+        table.findOrInsert(bytes("small"));
+
+        // When
+        int slot = table.findOrInsert(largeKey);
+
+        // Then
+        assertArrayEquals(largeKey, table.key(slot));
+        assertEquals(slot, table.find(largeKey));
+        assertArrayEquals(bytes("small"), table.key(table.find(bytes("small"))));
+    }
+
+    @Test
+    public void when_clear_then_empty() {
+        // Given
+        table.findOrInsert(bytes("a"));
+
+        // When
+        table.clear();
+
+        // Then
+        assertEquals(0, table.size());
+        assertEquals(-1, table.find(bytes("a")));
+        int slot = table.findOrInsert(bytes("b"));
+        assertTrue(table.isOccupied(slot));
+        assertNotEquals(-1, table.find(bytes("b")));
+    }
+
+    @Test
+    public void when_disposedAndCleared_then_usableAgain() {
+        // Given
+        for (int i = 0; i < 10_000; i++) {
+            table.findOrInsert(bytes("key" + i));
+        }
+
+        // When
+        table.dispose();
+        table.clear();
+
+        // Then
+        assertEquals(0, table.size());
+        assertEquals(-1, table.find(bytes("key0")));
+        int slot = table.findOrInsert(bytes("key0"));
+        assertArrayEquals(bytes("key0"), table.key(slot));
+        assertEquals(0, table.values().getLong(table.valueOffset(slot)));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(UTF_8);
+    }
+}
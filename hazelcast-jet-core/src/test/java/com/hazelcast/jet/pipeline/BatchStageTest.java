@@ -26,11 +26,13 @@ import com.hazelcast.jet.datamodel.Tag;
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.function.DistributedBiFunction;
+import com.hazelcast.jet.function.DistributedComparator;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedPredicate;
 import com.hazelcast.jet.function.TriFunction;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -55,6 +57,7 @@ import static java.util.Collections.emptyList;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class BatchStageTest extends PipelineTestSupport {
@@ -481,6 +484,138 @@ public class BatchStageTest extends PipelineTestSupport {
                 streamToString(sinkStreamOfEntry(), formatFn));
     }
 
+    @Test
+    public void hashJoin_offHeap() {
+        assertHashJoin(JoinClause.<Integer, Integer, String>joinMapEntries(wholeItem()).offHeap());
+    }
+
+    @Test
+    public void hashJoin_partitioned() {
+        assertHashJoin(JoinClause.<Integer, Integer, String>joinMapEntries(wholeItem()).partitioned());
+    }
+
+    @Test
+    public void hashJoin_partitionedOffHeap() {
+        assertHashJoin(JoinClause.<Integer, Integer, String>joinMapEntries(wholeItem()).partitioned().offHeap());
+    }
+
+    private void assertHashJoin(JoinClause<Integer, Integer, Entry<Integer, String>, String> joinClause) {
+        // Given
+        List<Integer> input = sequence(itemCount);
+        String prefix = "value-";
+        BatchStage<Entry<Integer, String>> enrichingStage =
+                batchStageFromList(input).map(i -> entry(i, prefix + i));
+
+        // When
+        BatchStage<Entry<Integer, String>> joined = batchStageFromList(input).hashJoin(
+                enrichingStage,
+                joinClause,
+                (i, enriching) -> entry(i, enriching));
+
+        // Then
+        joined.drainTo(sink);
+        execute();
+        Function<Entry<Integer, String>, String> formatFn =
+                e -> String.format("(%04d, %s)", e.getKey(), e.getValue());
+        assertEquals(
+                streamToString(input.stream().map(i -> tuple2(i, prefix + i)), formatFn),
+                streamToString(sinkStreamOfEntry(), formatFn));
+    }
+
+    @Test
+    public void sort() {
+        // Given
+        List<Integer> input = IntStream.range(0, 2 * itemCount)
+                                       .map(i -> i % itemCount)
+                                       .boxed().collect(toList());
+        Collections.shuffle(input);
+
+        // When
+        BatchStage<Integer> sorted = batchStageFromList(input).sort(DistributedComparator.reverseOrder());
+
+        // Then
+        sorted.drainTo(sink);
+        execute();
+        input.sort(Collections.reverseOrder());
+        assertEquals(input, new ArrayList<>(sinkList));
+    }
+
+    @Test
+    public void sort_when_skewedData_then_globallyOrdered() {
+        // Given
+        // half of the items have the same value, the rest are mostly on one end
+        List<Integer> input = IntStream.range(0, 4 * itemCount)
+                                       .map(i -> i % 2 == 0 ? itemCount : i % 10 == 1 ? i : i % 100)
+                                       .boxed().collect(toList());
+        Collections.shuffle(input);
+
+        // When
+        BatchStage<Integer> sorted = batchStageFromList(input).sort(DistributedComparator.naturalOrder());
+
+        // Then
+        sorted.drainTo(sink);
+        execute();
+        input.sort(null);
+        assertEquals(input, new ArrayList<>(sinkList));
+    }
+
+    @Test
+    public void sortMergeJoin() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+        Collections.shuffle(input);
+        String prefix = "value-";
+        // two joined items for the even keys, none for the odd ones
+        BatchStage<Entry<Integer, String>> enrichingStage = batchStageFromList(input)
+                .filter(i -> i % 2 == 0)
+                .flatMap(i -> traverseItems(entry(i, prefix + i), entry(i, prefix + -i)));
+
+        // When
+        BatchStage<Entry<Integer, String>> joined = batchStageFromList(input).sortMergeJoin(
+                enrichingStage,
+                joinMapEntries(wholeItem()),
+                DistributedComparator.naturalOrder(),
+                Util::entry);
+
+        // Then
+        joined.drainTo(sink);
+        execute();
+        Function<Entry<Integer, String>, String> formatFn =
+                e -> String.format("(%04d, %s)", e.getKey(), e.getValue());
+        assertEquals(
+                streamToString(input.stream()
+                                    .filter(i -> i % 2 == 0)
+                                    .flatMap(i -> Stream.of(entry(i, prefix + i), entry(i, prefix + -i))),
+                        formatFn),
+                streamToString(sinkStreamOfEntry(), formatFn));
+    }
+
+    @Test
+    public void when_largeEstimatedSize_then_partitionedJoinPlanned() {
+        // Given
+        BatchStage<Integer> stage = batchStageFromList(sequence(itemCount));
+        JoinClause<Integer, Integer, Entry<Integer, Integer>, Integer> clause =
+                JoinClause.<Integer, Integer, Integer>joinMapEntries(wholeItem())
+                        .estimatedSize(JoinClause.AUTO_PARTITIONED_MIN_SIZE);
+
+        // When
+        stage.hashJoin(stage.map(i -> entry(i, i)), clause, (i, j) -> i).drainTo(sink);
+
+        // Then
+        p.toDag().forEach(v -> assertFalse(v.getName(), v.getName().contains("collector")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_partitionedClauseNotAlone_then_exception() {
+        BatchStage<Integer> stage = batchStageFromList(sequence(itemCount));
+        JoinClause<Integer, Integer, Entry<Integer, Integer>, Integer> partitionedClause =
+                JoinClause.<Integer, Integer, Integer>joinMapEntries(wholeItem()).partitioned();
+        stage.hashJoin2(
+                stage.map(i -> entry(i, i)), partitionedClause,
+                stage.map(i -> entry(i, i)), joinMapEntries(wholeItem()),
+                (t1, t2, t3) -> t1);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void hashJoin2() {
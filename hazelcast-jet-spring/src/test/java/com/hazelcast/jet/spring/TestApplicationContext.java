@@ -102,6 +102,9 @@ public class TestApplicationContext {
         assertEquals(8, edgeConfig.getQueueSize());
         assertEquals(3, edgeConfig.getPacketSizeLimit());
         assertEquals(5, edgeConfig.getReceiveWindowMultiplier());
+        assertTrue(edgeConfig.isPacketCompressionEnabled());
+        assertTrue(edgeConfig.isColumnarEncodingEnabled());
+        assertTrue(edgeConfig.isAdaptiveFlowControlEnabled());
 
         assertEquals("bar", jetConfig.getProperties().getProperty("foo"));
 